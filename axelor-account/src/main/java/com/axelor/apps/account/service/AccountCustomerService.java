@@ -20,7 +20,9 @@ package com.axelor.apps.account.service;
 
 import com.axelor.apps.account.db.Account;
 import com.axelor.apps.account.db.AccountingSituation;
+import com.axelor.apps.account.db.Move;
 import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.Reconcile;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
@@ -28,6 +30,7 @@ import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.TradingName;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 public interface AccountCustomerService {
 
@@ -103,6 +106,59 @@ public interface AccountCustomerService {
       boolean updateDueDebtRecoveryCustAccount)
       throws AxelorException;
 
+  /**
+   * Whether the total balance of the partners is updated with the amounts of each accounted move
+   * and reconcile, instead of being computed again.
+   *
+   * <p>The other paths keep their own update: the removal of a daybook move computes the balances
+   * again, a move can only be cancelled before being in the partner balances, and the partners of
+   * a payment session are flagged to be computed again with the marked accounting situations.
+   *
+   * @return true if the partner balances are managed incrementally
+   */
+  boolean isPartnerBalanceIncremental();
+
+  /**
+   * Whether the lines of the move are taken into account in the partner balances.
+   *
+   * @param move A move
+   * @return true if the move is accounted or in daybook, and not ignored in accounting
+   */
+  boolean isInPartnerBalance(Move move);
+
+  /**
+   * Get, by partner, the amount the move adds to the total balance when it enters the partner
+   * balances.
+   *
+   * @param move A move taken into account in the partner balances
+   * @return the balance variation by partner
+   */
+  Map<Partner, BigDecimal> getBalanceDeltaMap(Move move);
+
+  /**
+   * Get, by partner, the variation of the total balance brought by the confirmation, or the
+   * cancellation, of a reconcile.
+   *
+   * @param reconcile A confirmed or canceled reconcile
+   * @return the balance variation by partner
+   */
+  Map<Partner, BigDecimal> getBalanceDeltaMap(Reconcile reconcile);
+
+  /**
+   * Add the balance variations to the total balance of the partners, and flag their accounting
+   * situation so that the due balances are computed by the customer account batch.
+   *
+   * @param partnerList The partners to update
+   * @param company A company
+   * @param balanceDeltaMap The balance variation by partner
+   */
+  void updatePartnerAccountingSituation(
+      List<Partner> partnerList, Company company, Map<Partner, BigDecimal> balanceDeltaMap)
+      throws AxelorException;
+
+  AccountingSituation updateAccountingSituationBalance(
+      AccountingSituation accountingSituation, BigDecimal balanceDelta) throws AxelorException;
+
   public Account getPartnerAccount(Partner partner, Company company, boolean isSupplierInvoice)
       throws AxelorException;
 }
@@ -21,13 +21,17 @@ package com.axelor.apps.account.service;
 import com.axelor.apps.account.db.Account;
 import com.axelor.apps.account.db.AccountConfig;
 import com.axelor.apps.account.db.AccountingSituation;
+import com.axelor.apps.account.db.Move;
 import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.Reconcile;
 import com.axelor.apps.account.db.repo.AccountingSituationRepository;
 import com.axelor.apps.account.db.repo.MoveLineRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.db.repo.ReconcileRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationInitService;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
+import com.axelor.apps.account.service.app.AppAccountService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Partner;
@@ -44,7 +48,9 @@ import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.time.ZoneOffset;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
 import org.slf4j.Logger;
@@ -57,18 +63,21 @@ public class AccountCustomerServiceImpl implements AccountCustomerService {
   protected AccountingSituationRepository accSituationRepo;
   protected AccountingSituationInitService accountingSituationInitService;
   protected AppBaseService appBaseService;
+  protected AppAccountService appAccountService;
 
   @Inject
   public AccountCustomerServiceImpl(
       AccountingSituationService accountingSituationService,
       AccountingSituationInitService accountingSituationInitService,
       AccountingSituationRepository accSituationRepo,
-      AppBaseService appBaseService) {
+      AppBaseService appBaseService,
+      AppAccountService appAccountService) {
 
     this.accountingSituationService = accountingSituationService;
     this.accountingSituationInitService = accountingSituationInitService;
     this.accSituationRepo = accSituationRepo;
     this.appBaseService = appBaseService;
+    this.appAccountService = appAccountService;
   }
 
   @Override
@@ -369,6 +378,109 @@ public class AccountCustomerServiceImpl implements AccountCustomerService {
     return accountingSituation;
   }
 
+  @Override
+  public boolean isPartnerBalanceIncremental() {
+    return appAccountService.getAppAccount().getManagePartnerBalanceIncrementally();
+  }
+
+  @Override
+  public boolean isInPartnerBalance(Move move) {
+    return !move.getIgnoreInAccountingOk()
+        && (move.getStatusSelect() == MoveRepository.STATUS_ACCOUNTED
+            || move.getStatusSelect() == MoveRepository.STATUS_DAYBOOK);
+  }
+
+  protected boolean isInPartnerBalance(MoveLine moveLine) {
+    return moveLine.getPartner() != null
+        && moveLine.getAccount() != null
+        && moveLine.getAccount().getUseForPartnerBalance()
+        && moveLine.getMove() != null
+        && this.isInPartnerBalance(moveLine.getMove());
+  }
+
+  @Override
+  public Map<Partner, BigDecimal> getBalanceDeltaMap(Move move) {
+    Map<Partner, BigDecimal> balanceDeltaMap = new HashMap<>();
+
+    if (move.getMoveLineList() == null) {
+      return balanceDeltaMap;
+    }
+
+    for (MoveLine moveLine : move.getMoveLineList()) {
+      if (this.isInPartnerBalance(moveLine)) {
+        balanceDeltaMap.merge(
+            moveLine.getPartner(), moveLine.getAmountRemaining(), BigDecimal::add);
+      }
+    }
+
+    return balanceDeltaMap;
+  }
+
+  @Override
+  public Map<Partner, BigDecimal> getBalanceDeltaMap(Reconcile reconcile) {
+    Map<Partner, BigDecimal> balanceDeltaMap = new HashMap<>();
+
+    // The reconciled amount is paid on both lines : the amount remaining of the debit line
+    // decreases, the one of the credit line, which is negative, increases
+    BigDecimal debitDelta =
+        reconcile.getStatusSelect() == ReconcileRepository.STATUS_CANCELED
+            ? reconcile.getAmount()
+            : reconcile.getAmount().negate();
+
+    MoveLine debitMoveLine = reconcile.getDebitMoveLine();
+    MoveLine creditMoveLine = reconcile.getCreditMoveLine();
+
+    if (this.isInPartnerBalance(debitMoveLine)) {
+      balanceDeltaMap.merge(debitMoveLine.getPartner(), debitDelta, BigDecimal::add);
+    }
+    if (this.isInPartnerBalance(creditMoveLine)) {
+      balanceDeltaMap.merge(creditMoveLine.getPartner(), debitDelta.negate(), BigDecimal::add);
+    }
+
+    return balanceDeltaMap;
+  }
+
+  @Override
+  @Transactional(rollbackOn = {Exception.class})
+  public void updatePartnerAccountingSituation(
+      List<Partner> partnerList, Company company, Map<Partner, BigDecimal> balanceDeltaMap)
+      throws AxelorException {
+    for (Partner partner : partnerList) {
+      AccountingSituation accountingSituation =
+          accountingSituationService.getAccountingSituation(partner, company);
+      if (accountingSituation == null) {
+        accountingSituation =
+            accountingSituationInitService.createAccountingSituation(partner, company);
+        if (accountingSituation != null) {
+          // No balance to start from
+          this.updateAccountingSituationCustomerAccount(accountingSituation, true, true, false);
+        }
+      } else {
+        this.updateAccountingSituationBalance(
+            accountingSituation, balanceDeltaMap.getOrDefault(partner, BigDecimal.ZERO));
+      }
+    }
+  }
+
+  @Override
+  @Transactional(rollbackOn = {Exception.class})
+  public AccountingSituation updateAccountingSituationBalance(
+      AccountingSituation accountingSituation, BigDecimal balanceDelta) throws AxelorException {
+    log.debug(
+        "Update customer balance (Partner : {}, Company : {}, Variation : {})",
+        accountingSituation.getPartner().getName(),
+        accountingSituation.getCompany().getName(),
+        balanceDelta);
+
+    accountingSituation.setBalanceCustAccount(
+        accountingSituation.getBalanceCustAccount().add(balanceDelta));
+    // The due balances depend on the date of the day, they are left to the customer account batch
+    accountingSituation.setCustAccountMustBeUpdateOk(true);
+    accSituationRepo.save(accountingSituation);
+
+    return accountingSituation;
+  }
+
   @Override
   public Account getPartnerAccount(Partner partner, Company company, boolean isSupplierInvoice)
       throws AxelorException {
@@ -20,10 +20,8 @@ package com.axelor.apps.account.service;
 
 import com.axelor.apps.account.db.AccountingReport;
 import com.axelor.apps.account.db.AccountingReportType;
-import com.axelor.apps.account.db.Journal;
 import com.axelor.apps.account.db.Move;
 import com.axelor.apps.account.db.MoveLine;
-import com.axelor.apps.account.db.ReconcileGroup;
 import com.axelor.apps.account.db.repo.AccountRepository;
 import com.axelor.apps.account.db.repo.AccountingReportRepository;
 import com.axelor.apps.account.db.repo.JournalRepository;
@@ -57,18 +55,30 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -93,6 +103,29 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
   protected static final String DATE_FORMAT_YYYYMMDD = "yyyyMMdd";
   protected static final String DATE_FORMAT_YYYYMMDDHHMMSS = "yyyyMMddHHmmss";
   protected static final int EXPORT_LINES_LIMIT = 10000;
+  protected static final DateTimeFormatter EXPORT_DATE_FORMATTER =
+      DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD);
+  protected static final Pattern EXPORT_FORBIDDEN_CHARACTERS =
+      Pattern.compile("(\r\n|\n\r|\r|\n|\\|)");
+
+  /** Columns of the move lines read by the FEC export, see createItemForExportMoveLine. */
+  protected static final String EXPORT_MOVE_LINE_QUERY =
+      "SELECT move.id, journal.code, journal.name, move.reference, self.date, "
+          + "account.code, account.name, accountType.isManageSubsidiaryAccount, "
+          + "partner.id, partner.partnerSeq, partner.name, self.origin, self.originDate, "
+          + "self.description, self.debit, self.credit, reconcileGroup.statusSelect, "
+          + "reconcileGroup.code, reconcileGroup.letteringDateTime, move.accountingDate, "
+          + "self.currencyAmount, currency.codeISO "
+          + "FROM MoveLine self "
+          + "JOIN self.move move "
+          + "LEFT JOIN move.journal journal "
+          + "LEFT JOIN self.account account "
+          + "LEFT JOIN account.accountType accountType "
+          + "LEFT JOIN self.partner partner "
+          + "LEFT JOIN self.reconcileGroup reconcileGroup "
+          + "LEFT JOIN move.currency currency "
+          + "WHERE %s "
+          + "ORDER BY move.accountingDate, self.date, self.name";
 
   @Inject
   public MoveLineExportServiceImpl(
@@ -127,26 +160,42 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       AccountingReport accountingReport,
       LocalDate localDate,
       String exportNumber) {
+    this.updateMoves(
+        moveList.stream().map(Move::getId).collect(Collectors.toList()),
+        accountingReport,
+        localDate,
+        exportNumber);
+  }
 
-    int i = 0;
-
-    int moveListSize = moveList.size();
-
-    for (Move move : moveList) {
-
-      this.updateMove(
-          moveRepo.find(move.getId()),
-          accountingReportRepo.find(accountingReport.getId()),
-          localDate,
-          exportNumber);
-
-      if (i % 10 == 0) {
-        JPA.clear();
-      }
-      if (i++ % 100 == 0) {
-        log.debug("Process : {} / {}", i, moveListSize);
-      }
+  /**
+   * Flag the given moves as exported with one update query.
+   *
+   * <p>The update is run in the database: it does not go through {@code
+   * MoveManagementRepository.save}, and it does not update the updatedOn and updatedBy audit fields
+   * of the moves. Only their version is incremented, so concurrent edits still fail.
+   */
+  protected void updateMoves(
+      Collection<Long> moveIdList,
+      AccountingReport accountingReport,
+      LocalDate localDate,
+      String exportNumber) {
+    if (moveIdList.isEmpty()) {
+      return;
     }
+    int updatedNb =
+        JPA.em()
+            .createQuery(
+                "UPDATE Move self SET self.exportNumber = :exportNumber, "
+                    + "self.exportDate = :exportDate, self.accountingOk = true, "
+                    + "self.accountingReport = :accountingReport, "
+                    + "self.version = self.version + 1 "
+                    + "WHERE self.id IN (:moveIdList)")
+            .setParameter("exportNumber", exportNumber)
+            .setParameter("exportDate", localDate)
+            .setParameter("accountingReport", accountingReport)
+            .setParameter("moveIdList", moveIdList)
+            .executeUpdate();
+    log.debug("Moves flagged as exported : {}", updatedNb);
   }
 
   @Transactional
@@ -347,7 +396,6 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       throws AxelorException, IOException {
 
     log.info("In Export type 1000 service : ");
-    List<String[]> allMoveLineData = new ArrayList<>();
     Company company = accountingReport.getCompany();
 
     LocalDate interfaceDate = accountingReport.getDate();
@@ -407,106 +455,100 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
 
     String moveLineQueryStr = StringUtils.join(moveLineQueryList, " AND ");
 
-    List<Long> idList =
-        moveLineRepo
-            .all()
-            .filter(moveLineQueryStr)
-            .order("move.accountingDate")
-            .order("date")
-            .order("name")
-            .select("id")
-            .fetch(0, 0)
-            .stream()
-            .map(m -> (Long) m.get("id"))
-            .collect(Collectors.toList());
-
-    int offset = 0;
-    List<Long> moveLineIdList;
-    List<Move> moveList = new ArrayList<>();
+    String fileName = this.setFileName(accountingReport);
+    Path path = getExportFilePath(company, fileName);
+    CsvHelper.csvWriter(
+        path.getParent().toString(),
+        fileName,
+        '|',
+        this.createHeaderForJournalEntry(),
+        new ArrayList<>());
+
+    // The lines are read through a cursor and written by chunks, so neither the lines nor the
+    // rows of the file are all held in memory.
+    TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(String.format(EXPORT_MOVE_LINE_QUERY, moveLineQueryStr), Object[].class)
+            .setHint(QueryHints.HINT_FETCH_SIZE, EXPORT_LINES_LIMIT);
+    List<String[]> moveLineDataList = new ArrayList<>();
+    Set<Long> moveIdSet = new HashSet<>();
     String exportNumber = null;
-    int endSubListIndex = Math.min(idList.size(), EXPORT_LINES_LIMIT);
-
-    while (!(moveLineIdList = idList.subList(offset, endSubListIndex)).isEmpty()) {
-      for (Long id : moveLineIdList) {
-        MoveLine moveLine = moveLineRepo.find(id);
-        offset++;
-        allMoveLineData.add(createItemForExportMoveLine(moveLine, moveList));
-      }
-
-      JPA.clear();
-      company = companyRepository.find(company.getId());
-      if (!administration) {
-        exportNumber = exportNumber != null ? exportNumber : this.getSaleExportNumber(company);
-        this.updateMoveList(moveList, accountingReport, interfaceDate, exportNumber);
+    long lineNb = 0;
+    long startTime = System.currentTimeMillis();
+
+    try (Stream<Object[]> resultStream = query.getResultStream()) {
+      Iterator<Object[]> resultIterator = resultStream.iterator();
+      while (resultIterator.hasNext()) {
+        Object[] result = resultIterator.next();
+        moveIdSet.add((Long) result[0]);
+        moveLineDataList.add(createItemForExportMoveLine(result));
+
+        if (moveLineDataList.size() == EXPORT_LINES_LIMIT || !resultIterator.hasNext()) {
+          appendMoveLinesToCsvFile(path, moveLineDataList);
+          if (!administration) {
+            exportNumber = exportNumber != null ? exportNumber : this.getSaleExportNumber(company);
+            this.updateMoves(moveIdSet, accountingReport, interfaceDate, exportNumber);
+          }
+          lineNb += moveLineDataList.size();
+          moveLineDataList.clear();
+          moveIdSet.clear();
+        }
       }
-
-      moveList.clear();
-      endSubListIndex = Math.min(idList.size(), (endSubListIndex + EXPORT_LINES_LIMIT));
     }
 
-    accountingReport = accountingReportRepo.find(accountingReport.getId());
+    log.debug("Move lines exported : {} in {} ms", lineNb, System.currentTimeMillis() - startTime);
 
-    String fileName = this.setFileName(accountingReport);
+    JPA.clear();
+    accountingReport = accountingReportRepo.find(accountingReport.getId());
     accountingReportRepo.save(accountingReport);
-    return writeMoveLineToCsvFile(
-        company, fileName, this.createHeaderForJournalEntry(), allMoveLineData, accountingReport);
+    return attachCsvFile(path, accountingReport);
   }
 
-  protected String[] createItemForExportMoveLine(MoveLine moveLine, List<Move> moveList) {
+  /**
+   * Create the row of the FEC file of a move line.
+   *
+   * @param result the move line, with the columns of EXPORT_MOVE_LINE_QUERY
+   * @return the items of the row
+   */
+  protected String[] createItemForExportMoveLine(Object[] result) {
     String[] items = new String[18];
-    Move move = moveLine.getMove();
-    if (!moveList.contains(move)) {
-      moveList.add(move);
-    }
-    Journal journal = move.getJournal();
-    items[0] = journal.getCode();
-    items[1] = journal.getName();
-    items[2] = moveLine.getMove().getReference();
-    items[3] = moveLine.getDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
-    items[4] = moveLine.getAccount().getCode();
-    items[5] = moveLine.getAccount().getName();
+    items[0] = (String) result[1];
+    items[1] = (String) result[2];
+    items[2] = (String) result[3];
+    items[3] = formatExportDate(result[4]);
+    items[4] = (String) result[5];
+    items[5] = (String) result[6];
     items[6] = "";
     items[7] = "";
-    Partner partner = moveLine.getPartner();
-    if (partner != null && moveLine.getAccount().getAccountType().getIsManageSubsidiaryAccount()) {
-      items[6] = partner.getPartnerSeq();
-      items[7] = partner.getName();
+    if (result[8] != null && Boolean.TRUE.equals(result[7])) {
+      items[6] = (String) result[9];
+      items[7] = (String) result[10];
     }
-    String origin = moveLine.getOrigin();
+    String origin = (String) result[11];
     items[8] = Strings.isNullOrEmpty(origin) ? "NA" : origin;
-    if (moveLine.getOriginDate() != null) {
-      items[9] = moveLine.getOriginDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
-    }
-    items[10] = moveLine.getDescription();
-    items[11] = moveLine.getDebit().toString().replace('.', ',');
-    items[12] = moveLine.getCredit().toString().replace('.', ',');
-
-    ReconcileGroup reconcileGroup = moveLine.getReconcileGroup();
-    if (reconcileGroup != null
-        && reconcileGroup.getStatusSelect() == ReconcileGroupRepository.STATUS_BALANCED) {
-      items[13] = reconcileGroup.getCode();
-      items[14] =
-          reconcileGroup
-              .getLetteringDateTime()
-              .format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
+    items[9] = formatExportDate(result[12]);
+    items[10] = (String) result[13];
+    items[11] = result[14].toString().replace('.', ',');
+    items[12] = result[15].toString().replace('.', ',');
+
+    if (result[16] != null && (int) result[16] == ReconcileGroupRepository.STATUS_BALANCED) {
+      items[13] = (String) result[17];
+      items[14] = formatExportDate(result[18]);
     } else {
       items[13] = "";
       items[14] = "";
     }
 
-    if (move.getAccountingDate() != null) {
-      items[15] =
-          move.getAccountingDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
-    }
-
-    items[16] = moveLine.getCurrencyAmount().toString().replace('.', ',');
-
-    if (move.getCurrency() != null) {
-      items[17] = move.getCurrency().getCodeISO();
-    }
+    items[15] = formatExportDate(result[19]);
+    items[16] = result[20].toString().replace('.', ',');
+    items[17] = (String) result[21];
     return items;
   }
 
+  protected String formatExportDate(Object date) {
+    return date != null ? EXPORT_DATE_FORMATTER.format((TemporalAccessor) date) : null;
+  }
+
   protected MetaFile writeMoveLineToCsvFile(
       Company company,
       String fileName,
@@ -515,25 +557,55 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       AccountingReport accountingReport)
       throws AxelorException, IOException {
 
+    Path path = getExportFilePath(company, fileName);
+    removeForbiddenCharacters(allMoveData);
+    CsvHelper.csvWriter(path.getParent().toString(), fileName, '|', columnHeader, allMoveData);
+    return attachCsvFile(path, accountingReport);
+  }
+
+  protected Path getExportFilePath(Company company, String fileName) throws AxelorException {
     String filePath = accountConfigService.getAccountConfig(company).getExportPath();
     String dataExportDir = appAccountService.getDataExportDir();
 
+    filePath = filePath == null ? dataExportDir : dataExportDir + filePath;
+    new File(filePath).mkdirs();
+
+    log.debug("Full path to export : {}{}", filePath, fileName);
+    return Paths.get(filePath, fileName);
+  }
+
+  protected void removeForbiddenCharacters(List<String[]> allMoveData) {
     for (String[] items : allMoveData) {
       for (int i = 0; i < items.length; i++) {
         if (items[i] != null) {
-          items[i] = items[i].replaceAll("(\r\n|\n\r|\r|\n|\\|)", " ");
+          items[i] = EXPORT_FORBIDDEN_CHARACTERS.matcher(items[i]).replaceAll(" ");
         }
       }
     }
+  }
 
-    filePath = filePath == null ? dataExportDir : dataExportDir + filePath;
-    new File(filePath).mkdirs();
+  /** Append rows to a csv file, in the same format as the one written by CsvHelper. */
+  protected void appendMoveLinesToCsvFile(Path path, List<String[]> moveLineDataList)
+      throws IOException {
+    removeForbiddenCharacters(moveLineDataList);
+    String chunkFileName = path.getFileName() + ".part";
+    Path chunkPath = path.resolveSibling(chunkFileName);
+    try {
+      CsvHelper.csvWriter(path.getParent().toString(), chunkFileName, '|', null, moveLineDataList);
+      try (OutputStream os = Files.newOutputStream(path, StandardOpenOption.APPEND)) {
+        Files.copy(chunkPath, os);
+      }
+    } finally {
+      Files.deleteIfExists(chunkPath);
+    }
+  }
 
-    log.debug("Full path to export : {}{}", filePath, fileName);
-    CsvHelper.csvWriter(filePath, fileName, '|', columnHeader, allMoveData);
-    Path path = Paths.get(filePath, fileName);
+  protected MetaFile attachCsvFile(Path path, AccountingReport accountingReport)
+      throws IOException {
     try (InputStream is = new FileInputStream(path.toFile())) {
-      return Beans.get(MetaFiles.class).attach(is, fileName, accountingReport).getMetaFile();
+      return Beans.get(MetaFiles.class)
+          .attach(is, path.getFileName().toString(), accountingReport)
+          .getMetaFile();
     }
   }
 
@@ -31,6 +31,7 @@ import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +41,7 @@ public class BatchAccountCustomer extends BatchStrategy {
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   protected AccountingSituationRepository accountingSituationRepo;
+  protected int correctedBalanceNb = 0;
 
   @Inject
   public BatchAccountCustomer(
@@ -70,14 +72,21 @@ public class BatchAccountCustomer extends BatchStrategy {
 
     List<AccountingSituation> accountingSituationList =
         accountingSituationRepo.all().filter("self.company = ?1", company).fetch();
+    // The incremental balances are checked against the full computation
+    boolean checkBalance =
+        updateCustAccountOk && accountCustomerService.isPartnerBalanceIncremental();
+
     int i = 0;
     JPA.clear();
     for (AccountingSituation accountingSituation : accountingSituationList) {
       try {
 
+        accountingSituation = accountingSituationRepo.find(accountingSituation.getId());
+        BigDecimal previousBalance = accountingSituation.getBalanceCustAccount();
+
         accountingSituation =
             accountCustomerService.updateAccountingSituationCustomerAccount(
-                accountingSituationRepo.find(accountingSituation.getId()),
+                accountingSituation,
                 updateCustAccountOk,
                 updateDueCustAccountOk,
                 updateDueDebtRecoveryCustAccountOk);
@@ -85,6 +94,16 @@ public class BatchAccountCustomer extends BatchStrategy {
         if (accountingSituation != null) {
           this.updateAccountingSituation(accountingSituation);
           i++;
+
+          if (checkBalance
+              && previousBalance.compareTo(accountingSituation.getBalanceCustAccount()) != 0) {
+            correctedBalanceNb++;
+            log.warn(
+                "Incremental balance of the accounting situation {} was {} instead of {}",
+                accountingSituation.getName(),
+                previousBalance,
+                accountingSituation.getBalanceCustAccount());
+          }
         }
 
       } catch (Exception e) {
@@ -124,6 +143,12 @@ public class BatchAccountCustomer extends BatchStrategy {
     comment +=
         String.format(
             "\t" + I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_3) + "\n", batch.getDone());
+    if (correctedBalanceNb > 0) {
+      comment +=
+          String.format(
+              "\t" + I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_6) + "\n",
+              correctedBalanceNb);
+    }
     comment +=
         String.format("\t" + I18n.get(BaseExceptionMessage.BASE_BATCH_3), batch.getAnomaly());
 
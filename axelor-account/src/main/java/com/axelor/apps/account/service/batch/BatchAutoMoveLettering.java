@@ -25,6 +25,7 @@ import com.axelor.apps.account.db.repo.AccountingBatchRepository;
 import com.axelor.apps.account.db.repo.MoveLineRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
+import com.axelor.apps.account.service.batch.MoveLineLetteringIndex.Match;
 import com.axelor.apps.account.service.move.MoveLineControlService;
 import com.axelor.apps.account.service.payment.PaymentService;
 import com.axelor.apps.account.service.reconcile.ReconcileService;
@@ -37,11 +38,13 @@ import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.db.JPA;
 import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -138,45 +141,31 @@ public class BatchAutoMoveLettering extends BatchStrategy {
   }
 
   protected void reconcileWithBalancedMove(List<MoveLine> moveLines) {
+    for (List<MoveLine> moveLinesToProcess :
+        MoveLineLetteringIndex.getBalancedLists(moveLines, this::getSignedAmountRemaining)) {
+      List<MoveLine> debitMoveLines =
+          moveLinesToProcess.stream()
+              .filter(ml -> ml.getDebit().signum() > 0)
+              .collect(Collectors.toList());
+      List<MoveLine> creditMoveLines =
+          moveLinesToProcess.stream()
+              .filter(ml -> ml.getCredit().signum() > 0)
+              .collect(Collectors.toList());
 
-    List<MoveLine> debitMoveLines;
-    List<MoveLine> creditMoveLines;
-    List<MoveLine> moveLinesReconciled = new ArrayList<>();
-    BigDecimal progressiveAmount;
-    for (int i = 0; i < moveLines.size(); i++) {
-      List<MoveLine> moveLinesToProcess = new ArrayList<>();
-      progressiveAmount = BigDecimal.ZERO;
-      for (MoveLine moveLine : moveLines.subList(i, moveLines.size())) {
-        if (moveLinesReconciled.contains(moveLine)) {
-          break;
-        }
-        moveLinesToProcess.add(moveLine);
-        if (moveLine.getDebit().signum() > 0) {
-          progressiveAmount = progressiveAmount.subtract(moveLine.getAmountRemaining());
-        } else {
-          progressiveAmount = progressiveAmount.add(moveLine.getAmountRemaining().abs());
-        }
-        if (progressiveAmount.signum() == 0) {
-          debitMoveLines =
-              moveLinesToProcess.stream()
-                  .filter(ml -> ml.getDebit().signum() > 0)
-                  .collect(Collectors.toList());
-          creditMoveLines =
-              moveLinesToProcess.stream()
-                  .filter(ml -> ml.getCredit().signum() > 0)
-                  .collect(Collectors.toList());
-
-          reconcileWithMethod(
-              debitMoveLines,
-              creditMoveLines,
-              AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE);
-
-          moveLinesReconciled.addAll(moveLinesToProcess);
-        }
-      }
+      reconcileWithMethod(
+          debitMoveLines,
+          creditMoveLines,
+          AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE);
     }
   }
 
+  protected BigDecimal getSignedAmountRemaining(MoveLine moveLine) {
+    if (moveLine.getDebit().signum() > 0) {
+      return moveLine.getAmountRemaining().negate();
+    }
+    return moveLine.getAmountRemaining().abs();
+  }
+
   protected void reconcileWithMethod(
       List<MoveLine> debitMoveLines, List<MoveLine> creditMoveLines, int reconcileMethodSelect) {
 
@@ -193,95 +182,133 @@ public class BatchAutoMoveLettering extends BatchStrategy {
             .reduce(BigDecimal::add)
             .orElse(BigDecimal.ZERO);
 
-    boolean isBalanced = debitTotalRemaining.compareTo(creditTotalRemaining) == 0;
-
-    Map<MoveLine, BigDecimal> debitRemaining = new HashMap<>();
+    MoveLineLetteringIndex<MoveLine> moveLineLetteringIndex = new MoveLineLetteringIndex<>();
     for (MoveLine debitMoveLine : debitMoveLines) {
-      debitRemaining.put(debitMoveLine, debitMoveLine.getAmountRemaining());
+      moveLineLetteringIndex.addDebitLine(
+          debitMoveLine,
+          getMatchingKey(debitMoveLine, debitMoveLine.getDebit(), reconcileMethodSelect),
+          debitMoveLine.getAmountRemaining(),
+          debitMoveLine.getMaxAmountToReconcile());
     }
     for (MoveLine creditMoveLine : creditMoveLines) {
-      BigDecimal creditRemaining = creditMoveLine.getAmountRemaining().abs();
-      for (MoveLine debitMoveLine : debitMoveLines) {
-        BigDecimal debit = debitMoveLine.getDebit();
-        BigDecimal credit = creditMoveLine.getCredit();
-        BigDecimal nextCreditRemaining = creditRemaining.subtract(debit);
-        BigDecimal nextDebitRemaining = debitRemaining.get(debitMoveLine).subtract(credit);
-        if (reconcileMethodSelect
-                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE
-            && !isBalanced
-            && (nextCreditRemaining.signum() < 0 || nextDebitRemaining.signum() < 0)) {
-          continue;
-        }
+      moveLineLetteringIndex.addCreditLine(
+          creditMoveLine,
+          getMatchingKey(creditMoveLine, creditMoveLine.getCredit(), reconcileMethodSelect),
+          creditMoveLine.getAmountRemaining().abs());
+    }
+
+    reconcileMatchList(moveLineLetteringIndex.match(), debitTotalRemaining, creditTotalRemaining);
+  }
+
+  /**
+   * Get the key under which a move line is indexed: a debit and a credit move line can be
+   * reconciled together only if they have the same key.
+   *
+   * @param moveLine the move line
+   * @param amount the debit or credit of the move line
+   * @param reconcileMethodSelect the reconcile method of the batch
+   * @return the key, or null if the move line cannot be reconciled with this method
+   */
+  protected Object getMatchingKey(MoveLine moveLine, BigDecimal amount, int reconcileMethodSelect) {
+    BigDecimal amountKey = amount.stripTrailingZeros();
+
+    switch (reconcileMethodSelect) {
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE:
+        // The move lines of a balanced run are all reconciled together
+        return Boolean.TRUE;
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT:
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_ACCOUNT:
+        return amountKey;
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN:
+        return getReferenceMatchingKey(moveLine.getOrigin(), amountKey);
+      case AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_EXTERNAL_IDENTIFIER:
+        return getReferenceMatchingKey(moveLine.getExternalOrigin(), amountKey);
+      default:
+        return null;
+    }
+  }
 
-        if (canBeReconciled(reconcileMethodSelect, debitMoveLine, creditMoveLine)) {
-          try {
-            debitMoveLine = moveLineRepository.find(debitMoveLine.getId());
-            creditMoveLine = moveLineRepository.find(creditMoveLine.getId());
-
-            reconcile(debitMoveLine, creditMoveLine, debitTotalRemaining, creditTotalRemaining);
-            creditRemaining = nextCreditRemaining;
-            debitRemaining.replace(debitMoveLine, nextDebitRemaining);
-            moveLineReconciledSet.add(debitMoveLine);
-            moveLineReconciledSet.add(creditMoveLine);
-          } catch (Exception e) {
-            TraceBackService.trace(
-                new Exception(
-                    String.format(
-                        I18n.get("Debit move line %s and Credit move line %s"),
-                        debitMoveLine.getName(),
-                        creditMoveLine.getName()),
-                    e),
-                ExceptionOriginRepository.MOVE_LINE_RECONCILE,
-                batch.getId());
-            incrementAnomaly();
-            LOG.error(
-                "Anomaly generated while lettering debit move line {} and credit move line {}",
-                debitMoveLine.getName(),
-                creditMoveLine.getName());
-          } finally {
-            JPA.clear();
-          }
+  protected Object getReferenceMatchingKey(String reference, BigDecimal amountKey) {
+    if (reference == null) {
+      return null;
+    }
+    if (accountingBatch.getIsPartialReconcile()) {
+      return reference;
+    }
+    return Arrays.asList(reference, amountKey);
+  }
+
+  /**
+   * Reconcile the matched move lines by chunks, each chunk in a single transaction. If a chunk
+   * fails, it is rolled back and its move lines are reconciled one by one so that only the failing
+   * ones are reported as anomalies.
+   */
+  protected void reconcileMatchList(
+      List<Match<MoveLine>> matchList,
+      BigDecimal debitTotalRemaining,
+      BigDecimal creditTotalRemaining) {
+    for (List<Match<MoveLine>> matchSubList : Lists.partition(matchList, getFetchLimit())) {
+      try {
+        reconcileMatchSubList(matchSubList, debitTotalRemaining, creditTotalRemaining);
+        for (Match<MoveLine> match : matchSubList) {
+          moveLineReconciledSet.add(match.getDebitLine());
+          moveLineReconciledSet.add(match.getCreditLine());
+        }
+      } catch (Exception e) {
+        JPA.clear();
+        for (Match<MoveLine> match : matchSubList) {
+          reconcileMatch(match, debitTotalRemaining, creditTotalRemaining);
         }
+      } finally {
+        JPA.clear();
       }
     }
   }
 
-  private boolean canBeReconciled(
-      int reconcileMethodSelect, MoveLine debitMoveLine, MoveLine creditMoveLine) {
-    if (reconcileMethodSelect
-        == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_MOVE) {
-      return true;
+  @Transactional(rollbackOn = {Exception.class})
+  protected void reconcileMatchSubList(
+      List<Match<MoveLine>> matchList,
+      BigDecimal debitTotalRemaining,
+      BigDecimal creditTotalRemaining)
+      throws AxelorException {
+    for (Match<MoveLine> match : matchList) {
+      reconcile(
+          moveLineRepository.find(match.getDebitLine().getId()),
+          moveLineRepository.find(match.getCreditLine().getId()),
+          debitTotalRemaining,
+          creditTotalRemaining);
+    }
+  }
+
+  protected void reconcileMatch(
+      Match<MoveLine> match, BigDecimal debitTotalRemaining, BigDecimal creditTotalRemaining) {
+    MoveLine debitMoveLine = match.getDebitLine();
+    MoveLine creditMoveLine = match.getCreditLine();
+    try {
+      debitMoveLine = moveLineRepository.find(debitMoveLine.getId());
+      creditMoveLine = moveLineRepository.find(creditMoveLine.getId());
+
+      reconcile(debitMoveLine, creditMoveLine, debitTotalRemaining, creditTotalRemaining);
+      moveLineReconciledSet.add(debitMoveLine);
+      moveLineReconciledSet.add(creditMoveLine);
+    } catch (Exception e) {
+      TraceBackService.trace(
+          new Exception(
+              String.format(
+                  I18n.get("Debit move line %s and Credit move line %s"),
+                  debitMoveLine.getName(),
+                  creditMoveLine.getName()),
+              e),
+          ExceptionOriginRepository.MOVE_LINE_RECONCILE,
+          batch.getId());
+      incrementAnomaly();
+      LOG.error(
+          "Anomaly generated while lettering debit move line {} and credit move line {}",
+          debitMoveLine.getName(),
+          creditMoveLine.getName());
+    } finally {
+      JPA.clear();
     }
-    BigDecimal debit = debitMoveLine.getDebit();
-    BigDecimal credit = creditMoveLine.getCredit();
-
-    boolean isBalanced = debit.compareTo(credit) == 0;
-
-    boolean reconcileByAmount =
-        reconcileMethodSelect == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_AMOUNT
-            && isBalanced;
-    boolean reconcileByOrigin =
-        reconcileMethodSelect == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_ORIGIN
-            && debitMoveLine.getOrigin() != null
-            && creditMoveLine.getOrigin() != null
-            && debitMoveLine.getOrigin().equals(creditMoveLine.getOrigin())
-            && (accountingBatch.getIsPartialReconcile() || isBalanced);
-    boolean reconcileByBalancedAccount =
-        reconcileMethodSelect
-                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_BALANCED_ACCOUNT
-            && isBalanced;
-    boolean reconcileByExternalIdentifier =
-        reconcileMethodSelect
-                == AccountingBatchRepository.AUTO_MOVE_LETTERING_RECONCILE_BY_EXTERNAL_IDENTIFIER
-            && debitMoveLine.getExternalOrigin() != null
-            && creditMoveLine.getExternalOrigin() != null
-            && debitMoveLine.getExternalOrigin().equals(creditMoveLine.getExternalOrigin())
-            && (accountingBatch.getIsPartialReconcile() || isBalanced);
-
-    return reconcileByAmount
-        || reconcileByOrigin
-        || reconcileByBalancedAccount
-        || reconcileByExternalIdentifier;
   }
 
   @Transactional
@@ -29,6 +29,7 @@ import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.common.StringUtils;
@@ -106,15 +107,10 @@ public class BatchBlockCustomersWithLatePayments extends BatchStrategy {
     List<DebtRecovery> debtRecoveries;
     List<Long> customersToBlock = new ArrayList<Long>();
     List<Long> customerToUnblock = new ArrayList<Long>();
-    int offset = 0;
-    Query<DebtRecovery> query =
-        debtRecoveryRepository
-            .all()
-            .filter("self.archived = false or self.archived is null")
-            .order("id");
-    while (!(debtRecoveries = query.fetch(getFetchLimit(), offset)).isEmpty()) {
+    KeysetQuery<DebtRecovery> query =
+        new KeysetQuery<>(DebtRecovery.class, "self.archived = false or self.archived is null");
+    while (!(debtRecoveries = fetchNext(query)).isEmpty()) {
       for (DebtRecovery debtRecovery : debtRecoveries) {
-        ++offset;
         if (debtRecovery.getRespiteDateBeforeAccountBlocking() != null
             && debtRecovery
                     .getRespiteDateBeforeAccountBlocking()
@@ -43,7 +43,6 @@ import com.axelor.apps.base.db.repo.PartnerRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.db.repo.YearRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
-import com.axelor.apps.base.service.administration.AbstractBatch;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.common.ObjectUtils;
 import com.axelor.db.JPA;
@@ -434,7 +433,7 @@ public class BatchCloseAnnualAccounts extends BatchStrategy {
     JPA.runInTransaction(
         () -> {
           List<Move> moveList;
-          while (!(moveList = moveQuery.fetch(AbstractBatch.FETCH_LIMIT)).isEmpty()) {
+          while (!(moveList = moveQuery.fetch(getFetchLimit())).isEmpty()) {
             for (Move move : moveList) {
               moveRepo.remove(move);
             }
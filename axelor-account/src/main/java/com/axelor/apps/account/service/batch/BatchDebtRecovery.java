@@ -32,14 +32,15 @@ import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.db.repo.PartnerRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.BlockingService;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.db.EntityHelper;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.message.db.repo.MessageRepository;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
@@ -113,10 +114,9 @@ public class BatchDebtRecovery extends BatchStrategy {
       }
     }
 
-    Query<Partner> query =
-        partnerRepository
-            .all()
-            .filter(
+    KeysetQuery<Partner> query =
+        new KeysetQuery<>(
+                Partner.class,
                 "self.isContact = false "
                     + "AND :_company MEMBER OF self.companySet "
                     + "AND self.accountingSituationList IS NOT EMPTY "
@@ -125,92 +125,127 @@ public class BatchDebtRecovery extends BatchStrategy {
                     + Beans.get(BlockingService.class)
                         .listOfBlockedPartner(company, BlockingRepository.REMINDER_BLOCKING)
                     + ")")
-            .bind("_company", company)
-            .order("id");
+            .bind("_company", company);
 
-    int offset = 0;
+    List<Long> partnerIdList = new ArrayList<>();
     List<Partner> partnerList;
 
-    while (!(partnerList = query.fetch(getFetchLimit(), offset)).isEmpty()) {
+    while (!(partnerList = fetchNext(query)).isEmpty()) {
+      partnerList.stream().map(Partner::getId).forEach(partnerIdList::add);
+      JPA.clear();
+    }
+    findBatch();
+
+    // The partners are processed by the workers, which can not use the entities of this thread
+    Long companyId = company.getId();
+    List<Long> tradingNameIdList = new ArrayList<>();
+    if (tradingNameList != null) {
+      tradingNameList.stream().map(TradingName::getId).forEach(tradingNameIdList::add);
+    }
+    int fetchLimit = getFetchLimit();
+
+    processPartitions(
+        partitionIds(partnerIdList),
+        idList -> debtRecoveryPartners(idList, companyId, tradingNameIdList, fetchLimit));
+  }
+
+  protected void debtRecoveryPartners(
+      List<Long> partnerIdList, Long companyId, List<Long> tradingNameIdList, int fetchLimit) {
+
+    for (List<Long> partnerIdSubList : Lists.partition(partnerIdList, fetchLimit)) {
+      Company company = JPA.find(Company.class, companyId);
+      List<TradingName> tradingNameList = new ArrayList<>();
+      for (Long tradingNameId : tradingNameIdList) {
+        tradingNameList.add(JPA.find(TradingName.class, tradingNameId));
+      }
+
+      List<Partner> partnerList =
+          partnerRepository
+              .all()
+              .filter("self.id IN (:partnerIdList)")
+              .bind("partnerIdList", partnerIdSubList)
+              .order("id")
+              .fetch();
 
       for (Partner partner : partnerList) {
-        ++offset;
-
-        boolean remindedOk;
-        // if recovery handled by trading name
-        if (!CollectionUtils.isEmpty(tradingNameList)) {
-          boolean incrementPartner = false;
-          for (TradingName tradingName : tradingNameList) {
-            try {
-              remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, tradingName);
-              if (remindedOk) {
-                DebtRecovery debtRecovery =
-                    debtRecoveryService.getDebtRecovery(partner, company, tradingName);
-                addBatchToModel(debtRecovery);
-                incrementPartner = true;
-              }
-              // Catching exceptions
-            } catch (AxelorException e) {
-              TraceBackService.trace(
-                  new AxelorException(
-                      e,
-                      e.getCategory(),
+        debtRecoveryPartner(partner, company, tradingNameList);
+      }
+
+      JPA.clear();
+      findBatch();
+    }
+  }
+
+  protected void debtRecoveryPartner(
+      Partner partner, Company company, List<TradingName> tradingNameList) {
+
+    boolean remindedOk;
+    // if recovery handled by trading name
+    if (!CollectionUtils.isEmpty(tradingNameList)) {
+      boolean incrementPartner = false;
+      for (TradingName tradingName : tradingNameList) {
+        try {
+          remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, tradingName);
+          if (remindedOk) {
+            DebtRecovery debtRecovery =
+                debtRecoveryService.getDebtRecovery(partner, company, tradingName);
+            addBatchToModel(debtRecovery);
+            incrementPartner = true;
+          }
+          // Catching exceptions
+        } catch (AxelorException e) {
+          TraceBackService.trace(
+              new AxelorException(
+                  e,
+                  e.getCategory(),
+                  I18n.get("Partner") + " %s, " + I18n.get("Trading name") + " %s",
+                  partner.getName(),
+                  tradingName.getName()),
+              ExceptionOriginRepository.DEBT_RECOVERY,
+              batch.getId());
+          incrementAnomaly(partner);
+          break;
+        } catch (Exception e) {
+          TraceBackService.trace(
+              new Exception(
+                  String.format(
                       I18n.get("Partner") + " %s, " + I18n.get("Trading name") + " %s",
                       partner.getName(),
                       tradingName.getName()),
-                  ExceptionOriginRepository.DEBT_RECOVERY,
-                  batch.getId());
-              incrementAnomaly(partner);
-              break;
-            } catch (Exception e) {
-              TraceBackService.trace(
-                  new Exception(
-                      String.format(
-                          I18n.get("Partner") + " %s, " + I18n.get("Trading name") + " %s",
-                          partner.getName(),
-                          tradingName.getName()),
-                      e),
-                  ExceptionOriginRepository.DEBT_RECOVERY,
-                  batch.getId());
-              incrementAnomaly(partner);
-              break;
-            }
-            // \Catching exceptions
-          }
-          if (incrementPartner) {
-            incrementDone(partner);
-          }
-        } else { // if recovery handled by company
-          try {
-            remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, null);
-            if (remindedOk) {
-              DebtRecovery debtRecovery = debtRecoveryService.getDebtRecovery(partner, company);
-              addBatchToModel(debtRecovery);
-              incrementDone(partner);
-            }
-            // Catching exceptions
-          } catch (AxelorException e) {
-            TraceBackService.trace(
-                new AxelorException(
-                    e, e.getCategory(), I18n.get("Partner") + " %s", partner.getName()),
-                ExceptionOriginRepository.DEBT_RECOVERY,
-                batch.getId());
-            incrementAnomaly(partner);
-            break;
-          } catch (Exception e) {
-            TraceBackService.trace(
-                new Exception(String.format(I18n.get("Partner") + " %s", partner.getName()), e),
-                ExceptionOriginRepository.DEBT_RECOVERY,
-                batch.getId());
-            incrementAnomaly(partner);
-            break;
-          }
-          // \Catching exceptions
+                  e),
+              ExceptionOriginRepository.DEBT_RECOVERY,
+              batch.getId());
+          incrementAnomaly(partner);
+          break;
         }
+        // \Catching exceptions
       }
-
-      JPA.clear();
-      findBatch();
+      if (incrementPartner) {
+        incrementDone(partner);
+      }
+    } else { // if recovery handled by company
+      try {
+        remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, null);
+        if (remindedOk) {
+          DebtRecovery debtRecovery = debtRecoveryService.getDebtRecovery(partner, company);
+          addBatchToModel(debtRecovery);
+          incrementDone(partner);
+        }
+        // Catching exceptions
+      } catch (AxelorException e) {
+        TraceBackService.trace(
+            new AxelorException(e, e.getCategory(), I18n.get("Partner") + " %s", partner.getName()),
+            ExceptionOriginRepository.DEBT_RECOVERY,
+            batch.getId());
+        incrementAnomaly(partner);
+      } catch (Exception e) {
+        TraceBackService.trace(
+            new Exception(String.format(I18n.get("Partner") + " %s", partner.getName()), e),
+            ExceptionOriginRepository.DEBT_RECOVERY,
+            batch.getId());
+        incrementAnomaly(partner);
+      }
+      // \Catching exceptions
     }
   }
 
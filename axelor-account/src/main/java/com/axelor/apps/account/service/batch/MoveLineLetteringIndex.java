@@ -0,0 +1,205 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.batch;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory index of the debit and credit move lines of one lettering group, used by the auto move
+ * lettering batch.
+ *
+ * <p>Debit lines are indexed by matching key (amount, origin...) in the lettering order, so a
+ * credit line only visits the debit lines it may be reconciled with, and a debit line leaves its
+ * bucket as soon as it is fully lettered. Matching is then linear in the number of lines instead of
+ * quadratic.
+ *
+ * @param <T> the type of the indexed lines
+ */
+public class MoveLineLetteringIndex<T> {
+
+  protected final Map<Object, Deque<Entry<T>>> debitEntryMap = new HashMap<>();
+  protected final List<Entry<T>> creditEntryList = new ArrayList<>();
+
+  /**
+   * Add a debit line to the index. Lines must be added in the lettering order.
+   *
+   * @param debitLine the debit line
+   * @param key the matching key of the line, null if the line cannot be lettered
+   * @param amountRemaining the amount remaining to letter
+   * @param maxAmountToReconcile the maximum amount of the first reconcile of the line, may be null
+   */
+  public void addDebitLine(
+      T debitLine, Object key, BigDecimal amountRemaining, BigDecimal maxAmountToReconcile) {
+    if (key == null || amountRemaining.signum() <= 0) {
+      return;
+    }
+    debitEntryMap
+        .computeIfAbsent(key, k -> new ArrayDeque<>())
+        .addLast(new Entry<>(debitLine, key, amountRemaining, maxAmountToReconcile));
+  }
+
+  /**
+   * Add a credit line to the index. Lines must be added in the lettering order.
+   *
+   * @param creditLine the credit line
+   * @param key the matching key of the line, null if the line cannot be lettered
+   * @param amountRemaining the amount remaining to letter, as a positive value
+   */
+  public void addCreditLine(T creditLine, Object key, BigDecimal amountRemaining) {
+    if (key == null || amountRemaining.signum() <= 0) {
+      return;
+    }
+    creditEntryList.add(new Entry<>(creditLine, key, amountRemaining, null));
+  }
+
+  /**
+   * Match every credit line, in order, with the debit lines having the same key, in order, until
+   * the credit line is fully lettered. As when reconciling each credit line with each debit line, a
+   * credit line is matched at most once with a debit line: after a first reconcile capped by the
+   * maximum amount, the credit line moves on to the next debit line.
+   *
+   * @return the matches, in the order in which they must be reconciled
+   */
+  public List<Match<T>> match() {
+    List<Match<T>> matchList = new ArrayList<>();
+
+    for (Entry<T> creditEntry : creditEntryList) {
+      Deque<Entry<T>> debitEntryDeque = debitEntryMap.get(creditEntry.key);
+      if (debitEntryDeque == null) {
+        continue;
+      }
+
+      Iterator<Entry<T>> debitEntryIterator = debitEntryDeque.iterator();
+      while (debitEntryIterator.hasNext() && creditEntry.amountRemaining.signum() > 0) {
+        Entry<T> debitEntry = debitEntryIterator.next();
+        BigDecimal amount = getAmount(debitEntry, creditEntry);
+
+        matchList.add(new Match<>(debitEntry.line, creditEntry.line, amount));
+        debitEntry.amountRemaining = debitEntry.amountRemaining.subtract(amount);
+        creditEntry.amountRemaining = creditEntry.amountRemaining.subtract(amount);
+
+        if (debitEntry.amountRemaining.signum() <= 0) {
+          debitEntryIterator.remove();
+        }
+      }
+    }
+
+    return matchList;
+  }
+
+  /** Same amount as the one computed when reconciling the two lines. */
+  protected BigDecimal getAmount(Entry<T> debitEntry, Entry<T> creditEntry) {
+    BigDecimal amount = creditEntry.amountRemaining.min(debitEntry.amountRemaining);
+    if (debitEntry.maxAmountToReconcile != null && debitEntry.maxAmountToReconcile.signum() > 0) {
+      amount = amount.min(debitEntry.maxAmountToReconcile);
+      debitEntry.maxAmountToReconcile = null;
+    }
+    return amount;
+  }
+
+  /**
+   * Split the lines in balanced runs. Starting from the first line, a run is the shortest sequence
+   * of consecutive lines whose signed amounts sum to zero, lines belonging to no run are skipped.
+   *
+   * <p>A run starting at a given position ends right before the next position having the same
+   * prefix sum, so runs are found in linear time with a map of the prefix sums.
+   *
+   * @param lineList the lines, in the lettering order
+   * @param signedAmountFunction the signed amount of a line, negative for a debit
+   * @return the balanced runs, as views of the given list
+   */
+  public static <T> List<List<T>> getBalancedLists(
+      List<T> lineList, Function<T, BigDecimal> signedAmountFunction) {
+    int size = lineList.size();
+    BigDecimal[] prefixSums = new BigDecimal[size + 1];
+    prefixSums[0] = BigDecimal.ZERO;
+    for (int index = 0; index < size; index++) {
+      prefixSums[index + 1] =
+          prefixSums[index].add(signedAmountFunction.apply(lineList.get(index)));
+    }
+
+    int[] nextIndexes = new int[size + 1];
+    Map<BigDecimal, Integer> lastIndexMap = new HashMap<>();
+    for (int index = size; index >= 0; index--) {
+      BigDecimal prefixSum = prefixSums[index].stripTrailingZeros();
+      nextIndexes[index] = lastIndexMap.getOrDefault(prefixSum, -1);
+      lastIndexMap.put(prefixSum, index);
+    }
+
+    List<List<T>> balancedLists = new ArrayList<>();
+    int start = 0;
+    while (start < size) {
+      int end = nextIndexes[start];
+      if (end < 0) {
+        start++;
+      } else {
+        balancedLists.add(lineList.subList(start, end));
+        start = end;
+      }
+    }
+    return balancedLists;
+  }
+
+  protected static class Entry<T> {
+    protected final T line;
+    protected final Object key;
+    protected BigDecimal amountRemaining;
+    protected BigDecimal maxAmountToReconcile;
+
+    protected Entry(
+        T line, Object key, BigDecimal amountRemaining, BigDecimal maxAmountToReconcile) {
+      this.line = line;
+      this.key = key;
+      this.amountRemaining = amountRemaining;
+      this.maxAmountToReconcile = maxAmountToReconcile;
+    }
+  }
+
+  public static class Match<T> {
+    protected final T debitLine;
+    protected final T creditLine;
+    protected final BigDecimal amount;
+
+    public Match(T debitLine, T creditLine, BigDecimal amount) {
+      this.debitLine = debitLine;
+      this.creditLine = creditLine;
+      this.amount = amount;
+    }
+
+    public T getDebitLine() {
+      return debitLine;
+    }
+
+    public T getCreditLine() {
+      return creditLine;
+    }
+
+    public BigDecimal getAmount() {
+      return amount;
+    }
+  }
+}
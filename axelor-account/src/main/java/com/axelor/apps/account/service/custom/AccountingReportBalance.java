@@ -0,0 +1,110 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.custom;
+
+import com.axelor.apps.account.db.repo.AccountingReportConfigLineRepository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Amounts of the move lines matching the filters of a report cell, aggregated by account. The
+ * analytic amounts are split between the move lines in debit and the other ones, so that every
+ * result type can be computed from the same aggregates.
+ */
+public class AccountingReportBalance {
+
+  protected Map<Long, AccountBalance> accountBalanceMap = new HashMap<>();
+
+  public void addMoveLines(Long accountId, long moveLineNb, BigDecimal debit, BigDecimal credit) {
+    AccountBalance accountBalance = this.getAccountBalance(accountId);
+    accountBalance.moveLineNb += moveLineNb;
+    accountBalance.debit = accountBalance.debit.add(this.zeroIfNull(debit));
+    accountBalance.credit = accountBalance.credit.add(this.zeroIfNull(credit));
+  }
+
+  public void addAnalyticAmount(Long accountId, BigDecimal amount, boolean isDebit) {
+    AccountBalance accountBalance = this.getAccountBalance(accountId);
+    if (isDebit) {
+      accountBalance.analyticDebit = accountBalance.analyticDebit.add(this.zeroIfNull(amount));
+    } else {
+      accountBalance.analyticCredit = accountBalance.analyticCredit.add(this.zeroIfNull(amount));
+    }
+  }
+
+  public long getMoveLineNb(Collection<Long> accountIdSet) {
+    long moveLineNb = 0;
+    for (Long accountId : accountIdSet) {
+      AccountBalance accountBalance = accountBalanceMap.get(accountId);
+      if (accountBalance != null) {
+        moveLineNb += accountBalance.moveLineNb;
+      }
+    }
+    return moveLineNb;
+  }
+
+  /**
+   * Compute the result of the given accounts.
+   *
+   * @param accountIdSet the ids of the accounts
+   * @param resultSelect the result type, see AccountingReportConfigLineRepository
+   * @param isAnalytic whether the result is computed from the analytic amounts
+   * @return the result
+   */
+  public BigDecimal getResult(Collection<Long> accountIdSet, int resultSelect, boolean isAnalytic) {
+    BigDecimal debit = BigDecimal.ZERO;
+    BigDecimal credit = BigDecimal.ZERO;
+
+    for (Long accountId : accountIdSet) {
+      AccountBalance accountBalance = accountBalanceMap.get(accountId);
+      if (accountBalance != null) {
+        debit = debit.add(isAnalytic ? accountBalance.analyticDebit : accountBalance.debit);
+        credit = credit.add(isAnalytic ? accountBalance.analyticCredit : accountBalance.credit);
+      }
+    }
+
+    switch (resultSelect) {
+      case AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT:
+        return debit.subtract(credit);
+      case AccountingReportConfigLineRepository.RESULT_DEBIT:
+        return debit;
+      case AccountingReportConfigLineRepository.RESULT_CREDIT:
+        return credit;
+      default:
+        return BigDecimal.ZERO;
+    }
+  }
+
+  protected AccountBalance getAccountBalance(Long accountId) {
+    return accountBalanceMap.computeIfAbsent(accountId, id -> new AccountBalance());
+  }
+
+  protected BigDecimal zeroIfNull(BigDecimal value) {
+    return value == null ? BigDecimal.ZERO : value;
+  }
+
+  protected static class AccountBalance {
+    protected long moveLineNb;
+    protected BigDecimal debit = BigDecimal.ZERO;
+    protected BigDecimal credit = BigDecimal.ZERO;
+    protected BigDecimal analyticDebit = BigDecimal.ZERO;
+    protected BigDecimal analyticCredit = BigDecimal.ZERO;
+  }
+}
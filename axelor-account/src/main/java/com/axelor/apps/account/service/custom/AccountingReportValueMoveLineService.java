@@ -45,4 +45,7 @@ public interface AccountingReportValueMoveLineService {
       LocalDate endDate,
       int analyticCounter)
       throws AxelorException;
+
+  /** Clear the move line amounts kept between the cells of a report. */
+  void clearAccountingReportBalances();
 }
@@ -24,7 +24,6 @@ import com.axelor.apps.account.db.AccountingReport;
 import com.axelor.apps.account.db.AccountingReportConfigLine;
 import com.axelor.apps.account.db.AccountingReportValue;
 import com.axelor.apps.account.db.AnalyticAccount;
-import com.axelor.apps.account.db.AnalyticMoveLine;
 import com.axelor.apps.account.db.MoveLine;
 import com.axelor.apps.account.db.repo.AccountRepository;
 import com.axelor.apps.account.db.repo.AccountingReportConfigLineRepository;
@@ -40,6 +39,7 @@ import com.axelor.apps.base.service.DateService;
 import com.axelor.auth.db.AuditableModel;
 import com.axelor.common.StringUtils;
 import com.axelor.db.JPA;
+import com.axelor.db.Model;
 import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.google.common.base.Strings;
@@ -61,6 +61,7 @@ import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.persistence.Parameter;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -68,9 +69,7 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     implements AccountingReportValueMoveLineService {
   protected MoveLineRepository moveLineRepo;
   protected MoveToolService moveToolService;
-  protected Set<AnalyticAccount> groupColumnAnalyticAccountSet;
-  protected Set<AnalyticAccount> columnAnalyticAccountSet;
-  protected Set<AnalyticAccount> lineAnalyticAccountSet;
+  protected Map<String, AccountingReportBalance> accountingReportBalanceMap = new HashMap<>();
 
   @Inject
   public AccountingReportValueMoveLineServiceImpl(
@@ -85,6 +84,11 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     this.moveToolService = moveToolService;
   }
 
+  @Override
+  public void clearAccountingReportBalances() {
+    accountingReportBalanceMap.clear();
+  }
+
   @Override
   public void createValueFromMoveLines(
       AccountingReport accountingReport,
@@ -520,33 +524,32 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
                 ? null
                 : new HashSet<>(Collections.singletonList(configAnalyticAccount)));
 
-    List<MoveLine> moveLineList =
-        this.getMoveLineQuery(
-                accountingReport,
-                groupColumn,
-                column,
-                line,
-                accountIdSet,
-                resultAnalyticAccountSet,
-                companySet,
-                startDate,
-                endDate)
-            .fetch();
+    AccountingReportBalance accountingReportBalance =
+        this.getAccountingReportBalance(
+            accountingReport,
+            groupColumn,
+            column,
+            line,
+            resultAnalyticAccountSet,
+            companySet,
+            startDate,
+            endDate);
+    Set<Long> resultAccountIdSet =
+        CollectionUtils.isEmpty(accountIdSet) ? Collections.emptySet() : accountIdSet;
 
-    if (line.getHideDetailedLinesWithoutMoves() && moveLineList.isEmpty()) {
+    if (line.getHideDetailedLinesWithoutMoves()
+        && accountingReportBalance.getMoveLineNb(resultAccountIdSet) == 0) {
       return;
     }
 
     BigDecimal result =
-        this.getResultFromMoveLine(
-            accountingReport,
+        this.getResultFromBalance(
+            accountingReportBalance,
+            resultAccountIdSet,
             groupColumn,
             column,
             line,
-            moveLineList,
             resultAnalyticAccountSet,
-            startDate,
-            endDate,
             this.getResultSelect(column, line, groupColumn));
 
     this.createReportValue(
@@ -582,29 +585,169 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     }
   }
 
-  protected Query<MoveLine> getMoveLineQuery(
+  /**
+   * Get the amounts, by account, of the move lines matching the filters of a report cell. The
+   * amounts are aggregated by the database and shared by the cells having the same filters.
+   */
+  protected AccountingReportBalance getAccountingReportBalance(
       AccountingReport accountingReport,
       AccountingReportConfigLine groupColumn,
       AccountingReportConfigLine column,
       AccountingReportConfigLine line,
-      Set<Long> accountIdSet,
       Set<AnalyticAccount> analyticAccountSet,
       Set<Company> companySet,
       LocalDate startDate,
       LocalDate endDate) {
     Pair<LocalDate, LocalDate> dates =
         this.getDates(accountingReport, groupColumn, column, line, startDate, endDate);
+    boolean isAnalytic = this.isAnalyticResult(groupColumn, column, line, analyticAccountSet);
 
-    return this.buildMoveLineQuery(
-        accountingReport,
-        accountIdSet,
-        analyticAccountSet,
-        companySet,
-        groupColumn,
-        column,
-        line,
-        dates.getLeft(),
-        dates.getRight());
+    String moveLineQuery =
+        this.getMoveLineQuery(
+            accountingReport, analyticAccountSet, companySet, groupColumn, column, line);
+    String analyticMoveLineQuery =
+        isAnalytic
+            ? this.getAnalyticMoveLineQuery(groupColumn, column, line, analyticAccountSet)
+            : null;
+    Map<String, Object> paramMap =
+        this.getMoveLineQueryParamMap(
+            accountingReport,
+            analyticAccountSet,
+            companySet,
+            groupColumn,
+            column,
+            line,
+            dates.getLeft(),
+            dates.getRight());
+
+    String key =
+        this.getAccountingReportBalanceKey(moveLineQuery, analyticMoveLineQuery, paramMap);
+    AccountingReportBalance accountingReportBalance = accountingReportBalanceMap.get(key);
+
+    if (accountingReportBalance == null) {
+      accountingReportBalance = new AccountingReportBalance();
+      this.addMoveLineAmounts(accountingReportBalance, moveLineQuery, paramMap);
+      if (isAnalytic) {
+        this.addAnalyticAmounts(
+            accountingReportBalance, moveLineQuery, analyticMoveLineQuery, paramMap);
+      }
+      accountingReportBalanceMap.put(key, accountingReportBalance);
+    }
+
+    return accountingReportBalance;
+  }
+
+  protected void addMoveLineAmounts(
+      AccountingReportBalance accountingReportBalance,
+      String moveLineQuery,
+      Map<String, Object> paramMap) {
+    List<Object[]> resultList =
+        this.getResultList(
+            "SELECT self.account.id, COUNT(self.id), SUM(self.debit), SUM(self.credit) "
+                + "FROM MoveLine self WHERE "
+                + moveLineQuery
+                + " GROUP BY self.account.id",
+            paramMap);
+
+    for (Object[] result : resultList) {
+      accountingReportBalance.addMoveLines(
+          (Long) result[0], (Long) result[1], (BigDecimal) result[2], (BigDecimal) result[3]);
+    }
+  }
+
+  /**
+   * Add the analytic amounts of the move lines. As the analytic move lines carry the amount of
+   * their distribution percentage, the amounts are summed directly by the database.
+   */
+  protected void addAnalyticAmounts(
+      AccountingReportBalance accountingReportBalance,
+      String moveLineQuery,
+      String analyticMoveLineQuery,
+      Map<String, Object> paramMap) {
+    for (boolean isDebit : new boolean[] {true, false}) {
+      List<Object[]> resultList =
+          this.getResultList(
+              "SELECT self.account.id, SUM(analyticMoveLine.amount) "
+                  + "FROM AnalyticMoveLine analyticMoveLine JOIN analyticMoveLine.moveLine self "
+                  + "WHERE "
+                  + moveLineQuery
+                  + " AND "
+                  + analyticMoveLineQuery
+                  + (isDebit ? " AND self.debit > 0" : " AND self.debit <= 0")
+                  + " GROUP BY self.account.id",
+              paramMap);
+
+      for (Object[] result : resultList) {
+        accountingReportBalance.addAnalyticAmount(
+            (Long) result[0], (BigDecimal) result[1], isDebit);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<Object[]> getResultList(String queryStr, Map<String, Object> paramMap) {
+    javax.persistence.Query query = JPA.em().createQuery(queryStr);
+
+    for (Parameter<?> parameter : query.getParameters()) {
+      query.setParameter(parameter.getName(), paramMap.get(parameter.getName()));
+    }
+
+    return query.getResultList();
+  }
+
+  protected Map<String, Object> getMoveLineQueryParamMap(
+      AccountingReport accountingReport,
+      Set<AnalyticAccount> analyticAccountSet,
+      Set<Company> companySet,
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      LocalDate startDate,
+      LocalDate endDate) {
+    Map<String, Object> paramMap = new HashMap<>();
+    paramMap.put("dateFrom", startDate);
+    paramMap.put("dateTo", endDate);
+    paramMap.put("journal", accountingReport.getJournal());
+    paramMap.put("paymentMode", accountingReport.getPaymentMode());
+    paramMap.put("currency", accountingReport.getCurrency());
+    paramMap.put("companySet", companySet);
+    paramMap.put(
+        "statusList",
+        moveToolService.getMoveStatusSelect(accountingReport.getMoveStatusSelect(), companySet));
+    paramMap.put("analyticAccountSet", analyticAccountSet);
+    paramMap.put(
+        "groupColumnAnalyticAccountFilter",
+        groupColumn != null ? groupColumn.getAnalyticAccountCode() : null);
+    paramMap.put("columnAnalyticAccountFilter", column.getAnalyticAccountCode());
+    paramMap.put("lineAnalyticAccountFilter", line.getAnalyticAccountCode());
+    return paramMap;
+  }
+
+  protected String getAccountingReportBalanceKey(
+      String moveLineQuery, String analyticMoveLineQuery, Map<String, Object> paramMap) {
+    StringBuilder key = new StringBuilder(moveLineQuery).append('|').append(analyticMoveLineQuery);
+
+    for (String paramName : new TreeSet<>(paramMap.keySet())) {
+      key.append('|').append(paramName).append('=');
+      key.append(this.getKeyValue(paramMap.get(paramName)));
+    }
+
+    return key.toString();
+  }
+
+  protected Object getKeyValue(Object value) {
+    if (value instanceof Model) {
+      return ((Model) value).getId();
+    } else if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      return collection.stream()
+          .map(this::getKeyValue)
+          .map(String::valueOf)
+          .sorted()
+          .collect(Collectors.toList());
+    }
+
+    return value;
   }
 
   protected Pair<LocalDate, LocalDate> getDates(
@@ -639,6 +782,10 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
         || (groupColumn != null && groupColumn.getComputeOtherPeriod());
   }
 
+  /**
+   * Get the move lines of the given accounts matching the filters of a report cell. The report
+   * values are computed from aggregates, this query gives the lines summed in those aggregates.
+   */
   protected Query<MoveLine> buildMoveLineQuery(
       AccountingReport accountingReport,
       Set<Long> accountIdSet,
@@ -649,33 +796,36 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
       AccountingReportConfigLine line,
       LocalDate startDate,
       LocalDate endDate) {
-    return moveLineRepo
-        .all()
-        .filter(
-            this.getMoveLineQuery(
-                accountingReport,
-                accountIdSet,
-                analyticAccountSet,
-                companySet,
-                groupColumn,
-                column,
-                line))
-        .bind("dateFrom", startDate)
-        .bind("dateTo", endDate)
-        .bind("journal", accountingReport.getJournal())
-        .bind("paymentMode", accountingReport.getPaymentMode())
-        .bind("currency", accountingReport.getCurrency())
-        .bind("companySet", companySet)
-        .bind(
-            "statusList",
-            moveToolService.getMoveStatusSelect(accountingReport.getMoveStatusSelect(), companySet))
-        .bind("accountIdSet", accountIdSet)
-        .bind("analyticAccountSet", analyticAccountSet);
+    Map<String, Object> paramMap =
+        this.getMoveLineQueryParamMap(
+            accountingReport,
+            analyticAccountSet,
+            companySet,
+            groupColumn,
+            column,
+            line,
+            startDate,
+            endDate);
+    paramMap.put("accountIdSet", accountIdSet);
+
+    String moveLineQuery =
+        this.getMoveLineQuery(
+            accountingReport, analyticAccountSet, companySet, groupColumn, column, line);
+
+    Query<MoveLine> query =
+        moveLineRepo
+            .all()
+            .filter(
+                String.format(
+                    "%s AND (self.account.id IN %s)",
+                    moveLineQuery,
+                    CollectionUtils.isEmpty(accountIdSet) ? "(0)" : ":accountIdSet"));
+    paramMap.forEach(query::bind);
+    return query;
   }
 
   protected String getMoveLineQuery(
       AccountingReport accountingReport,
-      Set<Long> accountIdSet,
       Set<AnalyticAccount> analyticAccountSet,
       Set<Company> companySet,
       AccountingReportConfigLine groupColumn,
@@ -684,11 +834,6 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     List<String> queryList =
         new ArrayList<>(Collections.singletonList("self.move.statusSelect IN :statusList"));
 
-    queryList.add(
-        String.format(
-            "(self.account.id IN %s)",
-            CollectionUtils.isEmpty(accountIdSet) ? "(0)" : ":accountIdSet"));
-
     this.addDateQueries(queryList, accountingReport);
 
     if (accountingReport.getJournal() != null) {
@@ -740,84 +885,19 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     }
   }
 
-  protected BigDecimal getResultFromMoveLine(
-      AccountingReport accountingReport,
-      AccountingReportConfigLine groupColumn,
-      AccountingReportConfigLine column,
-      AccountingReportConfigLine line,
-      List<MoveLine> moveLineList,
-      Set<AnalyticAccount> analyticAccountSet,
-      LocalDate startDate,
-      LocalDate endDate,
-      int resultSelect) {
-    String groupColumnAnalyticAccountCode =
-        groupColumn != null ? groupColumn.getAnalyticAccountCode() : null;
-    String columnAnalyticAccountCode = column.getAnalyticAccountCode();
-    String lineAnalyticAccountCode = line.getAnalyticAccountCode();
-    groupColumnAnalyticAccountSet =
-        groupColumn != null && StringUtils.notEmpty(groupColumnAnalyticAccountCode)
-            ? this.fetchAnalyticAccountsFromCode(groupColumnAnalyticAccountCode)
-            : new HashSet<>();
-    columnAnalyticAccountSet =
-        StringUtils.notEmpty(columnAnalyticAccountCode)
-            ? this.fetchAnalyticAccountsFromCode(columnAnalyticAccountCode)
-            : new HashSet<>();
-    lineAnalyticAccountSet =
-        StringUtils.notEmpty(lineAnalyticAccountCode)
-            ? this.fetchAnalyticAccountsFromCode(lineAnalyticAccountCode)
-            : new HashSet<>();
-    return moveLineList.stream()
-        .map(
-            it ->
-                this.getMoveLineAmount(
-                    it,
-                    accountingReport,
-                    groupColumn,
-                    column,
-                    line,
-                    analyticAccountSet,
-                    startDate,
-                    endDate,
-                    resultSelect))
-        .reduce(BigDecimal::add)
-        .orElse(BigDecimal.ZERO);
-  }
-
-  protected BigDecimal getMoveLineAmount(
-      MoveLine moveLine,
-      AccountingReport accountingReport,
+  protected BigDecimal getResultFromBalance(
+      AccountingReportBalance accountingReportBalance,
+      Set<Long> accountIdSet,
       AccountingReportConfigLine groupColumn,
       AccountingReportConfigLine column,
       AccountingReportConfigLine line,
       Set<AnalyticAccount> analyticAccountSet,
-      LocalDate startDate,
-      LocalDate endDate,
       int resultSelect) {
-    String groupColumnAnalyticAccountCode =
-        groupColumn == null ? null : groupColumn.getAnalyticAccountCode();
-
-    BigDecimal value = BigDecimal.ZERO;
-
-    if (CollectionUtils.isNotEmpty(analyticAccountSet)
-        || StringUtils.notEmpty(groupColumnAnalyticAccountCode)
-        || StringUtils.notEmpty(column.getAnalyticAccountCode())
-        || StringUtils.notEmpty(line.getAnalyticAccountCode())) {
-      value =
-          this.getAnalyticAmount(
-              moveLine, analyticAccountSet, resultSelect, moveLine.getDebit().signum() > 0);
-    } else {
-      switch (resultSelect) {
-        case AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT:
-          value = moveLine.getDebit().subtract(moveLine.getCredit());
-          break;
-        case AccountingReportConfigLineRepository.RESULT_DEBIT:
-          value = moveLine.getDebit();
-          break;
-        case AccountingReportConfigLineRepository.RESULT_CREDIT:
-          value = moveLine.getCredit();
-          break;
-      }
-    }
+    BigDecimal value =
+        accountingReportBalance.getResult(
+            accountIdSet,
+            resultSelect,
+            this.isAnalyticResult(groupColumn, column, line, analyticAccountSet));
 
     if ((groupColumn != null && groupColumn.getNegateValue())
         || column.getNegateValue()
@@ -828,40 +908,45 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     return value;
   }
 
-  protected BigDecimal getAnalyticAmount(
-      MoveLine moveLine,
-      Set<AnalyticAccount> analyticAccountSet,
-      int resultSelect,
-      boolean isDebit) {
-    if (CollectionUtils.isEmpty(moveLine.getAnalyticMoveLineList())) {
-      return BigDecimal.ZERO;
+  protected boolean isAnalyticResult(
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      Set<AnalyticAccount> analyticAccountSet) {
+    return CollectionUtils.isNotEmpty(analyticAccountSet)
+        || (groupColumn != null && StringUtils.notEmpty(groupColumn.getAnalyticAccountCode()))
+        || StringUtils.notEmpty(column.getAnalyticAccountCode())
+        || StringUtils.notEmpty(line.getAnalyticAccountCode());
+  }
+
+  /**
+   * Filter on the analytic move lines whose amount is part of the result, in the analytic accounts
+   * of the cell or matching one of its analytic account codes.
+   */
+  protected String getAnalyticMoveLineQuery(
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      Set<AnalyticAccount> analyticAccountSet) {
+    List<String> queryList = new ArrayList<>();
+
+    if (CollectionUtils.isNotEmpty(analyticAccountSet)) {
+      queryList.add("analyticMoveLine.analyticAccount IN :analyticAccountSet");
     }
 
-    BigDecimal value =
-        moveLine.getAnalyticMoveLineList().stream()
-            .filter(it -> this.containsAnalyticAccount(it.getAnalyticAccount(), analyticAccountSet))
-            .map(AnalyticMoveLine::getAmount)
-            .reduce(BigDecimal::add)
-            .orElse(BigDecimal.ZERO);
-
-    switch (resultSelect) {
-      case AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT:
-        return isDebit ? value : value.negate();
-      case AccountingReportConfigLineRepository.RESULT_DEBIT:
-        return isDebit ? value : BigDecimal.ZERO;
-      case AccountingReportConfigLineRepository.RESULT_CREDIT:
-        return isDebit ? BigDecimal.ZERO : value;
-    }
-
-    return BigDecimal.ZERO;
-  }
-
-  protected boolean containsAnalyticAccount(
-      AnalyticAccount analyticAccount, Set<AnalyticAccount> analyticAccountSet) {
-    return (CollectionUtils.isNotEmpty(analyticAccountSet)
-            && analyticAccountSet.contains(analyticAccount))
-        || groupColumnAnalyticAccountSet.contains(analyticAccount)
-        || columnAnalyticAccountSet.contains(analyticAccount)
-        || lineAnalyticAccountSet.contains(analyticAccount);
+    if (groupColumn != null && StringUtils.notEmpty(groupColumn.getAnalyticAccountCode())) {
+      queryList.add(
+          "analyticMoveLine.analyticAccount.code LIKE :groupColumnAnalyticAccountFilter");
+    }
+
+    if (StringUtils.notEmpty(column.getAnalyticAccountCode())) {
+      queryList.add("analyticMoveLine.analyticAccount.code LIKE :columnAnalyticAccountFilter");
+    }
+
+    if (StringUtils.notEmpty(line.getAnalyticAccountCode())) {
+      queryList.add("analyticMoveLine.analyticAccount.code LIKE :lineAnalyticAccountFilter");
+    }
+
+    return String.format("(%s)", String.join(" OR ", queryList));
   }
 }
@@ -37,22 +37,29 @@ import com.axelor.data.csv.CSVImporter;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class FECImporter extends Importer {
 
+  protected static final int VALIDATION_CHUNK_SIZE = 100;
+
   protected MoveValidateService moveValidateService;
   protected AppAccountService appAccountService;
   protected MoveRepository moveRepository;
   protected FECImportRepository fecImportRepository;
   protected CompanyRepository companyRepository;
   private final List<Move> moveList = new ArrayList<>();
+  private final Set<Long> moveIdSet = new HashSet<>();
   private FECImport fecImport;
   private Company company;
 
@@ -134,7 +141,7 @@ public class FECImporter extends Importer {
       MoveLine moveLine = (MoveLine) bean;
       if (moveLine.getMove() != null) {
         Move move = moveLine.getMove();
-        if (!moveList.contains(move)) {
+        if (move.getId() != null ? moveIdSet.add(move.getId()) : !moveList.contains(move)) {
           moveList.add(move);
         }
       }
@@ -155,26 +162,29 @@ public class FECImporter extends Importer {
     return this.moveList;
   }
 
+  /**
+   * Complete and validate the imported moves by chunks, each in one transaction. When a move of a
+   * chunk fails, the chunk is rolled back and its moves are completed and validated one by one, so
+   * that only the failing moves are reported and left in draft.
+   */
   protected void completeAndvalidateMoves(
       FECImport fecImport, List<Move> moveList, ImporterListener listener) {
     if (fecImport != null) {
-      int i = 0;
       Long companyId = null;
-      for (Move move : moveList) {
-        move = moveRepository.find(move.getId());
-        if (companyId == null && move != null) {
-          companyId = move.getCompany().getId();
+      for (List<Move> moveSubList : Lists.partition(moveList, VALIDATION_CHUNK_SIZE)) {
+        List<Long> moveIdList =
+            moveSubList.stream().map(Move::getId).collect(Collectors.toList());
+        try {
+          completeAndValidateMoveChunk(fecImport, moveIdList);
+        } catch (Exception e) {
+          clearSession();
+          completeAndValidateMoveByMove(fecImport, moveIdList, listener);
         }
-        // We modify move in two parts. First part we set description and fecImport on the move
-        // Second part we set reference and validate the move if necessary.
-        // We do this in two parts because reference for move must be unique, and in case there is
-        // an error the rollback must not undo description and fecImport.
-        move = setDescriptionAndFecImport(fecImport, listener, move);
-        move = setReferenceAndValidate(fecImport, listener, move);
-        if (i % 10 == 0) {
-          JPA.clear();
+        if (companyId == null) {
+          Move move = moveRepository.find(moveIdList.get(0));
+          companyId = move != null ? move.getCompany().getId() : null;
         }
-        i++;
+        clearSession();
       }
       if (companyId != null) {
         this.company = companyRepository.find(companyId);
@@ -182,32 +192,44 @@ public class FECImporter extends Importer {
     }
   }
 
+  protected void clearSession() {
+    JPA.clear();
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void completeAndValidateMoveChunk(FECImport fecImport, List<Long> moveIdList)
+      throws AxelorException {
+    fecImport = fecImportRepository.find(fecImport.getId());
+    for (Long moveId : moveIdList) {
+      Move move = moveRepository.find(moveId);
+      if (move != null) {
+        move.setDescription(fecImport.getMoveDescription());
+        move.setFecImport(fecImport);
+        validateMove(fecImport, move);
+      }
+    }
+  }
+
+  protected void completeAndValidateMoveByMove(
+      FECImport fecImport, List<Long> moveIdList, ImporterListener listener) {
+    for (Long moveId : moveIdList) {
+      Move move = moveRepository.find(moveId);
+      // We modify move in two parts. First part we set description and fecImport on the move
+      // Second part we set reference and validate the move if necessary.
+      // We do this in two parts because reference for move must be unique, and in case there is
+      // an error the rollback must not undo description and fecImport.
+      move = setDescriptionAndFecImport(fecImport, listener, move);
+      setReferenceAndValidate(fecImport, listener, move);
+    }
+  }
+
   @Transactional
   protected Move setReferenceAndValidate(
       FECImport fecImport, ImporterListener listener, Move move) {
     try {
 
       if (move != null) {
-        String csvReference = extractCSVMoveReference(move.getReference());
-
-        if (move.getAccountingDate() != null) {
-          move.setReference(String.format("%s", csvReference));
-        } else {
-          move.setReference(String.format("#%s", move.getId().toString()));
-        }
-
-        if (fecImport.getValidGeneratedMove()) {
-          if (move.getAccountingDate() != null) {
-            move.setStatusSelect(MoveRepository.STATUS_ACCOUNTED);
-            move.getMoveLineList().forEach(ml -> ml.setAccountingDate(move.getAccountingDate()));
-            moveRepository.save(move);
-          } else {
-            moveValidateService.accounting(move);
-          }
-        } else {
-          return moveRepository.save(move);
-        }
-        return move;
+        return validateMove(fecImport, move);
       }
 
     } catch (Exception e) {
@@ -217,6 +239,30 @@ public class FECImporter extends Importer {
     return null;
   }
 
+  /** Set the reference of an imported move and validate it if necessary. */
+  protected Move validateMove(FECImport fecImport, Move move) throws AxelorException {
+    String csvReference = extractCSVMoveReference(move.getReference());
+
+    if (move.getAccountingDate() != null) {
+      move.setReference(String.format("%s", csvReference));
+    } else {
+      move.setReference(String.format("#%s", move.getId().toString()));
+    }
+
+    if (fecImport.getValidGeneratedMove()) {
+      if (move.getAccountingDate() != null) {
+        move.setStatusSelect(MoveRepository.STATUS_ACCOUNTED);
+        move.getMoveLineList().forEach(ml -> ml.setAccountingDate(move.getAccountingDate()));
+        moveRepository.save(move);
+      } else {
+        moveValidateService.accounting(move);
+      }
+    } else {
+      return moveRepository.save(move);
+    }
+    return move;
+  }
+
   @Transactional
   protected Move setDescriptionAndFecImport(
       FECImport fecImport, ImporterListener listener, Move move) {
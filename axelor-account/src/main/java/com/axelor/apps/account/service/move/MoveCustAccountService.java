@@ -28,6 +28,7 @@ import com.axelor.apps.base.db.Partner;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class MoveCustAccountService {
@@ -70,6 +71,42 @@ public class MoveCustAccountService {
     }
   }
 
+  /**
+   * Update the partner balances linked to a move that has just been accounted. When the partner
+   * balances are managed incrementally, the amounts of the move are added to the balances instead
+   * of computing them again.
+   *
+   * @param move The accounted move
+   * @param wasInPartnerBalance Whether the move was already in the partner balances before
+   * @throws AxelorException
+   */
+  @Transactional(rollbackOn = {Exception.class})
+  public void updateCustomerAccountAfterAccounting(Move move, boolean wasInPartnerBalance)
+      throws AxelorException {
+
+    if (!accountCustomerService.isPartnerBalanceIncremental()) {
+      this.updateCustomerAccount(move);
+      return;
+    }
+
+    List<Partner> partnerList = this.getPartnerOfMove(move);
+
+    if (AccountingService.getUpdateCustomerAccount()) {
+      accountCustomerService.updatePartnerAccountingSituation(
+          partnerList,
+          move.getCompany(),
+          wasInPartnerBalance
+              ? Collections.emptyMap()
+              : accountCustomerService.getBalanceDeltaMap(move));
+    } else {
+      this.flagPartners(partnerList, move.getCompany());
+    }
+  }
+
+  public boolean isInPartnerBalance(Move move) {
+    return accountCustomerService.isInPartnerBalance(move);
+  }
+
   /**
    * Get the distinct partners of an account move that impact the partner balances
    *
@@ -111,6 +111,7 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
   }
 
   protected void updateSystem(Move move) throws Exception {
+    // Computed again in full, also when the partner balances are managed incrementally
     for (MoveLine moveLine : move.getMoveLineList()) {
       if (moveLine.getPartner() != null) {
         accountCustomerService.updateAccountingSituationCustomerAccount(
@@ -477,6 +477,7 @@ public class MoveValidateServiceImpl implements MoveValidateService {
     this.completeMoveLines(move);
     this.setMoveLineAccountingDate(move, dayBookMode);
     this.freezeFieldsOnMoveLines(move);
+    boolean wasInPartnerBalance = moveCustAccountService.isInPartnerBalance(move);
     this.updateValidateStatus(move, dayBookMode);
 
     if (move.getStatusSelect() == MoveRepository.STATUS_ACCOUNTED) {
@@ -486,7 +487,7 @@ public class MoveValidateServiceImpl implements MoveValidateService {
     moveRepository.save(move);
 
     if (updateCustomerAccount) {
-      moveCustAccountService.updateCustomerAccount(move);
+      moveCustAccountService.updateCustomerAccountAfterAccounting(move, wasInPartnerBalance);
     }
   }
 
@@ -33,6 +33,7 @@ import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.db.repo.PaymentModeRepository;
 import com.axelor.apps.account.db.repo.PaymentSessionRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
+import com.axelor.apps.account.service.AccountCustomerService;
 import com.axelor.apps.account.service.FinancialDiscountService;
 import com.axelor.apps.account.service.config.AccountConfigService;
 import com.axelor.apps.account.service.invoice.InvoiceTermFilterService;
@@ -76,6 +77,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -109,6 +111,7 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
   protected FinancialDiscountService financialDiscountService;
   protected InvoiceTermFilterService invoiceTermFilterService;
   protected CurrencyScaleService currencyScaleService;
+  protected AccountCustomerService accountCustomerService;
   protected int counter = 0;
 
   @Inject
@@ -136,7 +139,8 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
       MoveLineFinancialDiscountService moveLineFinancialDiscountService,
       FinancialDiscountService financialDiscountService,
       InvoiceTermFilterService invoiceTermFilterService,
-      CurrencyScaleService currencyScaleService) {
+      CurrencyScaleService currencyScaleService,
+      AccountCustomerService accountCustomerService) {
     this.appBaseService = appBaseService;
     this.moveCreateService = moveCreateService;
     this.moveValidateService = moveValidateService;
@@ -161,6 +165,7 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
     this.financialDiscountService = financialDiscountService;
     this.invoiceTermFilterService = invoiceTermFilterService;
     this.currencyScaleService = currencyScaleService;
+    this.accountCustomerService = accountCustomerService;
   }
 
   @Override
@@ -263,6 +268,28 @@ public class PaymentSessionValidateServiceImpl implements PaymentSessionValidate
     this.generateCashMoveAndLines(paymentSession, moveDateMap, paymentAmountMap, out, isGlobal);
     this.generateTaxMoveLines(moveDateMap);
     this.updateStatuses(paymentSession, moveDateMap, paymentAmountMap);
+    this.flagPartners(paymentSession, moveDateMap);
+  }
+
+  /**
+   * The amounts paid of the session are partly set directly on the move lines, which the partner
+   * balances managed incrementally do not follow. The partners are flagged so that their balances
+   * are computed again with the other marked accounting situations.
+   */
+  protected void flagPartners(
+      PaymentSession paymentSession, Map<LocalDate, Map<Partner, List<Move>>> moveDateMap)
+      throws AxelorException {
+    if (!accountCustomerService.isPartnerBalanceIncremental()) {
+      return;
+    }
+
+    List<Partner> partnerList =
+        moveDateMap.values().stream()
+            .flatMap(moveMap -> moveMap.keySet().stream())
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+    accountCustomerService.flagPartners(partnerList, paymentSession.getCompany());
   }
 
   @Transactional(rollbackOn = {Exception.class})
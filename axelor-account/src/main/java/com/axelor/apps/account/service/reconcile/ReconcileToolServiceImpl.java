@@ -76,7 +76,11 @@ public class ReconcileToolServiceImpl implements ReconcileToolService {
 
       Company company = reconcile.getDebitMoveLine().getMove().getCompany();
 
-      if (AccountingService.getUpdateCustomerAccount()) {
+      if (AccountingService.getUpdateCustomerAccount()
+          && accountCustomerService.isPartnerBalanceIncremental()) {
+        accountCustomerService.updatePartnerAccountingSituation(
+            partnerList, company, accountCustomerService.getBalanceDeltaMap(reconcile));
+      } else if (AccountingService.getUpdateCustomerAccount()) {
         accountCustomerService.updatePartnerAccountingSituation(
             partnerList, company, true, true, false);
       } else {
@@ -38,6 +38,7 @@ import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.Period;
 import com.axelor.apps.base.db.repo.CompanyRepository;
 import com.axelor.apps.base.db.repo.CurrencyRepository;
+import com.axelor.apps.base.db.repo.PeriodRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.db.repo.YearRepository;
 import com.axelor.apps.base.service.PeriodService;
@@ -45,6 +46,8 @@ import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.common.StringUtils;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.google.inject.Inject;
@@ -53,6 +56,7 @@ import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -72,6 +76,12 @@ public class ImportMove {
 
   private String lastImportDate;
 
+  /* Lookups done for each line of a FEC file, kept for the whole import */
+  private final Map<String, ImportedMove> importedMoveMap = new HashMap<>();
+  private final Map<Long, Map<String, Long>> accountIdMap = new HashMap<>();
+  private final Map<Long, Map<String, Long>> journalIdMap = new HashMap<>();
+  private final Map<Long, Map<LocalDate, Long>> periodIdMap = new HashMap<>();
+
   @Transactional(rollbackOn = {Exception.class})
   public Object importFECMove(Object bean, Map<String, Object> values) throws AxelorException {
     assert bean instanceof MoveLine;
@@ -102,25 +112,32 @@ public class ImportMove {
       }
       String importReference = String.format("#%s-%s", csvReference, lastImportDate);
 
-      MoveLine mvLine =
-          moveLineRepo
-              .all()
-              .filter("self.name LIKE '" + importReference + "-%'")
-              .order("-counter")
-              .fetchOne();
-      if (mvLine != null) {
-        int counter = mvLine.getCounter() + 1;
-        moveLine.setCounter(counter);
+      // The lines of a move are consecutive in the file, so the move and the counter of its last
+      // line are usually known from the previous line, unless it has been rolled back.
+      ImportedMove importedMove = importedMoveMap.get(importReference);
+      Move move = importedMove != null ? moveRepository.find(importedMove.moveId) : null;
+      if (move != null) {
+        moveLine.setCounter(importedMove.counter + 1);
+      } else {
+        MoveLine mvLine =
+            moveLineRepo
+                .all()
+                .filter("self.name LIKE '" + importReference + "-%'")
+                .order("-counter")
+                .fetchOne();
+        if (mvLine != null) {
+          int counter = mvLine.getCounter() + 1;
+          moveLine.setCounter(counter);
+        }
+        move = moveRepository.all().filter("self.reference = ?", importReference).fetchOne();
       }
 
       if (values.get("EcritureDate") != null) {
         moveLine.setDate(parseDate(values.get("EcritureDate").toString()));
       }
 
-      Period period =
-          periodService.getPeriod(moveLine.getDate(), company, YearRepository.TYPE_FISCAL);
+      Period period = getPeriod(moveLine.getDate(), company);
 
-      Move move = moveRepository.all().filter("self.reference = ?", importReference).fetchOne();
       if (move == null) {
         move = new Move();
         move.setFecImport(fecImport);
@@ -157,14 +174,9 @@ public class ImportMove {
 
         Journal journal = null;
         if (values.get("JournalCode") != null) {
-          journal =
-              Beans.get(JournalRepository.class)
-                  .all()
-                  .filter(
-                      "self.code = ?1 AND self.company.id = ?2",
-                      values.get("JournalCode").toString(),
-                      move.getCompany().getId())
-                  .fetchOne();
+          Long journalId =
+              getJournalIdMap(move.getCompany()).get(values.get("JournalCode").toString());
+          journal = journalId != null ? Beans.get(JournalRepository.class).find(journalId) : null;
           if (journal == null) {
             throw new AxelorException(
                 fecImport,
@@ -194,14 +206,9 @@ public class ImportMove {
         moveRepository.save(move);
       }
       if (values.get("CompteNum") != null) {
+        Long accountId = getAccountIdMap(move.getCompany()).get(values.get("CompteNum").toString());
         Account account =
-            Beans.get(AccountRepository.class)
-                .all()
-                .filter(
-                    "self.code = ?1 AND self.company.id = ?2",
-                    values.get("CompteNum").toString(),
-                    move.getCompany().getId())
-                .fetchOne();
+            accountId != null ? Beans.get(AccountRepository.class).find(accountId) : null;
         if (account == null) {
           throw new AxelorException(
               fecImport,
@@ -233,10 +240,14 @@ public class ImportMove {
           moveLine.setCurrencyAmount(currencyAmount.negate());
         }
       }
+
+      importedMoveMap.put(importReference, new ImportedMove(move.getId(), moveLine.getCounter()));
     } catch (AxelorException e) {
+      clearImportCache();
       TraceBackService.trace(e);
       throw e;
     } catch (Exception e) {
+      clearImportCache();
       TraceBackService.trace(e);
       throw new AxelorException(
           fecImport, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
@@ -244,6 +255,68 @@ public class ImportMove {
     return moveLine;
   }
 
+  /**
+   * Forget the lookups kept for the import. A failing line rolls back the whole batch of lines
+   * imported with it, so the moves and counters collected for this batch no longer exist.
+   */
+  protected void clearImportCache() {
+    importedMoveMap.clear();
+    accountIdMap.clear();
+    journalIdMap.clear();
+    periodIdMap.clear();
+  }
+
+  protected Period getPeriod(LocalDate date, Company company) {
+    Map<LocalDate, Long> companyPeriodIdMap =
+        periodIdMap.computeIfAbsent(company.getId(), companyId -> new HashMap<>());
+    if (companyPeriodIdMap.containsKey(date)) {
+      Long periodId = companyPeriodIdMap.get(date);
+      return periodId != null ? Beans.get(PeriodRepository.class).find(periodId) : null;
+    }
+    Period period = periodService.getPeriod(date, company, YearRepository.TYPE_FISCAL);
+    companyPeriodIdMap.put(date, period != null ? period.getId() : null);
+    return period;
+  }
+
+  protected Map<String, Long> getAccountIdMap(Company company) {
+    return accountIdMap.computeIfAbsent(
+        company.getId(), companyId -> getIdByCodeMap(Account.class, companyId));
+  }
+
+  protected Map<String, Long> getJournalIdMap(Company company) {
+    return journalIdMap.computeIfAbsent(
+        company.getId(), companyId -> getIdByCodeMap(Journal.class, companyId));
+  }
+
+  protected Map<String, Long> getIdByCodeMap(Class<? extends Model> klass, Long companyId) {
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                String.format(
+                    "SELECT self.code, self.id FROM %s self "
+                        + "WHERE self.company.id = :companyId AND self.code IS NOT NULL "
+                        + "ORDER BY self.id",
+                    klass.getSimpleName()),
+                Object[].class)
+            .setParameter("companyId", companyId)
+            .getResultList();
+    Map<String, Long> idByCodeMap = new HashMap<>();
+    for (Object[] result : resultList) {
+      idByCodeMap.putIfAbsent((String) result[0], (Long) result[1]);
+    }
+    return idByCodeMap;
+  }
+
+  protected static class ImportedMove {
+    protected final Long moveId;
+    protected final int counter;
+
+    protected ImportedMove(Long moveId, int counter) {
+      this.moveId = moveId;
+      this.counter = counter;
+    }
+  }
+
   protected void setMovePartner(Move move, MoveLine moveLine) {
     List<Partner> partnerList =
         move.getMoveLineList().stream()
@@ -0,0 +1,162 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import static org.mockito.Mockito.mock;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.Reconcile;
+import com.axelor.apps.account.db.repo.AccountingSituationRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.db.repo.ReconcileRepository;
+import com.axelor.apps.account.service.accountingsituation.AccountingSituationInitService;
+import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
+import com.axelor.apps.account.service.app.AppAccountService;
+import com.axelor.apps.base.db.Partner;
+import com.axelor.apps.base.service.app.AppBaseService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Check that the balance variations follow the amounts remaining of the move lines. */
+class TestAccountCustomerServiceBalanceDelta {
+
+  private AccountCustomerService accountCustomerService;
+
+  private Partner customer;
+  private Partner supplier;
+  private Account partnerAccount;
+  private Account revenueAccount;
+
+  @BeforeEach
+  void prepare() {
+    accountCustomerService =
+        new AccountCustomerServiceImpl(
+            mock(AccountingSituationService.class),
+            mock(AccountingSituationInitService.class),
+            mock(AccountingSituationRepository.class),
+            mock(AppBaseService.class),
+            mock(AppAccountService.class));
+
+    customer = createPartner(1L);
+    supplier = createPartner(2L);
+
+    partnerAccount = new Account();
+    partnerAccount.setReconcileOk(true);
+    partnerAccount.setUseForPartnerBalance(true);
+    revenueAccount = new Account();
+  }
+
+  @Test
+  void testAccountedMoveDelta() {
+    Move move = createMove(MoveRepository.STATUS_ACCOUNTED);
+    createMoveLine(move, customer, partnerAccount, new BigDecimal("120.00"), BigDecimal.ZERO);
+    createMoveLine(move, customer, revenueAccount, BigDecimal.ZERO, new BigDecimal("100.00"));
+    createMoveLine(move, null, partnerAccount, BigDecimal.ZERO, new BigDecimal("20.00"));
+
+    Map<Partner, BigDecimal> balanceDeltaMap = accountCustomerService.getBalanceDeltaMap(move);
+
+    Assertions.assertEquals(1, balanceDeltaMap.size());
+    Assertions.assertEquals(0, new BigDecimal("120").compareTo(balanceDeltaMap.get(customer)));
+  }
+
+  @Test
+  void testMoveOutOfPartnerBalance() {
+    Move move = createMove(MoveRepository.STATUS_NEW);
+    createMoveLine(move, customer, partnerAccount, new BigDecimal("120.00"), BigDecimal.ZERO);
+    Assertions.assertFalse(accountCustomerService.isInPartnerBalance(move));
+    Assertions.assertTrue(accountCustomerService.getBalanceDeltaMap(move).isEmpty());
+
+    move.setStatusSelect(MoveRepository.STATUS_DAYBOOK);
+    move.setIgnoreInAccountingOk(true);
+    Assertions.assertFalse(accountCustomerService.isInPartnerBalance(move));
+    Assertions.assertTrue(accountCustomerService.getBalanceDeltaMap(move).isEmpty());
+  }
+
+  @Test
+  void testReconcileDeltaFollowsAmountRemaining() {
+    Move move = createMove(MoveRepository.STATUS_ACCOUNTED);
+    MoveLine debitMoveLine =
+        createMoveLine(move, customer, partnerAccount, new BigDecimal("120.00"), BigDecimal.ZERO);
+    MoveLine creditMoveLine =
+        createMoveLine(move, supplier, partnerAccount, BigDecimal.ZERO, new BigDecimal("80.00"));
+
+    Reconcile reconcile = new Reconcile();
+    reconcile.setDebitMoveLine(debitMoveLine);
+    reconcile.setCreditMoveLine(creditMoveLine);
+    reconcile.setAmount(new BigDecimal("50.00"));
+
+    BigDecimal customerBalance = debitMoveLine.getAmountRemaining();
+    BigDecimal supplierBalance = creditMoveLine.getAmountRemaining();
+
+    debitMoveLine.setAmountPaid(reconcile.getAmount());
+    creditMoveLine.setAmountPaid(reconcile.getAmount());
+    reconcile.setStatusSelect(ReconcileRepository.STATUS_CONFIRMED);
+    Map<Partner, BigDecimal> balanceDeltaMap = accountCustomerService.getBalanceDeltaMap(reconcile);
+
+    Assertions.assertEquals(
+        0,
+        customerBalance
+            .add(balanceDeltaMap.get(customer))
+            .compareTo(debitMoveLine.getAmountRemaining()));
+    Assertions.assertEquals(
+        0,
+        supplierBalance
+            .add(balanceDeltaMap.get(supplier))
+            .compareTo(creditMoveLine.getAmountRemaining()));
+
+    reconcile.setStatusSelect(ReconcileRepository.STATUS_CANCELED);
+    Map<Partner, BigDecimal> cancelDeltaMap = accountCustomerService.getBalanceDeltaMap(reconcile);
+
+    Assertions.assertEquals(
+        0, balanceDeltaMap.get(customer).negate().compareTo(cancelDeltaMap.get(customer)));
+    Assertions.assertEquals(
+        0, balanceDeltaMap.get(supplier).negate().compareTo(cancelDeltaMap.get(supplier)));
+  }
+
+  protected Partner createPartner(Long id) {
+    Partner partner = new Partner();
+    partner.setId(id);
+    return partner;
+  }
+
+  protected Move createMove(int statusSelect) {
+    Move move = new Move();
+    move.setStatusSelect(statusSelect);
+    move.setMoveLineList(new ArrayList<>());
+    return move;
+  }
+
+  protected MoveLine createMoveLine(
+      Move move, Partner partner, Account account, BigDecimal debit, BigDecimal credit) {
+    MoveLine moveLine = new MoveLine();
+    moveLine.setMove(move);
+    moveLine.setPartner(partner);
+    moveLine.setAccount(account);
+    moveLine.setDebit(debit);
+    moveLine.setCredit(credit);
+    move.getMoveLineList().add(moveLine);
+    return moveLine;
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import static org.mockito.Mockito.mock;
+
+import com.axelor.apps.account.db.repo.AccountRepository;
+import com.axelor.apps.account.db.repo.AccountingReportRepository;
+import com.axelor.apps.account.db.repo.JournalRepository;
+import com.axelor.apps.account.db.repo.MoveLineRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.db.repo.ReconcileGroupRepository;
+import com.axelor.apps.account.service.app.AppAccountService;
+import com.axelor.apps.account.service.config.AccountConfigService;
+import com.axelor.apps.account.service.moveline.MoveLineConsolidateService;
+import com.axelor.apps.base.db.repo.CompanyRepository;
+import com.axelor.apps.base.service.PartnerService;
+import com.axelor.apps.base.service.administration.SequenceService;
+import com.axelor.utils.helpers.file.CsvHelper;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Check the rows of the FEC export and the throughput of their formatting. */
+class TestMoveLineExportService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final int BENCHMARK_LINE_NB = 200_000;
+
+  private MoveLineExportServiceImpl moveLineExportService;
+
+  @TempDir Path tempDir;
+
+  @BeforeEach
+  void prepare() {
+    moveLineExportService =
+        new MoveLineExportServiceImpl(
+            mock(AppAccountService.class),
+            mock(AccountingReportService.class),
+            mock(SequenceService.class),
+            mock(AccountConfigService.class),
+            mock(MoveRepository.class),
+            mock(MoveLineRepository.class),
+            mock(AccountingReportRepository.class),
+            mock(JournalRepository.class),
+            mock(AccountRepository.class),
+            mock(MoveLineConsolidateService.class),
+            mock(PartnerService.class),
+            mock(CompanyRepository.class));
+  }
+
+  @Test
+  void testLetteredLineWithSubsidiaryAccount() {
+    String[] items = moveLineExportService.createItemForExportMoveLine(createResult(1, true));
+
+    Assertions.assertArrayEquals(
+        new String[] {
+          "VT",
+          "Sales",
+          "REF1",
+          "20240115",
+          "411000",
+          "Customers",
+          "C0001",
+          "Customer",
+          "INV1",
+          "20240110",
+          "Invoice",
+          "120,00",
+          "0,00",
+          "AA",
+          "20240220",
+          "20240116",
+          "120,00",
+          "EUR"
+        },
+        items);
+  }
+
+  @Test
+  void testUnletteredLineWithoutOrigin() {
+    Object[] result = createResult(1, false);
+    result[11] = null;
+    result[12] = null;
+    result[16] = ReconcileGroupRepository.STATUS_UNLETTERED;
+
+    String[] items = moveLineExportService.createItemForExportMoveLine(result);
+
+    Assertions.assertEquals("", items[6]);
+    Assertions.assertEquals("", items[7]);
+    Assertions.assertEquals("NA", items[8]);
+    Assertions.assertNull(items[9]);
+    Assertions.assertEquals("", items[13]);
+    Assertions.assertEquals("", items[14]);
+  }
+
+  @Test
+  void testChunksGiveSameFileAsSingleWrite() throws IOException {
+    String[] header = moveLineExportService.createHeaderForJournalEntry();
+    List<String[]> rowList = new ArrayList<>();
+    for (int index = 0; index < 25; index++) {
+      Object[] result = createResult(index, index % 2 == 0);
+      result[13] = "Line|" + index + "\nwith\\special characters";
+      rowList.add(moveLineExportService.createItemForExportMoveLine(result));
+    }
+
+    List<String[]> expectedRowList = new ArrayList<>();
+    for (String[] row : rowList) {
+      expectedRowList.add(row.clone());
+    }
+    moveLineExportService.removeForbiddenCharacters(expectedRowList);
+    CsvHelper.csvWriter(tempDir.toString(), "expected.csv", '|', header, expectedRowList);
+
+    Path path = tempDir.resolve("chunked.csv");
+    CsvHelper.csvWriter(tempDir.toString(), "chunked.csv", '|', header, new ArrayList<>());
+    for (int fromIndex = 0; fromIndex < rowList.size(); fromIndex += 10) {
+      moveLineExportService.appendMoveLinesToCsvFile(
+          path,
+          new ArrayList<>(rowList.subList(fromIndex, Math.min(rowList.size(), fromIndex + 10))));
+    }
+
+    Assertions.assertEquals(
+        Files.readString(tempDir.resolve("expected.csv")), Files.readString(path));
+    Assertions.assertFalse(Files.exists(tempDir.resolve("chunked.csv.part")));
+  }
+
+  @Test
+  void testFailedAppendRemovesChunkFile() throws IOException {
+    Path path = Files.createDirectory(tempDir.resolve("export.csv"));
+    List<String[]> rowList = new ArrayList<>();
+    rowList.add(moveLineExportService.createItemForExportMoveLine(createResult(1, true)));
+
+    Assertions.assertThrows(
+        IOException.class, () -> moveLineExportService.appendMoveLinesToCsvFile(path, rowList));
+    Assertions.assertFalse(Files.exists(tempDir.resolve("export.csv.part")));
+  }
+
+  @Test
+  @Tag("benchmark")
+  void testFormattingThroughput() {
+    List<Object[]> resultList = new ArrayList<>(BENCHMARK_LINE_NB);
+    for (int index = 0; index < BENCHMARK_LINE_NB; index++) {
+      resultList.add(createResult(index, index % 3 == 0));
+    }
+
+    List<String[]> rowList = new ArrayList<>();
+    String[] lastRow = null;
+    long rowNb = 0;
+    long startTime = System.nanoTime();
+    for (Object[] result : resultList) {
+      rowList.add(moveLineExportService.createItemForExportMoveLine(result));
+      if (rowList.size() == MoveLineExportServiceImpl.EXPORT_LINES_LIMIT) {
+        moveLineExportService.removeForbiddenCharacters(rowList);
+        rowNb += rowList.size();
+        lastRow = rowList.get(rowList.size() - 1);
+        rowList.clear();
+      }
+    }
+    long elapsedTime = Math.max(1L, System.nanoTime() - startTime);
+
+    LOG.info(
+        "FEC export : {} lines formatted in {} ms ({} lines/s)",
+        BENCHMARK_LINE_NB,
+        elapsedTime / 1_000_000,
+        BENCHMARK_LINE_NB * 1_000_000_000L / elapsedTime);
+    Assertions.assertEquals(BENCHMARK_LINE_NB, rowNb);
+    Assertions.assertNotNull(lastRow);
+    Assertions.assertEquals("REF" + BENCHMARK_LINE_NB, lastRow[2]);
+    Assertions.assertEquals("INV" + BENCHMARK_LINE_NB, lastRow[8]);
+  }
+
+  /** A result row with the columns of the export query. */
+  protected Object[] createResult(long index, boolean lettered) {
+    return new Object[] {
+      index + 1,
+      "VT",
+      "Sales",
+      "REF" + (index + 1),
+      LocalDate.of(2024, 1, 15),
+      "411000",
+      "Customers",
+      true,
+      10L,
+      "C0001",
+      "Customer",
+      "INV" + (index + 1),
+      LocalDate.of(2024, 1, 10),
+      "Invoice",
+      new BigDecimal("120.00"),
+      new BigDecimal("0.00"),
+      lettered ? ReconcileGroupRepository.STATUS_BALANCED : ReconcileGroupRepository.STATUS_PARTIAL,
+      "AA",
+      LocalDateTime.of(2024, 2, 20, 10, 30),
+      LocalDate.of(2024, 1, 16),
+      new BigDecimal("120.00"),
+      "EUR"
+    };
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.batch;
+
+import com.axelor.apps.account.service.batch.MoveLineLetteringIndex.Match;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Check the matches and balanced runs of the auto lettering index, and their throughput. */
+class TestMoveLineLetteringIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final int BENCHMARK_LINE_NB = 1_000_000;
+
+  @Test
+  void testExactAmountMatch() {
+    MoveLineLetteringIndex<String> index = new MoveLineLetteringIndex<>();
+    addDebitLine(index, "D1", "100.00");
+    addDebitLine(index, "D2", "50.00");
+    addDebitLine(index, "D3", "100.00");
+    addCreditLine(index, "C1", "50.00");
+    addCreditLine(index, "C2", "100.00");
+    addCreditLine(index, "C3", "100.00");
+    addCreditLine(index, "C4", "70.00");
+
+    List<Match<String>> matchList = index.match();
+
+    Assertions.assertEquals(3, matchList.size());
+    assertMatch(matchList.get(0), "D2", "C1", "50");
+    assertMatch(matchList.get(1), "D1", "C2", "100");
+    assertMatch(matchList.get(2), "D3", "C3", "100");
+  }
+
+  @Test
+  void testPartialMatch() {
+    MoveLineLetteringIndex<String> index = new MoveLineLetteringIndex<>();
+    index.addDebitLine("D1", "REF", new BigDecimal("60"), null);
+    index.addDebitLine("D2", "REF", new BigDecimal("60"), null);
+    index.addDebitLine("D3", "OTHER", new BigDecimal("60"), null);
+    index.addCreditLine("C1", "REF", new BigDecimal("100"));
+    index.addCreditLine("C2", "REF", new BigDecimal("30"));
+
+    List<Match<String>> matchList = index.match();
+
+    Assertions.assertEquals(3, matchList.size());
+    assertMatch(matchList.get(0), "D1", "C1", "60");
+    assertMatch(matchList.get(1), "D2", "C1", "40");
+    assertMatch(matchList.get(2), "D2", "C2", "20");
+  }
+
+  @Test
+  void testMaxAmountToReconcile() {
+    MoveLineLetteringIndex<String> index = new MoveLineLetteringIndex<>();
+    index.addDebitLine("D1", "REF", new BigDecimal("100"), new BigDecimal("30"));
+    index.addDebitLine("D2", "REF", new BigDecimal("100"), null);
+    index.addCreditLine("C1", "REF", new BigDecimal("100"));
+    index.addCreditLine("C2", "REF", new BigDecimal("100"));
+
+    List<Match<String>> matchList = index.match();
+
+    // The capped debit line is not matched again with the same credit line
+    Assertions.assertEquals(4, matchList.size());
+    assertMatch(matchList.get(0), "D1", "C1", "30");
+    assertMatch(matchList.get(1), "D2", "C1", "70");
+    assertMatch(matchList.get(2), "D1", "C2", "70");
+    assertMatch(matchList.get(3), "D2", "C2", "30");
+  }
+
+  @Test
+  void testBalancedLists() {
+    List<BigDecimal> amountList = toAmountList(-100, 40, 60, 10, -30, 20, 5);
+
+    List<List<BigDecimal>> balancedLists =
+        MoveLineLetteringIndex.getBalancedLists(amountList, amount -> amount);
+
+    Assertions.assertEquals(2, balancedLists.size());
+    Assertions.assertEquals(amountList.subList(0, 3), balancedLists.get(0));
+    Assertions.assertEquals(amountList.subList(3, 6), balancedLists.get(1));
+  }
+
+  /**
+   * The runs must be the shortest balanced runs found by scanning the lines from each position, and
+   * cover the lines lettered by the previous scan, which kept extending a run after its first zero
+   * sum up to the last one.
+   */
+  @Test
+  void testBalancedListsSameAsScan() {
+    Random random = new Random(42);
+    for (int scenario = 0; scenario < 50; scenario++) {
+      List<BigDecimal> amountList = new ArrayList<>();
+      for (int index = 0; index < 200; index++) {
+        amountList.add(BigDecimal.valueOf(random.nextInt(21) - 10, 2));
+        if (amountList.get(index).signum() == 0) {
+          amountList.set(index, BigDecimal.ONE);
+        }
+      }
+
+      List<List<BigDecimal>> balancedLists =
+          MoveLineLetteringIndex.getBalancedLists(amountList, amount -> amount);
+      Assertions.assertEquals(getBalancedListsByScan(amountList, false), balancedLists);
+      Assertions.assertEquals(
+          flatten(getBalancedListsByScan(amountList, true)), flatten(balancedLists));
+    }
+  }
+
+  @Test
+  @Tag("benchmark")
+  void testThroughput() {
+    Random random = new Random(42);
+    MoveLineLetteringIndex<Long> index = new MoveLineLetteringIndex<>();
+    List<BigDecimal> amountList = new ArrayList<>(BENCHMARK_LINE_NB);
+    for (int lineIndex = 0; lineIndex < BENCHMARK_LINE_NB / 2; lineIndex++) {
+      BigDecimal debit = BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+      BigDecimal credit = BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+      index.addDebitLine(2L * lineIndex, debit, debit, null);
+      index.addCreditLine(2L * lineIndex + 1, credit, credit);
+      amountList.add(debit.negate());
+      amountList.add(credit);
+    }
+
+    long startTime = System.nanoTime();
+    List<Match<Long>> matchList = index.match();
+    long matchTime = Math.max(1L, System.nanoTime() - startTime);
+
+    startTime = System.nanoTime();
+    List<List<BigDecimal>> balancedLists =
+        MoveLineLetteringIndex.getBalancedLists(amountList, amount -> amount);
+    long balancedTime = Math.max(1L, System.nanoTime() - startTime);
+
+    LOG.info(
+        "Auto lettering : {} lines matched by amount in {} ms ({} matches)",
+        BENCHMARK_LINE_NB,
+        matchTime / 1_000_000,
+        matchList.size());
+    LOG.info(
+        "Auto lettering : {} lines split in balanced runs in {} ms ({} runs)",
+        BENCHMARK_LINE_NB,
+        balancedTime / 1_000_000,
+        balancedLists.size());
+    for (Match<Long> match : matchList) {
+      Assertions.assertEquals(0, match.getDebitLine() % 2);
+      Assertions.assertEquals(1, match.getCreditLine() % 2);
+    }
+  }
+
+  /**
+   * Scan the lines from each position, stopping at the first zero sum, or at the last one to
+   * reproduce the scan replaced by the index.
+   */
+  protected List<List<BigDecimal>> getBalancedListsByScan(
+      List<BigDecimal> amountList, boolean isLastZeroSum) {
+    List<List<BigDecimal>> balancedLists = new ArrayList<>();
+    int start = 0;
+    while (start < amountList.size()) {
+      BigDecimal progressiveAmount = BigDecimal.ZERO;
+      int end = -1;
+      for (int index = start; index < amountList.size(); index++) {
+        progressiveAmount = progressiveAmount.add(amountList.get(index));
+        if (progressiveAmount.signum() == 0) {
+          end = index + 1;
+          if (!isLastZeroSum) {
+            break;
+          }
+        }
+      }
+      if (end < 0) {
+        start++;
+      } else {
+        balancedLists.add(amountList.subList(start, end));
+        start = end;
+      }
+    }
+    return balancedLists;
+  }
+
+  protected List<BigDecimal> flatten(List<List<BigDecimal>> balancedLists) {
+    List<BigDecimal> amountList = new ArrayList<>();
+    balancedLists.forEach(amountList::addAll);
+    return amountList;
+  }
+
+  protected void addDebitLine(MoveLineLetteringIndex<String> index, String line, String amount) {
+    BigDecimal debit = new BigDecimal(amount);
+    index.addDebitLine(line, debit.stripTrailingZeros(), debit, null);
+  }
+
+  protected void addCreditLine(MoveLineLetteringIndex<String> index, String line, String amount) {
+    BigDecimal credit = new BigDecimal(amount);
+    index.addCreditLine(line, credit.stripTrailingZeros(), credit);
+  }
+
+  protected void assertMatch(
+      Match<String> match, String debitLine, String creditLine, String amount) {
+    Assertions.assertEquals(debitLine, match.getDebitLine());
+    Assertions.assertEquals(creditLine, match.getCreditLine());
+    Assertions.assertEquals(0, new BigDecimal(amount).compareTo(match.getAmount()));
+  }
+
+  protected List<BigDecimal> toAmountList(int... amounts) {
+    List<BigDecimal> amountList = new ArrayList<>();
+    for (int amount : amounts) {
+      amountList.add(BigDecimal.valueOf(amount));
+    }
+    return amountList;
+  }
+}
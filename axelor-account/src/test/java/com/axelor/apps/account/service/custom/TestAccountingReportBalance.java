@@ -0,0 +1,85 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.custom;
+
+import com.axelor.apps.account.db.repo.AccountingReportConfigLineRepository;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestAccountingReportBalance {
+
+  private AccountingReportBalance accountingReportBalance;
+
+  @BeforeEach
+  void prepare() {
+    accountingReportBalance = new AccountingReportBalance();
+    accountingReportBalance.addMoveLines(1L, 3, new BigDecimal("150.00"), new BigDecimal("20.00"));
+    accountingReportBalance.addMoveLines(2L, 2, new BigDecimal("10.00"), new BigDecimal("85.50"));
+    accountingReportBalance.addAnalyticAmount(1L, new BigDecimal("60.00"), true);
+    accountingReportBalance.addAnalyticAmount(1L, new BigDecimal("5.00"), false);
+    accountingReportBalance.addAnalyticAmount(2L, null, true);
+  }
+
+  @Test
+  void testResults() {
+    List<Long> accountIdList = Arrays.asList(1L, 2L, 3L);
+
+    assertResult(
+        "54.50", accountIdList, AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT);
+    assertResult("160.00", accountIdList, AccountingReportConfigLineRepository.RESULT_DEBIT);
+    assertResult("105.50", accountIdList, AccountingReportConfigLineRepository.RESULT_CREDIT);
+    Assertions.assertEquals(5, accountingReportBalance.getMoveLineNb(accountIdList));
+  }
+
+  @Test
+  void testAnalyticResults() {
+    List<Long> accountIdList = Arrays.asList(1L, 2L);
+
+    Assertions.assertEquals(
+        0,
+        new BigDecimal("55.00")
+            .compareTo(
+                accountingReportBalance.getResult(
+                    accountIdList,
+                    AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT,
+                    true)));
+  }
+
+  @Test
+  void testAccountsWithoutMoveLine() {
+    Assertions.assertEquals(
+        0, accountingReportBalance.getMoveLineNb(Collections.singletonList(3L)));
+    assertResult(
+        "0",
+        Collections.emptyList(),
+        AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT);
+  }
+
+  protected void assertResult(String expected, List<Long> accountIdList, int resultSelect) {
+    Assertions.assertEquals(
+        0,
+        new BigDecimal(expected)
+            .compareTo(accountingReportBalance.getResult(accountIdList, resultSelect, false)));
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.custom;
+
+import static org.mockito.Mockito.mock;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.AccountingReport;
+import com.axelor.apps.account.db.AccountingReportConfigLine;
+import com.axelor.apps.account.db.AnalyticAccount;
+import com.axelor.apps.account.db.AnalyticMoveLine;
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.repo.AccountRepository;
+import com.axelor.apps.account.db.repo.AccountingReportConfigLineRepository;
+import com.axelor.apps.account.db.repo.AccountingReportValueRepository;
+import com.axelor.apps.account.db.repo.AnalyticAccountRepository;
+import com.axelor.apps.account.db.repo.MoveLineRepository;
+import com.axelor.apps.account.service.move.MoveToolService;
+import com.axelor.apps.base.service.DateService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that the results computed from the amounts aggregated by account are the ones computed
+ * from each move line, as the report did before.
+ */
+class TestAccountingReportValueMoveLineService {
+
+  private static final int[] RESULT_SELECTS = {
+    AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT,
+    AccountingReportConfigLineRepository.RESULT_DEBIT,
+    AccountingReportConfigLineRepository.RESULT_CREDIT
+  };
+
+  private final List<MoveLine> moveLineList = new ArrayList<>();
+  private AccountingReportValueMoveLineServiceImpl accountingReportValueMoveLineService;
+  private int queryNb;
+
+  private AccountingReport accountingReport;
+  private AccountingReportConfigLine column;
+  private AccountingReportConfigLine line;
+  private AnalyticAccount analyticAccount;
+  private AnalyticAccount otherAnalyticAccount;
+
+  @BeforeEach
+  void prepare() {
+    accountingReportValueMoveLineService =
+        new AccountingReportValueMoveLineServiceImpl(
+            mock(AccountRepository.class),
+            mock(AccountingReportValueRepository.class),
+            mock(AnalyticAccountRepository.class),
+            mock(MoveLineRepository.class),
+            mock(DateService.class),
+            mock(MoveToolService.class)) {
+          @Override
+          protected List<Object[]> getResultList(String queryStr, Map<String, Object> paramMap) {
+            queryNb++;
+            return queryStr.contains("COUNT(self.id)")
+                ? groupMoveLines()
+                : groupAnalyticMoveLines(
+                    queryStr.contains("self.debit > 0"),
+                    (Collection<?>) paramMap.get("analyticAccountSet"));
+          }
+        };
+
+    accountingReport = new AccountingReport();
+    column = new AccountingReportConfigLine();
+    line = new AccountingReportConfigLine();
+    analyticAccount = createAnalyticAccount(1L);
+    otherAnalyticAccount = createAnalyticAccount(2L);
+
+    Account account1 = createAccount(1L);
+    Account account2 = createAccount(2L);
+    Account account3 = createAccount(3L);
+    createMoveLine(account1, "150.00", "0", "90.00", "60.00");
+    createMoveLine(account1, "0", "20.00", "20.00", null);
+    createMoveLine(account2, "10.00", "0", null, "10.00");
+    createMoveLine(account2, "0", "85.50", "42.75", "42.75");
+    createMoveLine(account3, "1000.00", "0", "1000.00", null);
+  }
+
+  @Test
+  void testBalanceGivesPerLineResults() {
+    Set<Long> accountIdSet = new HashSet<>(Arrays.asList(1L, 2L));
+
+    for (int resultSelect : RESULT_SELECTS) {
+      assertSameResult(accountIdSet, null, resultSelect);
+    }
+    Assertions.assertEquals(1, queryNb);
+  }
+
+  @Test
+  void testBalanceGivesPerLineNegatedResults() {
+    line.setNegateValue(true);
+
+    for (int resultSelect : RESULT_SELECTS) {
+      assertSameResult(new HashSet<>(Arrays.asList(2L, 3L)), null, resultSelect);
+    }
+  }
+
+  @Test
+  void testBalanceGivesPerLineAnalyticResults() {
+    Set<AnalyticAccount> analyticAccountSet = new HashSet<>();
+    analyticAccountSet.add(analyticAccount);
+
+    for (int resultSelect : RESULT_SELECTS) {
+      assertSameResult(new HashSet<>(Arrays.asList(1L, 2L)), analyticAccountSet, resultSelect);
+      assertSameResult(Collections.singleton(3L), analyticAccountSet, resultSelect);
+    }
+    Assertions.assertEquals(3, queryNb);
+  }
+
+  protected void assertSameResult(
+      Set<Long> accountIdSet, Set<AnalyticAccount> analyticAccountSet, int resultSelect) {
+    AccountingReportBalance accountingReportBalance =
+        accountingReportValueMoveLineService.getAccountingReportBalance(
+            accountingReport,
+            null,
+            column,
+            line,
+            analyticAccountSet,
+            Collections.emptySet(),
+            LocalDate.of(2024, 1, 1),
+            LocalDate.of(2024, 12, 31));
+
+    BigDecimal result =
+        accountingReportValueMoveLineService.getResultFromBalance(
+            accountingReportBalance,
+            accountIdSet,
+            null,
+            column,
+            line,
+            analyticAccountSet,
+            resultSelect);
+
+    Assertions.assertEquals(
+        0,
+        getPerLineResult(accountIdSet, analyticAccountSet, resultSelect).compareTo(result),
+        "Result " + resultSelect + " of the accounts " + accountIdSet);
+  }
+
+  /** The result as computed before, by adding up the amount of each move line. */
+  protected BigDecimal getPerLineResult(
+      Set<Long> accountIdSet, Set<AnalyticAccount> analyticAccountSet, int resultSelect) {
+    BigDecimal result = BigDecimal.ZERO;
+
+    for (MoveLine moveLine : moveLineList) {
+      if (!accountIdSet.contains(moveLine.getAccount().getId())) {
+        continue;
+      }
+
+      BigDecimal debit = moveLine.getDebit();
+      BigDecimal credit = moveLine.getCredit();
+      if (analyticAccountSet != null) {
+        BigDecimal amount =
+            moveLine.getAnalyticMoveLineList().stream()
+                .filter(it -> analyticAccountSet.contains(it.getAnalyticAccount()))
+                .map(AnalyticMoveLine::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        boolean isDebit = moveLine.getDebit().signum() > 0;
+        debit = isDebit ? amount : BigDecimal.ZERO;
+        credit = isDebit ? BigDecimal.ZERO : amount;
+      }
+
+      switch (resultSelect) {
+        case AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT:
+          result = result.add(debit).subtract(credit);
+          break;
+        case AccountingReportConfigLineRepository.RESULT_DEBIT:
+          result = result.add(debit);
+          break;
+        case AccountingReportConfigLineRepository.RESULT_CREDIT:
+          result = result.add(credit);
+          break;
+        default:
+          break;
+      }
+    }
+
+    return line.getNegateValue() ? result.negate() : result;
+  }
+
+  /** The move line aggregates, as returned by the database. */
+  protected List<Object[]> groupMoveLines() {
+    Map<Long, Object[]> resultMap = new LinkedHashMap<>();
+
+    for (MoveLine moveLine : moveLineList) {
+      Object[] result =
+          resultMap.computeIfAbsent(
+              moveLine.getAccount().getId(),
+              accountId -> new Object[] {accountId, 0L, BigDecimal.ZERO, BigDecimal.ZERO});
+      result[1] = (Long) result[1] + 1;
+      result[2] = ((BigDecimal) result[2]).add(moveLine.getDebit());
+      result[3] = ((BigDecimal) result[3]).add(moveLine.getCredit());
+    }
+
+    return new ArrayList<>(resultMap.values());
+  }
+
+  /** The analytic move line aggregates of the debit or the other move lines. */
+  protected List<Object[]> groupAnalyticMoveLines(
+      boolean isDebit, Collection<?> analyticAccountSet) {
+    Map<Long, Object[]> resultMap = new LinkedHashMap<>();
+
+    for (MoveLine moveLine : moveLineList) {
+      if ((moveLine.getDebit().signum() > 0) != isDebit) {
+        continue;
+      }
+      for (AnalyticMoveLine analyticMoveLine : moveLine.getAnalyticMoveLineList()) {
+        if (!analyticAccountSet.contains(analyticMoveLine.getAnalyticAccount())) {
+          continue;
+        }
+        Object[] result =
+            resultMap.computeIfAbsent(
+                moveLine.getAccount().getId(),
+                accountId -> new Object[] {accountId, BigDecimal.ZERO});
+        result[1] = ((BigDecimal) result[1]).add(analyticMoveLine.getAmount());
+      }
+    }
+
+    return new ArrayList<>(resultMap.values());
+  }
+
+  protected Account createAccount(Long id) {
+    Account account = new Account();
+    account.setId(id);
+    return account;
+  }
+
+  protected AnalyticAccount createAnalyticAccount(Long id) {
+    AnalyticAccount analyticAccount = new AnalyticAccount();
+    analyticAccount.setId(id);
+    return analyticAccount;
+  }
+
+  /** Create a move line split between the two analytic accounts. */
+  protected void createMoveLine(
+      Account account, String debit, String credit, String analyticAmount, String otherAmount) {
+    MoveLine moveLine = new MoveLine();
+    moveLine.setAccount(account);
+    moveLine.setDebit(new BigDecimal(debit));
+    moveLine.setCredit(new BigDecimal(credit));
+    moveLine.setAnalyticMoveLineList(new ArrayList<>());
+    addAnalyticMoveLine(moveLine, analyticAccount, analyticAmount);
+    addAnalyticMoveLine(moveLine, otherAnalyticAccount, otherAmount);
+    moveLineList.add(moveLine);
+  }
+
+  protected void addAnalyticMoveLine(
+      MoveLine moveLine, AnalyticAccount analyticAccount, String amount) {
+    if (amount != null) {
+      AnalyticMoveLine analyticMoveLine = new AnalyticMoveLine();
+      analyticMoveLine.setAnalyticAccount(analyticAccount);
+      analyticMoveLine.setAmount(new BigDecimal(amount));
+      moveLine.getAnalyticMoveLineList().add(analyticMoveLine);
+    }
+  }
+}
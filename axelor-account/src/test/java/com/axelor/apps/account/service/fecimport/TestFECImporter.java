@@ -0,0 +1,131 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.fecimport;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.account.db.FECImport;
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.repo.FECImportRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.service.app.AppAccountService;
+import com.axelor.apps.account.service.move.MoveValidateService;
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.repo.CompanyRepository;
+import com.axelor.apps.base.service.imports.listener.ImporterListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Check that a failing chunk of imported moves is replayed move by move. */
+class TestFECImporter {
+
+  private static final long FAILING_MOVE_ID = 42L;
+
+  private final List<List<Long>> chunkList = new ArrayList<>();
+  private final List<Long> replayedMoveIdList = new ArrayList<>();
+  private FECImporter fecImporter;
+  private Company company;
+
+  @BeforeEach
+  void prepare() {
+    company = new Company();
+    company.setId(1L);
+    MoveRepository moveRepository = mock(MoveRepository.class);
+    when(moveRepository.find(anyLong()))
+        .thenAnswer(
+            invocation -> {
+              Move move = new Move();
+              move.setId(invocation.getArgument(0));
+              move.setCompany(company);
+              return move;
+            });
+    CompanyRepository companyRepository = mock(CompanyRepository.class);
+    when(companyRepository.find(1L)).thenReturn(company);
+
+    fecImporter =
+        new FECImporter(
+            mock(MoveValidateService.class),
+            mock(AppAccountService.class),
+            moveRepository,
+            mock(FECImportRepository.class),
+            companyRepository) {
+          @Override
+          protected void completeAndValidateMoveChunk(FECImport fecImport, List<Long> moveIdList)
+              throws AxelorException {
+            chunkList.add(new ArrayList<>(moveIdList));
+            if (moveIdList.contains(FAILING_MOVE_ID)) {
+              throw new IllegalStateException("Duplicate move reference");
+            }
+          }
+
+          @Override
+          protected void completeAndValidateMoveByMove(
+              FECImport fecImport, List<Long> moveIdList, ImporterListener listener) {
+            replayedMoveIdList.addAll(moveIdList);
+          }
+
+          @Override
+          protected void clearSession() {}
+        };
+  }
+
+  @Test
+  void testFailedChunkIsReplayedMoveByMove() {
+    List<Move> moveList =
+        LongStream.rangeClosed(1, 250)
+            .mapToObj(
+                id -> {
+                  Move move = new Move();
+                  move.setId(id);
+                  return move;
+                })
+            .collect(Collectors.toList());
+
+    fecImporter.completeAndvalidateMoves(new FECImport(), moveList, null);
+
+    Assertions.assertEquals(3, chunkList.size());
+    Assertions.assertEquals(100, chunkList.get(0).size());
+    Assertions.assertEquals(
+        LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList()), replayedMoveIdList);
+    Assertions.assertEquals(
+        LongStream.rangeClosed(201, 250).boxed().collect(Collectors.toList()), chunkList.get(2));
+    Assertions.assertSame(company, fecImporter.getCompany());
+  }
+
+  @Test
+  void testNoReplayWhenChunksSucceed() {
+    Move move = new Move();
+    move.setId(1L);
+    List<Move> moveList = new ArrayList<>();
+    moveList.add(move);
+
+    fecImporter.completeAndvalidateMoves(new FECImport(), moveList, null);
+
+    Assertions.assertEquals(1, chunkList.size());
+    Assertions.assertTrue(replayedMoveIdList.isEmpty());
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.csv.script;
+
+import com.axelor.apps.base.db.Company;
+import com.axelor.db.Model;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/** Check that the lookups of a FEC import are loaded once, until a failing batch clears them. */
+class TestImportMove {
+
+  private int loadNb;
+
+  private final ImportMove importMove =
+      new ImportMove() {
+        @Override
+        protected Map<String, Long> getIdByCodeMap(Class<? extends Model> klass, Long companyId) {
+          loadNb++;
+          Map<String, Long> idByCodeMap = new HashMap<>();
+          idByCodeMap.put("411", companyId * 100);
+          return idByCodeMap;
+        }
+      };
+
+  @Test
+  void testLookupsAreReloadedAfterFailure() {
+    Company company = new Company();
+    company.setId(1L);
+
+    Assertions.assertEquals(Long.valueOf(100L), importMove.getAccountIdMap(company).get("411"));
+    importMove.getAccountIdMap(company);
+    importMove.getJournalIdMap(company);
+    Assertions.assertEquals(2, loadNb);
+
+    importMove.clearImportCache();
+
+    importMove.getAccountIdMap(company);
+    importMove.getJournalIdMap(company);
+    Assertions.assertEquals(4, loadNb);
+  }
+}
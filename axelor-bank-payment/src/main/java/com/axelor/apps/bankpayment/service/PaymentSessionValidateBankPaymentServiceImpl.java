@@ -28,6 +28,7 @@ import com.axelor.apps.account.db.repo.InvoiceTermRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.db.repo.PaymentModeRepository;
 import com.axelor.apps.account.db.repo.PaymentSessionRepository;
+import com.axelor.apps.account.service.AccountCustomerService;
 import com.axelor.apps.account.service.FinancialDiscountService;
 import com.axelor.apps.account.service.config.AccountConfigService;
 import com.axelor.apps.account.service.invoice.InvoiceTermFilterService;
@@ -104,6 +105,7 @@ public class PaymentSessionValidateBankPaymentServiceImpl
       InvoiceTermFilterService invoiceTermFilterService,
       InvoicePaymentRepository invoicePaymentRepo,
       CurrencyScaleService currencyScaleService,
+      AccountCustomerService accountCustomerService,
       BankOrderComputeService bankOrderComputeService,
       BankOrderRepository bankOrderRepo,
       BankOrderValidationService bankOrderValidationService,
@@ -132,7 +134,8 @@ public class PaymentSessionValidateBankPaymentServiceImpl
         moveLineFinancialDiscountService,
         financialDiscountService,
         invoiceTermFilterService,
-        currencyScaleService);
+        currencyScaleService,
+        accountCustomerService);
     this.bankOrderComputeService = bankOrderComputeService;
     this.bankOrderRepo = bankOrderRepo;
     this.bankOrderValidationService = bankOrderValidationService;
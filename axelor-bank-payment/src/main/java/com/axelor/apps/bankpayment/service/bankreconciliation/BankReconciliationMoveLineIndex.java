@@ -0,0 +1,302 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankreconciliation;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.bankpayment.db.repo.BankStatementQueryRepository;
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Currency;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Index of the move lines to reconcile, by move currency and absolute currency amount, by date and
+ * due date, and by origin, used to narrow down the move lines on which a bank statement query is
+ * evaluated.
+ *
+ * <p>The candidates are always given in the order of the move line list, so the first matching move
+ * line is the same as when evaluating the query on every move line.
+ */
+public class BankReconciliationMoveLineIndex {
+
+  protected final List<MoveLine> moveLineList;
+  protected final Map<MoveLine, Integer> moveLineIndexMap;
+  protected final Map<Currency, TreeMap<BigDecimal, List<Integer>>> amountIndexMap;
+  protected final TreeMap<LocalDate, List<Integer>> dateIndexMap;
+  protected final TreeMap<LocalDate, List<Integer>> dueDateIndexMap;
+  protected final Map<String, List<Integer>> originIndexMap;
+  protected final Map<Currency, Integer> remainingNbMap;
+  protected final BitSet reconciledIndexes = new BitSet();
+
+  public BankReconciliationMoveLineIndex(List<MoveLine> moveLineList) {
+    this.moveLineList = new ArrayList<>(moveLineList);
+    this.moveLineIndexMap = new IdentityHashMap<>();
+    this.amountIndexMap = new LinkedHashMap<>();
+    this.dateIndexMap = new TreeMap<>();
+    this.dueDateIndexMap = new TreeMap<>();
+    this.originIndexMap = new HashMap<>();
+    this.remainingNbMap = new HashMap<>();
+
+    for (int index = 0; index < this.moveLineList.size(); index++) {
+      MoveLine moveLine = this.moveLineList.get(index);
+      moveLineIndexMap.putIfAbsent(moveLine, index);
+      remainingNbMap.merge(moveLine.getMove().getCurrency(), 1, Integer::sum);
+      amountIndexMap
+          .computeIfAbsent(moveLine.getMove().getCurrency(), currency -> new TreeMap<>())
+          .computeIfAbsent(moveLine.getCurrencyAmount().abs(), amount -> new ArrayList<>())
+          .add(index);
+      if (moveLine.getDate() != null) {
+        dateIndexMap.computeIfAbsent(moveLine.getDate(), date -> new ArrayList<>()).add(index);
+      }
+      if (moveLine.getDueDate() != null) {
+        dueDateIndexMap
+            .computeIfAbsent(moveLine.getDueDate(), dueDate -> new ArrayList<>())
+            .add(index);
+      }
+      originIndexMap.computeIfAbsent(moveLine.getOrigin(), origin -> new ArrayList<>()).add(index);
+    }
+  }
+
+  public boolean isEmpty() {
+    return reconciledIndexes.cardinality() == moveLineList.size();
+  }
+
+  public void remove(MoveLine moveLine) {
+    Integer index = moveLineIndexMap.get(moveLine);
+    if (index != null && !reconciledIndexes.get(index)) {
+      reconciledIndexes.set(index);
+      remainingNbMap.merge(moveLine.getMove().getCurrency(), -1, Integer::sum);
+    }
+  }
+
+  /**
+   * Get the move lines not reconciled yet which may satisfy the conditions of a query.
+   *
+   * @param amountCondition the amount condition of the query, null if it has none
+   * @param currencyAmountFunction the currency amount of the bank statement line in a currency,
+   *     only called with an amount condition, for the currencies of the move lines not reconciled
+   * @param dateCondition the date condition of the query, null if it has none
+   * @param originCondition the origin condition of the query, null if it has none
+   * @return the candidates, in the order of the move line list
+   */
+  public List<MoveLine> getCandidateList(
+      AmountCondition amountCondition,
+      CurrencyAmountFunction currencyAmountFunction,
+      DateCondition dateCondition,
+      OriginCondition originCondition)
+      throws AxelorException {
+    BitSet candidateIndexes = new BitSet();
+    candidateIndexes.set(0, moveLineList.size());
+    candidateIndexes.andNot(reconciledIndexes);
+
+    if (originCondition != null) {
+      candidateIndexes.and(
+          toBitSet(originIndexMap.getOrDefault(originCondition.origin, List.of()).stream()));
+    }
+
+    if (dateCondition != null && !candidateIndexes.isEmpty()) {
+      candidateIndexes.and(
+          toBitSet(
+              Stream.concat(
+                  dateCondition.getCandidateStream(dateIndexMap),
+                  dateCondition.getCandidateStream(dueDateIndexMap))));
+    }
+
+    if (amountCondition != null && !candidateIndexes.isEmpty()) {
+      BitSet amountCandidateIndexes = new BitSet();
+      for (Map.Entry<Currency, TreeMap<BigDecimal, List<Integer>>> entry :
+          amountIndexMap.entrySet()) {
+        if (remainingNbMap.get(entry.getKey()) == 0) {
+          continue;
+        }
+        amountCondition
+            .getCandidateMap(entry.getValue(), currencyAmountFunction.apply(entry.getKey()))
+            .values()
+            .forEach(indexList -> indexList.forEach(amountCandidateIndexes::set));
+      }
+      candidateIndexes.and(amountCandidateIndexes);
+    }
+
+    List<MoveLine> candidateList = new ArrayList<>();
+    candidateIndexes.stream().forEach(index -> candidateList.add(moveLineList.get(index)));
+    return candidateList;
+  }
+
+  protected BitSet toBitSet(Stream<Integer> indexStream) {
+    BitSet indexes = new BitSet();
+    indexStream.forEach(indexes::set);
+    return indexes;
+  }
+
+  /** Currency amount of the bank statement line in a currency of the moves. */
+  @FunctionalInterface
+  public interface CurrencyAmountFunction {
+    BigDecimal apply(Currency currency) throws AxelorException;
+  }
+
+  /**
+   * Condition on the absolute currency amount of the move line, declared on the bank statement
+   * query with its amount condition select. The move lines not satisfying it can not satisfy the
+   * query.
+   */
+  public static class AmountCondition {
+
+    protected BigDecimal lowFactor;
+    protected BigDecimal highFactor;
+
+    /**
+     * Get the amount condition of a query.
+     *
+     * @param amountConditionSelect the amount condition select of the query
+     * @param amountMarginLow the factor of the lower margin of the amount
+     * @param amountMarginHigh the factor of the upper margin of the amount
+     * @return the condition, null if the query has none
+     */
+    public static AmountCondition of(
+        int amountConditionSelect, BigDecimal amountMarginLow, BigDecimal amountMarginHigh) {
+      AmountCondition amountCondition = new AmountCondition();
+
+      switch (amountConditionSelect) {
+        case BankStatementQueryRepository.AMOUNT_CONDITION_EQUAL:
+          amountCondition.restrictLow(BigDecimal.ONE);
+          amountCondition.restrictHigh(BigDecimal.ONE);
+          return amountCondition;
+        case BankStatementQueryRepository.AMOUNT_CONDITION_WITHIN_MARGINS:
+          amountCondition.restrictLow(amountMarginLow);
+          amountCondition.restrictHigh(amountMarginHigh);
+          return amountCondition;
+        default:
+          return null;
+      }
+    }
+
+    protected void restrictLow(BigDecimal factor) {
+      lowFactor = lowFactor == null ? factor : lowFactor.max(factor);
+    }
+
+    protected void restrictHigh(BigDecimal factor) {
+      highFactor = highFactor == null ? factor : highFactor.min(factor);
+    }
+
+    protected NavigableMap<BigDecimal, List<Integer>> getCandidateMap(
+        TreeMap<BigDecimal, List<Integer>> amountMap, BigDecimal currencyAmount) {
+      if (currencyAmount == null || currencyAmount.signum() < 0) {
+        return amountMap;
+      }
+
+      BigDecimal low = lowFactor == null ? null : currencyAmount.multiply(lowFactor);
+      BigDecimal high = highFactor == null ? null : currencyAmount.multiply(highFactor);
+
+      if (low != null && high != null) {
+        return low.compareTo(high) > 0 ? new TreeMap<>() : amountMap.subMap(low, true, high, true);
+      }
+      return low != null ? amountMap.tailMap(low, true) : amountMap.headMap(high, true);
+    }
+  }
+
+  /**
+   * Condition on the date or the due date of the move line, declared on the bank statement query
+   * with its date condition select: one of them is within the date margin of the operation date or
+   * of the value date of the bank statement line. The move lines not satisfying it can not satisfy
+   * the query.
+   */
+  public static class DateCondition {
+
+    protected long dateMargin;
+    protected List<LocalDate> dateList;
+
+    /**
+     * Get the date condition of a query for a bank statement line.
+     *
+     * @param dateConditionSelect the date condition select of the query
+     * @param dateMargin the date margin in days
+     * @param operationDate the operation date of the bank statement line
+     * @param valueDate the value date of the bank statement line
+     * @return the condition, null if the query has none or if a date of the bank statement line is
+     *     empty, as the test function may then match the move lines without date
+     */
+    public static DateCondition of(
+        int dateConditionSelect, long dateMargin, LocalDate operationDate, LocalDate valueDate) {
+      if (operationDate == null || valueDate == null) {
+        return null;
+      }
+
+      DateCondition dateCondition = new DateCondition();
+      dateCondition.dateList = List.of(operationDate, valueDate);
+
+      switch (dateConditionSelect) {
+        case BankStatementQueryRepository.DATE_CONDITION_EQUAL:
+          dateCondition.dateMargin = 0;
+          return dateCondition;
+        case BankStatementQueryRepository.DATE_CONDITION_WITHIN_MARGIN:
+          dateCondition.dateMargin = Math.max(dateMargin, 0);
+          return dateCondition;
+        default:
+          return null;
+      }
+    }
+
+    protected Stream<Integer> getCandidateStream(NavigableMap<LocalDate, List<Integer>> dateMap) {
+      return dateList.stream()
+          .map(
+              date ->
+                  dateMap.subMap(
+                      date.minusDays(dateMargin), true, date.plusDays(dateMargin), true))
+          .flatMap(candidateMap -> candidateMap.values().stream())
+          .flatMap(List::stream);
+    }
+  }
+
+  /**
+   * Condition on the origin of the move line, declared on the bank statement query with its origin
+   * condition select: it is equal to the origin of the bank statement line. The move lines not
+   * satisfying it can not satisfy the query.
+   */
+  public static class OriginCondition {
+
+    protected String origin;
+
+    /**
+     * Get the origin condition of a query for a bank statement line.
+     *
+     * @param originConditionSelect the origin condition select of the query
+     * @param origin the origin of the bank statement line
+     * @return the condition, null if the query has none
+     */
+    public static OriginCondition of(int originConditionSelect, String origin) {
+      if (originConditionSelect != BankStatementQueryRepository.ORIGIN_CONDITION_EQUAL) {
+        return null;
+      }
+
+      OriginCondition originCondition = new OriginCondition();
+      originCondition.origin = origin;
+      return originCondition;
+    }
+  }
+}
@@ -30,6 +30,7 @@ import com.axelor.apps.bankpayment.db.repo.BankStatementQueryRepository;
 import com.axelor.apps.bankpayment.db.repo.BankStatementRuleRepository;
 import com.axelor.apps.bankpayment.exception.BankPaymentExceptionMessage;
 import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Currency;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.CurrencyScaleService;
 import com.axelor.apps.base.service.CurrencyService;
@@ -43,7 +44,9 @@ import com.google.inject.persist.Transactional;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class BankReconciliationReconciliationServiceImpl
@@ -105,49 +108,110 @@ public class BankReconciliationReconciliationServiceImpl
     BigDecimal amountMarginLow = this.getAmountMarginLow(bankReconciliation);
     BigDecimal amountMarginHigh = BigDecimal.ONE;
 
-    Context scriptContext;
+    BankReconciliationMoveLineIndex moveLineIndex = new BankReconciliationMoveLineIndex(moveLines);
 
     for (BankStatementQuery bankStatementQuery : bankStatementQueries) {
+      String query =
+          computeQuery(bankStatementQuery, dateMargin, amountMarginLow, amountMarginHigh);
+      BankReconciliationMoveLineIndex.AmountCondition amountCondition =
+          BankReconciliationMoveLineIndex.AmountCondition.of(
+              bankStatementQuery.getAmountConditionSelect(), amountMarginLow, amountMarginHigh);
+
       for (BankReconciliationLine bankReconciliationLine : bankReconciliationLines) {
         BankStatementLine bankStatementLine = bankReconciliationLine.getBankStatementLine();
-        if (bankReconciliationLine.getMoveLine() != null || bankStatementLine == null) {
+        if (bankReconciliationLine.getMoveLine() != null
+            || bankStatementLine == null
+            || moveLineIndex.isEmpty()) {
           continue;
         }
-        for (MoveLine moveLine : moveLines) {
-          bankStatementLine.setMoveLine(moveLine);
-
-          scriptContext =
-              this.getScriptContext(
-                  bankReconciliation, bankStatementLine, bankReconciliationLine, moveLine);
-          String query =
-              computeQuery(bankStatementQuery, dateMargin, amountMarginLow, amountMarginHigh);
-          Boolean result = (Boolean) new GroovyScriptHelper(scriptContext).eval(query);
 
-          if (result) {
-            bankReconciliationLine =
-                updateBankReconciliationLine(bankReconciliationLine, moveLine, bankStatementQuery);
-            boolean isUnderCorrection =
-                bankReconciliation.getStatusSelect()
-                    == BankReconciliationRepository.STATUS_UNDER_CORRECTION;
+        MoveLine moveLine =
+            this.findMatchingMoveLine(
+                bankReconciliation,
+                bankStatementLine,
+                bankReconciliationLine,
+                moveLineIndex,
+                query,
+                amountCondition,
+                BankReconciliationMoveLineIndex.DateCondition.of(
+                    bankStatementQuery.getDateConditionSelect(),
+                    dateMargin.longValue(),
+                    bankStatementLine.getOperationDate(),
+                    bankStatementLine.getValueDate()),
+                BankReconciliationMoveLineIndex.OriginCondition.of(
+                    bankStatementQuery.getOriginConditionSelect(), bankStatementLine.getOrigin()));
+        bankStatementLine.setMoveLine(moveLine);
 
-            if (isUnderCorrection) {
-              bankReconciliationLine.setIsPosted(true);
-              bankReconciliationLineService.checkAmount(bankReconciliationLine);
-              bankReconciliationLineService.updateBankReconciledAmounts(bankReconciliationLine);
-            }
+        if (moveLine != null) {
+          bankReconciliationLine =
+              updateBankReconciliationLine(bankReconciliationLine, moveLine, bankStatementQuery);
+          boolean isUnderCorrection =
+              bankReconciliation.getStatusSelect()
+                  == BankReconciliationRepository.STATUS_UNDER_CORRECTION;
 
-            moveLine.setPostedNbr(bankReconciliationLine.getPostedNbr());
-            moveLines.remove(moveLine);
-            break;
+          if (isUnderCorrection) {
+            bankReconciliationLine.setIsPosted(true);
+            bankReconciliationLineService.checkAmount(bankReconciliationLine);
+            bankReconciliationLineService.updateBankReconciledAmounts(bankReconciliationLine);
           }
 
-          bankStatementLine.setMoveLine(null);
+          moveLine.setPostedNbr(bankReconciliationLine.getPostedNbr());
+          moveLineIndex.remove(moveLine);
         }
       }
     }
     return bankReconciliation;
   }
 
+  /**
+   * Find the first move line satisfying the query for the bank statement line. The query is only
+   * evaluated on the move lines which may satisfy its amount, date and origin conditions. The
+   * amount of the bank statement line is only converted into the currencies it is needed in.
+   *
+   * @return the move line, null if there is none
+   */
+  protected MoveLine findMatchingMoveLine(
+      BankReconciliation bankReconciliation,
+      BankStatementLine bankStatementLine,
+      BankReconciliationLine bankReconciliationLine,
+      BankReconciliationMoveLineIndex moveLineIndex,
+      String query,
+      BankReconciliationMoveLineIndex.AmountCondition amountCondition,
+      BankReconciliationMoveLineIndex.DateCondition dateCondition,
+      BankReconciliationMoveLineIndex.OriginCondition originCondition)
+      throws AxelorException {
+    Map<Currency, BigDecimal> currencyAmountMap = new HashMap<>();
+    BankReconciliationMoveLineIndex.CurrencyAmountFunction currencyAmountFunction =
+        currency -> {
+          if (!currencyAmountMap.containsKey(currency)) {
+            currencyAmountMap.put(
+                currency,
+                this.getCurrencyAmount(bankReconciliation, bankReconciliationLine, currency));
+          }
+          return currencyAmountMap.get(currency);
+        };
+
+    bankStatementLine.setMoveLine(null);
+    Map<String, Object> bankStatementLineMap = Mapper.toMap(bankStatementLine);
+
+    for (MoveLine moveLine :
+        moveLineIndex.getCandidateList(
+            amountCondition, currencyAmountFunction, dateCondition, originCondition)) {
+      Context scriptContext =
+          this.getScriptContext(
+              bankReconciliation,
+              bankStatementLineMap,
+              bankReconciliationLine,
+              moveLine,
+              currencyAmountFunction.apply(moveLine.getMove().getCurrency()));
+
+      if ((Boolean) new GroovyScriptHelper(scriptContext).eval(query)) {
+        return moveLine;
+      }
+    }
+    return null;
+  }
+
   @Override
   public void checkReconciliation(List<MoveLine> moveLines, BankReconciliation br)
       throws AxelorException {
@@ -267,31 +331,39 @@ public class BankReconciliationReconciliationServiceImpl
 
   protected Context getScriptContext(
       BankReconciliation bankReconciliation,
-      BankStatementLine bankStatementLine,
+      Map<String, Object> bankStatementLineMap,
       BankReconciliationLine bankReconciliationLine,
-      MoveLine moveLine)
-      throws AxelorException {
-    Context scriptContext =
-        new Context(Mapper.toMap(bankStatementLine), BankStatementLineAFB120.class);
+      MoveLine moveLine,
+      BigDecimal currencyAmount) {
+    Map<String, Object> values = new HashMap<>(bankStatementLineMap);
+    values.put("moveLine", moveLine);
+    Context scriptContext = new Context(values, BankStatementLineAFB120.class);
+
+    scriptContext.put(
+        "debit",
+        currencyScaleService.getScaledValue(bankReconciliation, bankReconciliationLine.getDebit()));
+    scriptContext.put(
+        "credit",
+        currencyScaleService.getScaledValue(
+            bankReconciliation, bankReconciliationLine.getCredit()));
+    scriptContext.put("currencyAmount", currencyAmount);
+
+    return scriptContext;
+  }
 
+  protected BigDecimal getCurrencyAmount(
+      BankReconciliation bankReconciliation,
+      BankReconciliationLine bankReconciliationLine,
+      Currency moveCurrency)
+      throws AxelorException {
     BigDecimal debit =
         currencyScaleService.getScaledValue(bankReconciliation, bankReconciliationLine.getDebit());
     BigDecimal credit =
         currencyScaleService.getScaledValue(bankReconciliation, bankReconciliationLine.getCredit());
 
     BigDecimal currencyAmount = debit.compareTo(BigDecimal.ZERO) == 0 ? credit : debit;
-    currencyAmount =
-        currencyService.getAmountCurrencyConvertedAtDate(
-            bankReconciliation.getCurrency(),
-            moveLine.getMove().getCurrency(),
-            currencyAmount,
-            dateService.date());
-
-    scriptContext.put("debit", debit);
-    scriptContext.put("credit", credit);
-    scriptContext.put("currencyAmount", currencyAmount);
-
-    return scriptContext;
+    return currencyService.getAmountCurrencyConvertedAtDate(
+        bankReconciliation.getCurrency(), moveCurrency, currencyAmount, dateService.date());
   }
 
   protected BankReconciliationLine updateBankReconciliationLine(
@@ -51,6 +51,7 @@ import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.db.JPA;
 import com.axelor.db.Query;
@@ -155,11 +156,12 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
       throws AxelorException, JAXBException, IOException, DatatypeConfigurationException {
 
     List<PaymentScheduleLine> paymentScheduleLineList;
-    int offset = 0;
+    KeysetQuery<PaymentScheduleLine> paymentScheduleLineQuery =
+        getPaymentScheduleLineDoneListKeysetQuery(batch);
 
-    while (!(paymentScheduleLineList = fetchPaymentScheduleLineDoneList(batch, offset)).isEmpty()) {
+    while (!(paymentScheduleLineList = fetchPaymentScheduleLineDoneList(paymentScheduleLineQuery))
+        .isEmpty()) {
       createBankOrders(batch, paymentScheduleLineList);
-      offset += paymentScheduleLineList.size();
       JPA.clear();
       batch = batchRepo.find(batch.getId());
     }
@@ -270,10 +272,11 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
     bankOrder = JPA.save(bankOrder);
 
     List<PaymentScheduleLine> paymentScheduleLineList;
-    int offset = 0;
+    KeysetQuery<PaymentScheduleLine> paymentScheduleLineQuery =
+        getPaymentScheduleLineDoneListKeysetQuery(batch);
 
     try {
-      while (!(paymentScheduleLineList = fetchPaymentScheduleLineDoneList(batch, offset))
+      while (!(paymentScheduleLineList = fetchPaymentScheduleLineDoneList(paymentScheduleLineQuery))
           .isEmpty()) {
         bankOrder = bankOrderRepo.find(bankOrder.getId());
 
@@ -300,7 +303,6 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
         }
 
         bankOrder = JPA.save(bankOrder);
-        offset += paymentScheduleLineList.size();
         JPA.clear();
       }
     } catch (Exception e) {
@@ -319,8 +321,18 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
     return bankOrder;
   }
 
-  protected List<PaymentScheduleLine> fetchPaymentScheduleLineDoneList(Batch batch, int offset) {
-    return getPaymentScheduleLineDoneListQuery(batch).fetch(AbstractBatch.FETCH_LIMIT, offset);
+  protected List<PaymentScheduleLine> fetchPaymentScheduleLineDoneList(
+      KeysetQuery<PaymentScheduleLine> query) {
+    return query.fetchNext(AbstractBatch.FETCH_LIMIT);
+  }
+
+  protected KeysetQuery<PaymentScheduleLine> getPaymentScheduleLineDoneListKeysetQuery(
+      Batch batch) {
+    return new KeysetQuery<>(
+            PaymentScheduleLine.class,
+            ":batch MEMBER OF self.batchSet AND self.statusSelect = :statusSelect")
+        .bind("batch", batch)
+        .bind("statusSelect", PaymentScheduleLineRepository.STATUS_VALIDATED);
   }
 
   private Query<PaymentScheduleLine> getPaymentScheduleLineDoneListQuery(Batch batch) {
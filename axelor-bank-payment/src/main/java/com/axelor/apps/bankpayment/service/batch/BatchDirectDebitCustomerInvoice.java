@@ -21,30 +21,32 @@ package com.axelor.apps.bankpayment.service.batch;
 import com.axelor.apps.account.db.AccountingBatch;
 import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.account.db.InvoicePayment;
+import com.axelor.apps.account.db.repo.InvoicePaymentRepository;
 import com.axelor.apps.account.db.repo.InvoiceRepository;
 import com.axelor.apps.account.service.payment.invoice.payment.InvoicePaymentCreateService;
 import com.axelor.apps.bankpayment.db.BankOrder;
 import com.axelor.apps.bankpayment.service.bankorder.BankOrderMergeService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.BankDetails;
-import com.axelor.apps.base.db.repo.BankDetailsRepository;
 import com.axelor.apps.base.db.repo.BlockingRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.inject.Beans;
-import com.google.common.base.Function;
-import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,8 +78,8 @@ public class BatchDirectDebitCustomerInvoice extends BatchDirectDebit {
     bindingList.add(Pair.of("dueDate", (Object) dueDate));
 
     if (accountingBatch.getCompany() != null) {
-      filterList.add("self.company = :company");
-      bindingList.add(Pair.of("company", (Object) accountingBatch.getCompany()));
+      filterList.add("self.company.id = :companyId");
+      bindingList.add(Pair.of("companyId", (Object) accountingBatch.getCompany().getId()));
     }
 
     filterList.add(
@@ -96,13 +98,17 @@ public class BatchDirectDebitCustomerInvoice extends BatchDirectDebit {
         bankDetailsSet.addAll(accountingBatch.getCompany().getBankDetailsList());
       }
 
-      filterList.add("self.companyBankDetails IN (:bankDetailsSet)");
-      bindingList.add(Pair.of("bankDetailsSet", (Object) bankDetailsSet));
+      filterList.add("self.companyBankDetails.id IN (:bankDetailsIdList)");
+      bindingList.add(
+          Pair.of(
+              "bankDetailsIdList",
+              (Object)
+                  bankDetailsSet.stream().map(BankDetails::getId).collect(Collectors.toList())));
     }
 
     if (accountingBatch.getPaymentMode() != null) {
-      filterList.add("self.paymentMode = :paymentMode");
-      bindingList.add(Pair.of("paymentMode", (Object) accountingBatch.getPaymentMode()));
+      filterList.add("self.paymentMode.id = :paymentModeId");
+      bindingList.add(Pair.of("paymentModeId", (Object) accountingBatch.getPaymentMode().getId()));
     }
 
     List<InvoicePayment> invoicePaymentList = processQuery(filterList, bindingList);
@@ -119,69 +125,104 @@ public class BatchDirectDebitCustomerInvoice extends BatchDirectDebit {
     }
   }
 
-  private List<InvoicePayment> processQuery(
+  /**
+   * Create the payments of the invoices, split in partitions of ids processed in parallel: each
+   * invoice gets its own payment, the payments are merged in a bank order afterwards. The invoices
+   * of a partner stay in the same partition, as their payments update the partner balance.
+   */
+  protected List<InvoicePayment> processQuery(
       List<String> filterList, List<Pair<String, Object>> bindingList) {
 
-    List<InvoicePayment> doneList = new ArrayList<>();
-
-    List<Long> anomalyList = Lists.newArrayList(0L);
-    filterList.add("self.id NOT IN (:anomalyList)");
-    bindingList.add(Pair.of("anomalyList", (Object) anomalyList));
-
     String filter =
-        Joiner.on(" AND ")
-            .join(
-                Lists.transform(
-                    filterList,
-                    new Function<String, String>() {
-                      @Override
-                      public String apply(String input) {
-                        return String.format("(%s)", input);
-                      }
-                    }));
-
-    Query<Invoice> query = Beans.get(InvoiceRepository.class).all().filter(filter);
-
+        filterList.stream()
+            .map(input -> String.format("(%s)", input))
+            .collect(Collectors.joining(" AND "));
+    Map<String, Object> bindingMap = new HashMap<>();
     for (Pair<String, Object> binding : bindingList) {
-      query.bind(binding.getLeft(), binding.getRight());
+      bindingMap.put(binding.getLeft(), binding.getRight());
     }
 
-    Set<Long> treatedSet = new HashSet<>();
-    List<Invoice> invoiceList;
-    InvoicePaymentCreateService invoicePaymentCreateService =
-        Beans.get(InvoicePaymentCreateService.class);
-    BankDetailsRepository bankDetailsRepo = Beans.get(BankDetailsRepository.class);
-    BankDetails companyBankDetails = getCompanyBankDetails(batch.getAccountingBatch());
+    Map<Long, List<Long>> invoiceIdListByPartner =
+        Beans.get(InvoiceRepository.class)
+            .all()
+            .filter(filter)
+            .bind(bindingMap)
+            .order("id")
+            .select("partner.id", "id")
+            .fetch(0, 0)
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    result -> (Long) result.get("partner.id"),
+                    LinkedHashMap::new,
+                    Collectors.mapping(result -> (Long) result.get("id"), Collectors.toList())));
 
-    while (!(invoiceList = query.fetch(FETCH_LIMIT)).isEmpty()) {
-      if (!JPA.em().contains(companyBankDetails)) {
-        companyBankDetails = bankDetailsRepo.find(companyBankDetails.getId());
-      }
+    BankDetails companyBankDetails = getCompanyBankDetails(batch.getAccountingBatch());
+    Long companyBankDetailsId = companyBankDetails != null ? companyBankDetails.getId() : null;
+    int fetchLimit = getFetchLimit();
+    Queue<Long> invoicePaymentIdQueue = new ConcurrentLinkedQueue<>();
+
+    processPartitions(
+        partitionIdsByKey(invoiceIdListByPartner),
+        idList ->
+            createInvoicePayments(
+                idList,
+                filter,
+                bindingMap,
+                companyBankDetailsId,
+                fetchLimit,
+                invoicePaymentIdQueue));
+
+    InvoicePaymentRepository invoicePaymentRepo = Beans.get(InvoicePaymentRepository.class);
+    return invoicePaymentIdQueue.stream()
+        .sorted()
+        .map(invoicePaymentRepo::find)
+        .collect(Collectors.toList());
+  }
 
-      for (Invoice invoice : invoiceList) {
-        if (treatedSet.contains(invoice.getId())) {
-          throw new IllegalArgumentException("Invoice payment generation error");
-        }
+  /**
+   * Create the payments of a partition of invoices. The invoices are fetched again with the filter
+   * of the batch, so an invoice paid in the meantime is skipped.
+   */
+  protected void createInvoicePayments(
+      List<Long> invoiceIdList,
+      String filter,
+      Map<String, Object> bindingMap,
+      Long companyBankDetailsId,
+      int fetchLimit,
+      Queue<Long> invoicePaymentIdQueue) {
 
-        treatedSet.add(invoice.getId());
+    InvoicePaymentCreateService invoicePaymentCreateService =
+        Beans.get(InvoicePaymentCreateService.class);
+    InvoiceRepository invoiceRepo = Beans.get(InvoiceRepository.class);
+
+    for (List<Long> invoiceIdSubList : Lists.partition(invoiceIdList, fetchLimit)) {
+      BankDetails companyBankDetails =
+          companyBankDetailsId != null ? JPA.find(BankDetails.class, companyBankDetailsId) : null;
+      List<Invoice> invoiceList =
+          invoiceRepo
+              .all()
+              .filter(filter + " AND self.id IN (:invoiceIdList)")
+              .bind(bindingMap)
+              .bind("invoiceIdList", invoiceIdSubList)
+              .order("id")
+              .fetch();
 
+      for (Invoice invoice : invoiceList) {
         try {
-          doneList.add(
-              invoicePaymentCreateService.createAndAddInvoicePayment(invoice, companyBankDetails));
+          invoicePaymentIdQueue.add(
+              invoicePaymentCreateService
+                  .createAndAddInvoicePayment(invoice, companyBankDetails)
+                  .getId());
           incrementDone();
         } catch (Exception e) {
           incrementAnomaly();
-          anomalyList.add(invoice.getId());
-          query.bind("anomalyList", anomalyList);
           TraceBackService.trace(e, ExceptionOriginRepository.DIRECT_DEBIT, batch.getId());
           LOG.error(e.getMessage());
-          break;
         }
       }
 
       JPA.clear();
     }
-
-    return doneList;
   }
 }
@@ -35,28 +35,29 @@ import com.axelor.apps.bankpayment.db.BankPaymentConfig;
 import com.axelor.apps.bankpayment.service.config.BankPaymentConfigService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.BankDetails;
-import com.axelor.apps.base.db.Batch;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Partner;
-import com.axelor.apps.base.db.repo.BankDetailsRepository;
 import com.axelor.apps.base.db.repo.BlockingRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.utils.helpers.QueryBuilder;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
 import java.io.File;
 import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -193,23 +194,58 @@ public class BatchDirectDebitPaymentSchedule extends BatchDirectDebit {
     processQuery(queryBuilder);
   }
 
+  /**
+   * Create the payment moves of the lines, split in partitions of ids processed in parallel. The
+   * lines of a partner stay in the same partition, as their moves update the partner balance. The
+   * lines are linked to the batch once processed, so the bank order is created from the lines done
+   * afterwards.
+   */
   protected void processQuery(QueryBuilder<PaymentScheduleLine> queryBuilder) {
-    Query<PaymentScheduleLine> query = queryBuilder.build();
+    Map<Long, List<Long>> paymentScheduleLineIdListByPartner =
+        queryBuilder.build().order("id").select("paymentSchedule.partner.id", "id").fetch(0, 0)
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    result -> (Long) result.get("paymentSchedule.partner.id"),
+                    LinkedHashMap::new,
+                    Collectors.mapping(result -> (Long) result.get("id"), Collectors.toList())));
 
-    List<PaymentScheduleLine> paymentScheduleLineList;
+    AccountingBatch accountingBatch = batch.getAccountingBatch();
+    BankDetails companyBankDetails = getCompanyBankDetails(accountingBatch);
+    Long companyBankDetailsId = companyBankDetails != null ? companyBankDetails.getId() : null;
+    Long paymentModeId =
+        accountingBatch.getPaymentMode() != null ? accountingBatch.getPaymentMode().getId() : null;
+    Long companyId =
+        accountingBatch.getCompany() != null ? accountingBatch.getCompany().getId() : null;
+    int fetchLimit = getFetchLimit();
+
+    processPartitions(
+        partitionIdsByKey(paymentScheduleLineIdListByPartner),
+        idList ->
+            createPaymentMoves(idList, companyBankDetailsId, paymentModeId, companyId, fetchLimit));
+  }
+
+  protected void createPaymentMoves(
+      List<Long> paymentScheduleLineIdList,
+      Long companyBankDetailsId,
+      Long paymentModeId,
+      Long companyId,
+      int fetchLimit) {
     PaymentScheduleService paymentScheduleService = Beans.get(PaymentScheduleService.class);
     PaymentScheduleLineService paymentScheduleLineService =
         Beans.get(PaymentScheduleLineService.class);
-    BankDetailsRepository bankDetailsRepo = Beans.get(BankDetailsRepository.class);
-
-    BankDetails companyBankDetails = getCompanyBankDetails(batch.getAccountingBatch());
 
-    while (!(paymentScheduleLineList = query.fetch(FETCH_LIMIT)).isEmpty()) {
-      findBatch();
-      companyBankDetails = bankDetailsRepo.find(companyBankDetails.getId());
-      PaymentMode directDebitPaymentMode = batch.getAccountingBatch().getPaymentMode();
-
-      for (PaymentScheduleLine paymentScheduleLine : paymentScheduleLineList) {
+    for (List<Long> paymentScheduleLineIdSubList :
+        Lists.partition(paymentScheduleLineIdList, fetchLimit)) {
+      BankDetails companyBankDetails =
+          companyBankDetailsId != null ? JPA.find(BankDetails.class, companyBankDetailsId) : null;
+      PaymentMode directDebitPaymentMode =
+          paymentModeId != null ? JPA.find(PaymentMode.class, paymentModeId) : null;
+      Company company = companyId != null ? JPA.find(Company.class, companyId) : null;
+
+      for (Long paymentScheduleLineId : paymentScheduleLineIdSubList) {
+        PaymentScheduleLine paymentScheduleLine =
+            paymentScheduleLineRepo.find(paymentScheduleLineId);
         try {
           if (generateBankOrderFlag) {
             PaymentSchedule paymentSchedule = paymentScheduleLine.getPaymentSchedule();
@@ -226,11 +262,6 @@ public class BatchDirectDebitPaymentSchedule extends BatchDirectDebit {
                 == PaymentModeRepository.ORDER_TYPE_SEPA_DIRECT_DEBIT) {
               Partner partner = paymentSchedule.getPartner();
               Preconditions.checkNotNull(partner, I18n.get("Partner is missing."));
-              Company company =
-                  Optional.of(batch)
-                      .map(Batch::getAccountingBatch)
-                      .map(AccountingBatch::getCompany)
-                      .orElse(null);
               Umr activeUmr = umrService.getActiveUmr(company, partner);
               Preconditions.checkNotNull(activeUmr, I18n.get("Partner active UMR is missing."));
             }
@@ -242,7 +273,6 @@ public class BatchDirectDebitPaymentSchedule extends BatchDirectDebit {
         } catch (Exception e) {
           TraceBackService.trace(e, ExceptionOriginRepository.DIRECT_DEBIT, batch.getId());
           incrementAnomaly(paymentScheduleLine);
-          break;
         }
       }
 
@@ -251,14 +281,21 @@ public class BatchDirectDebitPaymentSchedule extends BatchDirectDebit {
   }
 
   protected void incrementDone(PaymentScheduleLine paymentScheduleLine) {
-    paymentScheduleLine.addBatchSetItem(batch);
+    addBatch(paymentScheduleLine);
     _incrementDone();
   }
 
   protected void incrementAnomaly(PaymentScheduleLine paymentScheduleLine) {
-    findBatch();
-    paymentScheduleLine = paymentScheduleLineRepo.find(paymentScheduleLine.getId());
-    paymentScheduleLine.addBatchSetItem(batch);
+    addBatch(paymentScheduleLine);
     _incrementAnomaly();
   }
+
+  /**
+   * Link the line to the batch in its own transaction: in a partition worker the counters are not
+   * saved with each line, which would leave the link unsaved.
+   */
+  @Transactional
+  protected void addBatch(PaymentScheduleLine paymentScheduleLine) {
+    paymentScheduleLineRepo.find(paymentScheduleLine.getId()).addBatchSetItem(findBatch());
+  }
 }
@@ -0,0 +1,241 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.test;
+
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.bankpayment.db.repo.BankStatementQueryRepository;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMoveLineIndex;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMoveLineIndex.AmountCondition;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMoveLineIndex.CurrencyAmountFunction;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMoveLineIndex.DateCondition;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMoveLineIndex.OriginCondition;
+import com.axelor.apps.base.AxelorException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestBankReconciliationMoveLineIndex {
+
+  protected List<MoveLine> moveLineList;
+  protected BankReconciliationMoveLineIndex moveLineIndex;
+
+  @Before
+  public void prepare() {
+    moveLineList = new ArrayList<>();
+    Move move = new Move();
+    String[][] values = {
+      {"100", "2024-01-10", null, "INV1"},
+      {"-50", "2024-01-01", "2024-01-20", "INV2"},
+      {"100.00", "2024-01-03", "2024-01-12", null},
+      {"95", "2024-01-05", null, "INV1"},
+      {"105.01", "2024-01-15", null, "INV3"},
+      {"-100", null, null, "INV1"}
+    };
+    for (String[] value : values) {
+      MoveLine moveLine = new MoveLine();
+      moveLine.setMove(move);
+      moveLine.setCurrencyAmount(new BigDecimal(value[0]));
+      moveLine.setDate(value[1] != null ? LocalDate.parse(value[1]) : null);
+      moveLine.setDueDate(value[2] != null ? LocalDate.parse(value[2]) : null);
+      moveLine.setOrigin(value[3]);
+      moveLineList.add(moveLine);
+    }
+    moveLineIndex = new BankReconciliationMoveLineIndex(moveLineList);
+  }
+
+  @Test
+  public void testEqualAmountCondition() throws AxelorException {
+    AmountCondition amountCondition =
+        AmountCondition.of(
+            BankStatementQueryRepository.AMOUNT_CONDITION_EQUAL,
+            new BigDecimal("0.95"),
+            new BigDecimal("1.05"));
+
+    Assert.assertEquals(
+        List.of(moveLineList.get(0), moveLineList.get(2), moveLineList.get(5)),
+        moveLineIndex.getCandidateList(amountCondition, currencyAmount("100"), null, null));
+  }
+
+  @Test
+  public void testAmountMarginCondition() throws AxelorException {
+    AmountCondition amountCondition =
+        AmountCondition.of(
+            BankStatementQueryRepository.AMOUNT_CONDITION_WITHIN_MARGINS,
+            new BigDecimal("0.95"),
+            new BigDecimal("1.05"));
+
+    Assert.assertEquals(
+        List.of(moveLineList.get(0), moveLineList.get(2), moveLineList.get(3), moveLineList.get(5)),
+        moveLineIndex.getCandidateList(amountCondition, currencyAmount("100"), null, null));
+  }
+
+  @Test
+  public void testQueryWithoutAmountCondition() throws AxelorException {
+    Assert.assertNull(
+        AmountCondition.of(
+            BankStatementQueryRepository.AMOUNT_CONDITION_NONE, BigDecimal.ONE, BigDecimal.ONE));
+
+    // Every move line is a candidate and no amount is converted
+    Assert.assertEquals(
+        moveLineList,
+        moveLineIndex.getCandidateList(
+            null,
+            currency -> {
+              throw new IllegalStateException();
+            },
+            null,
+            null));
+  }
+
+  @Test
+  public void testReconciledMoveLinesAreNotCandidates() throws AxelorException {
+    moveLineIndex.remove(moveLineList.get(0));
+    moveLineIndex.remove(moveLineList.get(0));
+
+    Assert.assertEquals(
+        List.of(moveLineList.get(2), moveLineList.get(5)),
+        moveLineIndex.getCandidateList(
+            AmountCondition.of(
+                BankStatementQueryRepository.AMOUNT_CONDITION_EQUAL,
+                BigDecimal.ONE,
+                BigDecimal.ONE),
+            currencyAmount("100"),
+            null,
+            null));
+  }
+
+  @Test
+  public void testNoConversionOnceEveryMoveLineIsReconciled() throws AxelorException {
+    moveLineList.forEach(moveLineIndex::remove);
+
+    Assert.assertTrue(moveLineIndex.isEmpty());
+    Assert.assertEquals(
+        List.of(),
+        moveLineIndex.getCandidateList(
+            AmountCondition.of(
+                BankStatementQueryRepository.AMOUNT_CONDITION_EQUAL,
+                BigDecimal.ONE,
+                BigDecimal.ONE),
+            currency -> {
+              throw new IllegalStateException();
+            },
+            null,
+            null));
+  }
+
+  @Test
+  public void testEqualDateCondition() throws AxelorException {
+    DateCondition dateCondition =
+        DateCondition.of(
+            BankStatementQueryRepository.DATE_CONDITION_EQUAL,
+            2,
+            LocalDate.parse("2024-01-10"),
+            LocalDate.parse("2024-01-12"));
+
+    // Date or due date equal to the operation or value date
+    Assert.assertEquals(
+        List.of(moveLineList.get(0), moveLineList.get(2)),
+        moveLineIndex.getCandidateList(null, currencyAmount("100"), dateCondition, null));
+  }
+
+  @Test
+  public void testDateMarginCondition() throws AxelorException {
+    DateCondition dateCondition =
+        DateCondition.of(
+            BankStatementQueryRepository.DATE_CONDITION_WITHIN_MARGIN,
+            2,
+            LocalDate.parse("2024-01-03"),
+            LocalDate.parse("2024-01-20"));
+
+    Assert.assertEquals(
+        List.of(moveLineList.get(1), moveLineList.get(2), moveLineList.get(3)),
+        moveLineIndex.getCandidateList(null, currencyAmount("100"), dateCondition, null));
+  }
+
+  @Test
+  public void testNoDateConditionWithoutBankStatementLineDate() {
+    Assert.assertNull(
+        DateCondition.of(
+            BankStatementQueryRepository.DATE_CONDITION_NONE,
+            2,
+            LocalDate.parse("2024-01-03"),
+            LocalDate.parse("2024-01-20")));
+    Assert.assertNull(
+        DateCondition.of(
+            BankStatementQueryRepository.DATE_CONDITION_EQUAL,
+            2,
+            null,
+            LocalDate.parse("2024-01-20")));
+  }
+
+  @Test
+  public void testOriginCondition() throws AxelorException {
+    Assert.assertNull(OriginCondition.of(BankStatementQueryRepository.ORIGIN_CONDITION_NONE, "X"));
+
+    Assert.assertEquals(
+        List.of(moveLineList.get(0), moveLineList.get(3), moveLineList.get(5)),
+        moveLineIndex.getCandidateList(
+            null,
+            currencyAmount("100"),
+            null,
+            OriginCondition.of(BankStatementQueryRepository.ORIGIN_CONDITION_EQUAL, "INV1")));
+    Assert.assertEquals(
+        List.of(moveLineList.get(2)),
+        moveLineIndex.getCandidateList(
+            null,
+            currencyAmount("100"),
+            null,
+            OriginCondition.of(BankStatementQueryRepository.ORIGIN_CONDITION_EQUAL, null)));
+  }
+
+  @Test
+  public void testCombinedConditions() throws AxelorException {
+    AmountCondition amountCondition =
+        AmountCondition.of(
+            BankStatementQueryRepository.AMOUNT_CONDITION_EQUAL, BigDecimal.ONE, BigDecimal.ONE);
+
+    Assert.assertEquals(
+        List.of(moveLineList.get(0), moveLineList.get(5)),
+        moveLineIndex.getCandidateList(
+            amountCondition,
+            currencyAmount("100"),
+            null,
+            OriginCondition.of(BankStatementQueryRepository.ORIGIN_CONDITION_EQUAL, "INV1")));
+    Assert.assertEquals(
+        List.of(moveLineList.get(0), moveLineList.get(2)),
+        moveLineIndex.getCandidateList(
+            amountCondition,
+            currencyAmount("100"),
+            DateCondition.of(
+                BankStatementQueryRepository.DATE_CONDITION_EQUAL,
+                2,
+                LocalDate.parse("2024-01-10"),
+                LocalDate.parse("2024-01-12")),
+            null));
+  }
+
+  protected CurrencyAmountFunction currencyAmount(String amount) {
+    return currency -> new BigDecimal(amount);
+  }
+}
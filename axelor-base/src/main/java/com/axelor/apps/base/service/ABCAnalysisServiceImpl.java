@@ -32,6 +32,7 @@ import com.axelor.apps.base.db.repo.ABCAnalysisRepository;
 import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.db.JPA;
 import com.axelor.db.Query;
@@ -192,18 +193,14 @@ public class ABCAnalysisServiceImpl implements ABCAnalysisService {
   }
 
   protected void createAllABCAnalysisLine(ABCAnalysis abcAnalysis) throws AxelorException {
-    int offset = 0;
-
     List<Product> productList;
-    Query<Product> productQuery =
-        productRepository
-            .all()
-            .filter(
-                "self.id IN (" + StringHelper.getIdListString(getProductSet(abcAnalysis)) + ")");
+    KeysetQuery<Product> productQuery =
+        new KeysetQuery<>(
+            Product.class,
+            "self.id IN (" + StringHelper.getIdListString(getProductSet(abcAnalysis)) + ")");
 
-    while (!(productList = productQuery.fetch(FETCH_LIMIT, offset)).isEmpty()) {
+    while (!(productList = productQuery.fetchNext(FETCH_LIMIT)).isEmpty()) {
       abcAnalysis = abcAnalysisRepository.find(abcAnalysis.getId());
-      offset += productList.size();
 
       for (Product product : productList) {
         product = productRepository.find(product.getId());
@@ -252,17 +249,12 @@ public class ABCAnalysisServiceImpl implements ABCAnalysisService {
 
   protected void doAnalysis(ABCAnalysis abcAnalysis) {
     List<ABCAnalysisLine> abcAnalysisLineList;
-    int offset = 0;
-    Query<ABCAnalysisLine> query =
-        abcAnalysisLineRepository
-            .all()
-            .filter("self.abcAnalysis.id = :abcAnalysisId")
+    KeysetQuery<ABCAnalysisLine> query =
+        new KeysetQuery<>(ABCAnalysisLine.class, "self.abcAnalysis.id = :abcAnalysisId")
             .bind("abcAnalysisId", abcAnalysis.getId())
-            .order("-decimalWorth")
-            .order("id");
+            .order("-decimalWorth");
 
-    while (!(abcAnalysisLineList = query.fetch(FETCH_LIMIT, offset)).isEmpty()) {
-      offset += abcAnalysisLineList.size();
+    while (!(abcAnalysisLineList = query.fetchNext(FETCH_LIMIT)).isEmpty()) {
       abcAnalysisLineList.forEach(this::analyzeLine);
       JPA.clear();
     }
@@ -25,6 +25,8 @@ import com.axelor.apps.base.db.repo.CurrencyConversionLineRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.currency.CurrencyConversionLineIndex;
+import com.axelor.apps.base.service.currency.CurrencyConversionLineIndexCache;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.i18n.I18n;
@@ -88,20 +90,25 @@ public class CurrencyServiceImpl implements CurrencyService {
     if (startCurrency != null && endCurrency != null && !startCurrency.equals(endCurrency)) {
 
       LocalDate dateToConvert = this.getDateToConvert(date);
-      boolean isInverse = true;
-      BigDecimal exchangeRate = null;
+      CurrencyConversionLineIndex currencyConversionLineIndex =
+          this.getCurrencyConversionLineIndex();
 
-      CurrencyConversionLine currencyConversionLine =
-          this.getCurrencyConversionLine(startCurrency, endCurrency, dateToConvert);
-      if (currencyConversionLine != null) {
-        exchangeRate = currencyConversionLine.getExchangeRate();
-        isInverse = false;
+      log.debug(
+          "Currency from: {}, Currency to: {}, localDate: {}",
+          startCurrency,
+          endCurrency,
+          dateToConvert);
 
-      } else {
-        currencyConversionLine =
-            this.getCurrencyConversionLine(endCurrency, startCurrency, dateToConvert);
+      BigDecimal exchangeRate =
+          currencyConversionLineIndex.getExchangeRate(
+              startCurrency.getCodeISO(), endCurrency.getCodeISO(), dateToConvert);
 
-        if (currencyConversionLine == null) {
+      if (exchangeRate == null) {
+        exchangeRate =
+            currencyConversionLineIndex.getInverseExchangeRate(
+                startCurrency.getCodeISO(), endCurrency.getCodeISO(), dateToConvert);
+
+        if (exchangeRate == null) {
           throw new AxelorException(
               TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
               I18n.get(BaseExceptionMessage.CURRENCY_1),
@@ -109,10 +116,9 @@ public class CurrencyServiceImpl implements CurrencyService {
               endCurrency.getName(),
               dateToConvert);
         }
-        exchangeRate = currencyConversionLine.getExchangeRate();
       }
 
-      if (exchangeRate == null || exchangeRate.compareTo(BigDecimal.ZERO) == 0) {
+      if (exchangeRate.compareTo(BigDecimal.ZERO) == 0) {
         throw new AxelorException(
             TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
             I18n.get(BaseExceptionMessage.CURRENCY_2),
@@ -121,48 +127,17 @@ public class CurrencyServiceImpl implements CurrencyService {
             dateToConvert);
       }
 
-      return isInverse
-          ? BigDecimal.ONE.divide(
-              exchangeRate,
-              AppBaseService.DEFAULT_EXCHANGE_RATE_REVERSION_SCALE,
-              RoundingMode.HALF_UP)
-          : exchangeRate;
+      return exchangeRate;
     }
 
     return BigDecimal.ONE;
   }
 
-  protected CurrencyConversionLine getCurrencyConversionLine(
-      Currency startCurrency, Currency endCurrency, LocalDate localDate) {
-
-    List<CurrencyConversionLine> currencyConversionLineList =
-        appBaseService.getCurrencyConfigurationLineList();
-
-    if (currencyConversionLineList == null) {
-      return null;
-    }
-
-    log.debug(
-        "Currency from: {}, Currency to: {}, localDate: {}", startCurrency, endCurrency, localDate);
-
-    for (CurrencyConversionLine ccl : currencyConversionLineList) {
-
-      String cclStartCode = ccl.getStartCurrency().getCodeISO();
-      String cclEndCode = ccl.getEndCurrency().getCodeISO();
-      String startCode = startCurrency.getCodeISO();
-      String endCode = endCurrency.getCodeISO();
-      LocalDate fromDate = ccl.getFromDate();
-      LocalDate toDate = ccl.getToDate();
-
-      if (cclStartCode.equals(startCode) && cclEndCode.equals(endCode)) {
-        if ((fromDate.isBefore(localDate) || fromDate.equals(localDate))
-            && (toDate == null || toDate.isAfter(localDate) || toDate.isEqual(localDate))) {
-          return ccl;
-        }
-      }
-    }
-
-    return null;
+  /**
+   * Get the index of the currency conversion lines of the application, cached until a line changes.
+   */
+  protected CurrencyConversionLineIndex getCurrencyConversionLineIndex() {
+    return CurrencyConversionLineIndexCache.get(appBaseService);
   }
 
   /**
@@ -48,15 +48,16 @@ import com.axelor.utils.helpers.date.LocalDateHelper;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.thoughtworks.xstream.XStream;
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -74,6 +75,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import javax.naming.NamingException;
@@ -85,7 +87,10 @@ public class DataBackupCreateService {
 
   protected static final char SEPARATOR = ',';
   protected static final char REFERENCE_FIELD_SEPARATOR = '|';
-  protected static final int BUFFER_SIZE = 1000;
+  protected static final int PARTITION_SIZE = 1000;
+  // The collections are exported in their own order, with getRelationalFieldData
+  protected static final Set<String> PROJECTED_RELATIONAL_TYPES =
+      ImmutableSet.of("ONE_TO_ONE", "MANY_TO_ONE");
 
   protected boolean notNullReferenceFlag;
   protected boolean referenceFlag;
@@ -152,6 +157,7 @@ public class DataBackupCreateService {
     int fetchLimit = dataBackup.getFetchLimit();
     int errorsCount = 0;
     byte[] salt = null;
+    File zippedFile = null;
 
     fileNameList = new ArrayList<>();
     List<MetaModel> metaModelList = getMetaModels(dataBackup.getAnonymizer() != null);
@@ -175,78 +181,83 @@ public class DataBackupCreateService {
     }
 
     if (errorsCount == 0) {
-      for (MetaModel metaModel : metaModelList) {
-
-        try {
-          List<String> subClasses = subClassesMap.get(metaModel.getFullName());
-          long totalRecord = getMetaModelDataCount(metaModel, subClasses);
-          if (!dataBackup.getIsProcessEmptyTable() && totalRecord < 1) {
-            continue;
-          }
-
-          LOG.debug("Exporting Model : " + metaModel.getFullName());
-          notNullReferenceFlag = false;
-          referenceFlag = false;
-
-          File templateFile = new File(tempDirectoryPath, metaModel.getName() + ".csv");
-          CSVFile csvFormat =
-              CSVFile.DEFAULT.withDelimiter(SEPARATOR).withQuoteAll().withFirstRecordAsHeader();
-          CSVPrinter printer = csvFormat.write(templateFile);
-          CSVInput csvInput =
-              writeCSVData(
-                  metaModel, printer, dataBackup, totalRecord, subClasses, tempDirectoryPath, salt);
-          printer.close();
-
-          if (notNullReferenceFlag) {
-            notNullReferenceCsvs.add(csvInput);
-          } else if (referenceFlag) {
-            refernceCsvs.add(csvInput);
-            CSVInput temcsv = new CSVInput();
-            temcsv.setFileName(csvInput.getFileName());
-            temcsv.setTypeName(csvInput.getTypeName());
-
-            if (dataBackup.getIsRelativeDate()) {
-              temcsv.setBindings(new ArrayList<>());
-              getCsvInputForDateorDateTime(metaModel, temcsv);
-            }
-            if (AutoImportModelMap.containsKey(csvInput.getTypeName())) {
-              temcsv.setSearch(AutoImportModelMap.get(csvInput.getTypeName()).toString());
+      zippedFile = createZipFile(tempDirectoryPath);
+      try (ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zippedFile))) {
+        for (MetaModel metaModel : metaModelList) {
+
+          try {
+            List<String> subClasses = subClassesMap.get(metaModel.getFullName());
+            long totalRecord = getMetaModelDataCount(metaModel, subClasses);
+            if (!dataBackup.getIsProcessEmptyTable() && totalRecord < 1) {
+              continue;
             }
-            if (Class.forName(metaModel.getFullName()).getSuperclass() == App.class) {
-              temcsv.setSearch("self.code = :code");
+
+            LOG.debug("Exporting Model : " + metaModel.getFullName());
+            notNullReferenceFlag = false;
+            referenceFlag = false;
+
+            CSVPrinter printer = openZipEntry(zipOut, metaModel.getName() + ".csv");
+            CSVInput csvInput =
+                writeCSVData(
+                    metaModel,
+                    printer,
+                    dataBackup,
+                    totalRecord,
+                    subClasses,
+                    tempDirectoryPath,
+                    salt);
+            closeZipEntry(zipOut, printer);
+            addFilesToZip(zipOut, tempDirectoryPath, fileNameList);
+
+            if (notNullReferenceFlag) {
+              notNullReferenceCsvs.add(csvInput);
+            } else if (referenceFlag) {
+              refernceCsvs.add(csvInput);
+              CSVInput temcsv = new CSVInput();
+              temcsv.setFileName(csvInput.getFileName());
+              temcsv.setTypeName(csvInput.getTypeName());
+
+              if (dataBackup.getIsRelativeDate()) {
+                temcsv.setBindings(new ArrayList<>());
+                getCsvInputForDateorDateTime(metaModel, temcsv);
+              }
+              if (AutoImportModelMap.containsKey(csvInput.getTypeName())) {
+                temcsv.setSearch(AutoImportModelMap.get(csvInput.getTypeName()).toString());
+              }
+              if (Class.forName(metaModel.getFullName()).getSuperclass() == App.class) {
+                temcsv.setSearch("self.code = :code");
+              }
+              if (!AutoImportModelMap.containsKey(csvInput.getTypeName())
+                  && !((Class.forName(metaModel.getFullName()).getSuperclass())
+                      .equals(App.class))) {
+                temcsv.setSearch("self.importId = :importId");
+              }
+              simpleCsvs.add(temcsv);
+            } else {
+              simpleCsvs.add(csvInput);
             }
-            if (!AutoImportModelMap.containsKey(csvInput.getTypeName())
-                && !((Class.forName(metaModel.getFullName()).getSuperclass()).equals(App.class))) {
-              temcsv.setSearch("self.importId = :importId");
+          } catch (ClassNotFoundException | IOException e) {
+            TraceBackService.trace(e, DataBackupService.class.getName());
+          } catch (Exception e) {
+            JPA.em().getTransaction().rollback();
+            if (!dataBackup.getCheckAllErrorFirst()) {
+              sb.append(
+                  "\nError occured while processing model : " + metaModel.getFullName() + "\n");
+              sb.append(e.getMessage() + "\n");
             }
-            simpleCsvs.add(temcsv);
-          } else {
-            simpleCsvs.add(csvInput);
-          }
-
-          fileNameList.add(metaModel.getName() + ".csv");
-        } catch (ClassNotFoundException | IOException e) {
-          TraceBackService.trace(e, DataBackupService.class.getName());
-        } catch (Exception e) {
-          JPA.em().getTransaction().rollback();
-          if (!dataBackup.getCheckAllErrorFirst()) {
-            sb.append("\nError occured while processing model : " + metaModel.getFullName() + "\n");
-            sb.append(e.getMessage() + "\n");
+            JPA.em().getTransaction().begin();
+            dataBackup = dataBackupRepository.find(dataBackup.getId());
+            errorsCount++;
           }
-          JPA.em().getTransaction().begin();
-          dataBackup = dataBackupRepository.find(dataBackup.getId());
-          errorsCount++;
         }
-      }
-
-      CSVConfig csvConfig = new CSVConfig();
-      csvConfig.setInputs(simpleCsvs);
-      csvConfig.getInputs().addAll(notNullReferenceCsvs);
-      csvConfig.getInputs().addAll(refernceCsvs);
-      csvConfig.getInputs().addAll(notNullReferenceCsvs);
-      generateConfig(tempDirectoryPath, csvConfig);
 
-      fileNameList.add(DataBackupServiceImpl.CONFIG_FILE_NAME);
+        CSVConfig csvConfig = new CSVConfig();
+        csvConfig.setInputs(simpleCsvs);
+        csvConfig.getInputs().addAll(notNullReferenceCsvs);
+        csvConfig.getInputs().addAll(refernceCsvs);
+        csvConfig.getInputs().addAll(notNullReferenceCsvs);
+        generateConfig(zipOut, csvConfig);
+      }
     }
 
     try {
@@ -266,7 +277,6 @@ public class DataBackupCreateService {
       }
 
       if (errorsCount == 0) {
-        File zippedFile = generateZIP(tempDirectoryPath, fileNameList);
         dataBackup.setBackupMetaFile(metaFiles.upload(zippedFile));
       } else {
         dataBackup.setStatusSelect(DataBackupRepository.DATA_BACKUP_STATUS_ERROR);
@@ -339,7 +349,13 @@ public class DataBackupCreateService {
     return subClassMap;
   }
 
-  /* Get All Data of Specific MetaModel */
+  /**
+   * Get All Data of Specific MetaModel
+   *
+   * @deprecated the records are read by pages of ids, with {@link #getKeysetQuery(MetaModel,
+   *     List)}
+   */
+  @Deprecated
   protected List<Model> getMetaModelDataList(
       MetaModel metaModel, int start, Integer fetchLimit, List<String> subClasses)
       throws ClassNotFoundException {
@@ -353,6 +369,20 @@ public class DataBackupCreateService {
     return null;
   }
 
+  /**
+   * Get a query on the data of the given MetaModel ordered by id and filtered on the records after
+   * the :lastId parameter, so that each page is read from the index instead of skipping all the
+   * previous records.
+   */
+  protected Query<Model> getKeysetQuery(MetaModel metaModel, List<String> subClasses)
+      throws ClassNotFoundException {
+    Query<Model> query = getQuery(metaModel, subClasses, "self.id > :lastId");
+    if (query != null) {
+      query.order("id");
+    }
+    return query;
+  }
+
   protected long getMetaModelDataCount(MetaModel metaModel, List<String> subClasses)
       throws ClassNotFoundException {
     Query<Model> query = getQuery(metaModel, subClasses);
@@ -365,6 +395,12 @@ public class DataBackupCreateService {
 
   protected Query<Model> getQuery(MetaModel metaModel, List<String> subClasses)
       throws ClassNotFoundException {
+    return getQuery(metaModel, subClasses, null);
+  }
+
+  protected Query<Model> getQuery(
+      MetaModel metaModel, List<String> subClasses, String additionalFilter)
+      throws ClassNotFoundException {
     StringBuilder whereStr = new StringBuilder();
     if (subClasses != null && !subClasses.isEmpty()) {
       for (String subClassName : subClasses) {
@@ -372,6 +408,9 @@ public class DataBackupCreateService {
         whereStr.append("id NOT IN (select id from ").append(subClassName).append(")");
       }
     }
+    if (StringUtils.notEmpty(additionalFilter)) {
+      whereStr.append(whereStr.length() > 0 ? " AND " : "").append(additionalFilter);
+    }
     @SuppressWarnings("unchecked")
     Class<Model> klass = (Class<Model>) Class.forName(metaModel.getFullName());
     JpaRepository<Model> model = null;
@@ -452,54 +491,73 @@ public class DataBackupCreateService {
       csvInput.setBindings(new ArrayList<>());
 
       if (totalRecord > 0) {
-        for (int i = 0; i < totalRecord; i = i + fetchLimit) {
+        Query<Model> query = getKeysetQuery(metaModel, subClasses);
+        List<Property> relationalPropertyList =
+            getProjectedRelationalPropertyList(metaModel, pro, dataBackup);
+        long exportedRecord = 0;
+        long lastId = Long.MIN_VALUE;
 
-          dataList = getMetaModelDataList(metaModel, i, fetchLimit, subClasses);
+        while (query != null && exportedRecord < totalRecord) {
 
-          if (dataList != null && !dataList.isEmpty()) {
-            dataBackup = dataBackupRepository.find(dataBackup.getId());
-            for (Object dataObject : dataList) {
-              dataArr = new ArrayList<>();
-
-              for (Property property : pro) {
-                if (isPropertyExportable(property)) {
-                  if (headerFlag) {
-                    String headerStr = getMetaModelHeader(property, csvInput, isRelativeDate);
-                    headerArr.add(headerStr);
-                  }
-                  dataArr.add(
-                      getMetaModelData(
-                          metaModel.getName(),
-                          metaModelMapper,
-                          property,
-                          dataObject,
-                          dirPath,
-                          isRelativeDate,
-                          updateImportId,
-                          dataBackup));
-                }
-              }
-              if (headerFlag) {
-                if (byteArrFieldFlag) {
-                  csvInput.setCallable(
-                      "com.axelor.apps.base.service.DataBackupRestoreService:importObjectWithByteArray");
-                  byteArrFieldFlag = false;
+          dataList =
+              query
+                  .bind("lastId", lastId)
+                  .fetch((int) Math.min(fetchLimit, totalRecord - exportedRecord));
+
+          if (dataList.isEmpty()) {
+            break;
+          }
+
+          List<Long> idList = dataList.stream().map(Model::getId).collect(Collectors.toList());
+          lastId = idList.get(idList.size() - 1);
+          exportedRecord += idList.size();
+          Map<String, Map<Long, String>> relationalValueMap =
+              getRelationalFieldValueMap(metaModel, relationalPropertyList, idList, updateImportId);
+
+          dataBackup = dataBackupRepository.find(dataBackup.getId());
+          for (Model dataObject : dataList) {
+            dataArr = new ArrayList<>();
+
+            for (Property property : pro) {
+              if (isPropertyExportable(property)) {
+                if (headerFlag) {
+                  String headerStr = getMetaModelHeader(property, csvInput, isRelativeDate);
+                  headerArr.add(headerStr);
                 }
-                printer.printRecord(headerArr);
-                headerFlag = false;
+                Map<Long, String> valueMap = relationalValueMap.get(property.getName());
+                dataArr.add(
+                    valueMap != null
+                        ? valueMap.getOrDefault(dataObject.getId(), "")
+                        : getMetaModelData(
+                            metaModel.getName(),
+                            metaModelMapper,
+                            property,
+                            dataObject,
+                            dirPath,
+                            isRelativeDate,
+                            updateImportId,
+                            dataBackup));
               }
-
-              if ("Partner".equals(metaModel.getName()) && dataBackup.getAnonymizer() != null) {
-                dataArr =
-                    dataBackupAnonymizeService.csvComputeAnonymizedFullname(dataArr, headerArr);
+            }
+            if (headerFlag) {
+              if (byteArrFieldFlag) {
+                csvInput.setCallable(
+                    "com.axelor.apps.base.service.DataBackupRestoreService:importObjectWithByteArray");
+                byteArrFieldFlag = false;
               }
+              printer.printRecord(headerArr);
+              headerFlag = false;
+            }
 
-              if (dataBackup.getAnonymizer() != null) {
-                dataBackupAnonymizeService.csvAnonymizeImportId(dataArr, headerArr, salt);
-              }
+            if ("Partner".equals(metaModel.getName()) && dataBackup.getAnonymizer() != null) {
+              dataArr = dataBackupAnonymizeService.csvComputeAnonymizedFullname(dataArr, headerArr);
+            }
 
-              printer.printRecord(dataArr);
+            if (dataBackup.getAnonymizer() != null) {
+              dataBackupAnonymizeService.csvAnonymizeImportId(dataArr, headerArr, salt);
             }
+
+            printer.printRecord(dataArr);
           }
           JPA.clear();
         }
@@ -794,51 +852,141 @@ public class DataBackupCreateService {
     }
   }
 
-  protected File generateZIP(String dirPath, List<String> fileNameList) {
+  /**
+   * Get the relational properties whose exported values can be read with a projection, which are
+   * the exportable single valued ones that are not anonymized.
+   */
+  protected List<Property> getProjectedRelationalPropertyList(
+      MetaModel metaModel, Property[] properties, DataBackup dataBackup) {
+    List<Property> propertyList = new ArrayList<>();
+    for (Property property : properties) {
+      if (property.getTarget() == null
+          || !isPropertyExportable(property)
+          || !PROJECTED_RELATIONAL_TYPES.contains(property.getType().toString())) {
+        continue;
+      }
+      if (dataBackup.getAnonymizer() != null
+          && !dataBackupAnonymizeService
+              .searchAnonymizerLines(dataBackup, property, metaModel.getName())
+              .isEmpty()) {
+        continue;
+      }
+      propertyList.add(property);
+    }
+    return propertyList;
+  }
 
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-    String backupZipFileName = "DataBackup_" + LocalDateTime.now().format(formatter) + ".zip";
-    File zipFile = new File(dirPath, backupZipFileName);
-    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
-
-      for (String fileName : fileNameList) {
-        ZipEntry e = new ZipEntry(fileName);
-        out.putNextEntry(e);
-        File file = new File(dirPath, fileName);
-        try (BufferedInputStream bin = new BufferedInputStream(new FileInputStream(file))) {
-          byte[] data;
-          while (bin.available() > 0) {
-            if (bin.available() < BUFFER_SIZE) {
-              data = new byte[bin.available()];
-            } else {
-              data = new byte[BUFFER_SIZE];
-            }
-            bin.read(data, 0, data.length);
-            out.write(data, 0, data.length);
-          }
-          out.closeEntry();
+  /**
+   * Get the exported values of the given relational properties for a page of records, with one
+   * query per property instead of loading the related records of each record.
+   *
+   * @return for each property name, the exported value by record id
+   */
+  protected Map<String, Map<Long, String>> getRelationalFieldValueMap(
+      MetaModel metaModel, List<Property> propertyList, List<Long> idList, boolean updateImportId) {
+    Map<String, Map<Long, String>> relationalValueMap = new HashMap<>();
+
+    for (Property property : propertyList) {
+      // The id or import id is selected as well, as the name of a meta record may be null
+      String query =
+          String.format(
+              "SELECT self.id, item.%s, item.%s FROM %s self JOIN self.%s item "
+                  + "WHERE self.id IN (:idList)",
+              getRelationalFieldColumn(property, updateImportId),
+              updateImportId ? "importId" : "id",
+              metaModel.getName(),
+              property.getName());
+      Map<Long, String> valueMap = new HashMap<>();
+
+      for (List<Long> idSubList : Lists.partition(idList, PARTITION_SIZE)) {
+        valueMap.putAll(
+            getRelationalFieldValueMap(
+                JPA.em()
+                    .createQuery(query, Object[].class)
+                    .setParameter("idList", idSubList)
+                    .getResultList()));
+      }
 
-          file.delete();
-        }
+      relationalValueMap.put(property.getName(), valueMap);
+    }
+
+    return relationalValueMap;
+  }
+
+  /**
+   * Get the exported value by record id from the rows of a projection, see
+   * getRelationalFieldValue: the exported field of the target, or its id or import id when null.
+   *
+   * @param resultList rows of the record id, the exported field and the id or import id
+   * @return the exported value by record id, without the null values
+   */
+  protected Map<Long, String> getRelationalFieldValueMap(List<Object[]> resultList) {
+    Map<Long, String> valueMap = new HashMap<>();
+    for (Object[] result : resultList) {
+      Object value = result[1] != null ? result[1] : result[2];
+      if (value != null) {
+        valueMap.put((Long) result[0], value.toString());
       }
-    } catch (IOException e) {
-      TraceBackService.trace(e, "Error From DataBackupCreateService - generateZIP()");
     }
+    return valueMap;
+  }
 
-    return zipFile;
+  /** Get the field of the target exported for a relational property, see getRelationalFieldValue */
+  protected String getRelationalFieldColumn(Property property, boolean updateImportId) {
+    if (property.getTarget().getPackage().equals(Package.getPackage("com.axelor.meta.db"))
+        && !property.getTarget().getTypeName().equals("com.axelor.meta.db.MetaFile")
+        && Mapper.of(property.getTarget()).getProperty("name") != null) {
+      return "name";
+    }
+    return updateImportId ? "importId" : "id";
   }
 
-  /* Generate XML File from CSVConfig */
-  protected void generateConfig(String dirPath, CSVConfig csvConfig) {
+  protected File createZipFile(String dirPath) {
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    String backupZipFileName = "DataBackup_" + LocalDateTime.now().format(formatter) + ".zip";
+    return new File(dirPath, backupZipFileName);
+  }
 
-    File file = new File(dirPath, DataBackupServiceImpl.CONFIG_FILE_NAME);
-    try (FileWriter fileWriter = new FileWriter(file, true)) {
+  /* Stream the csv of a model straight into the backup archive, without any temp file */
+  protected CSVPrinter openZipEntry(ZipOutputStream zipOut, String fileName) throws IOException {
+    zipOut.putNextEntry(new ZipEntry(fileName));
+    CSVFile csvFormat =
+        CSVFile.DEFAULT.withDelimiter(SEPARATOR).withQuoteAll().withFirstRecordAsHeader();
+    return csvFormat.write(new OutputStreamWriter(zipOut, StandardCharsets.UTF_8));
+  }
+
+  /* The printer is only flushed, closing it would close the archive */
+  protected void closeZipEntry(ZipOutputStream zipOut, CSVPrinter printer) throws IOException {
+    printer.flush();
+    zipOut.closeEntry();
+  }
+
+  /* The binary fields are read while the csv entry is open, so they are added after it */
+  protected void addFilesToZip(ZipOutputStream zipOut, String dirPath, List<String> fileNameList)
+      throws IOException {
+    for (String fileName : fileNameList) {
+      File file = new File(dirPath, fileName);
+      zipOut.putNextEntry(new ZipEntry(fileName));
+      Files.copy(file.toPath(), zipOut);
+      zipOut.closeEntry();
+      file.delete();
+    }
+    fileNameList.clear();
+  }
+
+  /* Generate XML File from CSVConfig */
+  protected void generateConfig(ZipOutputStream zipOut, CSVConfig csvConfig) {
+    try {
+      zipOut.putNextEntry(new ZipEntry(DataBackupServiceImpl.CONFIG_FILE_NAME));
 
       XStream xStream = new XStream();
       xStream.processAnnotations(CSVConfig.class);
       xStream.setMode(XStream.NO_REFERENCES);
-      fileWriter.append(xStream.toXML(csvConfig));
+      Writer writer = new OutputStreamWriter(zipOut, StandardCharsets.UTF_8);
+      xStream.toXML(csvConfig, writer);
+      writer.flush();
 
+      zipOut.closeEntry();
     } catch (IOException e) {
       TraceBackService.trace(e, "Error From DataBackupCreateService - generateConfig()");
     }
@@ -859,10 +1007,9 @@ public class DataBackupCreateService {
         if (totalRecord > 0) {
           LOG.debug("Checking Model : " + metaModel.getFullName());
 
-          File templateFile = new File(tempDirectoryPath, metaModel.getName() + ".csv");
           CSVFile csvFormat =
               CSVFile.DEFAULT.withDelimiter(SEPARATOR).withQuoteAll().withFirstRecordAsHeader();
-          CSVPrinter printer = csvFormat.write(templateFile);
+          CSVPrinter printer = csvFormat.write(Writer.nullWriter());
 
           writeCSVData(
               metaModel,
@@ -0,0 +1,102 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.data.csv.CSVBind;
+import com.axelor.data.csv.CSVInput;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ordering of the inputs of a backup config by levels. An input depends on the previous inputs of
+ * the same model hierarchy, which import or update the same records, on the previous inputs of the
+ * models it references, whose records must exist to be searched, and on the previous inputs
+ * referencing its model, which must not see its records. The inputs of a level do not depend on
+ * each other and may be imported concurrently, once the previous levels are imported.
+ */
+public class DataBackupRestorePlan {
+
+  protected final List<List<CSVInput>> levelList = new ArrayList<>();
+
+  public DataBackupRestorePlan(List<CSVInput> inputList) throws ClassNotFoundException {
+    List<Class<?>> typeList = new ArrayList<>();
+    List<Set<Class<?>>> referencedTypeSetList = new ArrayList<>();
+    List<Integer> inputLevelList = new ArrayList<>();
+
+    for (CSVInput input : inputList) {
+      Class<?> type = Class.forName(input.getTypeName());
+      Set<Class<?>> referencedTypeSet = getReferencedTypeSet(type, input);
+      int level = 0;
+
+      for (int index = 0; index < typeList.size(); index++) {
+        Class<?> previousType = typeList.get(index);
+        if (isSameHierarchy(type, previousType)
+            || isReferenced(previousType, referencedTypeSet)
+            || isReferenced(type, referencedTypeSetList.get(index))) {
+          level = Math.max(level, inputLevelList.get(index) + 1);
+        }
+      }
+
+      typeList.add(type);
+      referencedTypeSetList.add(referencedTypeSet);
+      inputLevelList.add(level);
+      while (levelList.size() <= level) {
+        levelList.add(new ArrayList<>());
+      }
+      levelList.get(level).add(input);
+    }
+  }
+
+  /** @return the inputs by level, in the order they must be imported */
+  public List<List<CSVInput>> getLevelList() {
+    return Collections.unmodifiableList(levelList);
+  }
+
+  protected Set<Class<?>> getReferencedTypeSet(Class<?> type, CSVInput input) {
+    Set<Class<?>> referencedTypeSet = new HashSet<>();
+    if (input.getBindings() == null) {
+      return referencedTypeSet;
+    }
+
+    Mapper mapper = Mapper.of(type);
+    for (CSVBind bind : input.getBindings()) {
+      if (bind.getSearch() == null || bind.getField() == null) {
+        continue;
+      }
+      Property property = mapper.getProperty(bind.getField());
+      if (property != null && property.getTarget() != null) {
+        referencedTypeSet.add(property.getTarget());
+      }
+    }
+    return referencedTypeSet;
+  }
+
+  protected boolean isReferenced(Class<?> type, Set<Class<?>> referencedTypeSet) {
+    return referencedTypeSet.stream().anyMatch(target -> isSameHierarchy(target, type));
+  }
+
+  protected boolean isSameHierarchy(Class<?> type, Class<?> otherType) {
+    return type.isAssignableFrom(otherType) || otherType.isAssignableFrom(type);
+  }
+}
@@ -18,38 +18,68 @@
  */
 package com.axelor.apps.base.service;
 
+import com.axelor.apps.base.db.DataBackup;
 import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.auth.AuditableRunner;
 import com.axelor.common.StringUtils;
+import com.axelor.common.csv.CSVFile;
 import com.axelor.data.Listener;
+import com.axelor.data.XStreamUtils;
+import com.axelor.data.csv.CSVConfig;
 import com.axelor.data.csv.CSVImporter;
+import com.axelor.data.csv.CSVInput;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
+import com.axelor.inject.Beans;
 import com.axelor.meta.MetaFiles;
 import com.axelor.meta.db.MetaFile;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.io.Files;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
+import com.thoughtworks.xstream.XStream;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import javax.persistence.Query;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DataBackupRestoreService {
 
+  protected static final char SEPARATOR = ',';
+  protected static final Logger LOG = LoggerFactory.getLogger(DataBackupRestoreService.class);
+
   /* Restore the Data using provided zip File and prepare Log File and Return it*/
   public File restore(MetaFile zipedBackupFile) {
-    Logger LOG = LoggerFactory.getLogger(getClass());
     File tempDir = Files.createTempDir();
     String dirPath = tempDir.getAbsolutePath();
     StringBuilder sb = new StringBuilder();
@@ -109,6 +139,298 @@ public class DataBackupRestoreService {
     }
   }
 
+  /**
+   * Restore the data of the backup file of the given record. When the parallel restore is enabled,
+   * the inputs of the config are imported level by level, see {@link DataBackupRestorePlan}, the
+   * inputs of a level being imported concurrently by chunks of rows.
+   */
+  public File restore(DataBackup dataBackup) {
+    if (!dataBackup.getIsParallelRestore()) {
+      return restore(dataBackup.getBackupMetaFile());
+    }
+
+    File tempDir = Files.createTempDir();
+    String dirPath = tempDir.getAbsolutePath();
+    StringBuilder sb = new StringBuilder();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, dataBackup.getRestoreThreadNb()));
+    try {
+      unZip(dataBackup.getBackupMetaFile(), dirPath);
+      XStream xStream = XStreamUtils.createXStream();
+      xStream.processAnnotations(CSVConfig.class);
+      CSVConfig csvConfig =
+          (CSVConfig) xStream.fromXML(new File(dirPath, DataBackupServiceImpl.CONFIG_FILE_NAME));
+      DataBackupRestorePlan restorePlan = new DataBackupRestorePlan(csvConfig.getInputs());
+
+      int chunkSize = Math.max(1, dataBackup.getRestoreChunkSize());
+      Map<String, List<RestoreChunk>> chunkMap = new HashMap<>();
+      long recordNb = 0;
+      for (CSVInput input : csvConfig.getInputs()) {
+        if (!chunkMap.containsKey(input.getFileName())) {
+          chunkMap.put(input.getFileName(), splitFile(dirPath, input.getFileName(), chunkSize));
+        }
+        recordNb +=
+            chunkMap.get(input.getFileName()).stream().mapToLong(chunk -> chunk.recordNb).sum();
+      }
+
+      RestoreProgress restoreProgress = new RestoreProgress(dataBackup.getId(), recordNb);
+      updateProgress(restoreProgress);
+
+      boolean success = true;
+      for (List<CSVInput> inputList : restorePlan.getLevelList()) {
+        success &=
+            restoreLevel(inputList, chunkMap, dirPath, executor, xStream, restoreProgress, sb);
+      }
+
+      if (success) {
+        LOG.info("Data Restore Completed");
+      } else {
+        LOG.error("Data Restore Completed with errors, see the restore log");
+      }
+      FileUtils.cleanDirectory(tempDir);
+      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmSS");
+      String logFileName = "DataBackupLog_" + LocalDateTime.now().format(formatter) + ".log";
+
+      File file = new File(dirPath, logFileName);
+      try (PrintWriter pw = new PrintWriter(file)) {
+        pw.write(sb.toString());
+      }
+      return file;
+    } catch (IOException | ClassNotFoundException e) {
+      TraceBackService.trace(e);
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      TraceBackService.trace(e);
+      return null;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Import the inputs of a level, each chunk of each input being imported by a worker with its own
+   * entity manager and transactions.
+   *
+   * @return false if the import of a chunk failed
+   */
+  protected boolean restoreLevel(
+      List<CSVInput> inputList,
+      Map<String, List<RestoreChunk>> chunkMap,
+      String dirPath,
+      ExecutorService executor,
+      XStream xStream,
+      RestoreProgress restoreProgress,
+      StringBuilder sb)
+      throws InterruptedException {
+    long startTime = System.nanoTime();
+    List<RestoreInput> restoreInputList = new ArrayList<>();
+    List<Future<Boolean>> futureList = new ArrayList<>();
+    boolean success = true;
+
+    for (CSVInput input : inputList) {
+      RestoreInput restoreInput = new RestoreInput(input.getTypeName());
+      restoreInputList.add(restoreInput);
+
+      for (RestoreChunk chunk : chunkMap.get(input.getFileName())) {
+        CSVInput chunkInput = (CSVInput) xStream.fromXML(xStream.toXML(input));
+        chunkInput.setFileName(chunk.fileName);
+        futureList.add(
+            executor.submit(
+                () -> runWorker(chunkInput, chunk, restoreInput, dirPath, restoreProgress)));
+      }
+    }
+
+    for (Future<Boolean> future : futureList) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        TraceBackService.trace(e.getCause());
+        sb.append(e.getCause().getMessage() + "\n\n");
+        success = false;
+      }
+    }
+
+    long duration = System.nanoTime() - startTime;
+    for (RestoreInput restoreInput : restoreInputList) {
+      restoreInput.appendLog(sb, duration);
+    }
+    return success;
+  }
+
+  protected Boolean runWorker(
+      CSVInput input,
+      RestoreChunk chunk,
+      RestoreInput restoreInput,
+      String dirPath,
+      RestoreProgress restoreProgress)
+      throws Exception {
+    final RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      Beans.get(AuditableRunner.class).run(() -> importInput(input, restoreInput, dirPath));
+      restoreProgress.add(chunk.recordNb);
+      updateProgress(restoreProgress);
+    } finally {
+      JPA.clear();
+      Beans.get(UnitOfWork.class).end();
+    }
+    return true;
+  }
+
+  protected Boolean importInput(CSVInput input, RestoreInput restoreInput, String dirPath) {
+    CSVConfig csvConfig = new CSVConfig();
+    csvConfig.setInputs(Lists.newArrayList(input));
+
+    CSVImporter csvImporter = new CSVImporter(csvConfig, dirPath);
+    csvImporter.addListener(
+        new Listener() {
+          StringBuilder sb1 = new StringBuilder();
+
+          @Override
+          public void handle(Model bean, Exception e) {
+            if (e.getMessage() != null && !e.getMessage().equals("null")) {
+              sb1.append(e.getMessage() + "\n\n");
+            }
+          }
+
+          @Override
+          public void imported(Model model) {}
+
+          @Override
+          public void imported(Integer total, Integer count) {
+            restoreInput.add(total, count, sb1);
+            sb1.setLength(0);
+          }
+        });
+    csvImporter.run();
+    return true;
+  }
+
+  /**
+   * Split a csv file of the backup in chunks of rows, each with the header of the file.
+   *
+   * @return the chunks, or the file itself if it has no row
+   */
+  protected List<RestoreChunk> splitFile(String dirPath, String fileName, int chunkSize)
+      throws IOException {
+    List<RestoreChunk> chunkList = new ArrayList<>();
+    CSVFile csvFormat = CSVFile.DEFAULT.withDelimiter(SEPARATOR).withQuoteAll();
+    CSVRecord header = null;
+    CSVPrinter printer = null;
+    RestoreChunk chunk = null;
+
+    try (CSVParser csvParser =
+        csvFormat.parse(new File(dirPath, fileName), StandardCharsets.UTF_8)) {
+      for (CSVRecord record : csvParser) {
+        if (header == null) {
+          header = record;
+          continue;
+        }
+        if (chunk == null || chunk.recordNb == chunkSize) {
+          if (printer != null) {
+            printer.close();
+          }
+          chunk = new RestoreChunk(String.format("chunk_%d_%s", chunkList.size(), fileName));
+          chunkList.add(chunk);
+          printer = csvFormat.write(new File(dirPath, chunk.fileName));
+          printer.printRecord(header);
+        }
+        printer.printRecord(record);
+        chunk.recordNb++;
+      }
+    } finally {
+      if (printer != null) {
+        printer.close();
+      }
+    }
+
+    if (chunkList.isEmpty()) {
+      chunkList.add(new RestoreChunk(fileName));
+    }
+    return chunkList;
+  }
+
+  protected void updateProgress(RestoreProgress restoreProgress) {
+    Query query =
+        JPA.em()
+            .createQuery(
+                "UPDATE DataBackup self SET self.restoreRecordNb = :restoreRecordNb, "
+                    + "self.restoredRecordNb = :restoredRecordNb, "
+                    + "self.restoreRecordPerSecond = :restoreRecordPerSecond "
+                    + "WHERE self.id = :id")
+            .setParameter("restoreRecordNb", restoreProgress.recordNb)
+            .setParameter("restoredRecordNb", restoreProgress.getRestoredRecordNb())
+            .setParameter("restoreRecordPerSecond", restoreProgress.getRecordPerSecond())
+            .setParameter("id", restoreProgress.dataBackupId);
+    JPA.runInTransaction(query::executeUpdate);
+  }
+
+  protected static class RestoreChunk {
+    protected final String fileName;
+    protected int recordNb;
+
+    protected RestoreChunk(String fileName) {
+      this.fileName = fileName;
+    }
+  }
+
+  /** Import results of the chunks of an input, which are imported concurrently. */
+  protected static class RestoreInput {
+    protected final String typeName;
+    protected int total;
+    protected int count;
+    protected final StringBuilder errors = new StringBuilder();
+
+    protected RestoreInput(String typeName) {
+      this.typeName = typeName;
+    }
+
+    protected synchronized void add(Integer total, Integer count, CharSequence errors) {
+      this.total += total != null ? total : 0;
+      this.count += count != null ? count : 0;
+      this.errors.append(errors);
+    }
+
+    protected synchronized void appendLog(StringBuilder sb, long durationNanos) {
+      sb.append(typeName.substring(typeName.lastIndexOf('.') + 1) + " : \n");
+      if (!StringUtils.isBlank(errors)) {
+        sb.append("Errors : \n" + errors);
+      }
+      sb.append("Total Records :  {" + total + "} - Success Records :  {" + count + "}  \n");
+      sb.append(
+          String.format(
+              "Duration : %.1f s - Records per second : %.1f%n",
+              durationNanos / 1e9, count * 1e9 / Math.max(durationNanos, 1)));
+      sb.append("-----------------------------------------\n");
+    }
+  }
+
+  protected static class RestoreProgress {
+    protected final Long dataBackupId;
+    protected final long recordNb;
+    protected final long startTime = System.nanoTime();
+    protected final AtomicLong restoredRecordNb = new AtomicLong();
+
+    protected RestoreProgress(Long dataBackupId, long recordNb) {
+      this.dataBackupId = dataBackupId;
+      this.recordNb = recordNb;
+    }
+
+    protected void add(long recordNb) {
+      restoredRecordNb.addAndGet(recordNb);
+    }
+
+    protected long getRestoredRecordNb() {
+      return restoredRecordNb.get();
+    }
+
+    protected BigDecimal getRecordPerSecond() {
+      long duration = Math.max(System.nanoTime() - startTime, 1);
+      return BigDecimal.valueOf(restoredRecordNb.get() * 1e9 / duration)
+          .setScale(2, RoundingMode.HALF_UP);
+    }
+  }
+
   protected boolean unZip(MetaFile zipMetaFile, String destinationDirectoryPath)
       throws IOException {
     File zipFile = MetaFiles.getPath(zipMetaFile).toFile();
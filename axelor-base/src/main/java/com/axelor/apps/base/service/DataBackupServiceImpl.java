@@ -139,7 +139,7 @@ public class DataBackupServiceImpl implements DataBackupService {
           public Boolean call() throws Exception {
             Logger LOG = LoggerFactory.getLogger(getClass());
             DataBackup obj = dataBackupRepository.find(dataBackup.getId());
-            File logFile = restoreService.restore(obj.getBackupMetaFile());
+            File logFile = restoreService.restore(obj);
             save(logFile, obj);
             LOG.info("Data Restore Saved");
             return true;
@@ -149,6 +149,8 @@ public class DataBackupServiceImpl implements DataBackupService {
             try {
               JPA.em().getTransaction().begin();
               obj = dataBackupRepository.find(dataBackup.getId());
+              // The restore progress is written by bulk updates, refresh it to not overwrite it
+              JPA.refresh(obj);
               if (logFile != null) {
                 obj.setStatusSelect(DataBackupRepository.DATA_BACKUP_STATUS_RESTORE);
                 obj.setLogMetaFile(metaFiles.upload(logFile));
@@ -18,9 +18,7 @@
  */
 package com.axelor.apps.base.service;
 
-import com.axelor.app.internal.AppFilter;
 import com.axelor.apps.base.AxelorException;
-import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Product;
 import com.axelor.apps.base.db.Unit;
 import com.axelor.apps.base.db.UnitConversion;
@@ -29,27 +27,41 @@ import com.axelor.apps.base.db.repo.UnitConversionRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
-import com.axelor.auth.AuthUtils;
-import com.axelor.auth.db.User;
+import com.axelor.apps.base.service.unit.UnitConversionGraph;
+import com.axelor.apps.base.service.unit.UnitConversionGraphCache;
 import com.axelor.db.Model;
 import com.axelor.i18n.I18n;
-import com.axelor.utils.template.TemplateMaker;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
 import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
+import groovy.lang.Script;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
 public class UnitConversionServiceImpl implements UnitConversionService {
 
-  private static final char TEMPLATE_DELIMITER = '$';
-  private static final int DEFAULT_COEFFICIENT_SCALE = 12;
+  protected static final Pattern FORMULA_EXPRESSION_PATTERN = Pattern.compile("\\$([^$]*)\\$");
+  private static final int DEFAULT_COEFFICIENT_SCALE = UnitConversionGraph.COEFFICIENT_SCALE;
+
+  /** The compiled formulas, by formula. */
+  protected static final Cache<String, Class<? extends Script>> FORMULA_SCRIPT_CACHE =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  protected static final CompilerConfiguration FORMULA_COMPILER_CONFIGURATION =
+      createFormulaCompilerConfiguration();
 
   protected AppBaseService appBaseService;
 
@@ -77,12 +89,11 @@ public class UnitConversionServiceImpl implements UnitConversionService {
   public BigDecimal convert(
       Unit startUnit, Unit endUnit, BigDecimal value, int scale, Product product)
       throws AxelorException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionList();
-    return convert(unitConversionList, startUnit, endUnit, value, scale, product, "Product");
+    return convert(getUnitConversionGraph(), startUnit, endUnit, value, scale, product, "Product");
   }
 
   protected BigDecimal convert(
-      List<UnitConversion> unitConversionList,
+      UnitConversionGraph unitConversionGraph,
       Unit startUnit,
       Unit endUnit,
       BigDecimal value,
@@ -112,7 +123,7 @@ public class UnitConversionServiceImpl implements UnitConversionService {
     else {
       try {
         BigDecimal coefficient =
-            this.getCoefficient(unitConversionList, startUnit, endUnit, model, nameInContext);
+            this.getCoefficient(unitConversionGraph, startUnit, endUnit, model, nameInContext);
 
         if (coefficient.signum() == 0) {
           throw new AxelorException(
@@ -132,7 +143,7 @@ public class UnitConversionServiceImpl implements UnitConversionService {
   /**
    * Get the conversion coefficient between two units from a conversion list. If the start unit and
    * the end unit can not be found in the list, then the units are swapped. If there still isn't any
-   * result, an Exception is thrown.
+   * result, the coefficient is computed through other units, else an Exception is thrown.
    *
    * @param startUnit The start unit
    * @param endUnit The end unit
@@ -146,78 +157,50 @@ public class UnitConversionServiceImpl implements UnitConversionService {
   @Override
   public BigDecimal getCoefficient(Unit startUnit, Unit endUnit, Product product)
       throws AxelorException, CompilationFailedException, ClassNotFoundException, IOException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionList();
-    return getCoefficient(unitConversionList, startUnit, endUnit, product, "Product");
+    return getCoefficient(getUnitConversionGraph(), startUnit, endUnit, product, "Product");
   }
 
   protected BigDecimal getCoefficient(
-      List<UnitConversion> unitConversionList,
+      UnitConversionGraph unitConversionGraph,
       Unit startUnit,
       Unit endUnit,
       Model model,
       String nameInContext)
       throws AxelorException, CompilationFailedException, ClassNotFoundException, IOException {
-    /* Looking for the start unit and the end unit in the unitConversionList to get the coefficient */
-    TemplateMaker maker = null;
-    if (model != null) {
-      maker =
-          new TemplateMaker(
-              Optional.ofNullable(AuthUtils.getUser()).map(User::getActiveCompany).orElse(null)
-                      != null
-                  ? Optional.ofNullable(AuthUtils.getUser())
-                      .map(User::getActiveCompany)
-                      .map(Company::getTimezone)
-                      .orElse(null)
-                  : "",
-              AppFilter.getLocale(),
-              TEMPLATE_DELIMITER,
-              TEMPLATE_DELIMITER);
-      maker.setContext(model, nameInContext);
-    }
-    String eval = null;
-    for (UnitConversion unitConversion : unitConversionList) {
+    /* Looking for the start unit and the end unit in the conversions to get the coefficient */
+    for (UnitConversionGraph.Edge edge :
+        unitConversionGraph.getEdgeList(startUnit.getId(), endUnit.getId())) {
 
-      if (unitConversion.getStartUnit().equals(startUnit)
-          && unitConversion.getEndUnit().equals(endUnit)) {
-        if (unitConversion.getTypeSelect() == UnitConversionRepository.TYPE_COEFF) {
-          return unitConversion.getCoef();
+      if (!edge.isInverse()) {
+        if (edge.getTypeSelect() == UnitConversionRepository.TYPE_COEFF) {
+          return edge.getCoef();
         } else if (model != null) {
-          maker.setTemplate(unitConversion.getFormula());
-          eval = maker.make();
-          CompilerConfiguration conf = new CompilerConfiguration();
-          ImportCustomizer customizer = new ImportCustomizer();
-          customizer.addStaticStars("java.lang.Math");
-          conf.addCompilationCustomizers(customizer);
-          Binding binding = new Binding();
-          GroovyShell shell = new GroovyShell(binding, conf);
-          return new BigDecimal(shell.evaluate(eval).toString());
+          return this.evaluateFormula(edge.getFormula(), model, nameInContext);
         }
+        continue;
       }
 
       /* The endUnit become the start unit and the startUnit become the end unit */
 
-      if (unitConversion.getStartUnit().equals(endUnit)
-          && unitConversion.getEndUnit().equals(startUnit)) {
-        if (unitConversion.getTypeSelect() == UnitConversionRepository.TYPE_COEFF
-            && unitConversion.getCoef().compareTo(BigDecimal.ZERO) != 0) {
-          return BigDecimal.ONE.divide(
-              unitConversion.getCoef(), DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP);
-        } else if (model != null) {
-          maker.setTemplate(unitConversion.getFormula());
-          eval = maker.make();
-          CompilerConfiguration conf = new CompilerConfiguration();
-          ImportCustomizer customizer = new ImportCustomizer();
-          customizer.addStaticStars("java.lang.Math");
-          conf.addCompilationCustomizers(customizer);
-          Binding binding = new Binding();
-          GroovyShell shell = new GroovyShell(binding, conf);
-          BigDecimal result = new BigDecimal(shell.evaluate(eval).toString());
-          if (result.compareTo(BigDecimal.ZERO) != 0) {
-            return BigDecimal.ONE.divide(result, DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP);
-          }
+      if (edge.getTypeSelect() == UnitConversionRepository.TYPE_COEFF
+          && edge.getCoef().compareTo(BigDecimal.ZERO) != 0) {
+        return BigDecimal.ONE.divide(
+            edge.getCoef(), DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP);
+      } else if (model != null) {
+        BigDecimal result = this.evaluateFormula(edge.getFormula(), model, nameInContext);
+        if (result.compareTo(BigDecimal.ZERO) != 0) {
+          return BigDecimal.ONE.divide(result, DEFAULT_COEFFICIENT_SCALE, RoundingMode.HALF_UP);
         }
       }
     }
+
+    /* Looking for a conversion path through other units */
+    BigDecimal coefficient =
+        unitConversionGraph.getPathCoefficient(startUnit.getId(), endUnit.getId());
+    if (coefficient != null) {
+      return coefficient;
+    }
+
     /* If there is no startUnit and endUnit in the UnitConversion list so we throw an exception */
     throw new AxelorException(
         TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
@@ -226,6 +209,52 @@ public class UnitConversionServiceImpl implements UnitConversionService {
         endUnit.getName());
   }
 
+  /**
+   * Evaluate a formula, whose template expressions between {@code $} are read on the model given
+   * with its name in the context. The formula is compiled once into a script reading the model in
+   * its binding, so that the compiled scripts do not depend on the values of the models.
+   */
+  protected BigDecimal evaluateFormula(String formula, Model model, String nameInContext) {
+    Class<? extends Script> scriptClass;
+    try {
+      scriptClass =
+          FORMULA_SCRIPT_CACHE.get(
+              formula,
+              () ->
+                  new GroovyShell(FORMULA_COMPILER_CONFIGURATION)
+                      .parse(getFormulaScript(formula))
+                      .getClass());
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+
+    Binding binding = new Binding();
+    binding.setVariable(nameInContext, model);
+    return new BigDecimal(InvokerHelper.createScript(scriptClass, binding).run().toString());
+  }
+
+  /** @return the Groovy script of the formula, each template expression being a sub-expression */
+  protected String getFormulaScript(String formula) {
+    return FORMULA_EXPRESSION_PATTERN
+        .matcher(formula)
+        .replaceAll(matchResult -> Matcher.quoteReplacement("(" + matchResult.group(1) + ")"));
+  }
+
+  protected static CompilerConfiguration createFormulaCompilerConfiguration() {
+    CompilerConfiguration conf = new CompilerConfiguration();
+    ImportCustomizer customizer = new ImportCustomizer();
+    customizer.addStaticStars("java.lang.Math");
+    conf.addCompilationCustomizers(customizer);
+    return conf;
+  }
+
+  protected UnitConversionGraph getUnitConversionGraph() {
+    return UnitConversionGraphCache.get(
+        UnitConversionRepository.ENTITY_ALL,
+        () -> new UnitConversionGraph(fetchUnitConversionList()));
+  }
+
   protected List<UnitConversion> fetchUnitConversionList() {
     return unitConversionRepo
         .all()
@@ -31,10 +31,15 @@ import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
+import com.axelor.inject.Beans;
 import com.axelor.utils.helpers.MetaSelectHelper;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.inject.persist.Transactional;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -43,7 +48,15 @@ import java.sql.SQLException;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -51,6 +64,8 @@ import org.slf4j.LoggerFactory;
 
 public abstract class AbstractBatch {
   private static final ThreadLocal<Long> threadBatchId = new ThreadLocal<>();
+  private static final ThreadLocal<Batch> threadWorkerBatch = new ThreadLocal<>();
+  private static final ThreadLocal<PartitionCounter> threadWorkerCounter = new ThreadLocal<>();
 
   public static final int FETCH_LIMIT = 10;
 
@@ -64,19 +79,16 @@ public abstract class AbstractBatch {
 
   @Inject protected BatchRepository batchRepo;
 
-  private int done;
-  private int anomaly;
+  private final AtomicInteger done = new AtomicInteger();
+  private final AtomicInteger anomaly = new AtomicInteger();
 
   protected AbstractBatch() {
     this.batch = new Batch();
 
     this.batch.setStartDate(ZonedDateTime.now());
 
-    this.done = 0;
-    this.anomaly = 0;
-
-    this.batch.setDone(this.done);
-    this.batch.setAnomaly(this.anomaly);
+    this.batch.setDone(this.done.get());
+    this.batch.setAnomaly(this.anomaly.get());
 
     JPA.runInTransaction(() -> batch = JPA.persist(batch));
   }
@@ -219,11 +231,16 @@ public abstract class AbstractBatch {
   }
 
   protected void _incrementDone() {
-    done += 1;
-    batch.setDone(done);
+    PartitionCounter workerCounter = threadWorkerCounter.get();
+    if (workerCounter != null) {
+      workerCounter.done++;
+      return;
+    }
+    int doneNb = done.incrementAndGet();
+    batch.setDone(doneNb);
     checkPoint();
 
-    LOG.debug("Done ::: {}", done);
+    LOG.debug("Done ::: {}", doneNb);
   }
 
   protected void incrementAnomaly() {
@@ -232,11 +249,16 @@ public abstract class AbstractBatch {
   }
 
   protected void _incrementAnomaly() {
-    anomaly += 1;
-    batch.setAnomaly(anomaly);
+    PartitionCounter workerCounter = threadWorkerCounter.get();
+    if (workerCounter != null) {
+      workerCounter.anomaly++;
+      return;
+    }
+    int anomalyNb = anomaly.incrementAndGet();
+    batch.setAnomaly(anomalyNb);
     checkPoint();
 
-    LOG.debug("Anomaly ::: {}", anomaly);
+    LOG.debug("Anomaly ::: {}", anomalyNb);
   }
 
   protected void addComment(String comment) {
@@ -294,6 +316,17 @@ public abstract class AbstractBatch {
   }
 
   protected Batch findBatch() {
+    // A worker has its own batch entity, only the calling thread saves the batch, see
+    // processPartitions
+    if (isPartitionWorker()) {
+      Batch workerBatch = threadWorkerBatch.get();
+      if (!JPA.em().contains(workerBatch)) {
+        workerBatch = JPA.find(Batch.class, workerBatch.getId());
+        threadWorkerBatch.set(workerBatch);
+      }
+      return workerBatch;
+    }
+
     if (!JPA.em().contains(batch)) {
       batch = JPA.find(Batch.class, batch.getId());
     }
@@ -310,4 +343,171 @@ public abstract class AbstractBatch {
     }
     return defaultBatchFetchLimit;
   }
+
+  /**
+   * Fetch the next page of records of the query, using the fetch limit of this batch.
+   *
+   * @param query the query to page through
+   * @return the next records, empty once all the records are fetched
+   */
+  protected <T extends Model> List<T> fetchNext(KeysetQuery<T> query) {
+    return query.fetchNext(getFetchLimit());
+  }
+
+  /**
+   * Number of threads used to process the partitions of a batch, see {@link
+   * #processPartitions(List, PartitionProcessor)}.
+   */
+  protected int getWorkerNb() {
+    return Math.max(1, appBaseService.getAppBase().getDefaultBatchWorkerNb());
+  }
+
+  protected static boolean isPartitionWorker() {
+    return threadWorkerCounter.get() != null;
+  }
+
+  /**
+   * Split the ids of the records to process in partitions, several partitions per worker so the
+   * workers stay busy when some partitions are longer to process.
+   *
+   * @param idList the ids of the records to process, or groups of ids processed together
+   * @return the partitions
+   */
+  protected <T> List<List<T>> partitionIds(List<T> idList) {
+    int partitionSize = Math.max(1, -Math.floorDiv(-idList.size(), getWorkerNb() * 4));
+    return Lists.partition(idList, partitionSize);
+  }
+
+  /**
+   * Split the ids of the records to process in partitions, the records of a same key staying in the
+   * same partition: for example the records updating the balance of a same partner, which two
+   * workers must not update at once.
+   *
+   * @param idListByKey the ids of the records to process by key
+   * @return the partitions
+   */
+  protected List<List<Long>> partitionIdsByKey(Map<?, List<Long>> idListByKey) {
+    List<List<Long>> partitionList = new ArrayList<>();
+    for (List<List<Long>> idListPartition : partitionIds(new ArrayList<>(idListByKey.values()))) {
+      partitionList.add(
+          idListPartition.stream().flatMap(List::stream).collect(Collectors.toList()));
+    }
+    return partitionList;
+  }
+
+  /**
+   * Process the partitions on a pool of {@link #getWorkerNb()} threads. Each partition is processed
+   * in its own unit of work, so the processor must find again the records it uses and must not
+   * rely on the lazy associations of the batch: the configuration of the batch should be read
+   * before and given with the partitions. In a worker, {@link #findBatch()} returns a batch entity
+   * of the worker, the {@code batch} field belongs to the calling thread and must only be used for
+   * its id.
+   *
+   * <p>An exception thrown by the processor is traced on the batch and counted as an anomaly, the
+   * other partitions are still processed. Each partition counts its done and anomaly records on its
+   * own, the calling thread adds them to the batch and saves it each time a partition ends.
+   *
+   * @param partitionList the partitions, for example ids of records, companies or partners
+   * @param processor the processing of one partition
+   */
+  protected <T> void processPartitions(List<T> partitionList, PartitionProcessor<T> processor) {
+    int workerNb = Math.min(getWorkerNb(), partitionList.size());
+
+    if (workerNb <= 1) {
+      for (T partition : partitionList) {
+        processPartition(partition, processor);
+      }
+      return;
+    }
+
+    long batchId = batch.getId();
+    ExecutorService executor = Executors.newFixedThreadPool(workerNb);
+    List<Future<?>> futureList = new ArrayList<>();
+    List<PartitionCounter> counterList = new ArrayList<>();
+
+    try {
+      for (T partition : partitionList) {
+        PartitionCounter counter = new PartitionCounter();
+        counterList.add(counter);
+        futureList.add(
+            executor.submit(
+                () -> {
+                  runPartition(batchId, partition, processor, counter);
+                  return null;
+                }));
+      }
+      for (int index = 0; index < futureList.size(); index++) {
+        try {
+          futureList.get(index).get();
+        } catch (ExecutionException e) {
+          TraceBackService.trace(e.getCause(), null, batchId);
+          anomaly.incrementAndGet();
+        }
+        PartitionCounter counter = counterList.get(index);
+        done.addAndGet(counter.done);
+        anomaly.addAndGet(counter.anomaly);
+        saveCounters();
+      }
+    } catch (InterruptedException e) {
+      futureList.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Process a partition in a worker thread, with its own unit of work, batch entity and counters.
+   * An exception thrown by the processor is given back to the calling thread.
+   */
+  protected <T> void runPartition(
+      long batchId, T partition, PartitionProcessor<T> processor, PartitionCounter counter)
+      throws Exception {
+    final RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      threadBatchId.set(batchId);
+      threadWorkerCounter.set(counter);
+      threadWorkerBatch.set(JPA.find(Batch.class, batchId));
+      processor.process(partition);
+    } finally {
+      threadBatchId.remove();
+      threadWorkerCounter.remove();
+      threadWorkerBatch.remove();
+      JPA.clear();
+      Beans.get(UnitOfWork.class).end();
+    }
+  }
+
+  protected <T> void processPartition(T partition, PartitionProcessor<T> processor) {
+    try {
+      processor.process(partition);
+    } catch (Exception e) {
+      TraceBackService.trace(e, null, batch.getId());
+      incrementAnomaly();
+    }
+  }
+
+  protected void saveCounters() {
+    findBatch();
+    batch.setDone(done.get());
+    batch.setAnomaly(anomaly.get());
+    checkPoint();
+  }
+
+  /** Done and anomaly records of one partition, only read by the calling thread once it ends. */
+  protected static class PartitionCounter {
+    protected int done;
+    protected int anomaly;
+  }
+
+  /**
+   * Processing of one partition of a batch.
+   *
+   * @param <T> the partition type
+   */
+  @FunctionalInterface
+  protected interface PartitionProcessor<T> {
+    void process(T partition) throws Exception;
+  }
 }
@@ -0,0 +1,198 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import com.axelor.common.StringUtils;
+import com.axelor.db.Model;
+import com.axelor.db.Query;
+import com.axelor.db.mapper.Mapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query fetching its records page by page, each page starting after the last record of the
+ * previous one (keyset pagination), instead of using an offset. The cost of a page does not depend
+ * on its position, and the records removed from the filter while processing a page do not shift
+ * the next pages.
+ *
+ * <p>Records are ordered by id, optionally preceded by one non null field:
+ *
+ * <pre>
+ * KeysetQuery&lt;Move&gt; query = new KeysetQuery&lt;&gt;(Move.class, "self.company = :company")
+ *     .bind("company", company);
+ * List&lt;Move&gt; moveList;
+ * while (!(moveList = query.fetchNext(fetchLimit)).isEmpty()) {
+ *   for (Move move : moveList) {
+ *     try {
+ *       ...
+ *     } catch (Exception e) {
+ *       TraceBackService.trace(e, origin, batchId);
+ *       incrementAnomaly();
+ *     }
+ *   }
+ *   JPA.clear();
+ * }
+ * </pre>
+ *
+ * <p>The position is advanced as soon as a page is fetched, so a failing record must not end the
+ * processing of its page: unlike with an offset, the remaining records of the page would never be
+ * fetched again.
+ *
+ * @param <T> the model type
+ */
+public class KeysetQuery<T extends Model> {
+
+  protected static final String LAST_ID_PARAM = "_keysetLastId";
+  protected static final String LAST_VALUE_PARAM = "_keysetLastValue";
+
+  protected final Class<T> modelClass;
+  protected final String filter;
+  protected final List<Object> params;
+  protected final Map<String, Object> namedParams = new HashMap<>();
+
+  protected String orderField;
+  protected boolean descending;
+
+  protected Long lastId;
+  protected Object lastValue;
+
+  /**
+   * @param modelClass the model to fetch
+   * @param filter the filter, may be empty, using either positional or named parameters
+   * @param params the positional parameters of the filter
+   */
+  public KeysetQuery(Class<T> modelClass, String filter, Object... params) {
+    this.modelClass = modelClass;
+    this.filter = filter;
+    this.params = new ArrayList<>(Arrays.asList(params));
+  }
+
+  public KeysetQuery<T> bind(String name, Object value) {
+    namedParams.put(name, value);
+    return this;
+  }
+
+  public KeysetQuery<T> bind(Map<String, Object> params) {
+    namedParams.putAll(params);
+    return this;
+  }
+
+  /**
+   * Order the records on the given field before the id. The field must not be null on the fetched
+   * records.
+   *
+   * @param spec the field name, prefixed by '-' for a descending order
+   * @return this query
+   */
+  public KeysetQuery<T> order(String spec) {
+    descending = spec.startsWith("-");
+    orderField = descending ? spec.substring(1) : spec;
+    return this;
+  }
+
+  /**
+   * Fetch the records following the last one of the previous page. The next call starts after the
+   * last record returned, whether the records of this page were processed or not.
+   *
+   * @param limit the maximum number of records to fetch
+   * @return the records, empty once all the records are fetched
+   */
+  public List<T> fetchNext(int limit) {
+    List<T> recordList = this.build().fetch(limit);
+
+    if (!recordList.isEmpty()) {
+      T lastRecord = recordList.get(recordList.size() - 1);
+      lastId = lastRecord.getId();
+      if (orderField != null) {
+        lastValue = Mapper.of(modelClass).get(lastRecord, orderField);
+      }
+    }
+
+    return recordList;
+  }
+
+  /** Start again from the first record. */
+  public void reset() {
+    lastId = null;
+    lastValue = null;
+  }
+
+  protected Query<T> build() {
+    List<Object> queryParams = new ArrayList<>(params);
+    Map<String, Object> queryNamedParams = new HashMap<>(namedParams);
+    StringBuilder queryFilter = new StringBuilder();
+
+    if (StringUtils.notBlank(filter)) {
+      queryFilter.append("(").append(filter).append(")");
+    }
+
+    if (lastId != null) {
+      if (queryFilter.length() > 0) {
+        queryFilter.append(" AND ");
+      }
+      String lastIdParam = this.addParam(queryParams, queryNamedParams, LAST_ID_PARAM, lastId);
+      if (orderField == null) {
+        queryFilter.append("self.id > ").append(lastIdParam);
+      } else {
+        String lastValueParam =
+            this.addParam(queryParams, queryNamedParams, LAST_VALUE_PARAM, lastValue);
+        queryFilter
+            .append("(self.")
+            .append(orderField)
+            .append(descending ? " < " : " > ")
+            .append(lastValueParam)
+            .append(" OR (self.")
+            .append(orderField)
+            .append(" = ")
+            .append(lastValueParam)
+            .append(" AND self.id > ")
+            .append(lastIdParam)
+            .append("))");
+      }
+    }
+
+    Query<T> query = Query.of(modelClass);
+    if (queryFilter.length() > 0) {
+      query = query.filter(queryFilter.toString(), queryParams.toArray());
+    }
+    query.bind(queryNamedParams);
+
+    if (orderField != null) {
+      query = query.order(descending ? "-" + orderField : orderField);
+    }
+    return query.order("id");
+  }
+
+  /**
+   * Add a parameter in the same style as the filter ones, positional parameters and named ones
+   * can not be mixed in a same query.
+   */
+  protected String addParam(
+      List<Object> queryParams, Map<String, Object> queryNamedParams, String name, Object value) {
+    if (!params.isEmpty()) {
+      queryParams.add(value);
+      return "?" + queryParams.size();
+    }
+    queryNamedParams.put(name, value);
+    return ":" + name;
+  }
+}
@@ -25,6 +25,7 @@ import com.axelor.apps.base.db.repo.AddressRepository;
 import com.axelor.apps.base.db.repo.CountryRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.service.address.AddressService;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.db.JPA;
 import com.axelor.db.Query;
@@ -69,7 +70,6 @@ public class BatchCountryAddressRecompute extends BatchStrategy {
           CollectionUtils.isNotEmpty(baseBatch.getCountrySet()) ? baseBatch.getCountrySet() : 0L);
     }
 
-    int offset = 0;
     List<Address> addressList;
     Query<Country> countryQuery =
         countryRepository.all().filter(filter).bind(queryParameters).order("id");
@@ -78,16 +78,12 @@ public class BatchCountryAddressRecompute extends BatchStrategy {
             .map(m -> (Long) m.get("id"))
             .collect(Collectors.toList());
 
-    while (!(addressList =
-            addressRepository
-                .all()
-                .filter("self.country.id IN :countryIds")
-                .bind("countryIds", countryIdList)
-                .order("id")
-                .fetch(getFetchLimit(), offset))
-        .isEmpty()) {
+    KeysetQuery<Address> addressQuery =
+        new KeysetQuery<>(Address.class, "self.country.id IN :countryIds")
+            .bind("countryIds", countryIdList);
+
+    while (!(addressList = fetchNext(addressQuery)).isEmpty()) {
       for (Address address : addressList) {
-        ++offset;
         try {
           recomputeAddress(address);
           incrementDone();
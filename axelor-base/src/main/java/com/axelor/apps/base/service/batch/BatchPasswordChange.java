@@ -21,12 +21,12 @@ package com.axelor.apps.base.service.batch;
 import com.axelor.apps.base.db.BaseBatch;
 import com.axelor.apps.base.db.repo.BaseBatchRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.base.service.user.UserService;
 import com.axelor.auth.db.User;
 import com.axelor.auth.db.repo.UserRepository;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
@@ -35,7 +35,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,27 +84,12 @@ public class BatchPasswordChange extends BatchStrategy {
           CollectionUtils.isNotEmpty(baseBatch.getUserSet()) ? baseBatch.getUserSet() : 0L);
     }
 
-    int offset = 0;
     List<User> userList;
-    Query<User> userQuery = userRepo.all().filter(filter).bind(queryParameters).order("id");
-    List<Long> userIdList =
-        userQuery.select("id").fetch(0, 0).stream()
-            .map(m -> (Long) m.get("id"))
-            .collect(
-                Collectors
-                    .toList()); // have to do this because the processed users potentially cannot be
-    // queried again.
-
-    while (!(userList =
-            userRepo
-                .all()
-                .filter("self.id IN :userIds")
-                .bind("userIds", userIdList)
-                .order("id")
-                .fetch(getFetchLimit(), offset))
-        .isEmpty()) {
+    // the processed users leave the filter, which does not shift the next pages
+    KeysetQuery<User> userQuery = new KeysetQuery<>(User.class, filter).bind(queryParameters);
+
+    while (!(userList = fetchNext(userQuery)).isEmpty()) {
       for (User user : userList) {
-        ++offset;
         try {
           // incrementDone is called inside generatePassword(User user)
           generatePassword(user);
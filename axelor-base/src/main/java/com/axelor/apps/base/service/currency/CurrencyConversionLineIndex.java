@@ -0,0 +1,167 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import com.axelor.apps.base.db.CurrencyConversionLine;
+import com.axelor.apps.base.service.app.AppBaseService;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable index of the currency conversion lines, giving the exchange rate of a couple of
+ * currencies at a date in O(log n).
+ *
+ * <p>The lines of a couple of currencies are flattened into consecutive date segments, each one
+ * holding the rate of the line applying on it. When lines overlap, the first one of the list wins,
+ * as with a scan of the list.
+ */
+public class CurrencyConversionLineIndex {
+
+  protected final Map<String, Segments> segmentsMap;
+
+  public CurrencyConversionLineIndex(List<CurrencyConversionLine> currencyConversionLineList) {
+    Map<String, List<CurrencyConversionLine>> lineListMap = new LinkedHashMap<>();
+
+    if (currencyConversionLineList != null) {
+      for (CurrencyConversionLine ccl : currencyConversionLineList) {
+        if (ccl.getFromDate() == null
+            || (ccl.getToDate() != null && ccl.getToDate().isBefore(ccl.getFromDate()))) {
+          continue;
+        }
+        lineListMap
+            .computeIfAbsent(
+                getKey(ccl.getStartCurrency().getCodeISO(), ccl.getEndCurrency().getCodeISO()),
+                key -> new ArrayList<>())
+            .add(ccl);
+      }
+    }
+
+    segmentsMap = new HashMap<>();
+    lineListMap.forEach((key, lineList) -> segmentsMap.put(key, new Segments(lineList)));
+  }
+
+  /**
+   * Get the exchange rate of the line converting the start currency into the end currency at the
+   * given date.
+   *
+   * @return the rate, zero if the line has no rate, null if there is no line
+   */
+  public BigDecimal getExchangeRate(String startCode, String endCode, LocalDate date) {
+    Segments segments = segmentsMap.get(getKey(startCode, endCode));
+    return segments == null ? null : segments.getRate(date, false);
+  }
+
+  /**
+   * Get the exchange rate converting the start currency into the end currency at the given date,
+   * from the line converting the end currency into the start currency.
+   *
+   * @return the inverse of the rate, zero if the line has no rate, null if there is no line
+   */
+  public BigDecimal getInverseExchangeRate(String startCode, String endCode, LocalDate date) {
+    Segments segments = segmentsMap.get(getKey(endCode, startCode));
+    return segments == null ? null : segments.getRate(date, true);
+  }
+
+  protected String getKey(String startCode, String endCode) {
+    return startCode + "/" + endCode;
+  }
+
+  protected static class Segments {
+
+    protected final long[] startDays;
+    protected final BigDecimal[] rates;
+    protected final BigDecimal[] inverseRates;
+
+    protected Segments(List<CurrencyConversionLine> lineList) {
+      // Indexes of the lines starting and ending (exclusive) on each day
+      TreeMap<Long, List<Integer>> startMap = new TreeMap<>();
+      TreeMap<Long, List<Integer>> endMap = new TreeMap<>();
+      for (int index = 0; index < lineList.size(); index++) {
+        CurrencyConversionLine ccl = lineList.get(index);
+        startMap
+            .computeIfAbsent(ccl.getFromDate().toEpochDay(), day -> new ArrayList<>())
+            .add(index);
+        if (ccl.getToDate() != null) {
+          endMap
+              .computeIfAbsent(ccl.getToDate().toEpochDay() + 1, day -> new ArrayList<>())
+              .add(index);
+        }
+      }
+
+      TreeSet<Long> dayList = new TreeSet<>(startMap.keySet());
+      dayList.addAll(endMap.keySet());
+
+      long[] segmentStartDays = new long[dayList.size()];
+      int[] segmentLineIndexes = new int[dayList.size()];
+      int size = 0;
+      TreeSet<Integer> activeIndexSet = new TreeSet<>();
+
+      for (Long day : dayList) {
+        activeIndexSet.removeAll(endMap.getOrDefault(day, List.of()));
+        activeIndexSet.addAll(startMap.getOrDefault(day, List.of()));
+        int lineIndex = activeIndexSet.isEmpty() ? -1 : activeIndexSet.first();
+        if (size == 0 || segmentLineIndexes[size - 1] != lineIndex) {
+          segmentStartDays[size] = day;
+          segmentLineIndexes[size] = lineIndex;
+          size++;
+        }
+      }
+
+      startDays = Arrays.copyOf(segmentStartDays, size);
+      rates = new BigDecimal[size];
+      inverseRates = new BigDecimal[size];
+      for (int segment = 0; segment < size; segment++) {
+        if (segmentLineIndexes[segment] < 0) {
+          continue;
+        }
+        BigDecimal rate = lineList.get(segmentLineIndexes[segment]).getExchangeRate();
+        if (rate == null || rate.signum() == 0) {
+          rates[segment] = BigDecimal.ZERO;
+          inverseRates[segment] = BigDecimal.ZERO;
+        } else {
+          rates[segment] = rate;
+          inverseRates[segment] =
+              BigDecimal.ONE.divide(
+                  rate, AppBaseService.DEFAULT_EXCHANGE_RATE_REVERSION_SCALE, RoundingMode.HALF_UP);
+        }
+      }
+    }
+
+    protected BigDecimal getRate(LocalDate date, boolean inverse) {
+      int segment = Arrays.binarySearch(startDays, date.toEpochDay());
+      if (segment < 0) {
+        // Segment starting before the date
+        segment = -segment - 2;
+      }
+      if (segment < 0) {
+        return null;
+      }
+      return inverse ? inverseRates[segment] : rates[segment];
+    }
+  }
+}
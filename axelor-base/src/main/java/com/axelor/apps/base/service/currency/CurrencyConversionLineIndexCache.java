@@ -0,0 +1,47 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.utils.TenantCache;
+
+/**
+ * Cache of the {@link CurrencyConversionLineIndex} of each tenant. It is invalidated when a
+ * currency conversion line is saved or removed, see {@link TenantCache} for the changes made by
+ * other servers.
+ */
+public final class CurrencyConversionLineIndexCache {
+
+  private static final TenantCache<Void, CurrencyConversionLineIndex> CACHE = new TenantCache<>();
+
+  private CurrencyConversionLineIndexCache() {}
+
+  public static CurrencyConversionLineIndex get(AppBaseService appBaseService) {
+    return CACHE.get(
+        () -> new CurrencyConversionLineIndex(appBaseService.getCurrencyConfigurationLineList()));
+  }
+
+  public static void invalidate() {
+    CACHE.invalidate();
+  }
+
+  public static void invalidateOnCommit() {
+    CACHE.invalidateOnCommit();
+  }
+}
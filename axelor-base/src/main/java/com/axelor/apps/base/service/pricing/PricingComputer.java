@@ -60,6 +60,7 @@ public class PricingComputer extends AbstractObservablePricing {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   protected PricingService pricingService;
+  protected PricingIndex pricingIndex;
 
   protected PricingComputer(Context context, Pricing pricing, Model model) {
     this.context = Objects.requireNonNull(context);
@@ -85,6 +86,19 @@ public class PricingComputer extends AbstractObservablePricing {
     return this;
   }
 
+  /**
+   * Method to use an index of the pricings to find the next pricings of the chain, instead of
+   * fetching them. The index is only used if it has the company of the pricing and the class of the
+   * model.
+   *
+   * @param pricingIndex: can be null
+   * @return itself
+   */
+  public PricingComputer usePricingIndex(PricingIndex pricingIndex) {
+    this.pricingIndex = pricingIndex;
+    return this;
+  }
+
   /**
    * Method that creates a instance of PricingCompute intialized with pricing, model
    *
@@ -149,8 +163,15 @@ public class PricingComputer extends AbstractObservablePricing {
 
   protected Optional<Pricing> getPreviousPricing(Pricing pricing, Model model)
       throws AxelorException {
-    List<Pricing> childPricings =
-        pricingService.getPricings(this.pricing.getCompany(), this.model, pricing, null);
+    List<Pricing> childPricings;
+    if (pricingIndex != null
+        && Objects.equals(pricingIndex.getCompany(), this.pricing.getCompany())
+        && pricingIndex.getModelClass().equals(EntityHelper.getEntityClass(this.model))) {
+      childPricings = pricingIndex.getPricings(this.model, pricing, null);
+    } else {
+      childPricings =
+          pricingService.getPricings(this.pricing.getCompany(), this.model, pricing, null);
+    }
 
     if (childPricings.isEmpty()) {
       return Optional.empty();
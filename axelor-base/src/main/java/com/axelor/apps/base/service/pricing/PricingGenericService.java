@@ -49,4 +49,46 @@ public interface PricingGenericService {
   List<StringBuilder> computePricingProcess(
       Company company, Model model, String typeSelect, Map<String, Object> contextMap)
       throws AxelorException;
+
+  /**
+   * Compute the pricings of several models of the same class. The pricings of the company are
+   * fetched once in an index, shared by all the models.
+   *
+   * @param company {@link Company}: can be null
+   * @param modelList the models to price, of the same class
+   * @param typeSelect: can be null
+   * @param contextMap values to add in the context of the formulas
+   * @return the logs of each model, in the order of the models
+   * @throws AxelorException
+   */
+  List<List<StringBuilder>> computePricingProcess(
+      Company company,
+      List<? extends Model> modelList,
+      String typeSelect,
+      Map<String, Object> contextMap)
+      throws AxelorException;
+
+  /**
+   * Apply a pricing to several models of the same class. The pricings of its company are fetched
+   * once in an index, shared by all the models for the pricings linked to it.
+   *
+   * @param pricing the pricing to apply
+   * @param modelList the models to price, of the same class
+   * @param contextMap values to add in the context of the formulas
+   * @return the logs of each model, in the order of the models
+   * @throws AxelorException
+   */
+  List<List<StringBuilder>> computePricingProcess(
+      Pricing pricing, List<? extends Model> modelList, Map<String, Object> contextMap)
+      throws AxelorException;
+
+  /**
+   * Create an index of the pricings of the company for the model class, to share between the
+   * pricing computations of several models.
+   *
+   * @param company {@link Company}: can be null
+   * @param modelClass the class of the models to price
+   * @return the index
+   */
+  PricingIndex createPricingIndex(Company company, Class<? extends Model> modelClass);
 }
@@ -88,6 +88,40 @@ public class PricingGenericServiceImpl implements PricingGenericService {
   @Transactional(rollbackOn = {Exception.class})
   public void computePricingsOnModel(Company company, Model model, String typeSelect)
       throws AxelorException {
+    checkAvailableModel(model);
+
+    List<StringBuilder> logsList =
+        computePricingProcess(company, model, typeSelect, new HashMap<>());
+
+    updatePricingScaleLogs(logsList, model);
+
+    JpaRepository.of(EntityHelper.getEntityClass(model)).save(EntityHelper.getEntity(model));
+  }
+
+  /**
+   * Compute the pricings of several models of the same class and save them, the pricings of the
+   * company being fetched once for all the models.
+   */
+  @Transactional(rollbackOn = {Exception.class})
+  protected void computePricingsOnModels(
+      Company company, List<? extends Model> modelList, String typeSelect)
+      throws AxelorException {
+    for (Model model : modelList) {
+      checkAvailableModel(model);
+    }
+
+    List<List<StringBuilder>> logsLists =
+        computePricingProcess(company, modelList, typeSelect, new HashMap<>());
+
+    for (int index = 0; index < modelList.size(); index++) {
+      Model model = modelList.get(index);
+      updatePricingScaleLogs(logsLists.get(index), model);
+
+      JpaRepository.of(EntityHelper.getEntityClass(model)).save(EntityHelper.getEntity(model));
+    }
+  }
+
+  protected void checkAvailableModel(Model model) throws AxelorException {
     List<String> unavailableModels = getUnavailableModels();
     if (!ObjectUtils.isEmpty(unavailableModels)
         && unavailableModels.contains(model.getClass().getSimpleName())) {
@@ -97,22 +131,26 @@ public class PricingGenericServiceImpl implements PricingGenericService {
               I18n.get(BaseExceptionMessage.PRICING_UNAVAILABLE_FOR_THIS_CLASS),
               I18n.get(model.getClass().getSimpleName())));
     }
-
-    List<StringBuilder> logsList =
-        computePricingProcess(company, model, typeSelect, new HashMap<>());
-
-    updatePricingScaleLogs(logsList, model);
-
-    JpaRepository.of(EntityHelper.getEntityClass(model)).save(EntityHelper.getEntity(model));
   }
 
   @Override
   public List<Pricing> getPricings(Company company, Model model, String typeSelect) {
+    return getPricings(company, model, typeSelect, null);
+  }
+
+  protected List<Pricing> getPricings(
+      Company company, Model model, String typeSelect, PricingIndex pricingIndex) {
     List<Pricing> pricingList = new ArrayList<>();
     if (appBaseService.getAppBase().getIsPricingComputingOrder()) {
-      pricingList = pricingService.getPricings(company, model, null, typeSelect);
+      pricingList =
+          pricingIndex != null
+              ? pricingIndex.getPricings(model, null, typeSelect)
+              : pricingService.getPricings(company, model, null, typeSelect);
     } else {
-      List<Pricing> resultList = pricingService.getAllPricings(company, model, typeSelect);
+      List<Pricing> resultList =
+          pricingIndex != null
+              ? pricingIndex.getAllPricings(model, typeSelect)
+              : pricingService.getAllPricings(company, model, typeSelect);
 
       Set<Long> pricingsPointedTo =
           resultList.stream()
@@ -160,9 +198,71 @@ public class PricingGenericServiceImpl implements PricingGenericService {
   public List<StringBuilder> computePricingProcess(
       Company company, Model model, String typeSelect, Map<String, Object> contextMap)
       throws AxelorException {
-    List<StringBuilder> logsList = new ArrayList<>();
+    return computePricingProcess(company, model, typeSelect, contextMap, null);
+  }
+
+  @Override
+  public List<List<StringBuilder>> computePricingProcess(
+      Company company,
+      List<? extends Model> modelList,
+      String typeSelect,
+      Map<String, Object> contextMap)
+      throws AxelorException {
+    List<List<StringBuilder>> logsLists = new ArrayList<>();
+    if (ObjectUtils.isEmpty(modelList)) {
+      return logsLists;
+    }
+
+    PricingIndex pricingIndex =
+        createPricingIndex(company, EntityHelper.getEntityClass(modelList.get(0)));
+    for (Model model : modelList) {
+      logsLists.add(computePricingProcess(company, model, typeSelect, contextMap, pricingIndex));
+    }
+
+    return logsLists;
+  }
+
+  @Override
+  public List<List<StringBuilder>> computePricingProcess(
+      Pricing pricing, List<? extends Model> modelList, Map<String, Object> contextMap)
+      throws AxelorException {
+    List<List<StringBuilder>> logsLists = new ArrayList<>();
+    if (ObjectUtils.isEmpty(modelList)) {
+      return logsLists;
+    }
+
+    PricingIndex pricingIndex =
+        createPricingIndex(pricing.getCompany(), EntityHelper.getEntityClass(modelList.get(0)));
+    for (Model model : modelList) {
+      logsLists.add(computePricingProcess(List.of(pricing), model, contextMap, pricingIndex));
+    }
 
-    List<Pricing> pricingList = getPricings(company, model, typeSelect);
+    return logsLists;
+  }
+
+  @Override
+  public PricingIndex createPricingIndex(Company company, Class<? extends Model> modelClass) {
+    return new PricingIndex(pricingService, company, modelClass);
+  }
+
+  protected List<StringBuilder> computePricingProcess(
+      Company company,
+      Model model,
+      String typeSelect,
+      Map<String, Object> contextMap,
+      PricingIndex pricingIndex)
+      throws AxelorException {
+    return computePricingProcess(
+        getPricings(company, model, typeSelect, pricingIndex), model, contextMap, pricingIndex);
+  }
+
+  protected List<StringBuilder> computePricingProcess(
+      List<Pricing> pricingList,
+      Model model,
+      Map<String, Object> contextMap,
+      PricingIndex pricingIndex)
+      throws AxelorException {
+    List<StringBuilder> logsList = new ArrayList<>();
 
     if (ObjectUtils.isEmpty(pricingList)) {
       pricingObserver.computationStarted(model);
@@ -173,6 +273,7 @@ public class PricingGenericServiceImpl implements PricingGenericService {
     for (Pricing pricing : pricingList) {
       PricingComputer pricingComputer = PricingComputer.of(pricing, model);
       pricingComputer = fillPricingCompute(pricingComputer, contextMap);
+      pricingComputer.usePricingIndex(pricingIndex);
       pricingComputer.subscribe(pricingObserver);
       pricingComputer.apply();
 
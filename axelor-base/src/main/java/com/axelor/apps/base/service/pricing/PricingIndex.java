@@ -0,0 +1,99 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.pricing;
+
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Pricing;
+import com.axelor.db.Model;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The pricings of a company and a model class, indexed by linked pricing. It is built once to
+ * price several models, instead of fetching the pricings for each model and each pricing of the
+ * chain. The formula of the pricings is still evaluated on each model.
+ */
+public class PricingIndex {
+
+  protected final PricingService pricingService;
+  protected final Company company;
+  protected final Class<? extends Model> modelClass;
+  protected final List<Pricing> pricingList;
+  protected final List<Pricing> rootPricingList = new ArrayList<>();
+  protected final Map<Long, List<Pricing>> linkedPricingMap = new HashMap<>();
+
+  public PricingIndex(
+      PricingService pricingService, Company company, Class<? extends Model> modelClass) {
+    this.pricingService = pricingService;
+    this.company = company;
+    this.modelClass = modelClass;
+    this.pricingList = pricingService.fetchPricings(company, modelClass, null);
+
+    for (Pricing pricing : pricingList) {
+      if (pricing.getLinkedPricing() == null) {
+        rootPricingList.add(pricing);
+      } else {
+        linkedPricingMap
+            .computeIfAbsent(pricing.getLinkedPricing().getId(), id -> new ArrayList<>())
+            .add(pricing);
+      }
+    }
+  }
+
+  public Company getCompany() {
+    return company;
+  }
+
+  public Class<? extends Model> getModelClass() {
+    return modelClass;
+  }
+
+  /**
+   * Same as {@link PricingService#getPricings(Company, Model, Pricing, String)} for the company of
+   * the index.
+   */
+  public List<Pricing> getPricings(Model model, Pricing pricing, String typeSelect) {
+    List<Pricing> pricings =
+        pricing == null
+            ? rootPricingList
+            : linkedPricingMap.getOrDefault(pricing.getId(), new ArrayList<>());
+    return pricingService.filterPricings(filterTypeSelect(pricings, typeSelect), model);
+  }
+
+  /**
+   * Same as {@link PricingService#getAllPricings(Company, Model, String)} for the company of the
+   * index.
+   */
+  public List<Pricing> getAllPricings(Model model, String typeSelect) {
+    return pricingService.filterPricings(filterTypeSelect(pricingList, typeSelect), model);
+  }
+
+  protected List<Pricing> filterTypeSelect(List<Pricing> pricings, String typeSelect) {
+    if (typeSelect == null) {
+      return pricings;
+    }
+    return pricings.stream()
+        .filter(pricing -> Objects.equals(typeSelect, pricing.getTypeSelect()))
+        .collect(Collectors.toList());
+  }
+}
@@ -56,6 +56,27 @@ public interface PricingService {
 
   List<Pricing> getAllPricings(Company company, Model model, String typeSelect);
 
+  /**
+   * This method will fetch all pricings filtered with company and modelName, whatever their linked
+   * pricing, without evaluating their formula. Used to build a {@link PricingIndex}.
+   *
+   * @param company {@link Company}: can be null
+   * @param modelClass the class of the models to price
+   * @param typeSelect: can be null
+   * @return the list of pricings
+   */
+  List<Pricing> fetchPricings(
+      Company company, Class<? extends Model> modelClass, String typeSelect);
+
+  /**
+   * This method will keep the pricings whose formula is satisfied by the model.
+   *
+   * @param pricings the pricings to filter
+   * @param model {@link Model}
+   * @return the filtered pricings
+   */
+  List<Pricing> filterPricings(List<Pricing> pricings, Model model);
+
   public void historizePricing(Pricing pricing) throws AxelorException;
 
   public void checkDates(Pricing pricing) throws AxelorException;
@@ -136,12 +136,44 @@ public class PricingServiceImpl implements PricingService {
     return appendFormulaFilter(pricings, model);
   }
 
+  @Override
+  public List<Pricing> fetchPricings(
+      Company company, Class<? extends Model> modelClass, String typeSelect) {
+    StringBuilder filter = new StringBuilder();
+    Map<String, Object> bindings = new HashMap<>();
+    pricingFetchFilter(filter, bindings, company, modelClass, typeSelect);
+
+    filter.append("AND (self.archived = false OR self.archived is null) ");
+
+    LOG.debug("Filtering pricing with {}", filter);
+    return pricingRepo.all().filter(filter.toString()).bind(bindings).fetch();
+  }
+
+  @Override
+  public List<Pricing> filterPricings(List<Pricing> pricings, Model model) {
+    return appendFormulaFilter(pricings, model);
+  }
+
   protected void pricingFetchFilter(
       StringBuilder filter,
       Map<String, Object> bindings,
       Company company,
       Model model,
       String typeSelect) {
+    pricingFetchFilter(
+        filter,
+        bindings,
+        company,
+        model != null ? EntityHelper.getEntityClass(model) : null,
+        typeSelect);
+  }
+
+  protected void pricingFetchFilter(
+      StringBuilder filter,
+      Map<String, Object> bindings,
+      Company company,
+      Class<? extends Model> modelClass,
+      String typeSelect) {
     LOG.debug("Fetching pricings");
 
     filter.append("self.startDate <= :todayDate ");
@@ -153,9 +185,9 @@ public class PricingServiceImpl implements PricingService {
       bindings.put("company", company);
     }
 
-    if (model != null) {
+    if (modelClass != null) {
       filter.append("AND self.concernedModel.name = :modelName ");
-      bindings.put("modelName", EntityHelper.getEntityClass(model).getSimpleName());
+      bindings.put("modelName", modelClass.getSimpleName());
     }
 
     if (typeSelect != null) {
@@ -165,6 +197,9 @@ public class PricingServiceImpl implements PricingService {
   }
 
   protected List<Pricing> appendFormulaFilter(List<Pricing> pricings, Model model) {
+    if (pricings.isEmpty()) {
+      return new ArrayList<>();
+    }
     Context scriptContext = new Context(Mapper.toMap(model), EntityHelper.getEntityClass(model));
     ScriptHelper scriptHelper = new GroovyScriptHelper(scriptContext);
     List<Pricing> filteredPricings = new ArrayList<>();
@@ -0,0 +1,129 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.publicHoliday;
+
+import com.axelor.db.JPA;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Days of an events planning, such as the public holidays.
+ *
+ * <p>The days of the lines are kept as sorted epoch days, in total and by day of the week, so the
+ * number of lines of a date range is given by two binary searches, whatever its length. The memory
+ * used only depends on the number of lines, not on the dates.
+ */
+public class PublicHolidayCalendar {
+
+  protected static final int DAYS_OF_WEEK = DayOfWeek.values().length;
+
+  /** Epoch days of the lines, sorted, a day being repeated for each of its lines. */
+  protected final long[] epochDays;
+
+  /** Epoch days of the lines falling on each day of the week, sorted. */
+  protected final long[][] epochDaysByDayOfWeek;
+
+  public PublicHolidayCalendar(List<LocalDate> dateList) {
+    epochDays = dateList.stream().mapToLong(LocalDate::toEpochDay).sorted().toArray();
+
+    int[] lineNbs = new int[DAYS_OF_WEEK];
+    for (LocalDate date : dateList) {
+      lineNbs[date.getDayOfWeek().ordinal()]++;
+    }
+
+    epochDaysByDayOfWeek = new long[DAYS_OF_WEEK][];
+    for (int dayOfWeek = 0; dayOfWeek < DAYS_OF_WEEK; dayOfWeek++) {
+      epochDaysByDayOfWeek[dayOfWeek] = new long[lineNbs[dayOfWeek]];
+    }
+
+    int[] indexes = new int[DAYS_OF_WEEK];
+    for (long epochDay : epochDays) {
+      int dayOfWeek = LocalDate.ofEpochDay(epochDay).getDayOfWeek().ordinal();
+      epochDaysByDayOfWeek[dayOfWeek][indexes[dayOfWeek]++] = epochDay;
+    }
+  }
+
+  public static PublicHolidayCalendar load(Long eventsPlanningId) {
+    return new PublicHolidayCalendar(
+        JPA.em()
+            .createQuery(
+                "SELECT self.date FROM EventsPlanningLine self "
+                    + "WHERE self.eventsPlanning.id = :eventsPlanningId",
+                LocalDate.class)
+            .setParameter("eventsPlanningId", eventsPlanningId)
+            .getResultList());
+  }
+
+  public boolean isPublicHoliday(LocalDate date) {
+    long epochDay = date.toEpochDay();
+    int index = getLowerBound(epochDays, epochDay);
+    return index < epochDays.length && epochDays[index] == epochDay;
+  }
+
+  /**
+   * Get the number of lines between the two dates, both included.
+   *
+   * @param fromDate the first date
+   * @param toDate the last date
+   * @return the number of lines
+   */
+  public int getLineNb(LocalDate fromDate, LocalDate toDate) {
+    return getLineNb(epochDays, fromDate, toDate);
+  }
+
+  /**
+   * Get the number of lines falling on the given day of the week between the two dates, both
+   * included.
+   *
+   * @param fromDate the first date
+   * @param toDate the last date
+   * @param dayOfWeek the day of the week
+   * @return the number of lines
+   */
+  public int getLineNb(LocalDate fromDate, LocalDate toDate, DayOfWeek dayOfWeek) {
+    return getLineNb(epochDaysByDayOfWeek[dayOfWeek.ordinal()], fromDate, toDate);
+  }
+
+  protected int getLineNb(long[] sortedEpochDays, LocalDate fromDate, LocalDate toDate) {
+    if (fromDate.isAfter(toDate)) {
+      return 0;
+    }
+    return getLowerBound(sortedEpochDays, toDate.toEpochDay() + 1)
+        - getLowerBound(sortedEpochDays, fromDate.toEpochDay());
+  }
+
+  /**
+   * @return the index of the first epoch day greater than or equal to the given one, the length of
+   *     the array if there is none
+   */
+  protected int getLowerBound(long[] sortedEpochDays, long epochDay) {
+    int low = 0;
+    int high = sortedEpochDays.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sortedEpochDays[middle] < epochDay) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.publicHoliday;
+
+import com.axelor.apps.base.utils.TenantCache;
+
+/**
+ * Cache of the {@link PublicHolidayCalendar} of each tenant and events planning. It is invalidated
+ * when an events planning line is saved or removed, see {@link TenantCache} for the changes made by
+ * other servers.
+ */
+public final class PublicHolidayCalendarCache {
+
+  private static final TenantCache<Long, PublicHolidayCalendar> CACHE = new TenantCache<>(1000);
+
+  private PublicHolidayCalendarCache() {}
+
+  public static PublicHolidayCalendar get(Long eventsPlanningId) {
+    return CACHE.get(eventsPlanningId, () -> PublicHolidayCalendar.load(eventsPlanningId));
+  }
+
+  public static void invalidate() {
+    CACHE.invalidate();
+  }
+
+  public static void invalidateOnCommit() {
+    CACHE.invalidateOnCommit();
+  }
+}
@@ -23,12 +23,12 @@ import com.axelor.apps.base.db.EventsPlanningLine;
 import com.axelor.apps.base.db.WeeklyPlanning;
 import com.axelor.apps.base.db.repo.EventsPlanningLineRepository;
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
-import com.axelor.common.ObjectUtils;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.List;
+import java.time.temporal.TemporalAdjusters;
 
 public class PublicHolidayService {
 
@@ -51,21 +51,22 @@ public class PublicHolidayService {
       EventsPlanning publicHolidayPlanning) {
     BigDecimal publicHolidayDays = BigDecimal.ZERO;
 
-    List<EventsPlanningLine> publicHolidayDayList =
-        eventsPlanningLineRepo
-            .all()
-            .filter(
-                "self.eventsPlanning = ?1 AND self.date BETWEEN ?2 AND ?3",
-                publicHolidayPlanning,
-                fromDate,
-                toDate)
-            .fetch();
-    for (EventsPlanningLine publicHolidayDay : publicHolidayDayList) {
-      publicHolidayDays =
-          publicHolidayDays.add(
-              BigDecimal.valueOf(
-                  weeklyPlanningService.getWorkingDayValueInDays(
-                      weeklyPlanning, publicHolidayDay.getDate())));
+    PublicHolidayCalendar publicHolidayCalendar = getPublicHolidayCalendar(publicHolidayPlanning);
+    if (publicHolidayCalendar == null) {
+      return publicHolidayDays;
+    }
+
+    // The working value of a day only depends on its day of the week
+    for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+      int publicHolidayNb = publicHolidayCalendar.getLineNb(fromDate, toDate, dayOfWeek);
+      if (publicHolidayNb > 0) {
+        LocalDate date = fromDate.with(TemporalAdjusters.nextOrSame(dayOfWeek));
+        double workingDayValue =
+            weeklyPlanningService.getWorkingDayValueInDays(weeklyPlanning, date);
+        publicHolidayDays =
+            publicHolidayDays.add(
+                BigDecimal.valueOf(workingDayValue).multiply(BigDecimal.valueOf(publicHolidayNb)));
+      }
     }
     return publicHolidayDays;
   }
@@ -83,13 +84,23 @@ public class PublicHolidayService {
       return false;
     }
 
-    List<EventsPlanningLine> publicHolidayDayList =
-        eventsPlanningLineRepo
-            .all()
-            .filter(
-                "self.eventsPlanning = ?1 AND self.date = ?2", publicHolidayEventsPlanning, date)
-            .fetch();
-    return ObjectUtils.notEmpty(publicHolidayDayList);
+    PublicHolidayCalendar publicHolidayCalendar =
+        getPublicHolidayCalendar(publicHolidayEventsPlanning);
+    return publicHolidayCalendar != null && publicHolidayCalendar.isPublicHoliday(date);
+  }
+
+  /**
+   * Get the days of the events planning, loaded once and shared until the lines of a planning
+   * change.
+   *
+   * @param eventsPlanning an events planning
+   * @return the calendar of the events planning, or null if it is not saved yet
+   */
+  public PublicHolidayCalendar getPublicHolidayCalendar(EventsPlanning eventsPlanning) {
+    if (eventsPlanning == null || eventsPlanning.getId() == null) {
+      return null;
+    }
+    return PublicHolidayCalendarCache.get(eventsPlanning.getId());
   }
 
   @Transactional
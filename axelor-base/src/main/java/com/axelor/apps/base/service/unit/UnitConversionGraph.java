@@ -0,0 +1,175 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.unit;
+
+import com.axelor.apps.base.db.UnitConversion;
+import com.axelor.apps.base.db.repo.UnitConversionRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Graph of the unit conversions, the units being the vertices and the conversions the edges.
+ *
+ * <p>The conversions between two units are given in the order of the conversion list, each
+ * conversion being usable in both directions. When there is none, the coefficient is computed from
+ * the shortest path of coefficient conversions, and kept for the next calls.
+ */
+public class UnitConversionGraph {
+
+  public static final int COEFFICIENT_SCALE = 12;
+
+  protected final Map<Long, Map<Long, List<Edge>>> edgeMap = new HashMap<>();
+  protected final Map<Long, Map<Long, Edge>> coefficientEdgeMap = new HashMap<>();
+  protected final Map<String, Optional<BigDecimal>> pathCoefficientMap = new ConcurrentHashMap<>();
+
+  public UnitConversionGraph(List<UnitConversion> unitConversionList) {
+    for (UnitConversion unitConversion : unitConversionList) {
+      Long startUnitId = unitConversion.getStartUnit().getId();
+      Long endUnitId = unitConversion.getEndUnit().getId();
+
+      addEdge(startUnitId, endUnitId, new Edge(unitConversion, false));
+      addEdge(endUnitId, startUnitId, new Edge(unitConversion, true));
+    }
+  }
+
+  protected void addEdge(Long startUnitId, Long endUnitId, Edge edge) {
+    edgeMap
+        .computeIfAbsent(startUnitId, id -> new HashMap<>())
+        .computeIfAbsent(endUnitId, id -> new ArrayList<>())
+        .add(edge);
+
+    if (edge.isUsableInPath()) {
+      coefficientEdgeMap
+          .computeIfAbsent(startUnitId, id -> new LinkedHashMap<>())
+          .putIfAbsent(endUnitId, edge);
+    }
+  }
+
+  /**
+   * Get the conversions from the start unit to the end unit, in the order of the conversion list.
+   */
+  public List<Edge> getEdgeList(Long startUnitId, Long endUnitId) {
+    return edgeMap
+        .getOrDefault(startUnitId, Collections.emptyMap())
+        .getOrDefault(endUnitId, Collections.emptyList());
+  }
+
+  /**
+   * Get the coefficient from the start unit to the end unit using the shortest path of coefficient
+   * conversions.
+   *
+   * @return the coefficient, null if the units are not linked
+   */
+  public BigDecimal getPathCoefficient(Long startUnitId, Long endUnitId) {
+    if (startUnitId == null || endUnitId == null) {
+      return null;
+    }
+    return pathCoefficientMap
+        .computeIfAbsent(
+            startUnitId + "-" + endUnitId,
+            key -> Optional.ofNullable(computePathCoefficient(startUnitId, endUnitId)))
+        .orElse(null);
+  }
+
+  protected BigDecimal computePathCoefficient(Long startUnitId, Long endUnitId) {
+    Map<Long, Long> previousUnitMap = new HashMap<>();
+    Deque<Long> unitIdQueue = new ArrayDeque<>();
+    previousUnitMap.put(startUnitId, startUnitId);
+    unitIdQueue.add(startUnitId);
+
+    while (!unitIdQueue.isEmpty() && !previousUnitMap.containsKey(endUnitId)) {
+      Long unitId = unitIdQueue.poll();
+      for (Long nextUnitId :
+          coefficientEdgeMap.getOrDefault(unitId, Collections.emptyMap()).keySet()) {
+        if (previousUnitMap.putIfAbsent(nextUnitId, unitId) == null) {
+          unitIdQueue.add(nextUnitId);
+        }
+      }
+    }
+
+    if (!previousUnitMap.containsKey(endUnitId)) {
+      return null;
+    }
+
+    // Multiply the coefficients and divide by the inverse ones at the end to keep the precision
+    BigDecimal numerator = BigDecimal.ONE;
+    BigDecimal denominator = BigDecimal.ONE;
+    Long unitId = endUnitId;
+    while (!unitId.equals(startUnitId)) {
+      Long previousUnitId = previousUnitMap.get(unitId);
+      Edge edge = coefficientEdgeMap.get(previousUnitId).get(unitId);
+      if (edge.isInverse()) {
+        denominator = denominator.multiply(edge.getCoef());
+      } else {
+        numerator = numerator.multiply(edge.getCoef());
+      }
+      unitId = previousUnitId;
+    }
+
+    return numerator.divide(denominator, COEFFICIENT_SCALE, RoundingMode.HALF_UP);
+  }
+
+  /** A unit conversion, used from its start unit to its end unit or the other way round. */
+  public static class Edge {
+
+    protected final int typeSelect;
+    protected final BigDecimal coef;
+    protected final String formula;
+    protected final boolean inverse;
+
+    public Edge(UnitConversion unitConversion, boolean inverse) {
+      this.typeSelect = unitConversion.getTypeSelect();
+      this.coef = unitConversion.getCoef();
+      this.formula = unitConversion.getFormula();
+      this.inverse = inverse;
+    }
+
+    public int getTypeSelect() {
+      return typeSelect;
+    }
+
+    public BigDecimal getCoef() {
+      return coef;
+    }
+
+    public String getFormula() {
+      return formula;
+    }
+
+    public boolean isInverse() {
+      return inverse;
+    }
+
+    protected boolean isUsableInPath() {
+      return typeSelect == UnitConversionRepository.TYPE_COEFF
+          && coef != null
+          && coef.signum() != 0;
+    }
+  }
+}
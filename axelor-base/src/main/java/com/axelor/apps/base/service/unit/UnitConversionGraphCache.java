@@ -0,0 +1,46 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.unit;
+
+import com.axelor.apps.base.utils.TenantCache;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache of the {@link UnitConversionGraph} of each tenant and entity. It is invalidated when a unit
+ * conversion is saved or removed, see {@link TenantCache} for the changes made by other servers.
+ */
+public final class UnitConversionGraphCache {
+
+  private static final TenantCache<Integer, UnitConversionGraph> CACHE = new TenantCache<>();
+
+  private UnitConversionGraphCache() {}
+
+  public static UnitConversionGraph get(
+      int entitySelect, Callable<UnitConversionGraph> unitConversionGraphLoader) {
+    return CACHE.get(entitySelect, unitConversionGraphLoader);
+  }
+
+  public static void invalidate() {
+    CACHE.invalidate();
+  }
+
+  public static void invalidateOnCommit() {
+    CACHE.invalidateOnCommit();
+  }
+}
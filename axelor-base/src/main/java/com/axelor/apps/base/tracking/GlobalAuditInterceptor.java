@@ -96,9 +96,12 @@ public class GlobalAuditInterceptor extends AuditInterceptor {
 
   @Override
   public void afterTransactionCompletion(Transaction tx) {
-    globalTracker.get().clear();
+    GlobalAuditTracker tracker = globalTracker.get();
+    tracker.clear();
     globalTracker.remove();
     super.afterTransactionCompletion(tx);
+    // last, as the logs are written in a new transaction going through this interceptor
+    tracker.afterComplete(tx);
   }
 
   @SuppressWarnings("unchecked")
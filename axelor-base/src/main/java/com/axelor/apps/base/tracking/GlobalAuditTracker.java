@@ -18,11 +18,11 @@
  */
 package com.axelor.apps.base.tracking;
 
-import com.axelor.apps.base.db.GlobalTrackingConfigurationLine;
 import com.axelor.apps.base.db.GlobalTrackingLog;
 import com.axelor.apps.base.db.GlobalTrackingLogLine;
-import com.axelor.apps.base.db.repo.GlobalTrackingConfigurationLineRepository;
 import com.axelor.apps.base.db.repo.GlobalTrackingLogRepository;
+import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.tracking.GlobalTrackingConfiguration.FieldConfiguration;
 import com.axelor.auth.AuditInterceptor;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.AuditableModel;
@@ -32,22 +32,17 @@ import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.inject.Beans;
-import com.axelor.meta.db.repo.MetaFieldRepository;
-import com.axelor.meta.db.repo.MetaModelRepository;
+import com.axelor.meta.db.MetaField;
+import com.axelor.meta.db.MetaModel;
 import com.axelor.script.GroovyScriptHelper;
 import com.axelor.script.ScriptBindings;
+import com.axelor.script.ScriptHelper;
 import com.google.common.base.Strings;
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandles;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -56,11 +51,18 @@ import org.hibernate.Transaction;
 import org.hibernate.collection.internal.AbstractPersistentCollection;
 import org.hibernate.collection.internal.PersistentBag;
 import org.hibernate.collection.internal.PersistentSet;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class GlobalAuditTracker {
 
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
   private static final ThreadLocal<List<GlobalTrackingLog>> LOGS = new ThreadLocal<>();
 
+  protected List<GlobalTrackingLog> pendingLogList = new ArrayList<>();
+
   /**
    * This method should be called from {@link
    * AuditInterceptor#beforeTransactionCompletion(Transaction)} method to finish change recording.
@@ -76,111 +78,128 @@ public class GlobalAuditTracker {
       return;
     }
 
-    MetaModelRepository modelRepo = Beans.get(MetaModelRepository.class);
-    MetaFieldRepository fieldRepo = Beans.get(MetaFieldRepository.class);
-    GlobalTrackingLogRepository logRepo = Beans.get(GlobalTrackingLogRepository.class);
-    GlobalTrackingConfigurationLineRepository configLineRepo =
-        Beans.get(GlobalTrackingConfigurationLineRepository.class);
-    GlobalTrackingConfigurationLine configLine;
-    List<GlobalTrackingConfigurationLine> configLineList;
-    ScriptBindings bindings;
+    Map<String, GlobalTrackingConfiguration> configurationMap =
+        GlobalTrackingConfigurationCache.get();
+    List<GlobalTrackingLog> logsToSave = new ArrayList<>();
 
     for (GlobalTrackingLog log : logList) {
+      GlobalTrackingConfiguration configuration = configurationMap.get(log.getMetaModelName());
+      if (configuration != null && this.prepareLog(log, configuration, user)) {
+        logsToSave.add(log);
+      }
+    }
 
-      configLineList =
-          configLineRepo.all().filter("self.metaModel.name = ?", log.getMetaModelName()).fetch();
+    if (logsToSave.isEmpty()) {
+      return;
+    }
 
-      if (configLineList.isEmpty()) {
-        continue;
-      }
+    if (Boolean.TRUE.equals(
+        Beans.get(AppBaseService.class).getAppBase().getIsGlobalTrackingLogAfterCommit())) {
+      // written once the transaction is committed
+      pendingLogList.addAll(logsToSave);
+    } else {
+      GlobalTrackingLogRepository logRepo = Beans.get(GlobalTrackingLogRepository.class);
+      logsToSave.forEach(logRepo::save);
+    }
+  }
+
+  /**
+   * This method should be called from {@link
+   * AuditInterceptor#afterTransactionCompletion(Transaction)} method to write the logs of a
+   * committed transaction. It opens a new transaction, so it must be called once the interceptor
+   * is done with the completed one.
+   *
+   * @param tx the completed transaction
+   */
+  public void afterComplete(Transaction tx) {
+    List<GlobalTrackingLog> logList = pendingLogList;
+    pendingLogList = new ArrayList<>();
+    if (logList.isEmpty() || tx.getStatus() != TransactionStatus.COMMITTED) {
+      return;
+    }
+
+    try {
+      GlobalTrackingLogWriter.write(logList);
+    } catch (Exception e) {
+      // A traceback can not be saved while the transaction completes
+      LOG.error(
+          "{} global tracking logs of a committed transaction not written", logList.size(), e);
+    }
+  }
 
-      log.setMetaModel(modelRepo.findByName(log.getMetaModelName()));
+  /**
+   * Keep the lines of the log tracked by the configuration.
+   *
+   * @return whether the log has to be saved
+   */
+  protected boolean prepareLog(
+      GlobalTrackingLog log, GlobalTrackingConfiguration configuration, User user) {
 
-      List<GlobalTrackingLogLine> logLinesToSave = new ArrayList<>();
+    List<GlobalTrackingLogLine> logLinesToSave = new ArrayList<>();
 
-      if ((CollectionUtils.isNotEmpty(log.getGlobalTrackingLogLineList()))) {
-        try {
-          bindings =
-              new ScriptBindings(
-                  this.getContext(
-                      JPA.find(
-                          (Class<Model>) Class.forName(log.getMetaModel().getFullName()),
-                          log.getRelatedId())));
-        } catch (Exception e) {
+    if (CollectionUtils.isNotEmpty(log.getGlobalTrackingLogLineList())) {
+      // only built if a tracking condition has to be evaluated
+      ScriptHelper scriptHelper = null;
+
+      for (GlobalTrackingLogLine line : log.getGlobalTrackingLogLineList()) {
+
+        FieldConfiguration fieldConfiguration =
+            configuration.getFieldConfiguration(line.getMetaFieldName());
+
+        if (fieldConfiguration == null || !fieldConfiguration.canTrack(log.getTypeSelect())) {
           continue;
         }
-        for (GlobalTrackingLogLine line : log.getGlobalTrackingLogLineList()) {
-
-          configLine =
-              configLineList.stream()
-                  .filter(l -> l.getMetaField().getName().equals(line.getMetaFieldName()))
-                  .findFirst()
-                  .orElse(null);
-
-          if (configLine == null
-              || !this.canTrack(configLine, log.getTypeSelect())
-              || (!Strings.isNullOrEmpty(configLine.getTrackingCondition())
-                  && !Boolean.TRUE.equals(
-                      new GroovyScriptHelper(bindings).eval(configLine.getTrackingCondition())))) {
+
+        String trackingCondition = fieldConfiguration.getTrackingCondition();
+        if (!Strings.isNullOrEmpty(trackingCondition)) {
+          if (scriptHelper == null) {
+            scriptHelper = this.getScriptHelper(log, configuration);
+            if (scriptHelper == null) {
+              return false;
+            }
+          }
+          if (!Boolean.TRUE.equals(scriptHelper.eval(trackingCondition))) {
             continue;
           }
-
-          line.setMetaField(
-              fieldRepo
-                  .all()
-                  .filter(
-                      "self.metaModel.id = ? AND self.name = ?",
-                      log.getMetaModel().getId(),
-                      line.getMetaFieldName())
-                  .fetchOne());
-          logLinesToSave.add(line);
         }
-      }
-      if (!logLinesToSave.isEmpty()
-          || (GlobalTrackingLogRepository.TYPE_DELETE == log.getTypeSelect()
-              && configLineList.stream()
-                  .anyMatch(l -> Boolean.TRUE.equals(l.getTrackDeletion())))) {
-        log.getGlobalTrackingLogLineList().stream().forEach(l -> l.setGlobalTrackingLog(null));
-        logLinesToSave.stream().forEach(l -> l.setGlobalTrackingLog(log));
-        log.setUser(user);
-        logRepo.save(log);
+
+        line.setMetaField(
+            JPA.em().getReference(MetaField.class, fieldConfiguration.getMetaFieldId()));
+        logLinesToSave.add(line);
       }
     }
-  }
 
-  protected boolean canTrack(GlobalTrackingConfigurationLine confLine, int typeSelect) {
-
-    switch (typeSelect) {
-      case GlobalTrackingLogRepository.TYPE_CREATE:
-        return confLine.getTrackCreation();
-      case GlobalTrackingLogRepository.TYPE_READ:
-        return confLine.getTrackReading();
-      case GlobalTrackingLogRepository.TYPE_UPDATE:
-        return confLine.getTrackUpdate();
-      case GlobalTrackingLogRepository.TYPE_DELETE:
-        return confLine.getTrackDeletion();
-      case GlobalTrackingLogRepository.TYPE_EXPORT:
-        return confLine.getTrackExport();
-      default:
-        return false;
+    if (logLinesToSave.isEmpty()
+        && !(GlobalTrackingLogRepository.TYPE_DELETE == log.getTypeSelect()
+            && configuration.isTrackDeletion())) {
+      return false;
     }
+
+    log.getGlobalTrackingLogLineList().forEach(l -> l.setGlobalTrackingLog(null));
+    logLinesToSave.forEach(l -> l.setGlobalTrackingLog(log));
+    log.setGlobalTrackingLogLineList(logLinesToSave);
+    log.setMetaModel(JPA.em().getReference(MetaModel.class, configuration.getMetaModelId()));
+    log.setUser(user);
+    return true;
   }
 
-  private Map<String, Object> getContext(Object obj)
-      throws IntrospectionException,
-          InvocationTargetException,
-          IllegalAccessException,
-          IllegalArgumentException {
-    Map<String, Object> result = new HashMap<>();
-    BeanInfo info = Introspector.getBeanInfo(obj.getClass());
-    Method reader = null;
-    for (PropertyDescriptor pd : info.getPropertyDescriptors()) {
-      reader = pd.getReadMethod();
-      if (reader != null) {
-        result.put(pd.getName(), reader.invoke(obj));
-      }
+  /** @return a script helper on the tracked record, null if the record can not be loaded */
+  @SuppressWarnings("unchecked")
+  protected ScriptHelper getScriptHelper(
+      GlobalTrackingLog log, GlobalTrackingConfiguration configuration) {
+    try {
+      Class<Model> modelClass = (Class<Model>) Class.forName(configuration.getModelFullName());
+      Model entity = JPA.find(modelClass, log.getRelatedId());
+      return new GroovyScriptHelper(new ScriptBindings(Mapper.toMap(entity)));
+    } catch (Exception e) {
+      // A traceback can not be saved while the transaction completes
+      LOG.error(
+          "Tracking condition of {} #{} not evaluated",
+          configuration.getModelFullName(),
+          log.getRelatedId(),
+          e);
+      return null;
     }
-    return result;
   }
 
   protected void init() {
@@ -0,0 +1,121 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.tracking;
+
+import com.axelor.apps.base.db.GlobalTrackingConfigurationLine;
+import com.axelor.apps.base.db.repo.GlobalTrackingLogRepository;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the global tracking configuration lines of one model. It only holds values, so it
+ * can be shared between threads and sessions.
+ */
+public class GlobalTrackingConfiguration {
+
+  protected final Long metaModelId;
+  protected final String modelFullName;
+  protected final Map<String, FieldConfiguration> fieldConfigurationMap = new HashMap<>();
+  protected boolean trackDeletion;
+
+  public GlobalTrackingConfiguration(Long metaModelId, String modelFullName) {
+    this.metaModelId = metaModelId;
+    this.modelFullName = modelFullName;
+  }
+
+  /**
+   * Add a configuration line. If a field is configured twice, the first line is kept.
+   *
+   * @param configLine the configuration line of a field of the model
+   */
+  public void addConfigurationLine(GlobalTrackingConfigurationLine configLine) {
+    fieldConfigurationMap.putIfAbsent(
+        configLine.getMetaField().getName(), new FieldConfiguration(configLine));
+    trackDeletion |= Boolean.TRUE.equals(configLine.getTrackDeletion());
+  }
+
+  public Long getMetaModelId() {
+    return metaModelId;
+  }
+
+  public String getModelFullName() {
+    return modelFullName;
+  }
+
+  /** @return the configuration of the field, null if the field is not tracked */
+  public FieldConfiguration getFieldConfiguration(String fieldName) {
+    return fieldConfigurationMap.get(fieldName);
+  }
+
+  public Map<String, FieldConfiguration> getFieldConfigurationMap() {
+    return Collections.unmodifiableMap(fieldConfigurationMap);
+  }
+
+  /** @return whether a line of the model tracks deletion */
+  public boolean isTrackDeletion() {
+    return trackDeletion;
+  }
+
+  public static class FieldConfiguration {
+
+    protected final Long metaFieldId;
+    protected final boolean trackCreation;
+    protected final boolean trackReading;
+    protected final boolean trackUpdate;
+    protected final boolean trackDeletion;
+    protected final boolean trackExport;
+    protected final String trackingCondition;
+
+    public FieldConfiguration(GlobalTrackingConfigurationLine configLine) {
+      this.metaFieldId = configLine.getMetaField().getId();
+      this.trackCreation = Boolean.TRUE.equals(configLine.getTrackCreation());
+      this.trackReading = Boolean.TRUE.equals(configLine.getTrackReading());
+      this.trackUpdate = Boolean.TRUE.equals(configLine.getTrackUpdate());
+      this.trackDeletion = Boolean.TRUE.equals(configLine.getTrackDeletion());
+      this.trackExport = Boolean.TRUE.equals(configLine.getTrackExport());
+      this.trackingCondition = configLine.getTrackingCondition();
+    }
+
+    public Long getMetaFieldId() {
+      return metaFieldId;
+    }
+
+    public String getTrackingCondition() {
+      return trackingCondition;
+    }
+
+    public boolean canTrack(int typeSelect) {
+      switch (typeSelect) {
+        case GlobalTrackingLogRepository.TYPE_CREATE:
+          return trackCreation;
+        case GlobalTrackingLogRepository.TYPE_READ:
+          return trackReading;
+        case GlobalTrackingLogRepository.TYPE_UPDATE:
+          return trackUpdate;
+        case GlobalTrackingLogRepository.TYPE_DELETE:
+          return trackDeletion;
+        case GlobalTrackingLogRepository.TYPE_EXPORT:
+          return trackExport;
+        default:
+          return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.tracking;
+
+import com.axelor.apps.base.db.GlobalTrackingConfigurationLine;
+import com.axelor.apps.base.db.repo.GlobalTrackingConfigurationLineRepository;
+import com.axelor.apps.base.utils.TenantCache;
+import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaModel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of the global tracking configuration of each tenant, by model name. It is invalidated when
+ * a configuration line is saved or removed, see {@link TenantCache} for the changes made by other
+ * servers.
+ */
+public final class GlobalTrackingConfigurationCache {
+
+  private static final TenantCache<Void, Map<String, GlobalTrackingConfiguration>> CACHE =
+      new TenantCache<>();
+
+  private GlobalTrackingConfigurationCache() {}
+
+  /** @return the configuration of each tracked model, by model name */
+  public static Map<String, GlobalTrackingConfiguration> get() {
+    return CACHE.get(GlobalTrackingConfigurationCache::load);
+  }
+
+  public static void invalidate() {
+    CACHE.invalidate();
+  }
+
+  public static void invalidateOnCommit() {
+    CACHE.invalidateOnCommit();
+  }
+
+  private static Map<String, GlobalTrackingConfiguration> load() {
+    List<GlobalTrackingConfigurationLine> configLineList =
+        Beans.get(GlobalTrackingConfigurationLineRepository.class).all().order("id").fetch();
+
+    Map<String, GlobalTrackingConfiguration> configurationMap = new HashMap<>();
+    for (GlobalTrackingConfigurationLine configLine : configLineList) {
+      MetaModel metaModel = configLine.getMetaModel();
+      configurationMap
+          .computeIfAbsent(
+              metaModel.getName(),
+              name -> new GlobalTrackingConfiguration(metaModel.getId(), metaModel.getFullName()))
+          .addConfigurationLine(configLine);
+    }
+
+    return Collections.unmodifiableMap(configurationMap);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.tracking;
+
+import com.axelor.apps.base.db.GlobalTrackingLog;
+import com.axelor.apps.base.db.GlobalTrackingLogLine;
+import com.axelor.auth.db.User;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.meta.db.MetaField;
+import com.axelor.meta.db.MetaModel;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+/**
+ * Writes the global tracking logs of a committed transaction, in a new transaction of a separate
+ * entity manager. The logs are written by the committing thread, in its tenant, before it carries
+ * on, so none is lost if the application stops.
+ */
+public final class GlobalTrackingLogWriter {
+
+  private static final int BATCH_SIZE = 100;
+
+  private GlobalTrackingLogWriter() {}
+
+  /**
+   * Write the logs in one transaction, flushed by batches. The logs must not be attached to a
+   * session anymore, their relations are only used for their id.
+   *
+   * @param logList the logs of a committed transaction
+   */
+  public static void write(List<GlobalTrackingLog> logList) {
+    EntityManager em = JPA.em().getEntityManagerFactory().createEntityManager();
+    EntityTransaction transaction = em.getTransaction();
+    try {
+      transaction.begin();
+      for (int index = 0; index < logList.size(); index++) {
+        persist(em, logList.get(index));
+        if ((index + 1) % BATCH_SIZE == 0) {
+          em.flush();
+          em.clear();
+        }
+      }
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      em.close();
+    }
+  }
+
+  private static void persist(EntityManager em, GlobalTrackingLog log) {
+    log.setUser(getReference(em, User.class, log.getUser()));
+    log.setMetaModel(getReference(em, MetaModel.class, log.getMetaModel()));
+    for (GlobalTrackingLogLine line : log.getGlobalTrackingLogLineList()) {
+      line.setMetaField(getReference(em, MetaField.class, line.getMetaField()));
+    }
+    em.persist(log);
+  }
+
+  private static <T extends Model> T getReference(EntityManager em, Class<T> klass, T entity) {
+    if (entity == null || entity.getId() == null) {
+      return null;
+    }
+    return em.getReference(klass, entity.getId());
+  }
+}
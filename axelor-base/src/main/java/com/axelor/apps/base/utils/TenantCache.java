@@ -0,0 +1,111 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.utils;
+
+import com.axelor.db.JPA;
+import com.axelor.db.tenants.TenantResolver;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * In-memory cache of values computed from the database, by tenant and key. It is meant to be held
+ * in a static field and invalidated by the entity listeners of the records the values are computed
+ * from, see {@link #invalidateOnCommit()}.
+ *
+ * <p>The invalidation is local to the server: a change made on another server is only seen once
+ * the values expire, {@value #EXPIRE_AFTER_WRITE_MINUTES} minute after they were computed. Values
+ * that must not be stale for that long should not be cached here.
+ */
+public class TenantCache<K, V> {
+
+  public static final long EXPIRE_AFTER_WRITE_MINUTES = 1;
+
+  protected final Cache<List<Object>, V> cache;
+
+  public TenantCache() {
+    cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+            .build();
+  }
+
+  public TenantCache(long maximumSize) {
+    cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+            .maximumSize(maximumSize)
+            .build();
+  }
+
+  /** @return the value of the key for the current tenant, computed by the loader if missing */
+  public V get(K key, Callable<? extends V> loader) {
+    try {
+      return cache.get(getCacheKey(key), loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** @return the value of the current tenant, for a cache holding one value by tenant */
+  public V get(Callable<? extends V> loader) {
+    return get(null, loader);
+  }
+
+  /** @return the value of the key for the current tenant if it is loaded, null otherwise */
+  public V getIfPresent(K key) {
+    return cache.getIfPresent(getCacheKey(key));
+  }
+
+  /** @return the value of the current tenant if it is loaded, null otherwise */
+  public V getIfPresent() {
+    return getIfPresent(null);
+  }
+
+  /** Invalidate the values of every tenant. */
+  public void invalidate() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Invalidate the values now and once the current transaction ends, as a value computed by another
+   * thread before the commit would miss the change.
+   */
+  public void invalidateOnCommit() {
+    invalidate();
+    JPA.em()
+        .unwrap(SessionImplementor.class)
+        .getActionQueue()
+        .registerProcess((success, session) -> invalidate());
+  }
+
+  protected List<Object> getCacheKey(K key) {
+    String tenant = Optional.ofNullable(TenantResolver.currentTenantIdentifier()).orElse("");
+    return Arrays.asList(tenant, key);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.db.DataBackup;
+import com.axelor.apps.base.db.Partner;
+import com.axelor.data.csv.CSVConfig;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import com.axelor.meta.db.MetaModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.csv.CSVPrinter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestDataBackupCreateService {
+
+  private static DataBackupCreateService dataBackupCreateService;
+
+  @BeforeAll
+  static void prepare() {
+    dataBackupCreateService = new DataBackupCreateService(null, null, null, null, null, null);
+  }
+
+  @Test
+  void testOnlySingleValuedRelationsAreProjected() {
+    MetaModel metaModel = new MetaModel();
+    metaModel.setName("Partner");
+
+    List<String> propertyNameList =
+        dataBackupCreateService
+            .getProjectedRelationalPropertyList(
+                metaModel, Mapper.of(Partner.class).getProperties(), new DataBackup())
+            .stream()
+            .map(Property::getName)
+            .collect(Collectors.toList());
+
+    Assertions.assertTrue(propertyNameList.contains("currency"));
+    Assertions.assertTrue(propertyNameList.contains("emailAddress"));
+    // Exported in the order of the collection, record by record
+    Assertions.assertFalse(propertyNameList.contains("partnerAddressList"));
+    Assertions.assertFalse(propertyNameList.contains("contactPartnerSet"));
+  }
+
+  @Test
+  void testRelationalFieldValueFallsBackOnId() {
+    Map<Long, String> valueMap =
+        dataBackupCreateService.getRelationalFieldValueMap(
+            Arrays.asList(
+                new Object[] {1L, "Administrator", 10L},
+                new Object[] {2L, null, 20L},
+                new Object[] {3L, "", 30L},
+                new Object[] {4L, null, null}));
+
+    Assertions.assertEquals("Administrator", valueMap.get(1L));
+    Assertions.assertEquals("20", valueMap.get(2L));
+    Assertions.assertEquals("", valueMap.get(3L));
+    Assertions.assertFalse(valueMap.containsKey(4L));
+  }
+
+  @Test
+  void testCsvAndConfigAreStreamedIntoTheZip() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream zipOut = new ZipOutputStream(bytes)) {
+      CSVPrinter printer = dataBackupCreateService.openZipEntry(zipOut, "Partner.csv");
+      printer.printRecord("importId", "name");
+      printer.printRecord("1", "Axelor");
+      dataBackupCreateService.closeZipEntry(zipOut, printer);
+      dataBackupCreateService.generateConfig(zipOut, new CSVConfig());
+    }
+
+    Map<String, String> entryMap = new LinkedHashMap<>();
+    try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      ZipEntry entry;
+      while ((entry = zipIn.getNextEntry()) != null) {
+        entryMap.put(entry.getName(), new String(zipIn.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+
+    Assertions.assertEquals(
+        Arrays.asList("Partner.csv", DataBackupServiceImpl.CONFIG_FILE_NAME),
+        new ArrayList<>(entryMap.keySet()));
+    Assertions.assertEquals(
+        "\"importId\",\"name\"\r\n\"1\",\"Axelor\"\r\n", entryMap.get("Partner.csv"));
+    Assertions.assertTrue(
+        entryMap.get(DataBackupServiceImpl.CONFIG_FILE_NAME).contains("csv-inputs"));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.db.Address;
+import com.axelor.apps.base.db.City;
+import com.axelor.apps.base.db.Country;
+import com.axelor.data.csv.CSVBind;
+import com.axelor.data.csv.CSVInput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestDataBackupRestorePlan {
+
+  @Test
+  void testLevels() throws ClassNotFoundException {
+    CSVInput country = createInput(Country.class);
+    CSVInput city = createInput(City.class);
+    CSVInput address = createInput(Address.class);
+    CSVInput cityReference = createInput(City.class, "country");
+    CSVInput countryReference = createInput(Country.class);
+    CSVInput addressReference = createInput(Address.class, "city");
+
+    DataBackupRestorePlan restorePlan =
+        new DataBackupRestorePlan(
+            Arrays.asList(
+                country, city, address, cityReference, countryReference, addressReference));
+
+    Assertions.assertEquals(
+        Arrays.asList(
+            Arrays.asList(country, city, address),
+            Arrays.asList(cityReference),
+            Arrays.asList(countryReference, addressReference)),
+        restorePlan.getLevelList());
+  }
+
+  @Test
+  void testReferenceToLaterInput() throws ClassNotFoundException {
+    CSVInput cityReference = createInput(City.class, "country");
+    CSVInput country = createInput(Country.class);
+
+    DataBackupRestorePlan restorePlan =
+        new DataBackupRestorePlan(Arrays.asList(cityReference, country));
+
+    Assertions.assertEquals(
+        Arrays.asList(Arrays.asList(cityReference), Arrays.asList(country)),
+        restorePlan.getLevelList());
+  }
+
+  protected CSVInput createInput(Class<?> type, String... referenceFieldNames) {
+    CSVInput input = new CSVInput();
+    input.setTypeName(type.getName());
+    input.setFileName(type.getSimpleName() + ".csv");
+    List<CSVBind> bindings = new ArrayList<>();
+    for (String fieldName : referenceFieldNames) {
+      CSVBind bind = new CSVBind();
+      bind.setField(fieldName);
+      bind.setColumn(fieldName + "_importId");
+      bind.setSearch("self.importId = :" + fieldName + "_importId");
+      bindings.add(bind);
+    }
+    input.setBindings(bindings);
+    return input;
+  }
+}
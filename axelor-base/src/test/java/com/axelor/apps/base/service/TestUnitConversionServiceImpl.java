@@ -0,0 +1,62 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.db.Product;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestUnitConversionServiceImpl {
+
+  private final UnitConversionServiceImpl unitConversionService =
+      new UnitConversionServiceImpl(null, null);
+
+  @Test
+  void testFormulaScript() {
+    Assertions.assertEquals(
+        "(Product.netMass) * 1000",
+        unitConversionService.getFormulaScript("$Product.netMass$ * 1000"));
+  }
+
+  @Test
+  void testFormulaReadsEachModel() {
+    String formula = "$Product.netMass$ * 1000";
+    long cacheSize = UnitConversionServiceImpl.FORMULA_SCRIPT_CACHE.size();
+
+    Assertions.assertEquals(
+        0,
+        new BigDecimal("2500")
+            .compareTo(
+                unitConversionService.evaluateFormula(formula, createProduct("2.5"), "Product")));
+    Assertions.assertEquals(
+        0,
+        new BigDecimal("750")
+            .compareTo(
+                unitConversionService.evaluateFormula(formula, createProduct("0.75"), "Product")));
+    // One script for the formula, whatever the values of the models
+    Assertions.assertEquals(cacheSize + 1, UnitConversionServiceImpl.FORMULA_SCRIPT_CACHE.size());
+  }
+
+  protected Product createProduct(String netMass) {
+    Product product = new Product();
+    product.setNetMass(new BigDecimal(netMass));
+    return product;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.Unit;
+import com.axelor.apps.base.db.UnitConversion;
+import com.axelor.apps.base.db.repo.UnitConversionRepository;
+import com.axelor.apps.base.service.unit.UnitConversionGraph;
+import groovy.lang.GroovyShell;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure the convert path on a chain of 50 units converted by coefficients, and the evaluation of
+ * a formula compiled once against its compilation on each call. Run with the benchmark task of the
+ * module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnitConversionServiceBenchmark {
+
+  private static final int UNIT_NB = 50;
+  private static final String FORMULA = "$Product.netMass$ * 1000";
+
+  private UnitConversionServiceImpl unitConversionService;
+  private UnitConversionGraph unitConversionGraph;
+  private List<Unit> unitList;
+  private Product product;
+
+  @Setup
+  public void setup() {
+    unitList = new ArrayList<>();
+    List<UnitConversion> unitConversionList = new ArrayList<>();
+    for (int index = 0; index < UNIT_NB; index++) {
+      Unit unit = new Unit();
+      unit.setId((long) index + 1);
+      unitList.add(unit);
+      if (index > 0) {
+        UnitConversion unitConversion = new UnitConversion();
+        unitConversion.setStartUnit(unitList.get(index - 1));
+        unitConversion.setEndUnit(unit);
+        unitConversion.setTypeSelect(UnitConversionRepository.TYPE_COEFF);
+        unitConversion.setCoef(new BigDecimal("1.01"));
+        unitConversionList.add(unitConversion);
+      }
+    }
+    unitConversionGraph = new UnitConversionGraph(unitConversionList);
+    unitConversionService = new UnitConversionServiceImpl(null, null);
+
+    product = new Product();
+    product.setNetMass(new BigDecimal("2.5"));
+  }
+
+  @Benchmark
+  public BigDecimal convertThroughPath() throws AxelorException {
+    return unitConversionService.convert(
+        unitConversionGraph,
+        unitList.get(0),
+        unitList.get(UNIT_NB - 1),
+        BigDecimal.TEN,
+        3,
+        null,
+        "Product");
+  }
+
+  @Benchmark
+  public BigDecimal convertDirect() throws AxelorException {
+    return unitConversionService.convert(
+        unitConversionGraph, unitList.get(0), unitList.get(1), BigDecimal.TEN, 3, null, "Product");
+  }
+
+  @Benchmark
+  public BigDecimal formulaCompiledOnce() {
+    return unitConversionService.evaluateFormula(FORMULA, product, "Product");
+  }
+
+  @Benchmark
+  public BigDecimal formulaCompiledEachTime() {
+    GroovyShell shell = new GroovyShell(UnitConversionServiceImpl.FORMULA_COMPILER_CONFIGURATION);
+    return new BigDecimal(shell.evaluate(product.getNetMass() + " * 1000").toString());
+  }
+
+  @Test
+  @Tag("benchmark")
+  void runBenchmark() throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(UnitConversionServiceBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import com.axelor.apps.base.db.Currency;
+import com.axelor.apps.base.db.CurrencyConversionLine;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the rate lookup through the index with the scan of the conversion lines it replaces, for
+ * daily rates of 20 currencies over two years. Run with the benchmark task of the module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyConversionLineIndexBenchmark {
+
+  private static final LocalDate START_DATE = LocalDate.of(2024, 1, 1);
+  private static final int DAY_NB = 730;
+  private static final int CURRENCY_NB = 20;
+
+  private List<CurrencyConversionLine> lineList;
+  private CurrencyConversionLineIndex index;
+  private String[] codes;
+  private Random random;
+
+  @Setup
+  public void setup() {
+    codes = new String[CURRENCY_NB];
+    for (int currency = 0; currency < CURRENCY_NB; currency++) {
+      codes[currency] = "C" + currency;
+    }
+
+    random = new Random(42);
+    lineList = new ArrayList<>();
+    for (int currency = 1; currency < CURRENCY_NB; currency++) {
+      for (int day = 0; day < DAY_NB; day++) {
+        CurrencyConversionLine ccl = new CurrencyConversionLine();
+        ccl.setStartCurrency(createCurrency(codes[0]));
+        ccl.setEndCurrency(createCurrency(codes[currency]));
+        ccl.setFromDate(START_DATE.plusDays(day));
+        ccl.setToDate(START_DATE.plusDays(day));
+        ccl.setExchangeRate(BigDecimal.valueOf(1_000_000L + random.nextInt(1_000_000), 6));
+        lineList.add(ccl);
+      }
+    }
+    index = new CurrencyConversionLineIndex(lineList);
+  }
+
+  @Benchmark
+  public BigDecimal scan() {
+    String endCode = codes[1 + random.nextInt(CURRENCY_NB - 1)];
+    LocalDate date = START_DATE.plusDays(random.nextInt(DAY_NB));
+    for (CurrencyConversionLine ccl : lineList) {
+      if (ccl.getStartCurrency().getCodeISO().equals(codes[0])
+          && ccl.getEndCurrency().getCodeISO().equals(endCode)
+          && !ccl.getFromDate().isAfter(date)
+          && (ccl.getToDate() == null || !ccl.getToDate().isBefore(date))) {
+        return ccl.getExchangeRate();
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public BigDecimal index() {
+    String endCode = codes[1 + random.nextInt(CURRENCY_NB - 1)];
+    LocalDate date = START_DATE.plusDays(random.nextInt(DAY_NB));
+    return index.getExchangeRate(codes[0], endCode, date);
+  }
+
+  @Test
+  @Tag("benchmark")
+  void runBenchmark() throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(CurrencyConversionLineIndexBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+
+  protected Currency createCurrency(String code) {
+    Currency currency = new Currency();
+    currency.setCodeISO(code);
+    return currency;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import com.axelor.apps.base.db.Currency;
+import com.axelor.apps.base.db.CurrencyConversionLine;
+import com.axelor.apps.base.service.app.AppBaseService;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/** Check that the index gives the same rates as a scan of the conversion lines. */
+class TestCurrencyConversionLineIndex {
+
+  private static final LocalDate START_DATE = LocalDate.of(2024, 1, 1);
+  private static final String[] CODES = {"EUR", "USD", "GBP"};
+
+  @Test
+  void testSameRatesAsScan() {
+    Random random = new Random(42);
+    for (int scenario = 0; scenario < 50; scenario++) {
+      List<CurrencyConversionLine> lineList = createRandomLineList(random);
+      CurrencyConversionLineIndex index = new CurrencyConversionLineIndex(lineList);
+
+      for (String startCode : CODES) {
+        for (String endCode : CODES) {
+          for (int day = -5; day < 130; day++) {
+            LocalDate date = START_DATE.plusDays(day);
+            Assertions.assertEquals(
+                scan(lineList, startCode, endCode, date),
+                index.getExchangeRate(startCode, endCode, date));
+
+            BigDecimal inverseRate = scan(lineList, endCode, startCode, date);
+            if (inverseRate != null && inverseRate.signum() != 0) {
+              inverseRate =
+                  BigDecimal.ONE.divide(
+                      inverseRate,
+                      AppBaseService.DEFAULT_EXCHANGE_RATE_REVERSION_SCALE,
+                      RoundingMode.HALF_UP);
+            }
+            Assertions.assertEquals(
+                inverseRate, index.getInverseExchangeRate(startCode, endCode, date));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testNoLine() {
+    CurrencyConversionLineIndex index = new CurrencyConversionLineIndex(null);
+    Assertions.assertNull(index.getExchangeRate("EUR", "USD", START_DATE));
+    Assertions.assertNull(index.getInverseExchangeRate("EUR", "USD", START_DATE));
+  }
+
+  protected BigDecimal scan(
+      List<CurrencyConversionLine> lineList, String startCode, String endCode, LocalDate date) {
+    for (CurrencyConversionLine ccl : lineList) {
+      if (ccl.getStartCurrency().getCodeISO().equals(startCode)
+          && ccl.getEndCurrency().getCodeISO().equals(endCode)
+          && !ccl.getFromDate().isAfter(date)
+          && (ccl.getToDate() == null || !ccl.getToDate().isBefore(date))) {
+        return ccl.getExchangeRate() == null ? BigDecimal.ZERO : ccl.getExchangeRate();
+      }
+    }
+    return null;
+  }
+
+  protected List<CurrencyConversionLine> createRandomLineList(Random random) {
+    List<CurrencyConversionLine> lineList = new ArrayList<>();
+    int lineNb = random.nextInt(20);
+    for (int index = 0; index < lineNb; index++) {
+      CurrencyConversionLine ccl = new CurrencyConversionLine();
+      ccl.setStartCurrency(createCurrency(CODES[random.nextInt(CODES.length)]));
+      ccl.setEndCurrency(createCurrency(CODES[random.nextInt(CODES.length)]));
+      ccl.setFromDate(START_DATE.plusDays(random.nextInt(100)));
+      if (random.nextInt(4) != 0) {
+        ccl.setToDate(ccl.getFromDate().plusDays(random.nextInt(30)));
+      }
+      if (random.nextInt(10) != 0) {
+        ccl.setExchangeRate(BigDecimal.valueOf(random.nextInt(3_000_000), 6));
+      }
+      lineList.add(ccl);
+    }
+    return lineList;
+  }
+
+  protected Currency createCurrency(String code) {
+    Currency currency = new Currency();
+    currency.setCodeISO(code);
+    return currency;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.pricing;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.db.Model;
+import com.axelor.studio.db.AppBase;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestPricingGenericService {
+
+  private PricingService pricingService;
+  private PricingObserver pricingObserver;
+  private Company company;
+  private CountingPricingGenericService pricingGenericService;
+
+  @BeforeEach
+  void prepare() {
+    company = new Company();
+
+    pricingService = mock(PricingService.class);
+    when(pricingService.fetchPricings(eq(company), eq(Product.class), isNull()))
+        .thenReturn(List.of());
+    when(pricingService.filterPricings(anyList(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    AppBase appBase = new AppBase();
+    appBase.setIsPricingComputingOrder(true);
+    AppBaseService appBaseService = mock(AppBaseService.class);
+    when(appBaseService.getAppBase()).thenReturn(appBase);
+
+    pricingObserver = mock(PricingObserver.class);
+    pricingGenericService =
+        new CountingPricingGenericService(pricingService, pricingObserver, appBaseService);
+  }
+
+  @Test
+  void testIndexCreatedOncePerCall() throws AxelorException {
+    List<Product> productList = List.of(new Product(), new Product(), new Product());
+
+    List<List<StringBuilder>> logsLists =
+        pricingGenericService.computePricingProcess(company, productList, null, new HashMap<>());
+
+    Assertions.assertEquals(3, logsLists.size());
+    Assertions.assertEquals(1, pricingGenericService.pricingIndexNb);
+    verify(pricingService, times(1)).fetchPricings(any(), any(), any());
+    verify(pricingService, never()).getPricings(any(), any(), any(), any());
+    verify(pricingObserver, times(3)).computationStarted(any());
+  }
+
+  @Test
+  void testIndexCreatedOnEachCall() throws AxelorException {
+    pricingGenericService.computePricingProcess(
+        company, List.of(new Product()), null, new HashMap<>());
+    pricingGenericService.computePricingProcess(
+        company, List.of(new Product(), new Product()), null, new HashMap<>());
+
+    Assertions.assertEquals(2, pricingGenericService.pricingIndexNb);
+    verify(pricingService, times(2)).fetchPricings(any(), any(), any());
+  }
+
+  @Test
+  void testNoIndexWithoutModel() throws AxelorException {
+    Assertions.assertTrue(
+        pricingGenericService
+            .computePricingProcess(company, List.<Product>of(), null, new HashMap<>())
+            .isEmpty());
+
+    Assertions.assertEquals(0, pricingGenericService.pricingIndexNb);
+    verify(pricingService, never()).fetchPricings(any(), any(), any());
+  }
+
+  static class CountingPricingGenericService extends PricingGenericServiceImpl {
+
+    int pricingIndexNb;
+
+    CountingPricingGenericService(
+        PricingService pricingService,
+        PricingObserver pricingObserver,
+        AppBaseService appBaseService) {
+      super(pricingService, pricingObserver, appBaseService);
+    }
+
+    @Override
+    public PricingIndex createPricingIndex(Company company, Class<? extends Model> modelClass) {
+      pricingIndexNb++;
+      return super.createPricingIndex(company, modelClass);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.pricing;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Pricing;
+import com.axelor.apps.base.db.Product;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestPricingIndex {
+
+  private PricingService pricingService;
+  private Company company;
+  private Pricing rootPricing;
+  private Pricing linkedPricing;
+  private Pricing otherTypePricing;
+  private PricingIndex pricingIndex;
+
+  @BeforeEach
+  void prepare() {
+    company = new Company();
+    rootPricing = createPricing(1L, null, "sale");
+    linkedPricing = createPricing(2L, rootPricing, "sale");
+    otherTypePricing = createPricing(3L, null, "purchase");
+
+    pricingService = mock(PricingService.class);
+    when(pricingService.fetchPricings(eq(company), eq(Product.class), isNull()))
+        .thenReturn(List.of(rootPricing, linkedPricing, otherTypePricing));
+    when(pricingService.filterPricings(anyList(), any()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    pricingIndex = new PricingIndex(pricingService, company, Product.class);
+  }
+
+  @Test
+  void testRootPricings() {
+    Assertions.assertEquals(
+        List.of(rootPricing, otherTypePricing),
+        pricingIndex.getPricings(new Product(), null, null));
+    Assertions.assertEquals(
+        List.of(rootPricing), pricingIndex.getPricings(new Product(), null, "sale"));
+  }
+
+  @Test
+  void testLinkedPricings() {
+    Assertions.assertEquals(
+        List.of(linkedPricing), pricingIndex.getPricings(new Product(), rootPricing, "sale"));
+    Assertions.assertTrue(pricingIndex.getPricings(new Product(), linkedPricing, null).isEmpty());
+  }
+
+  @Test
+  void testAllPricings() {
+    Assertions.assertEquals(
+        List.of(rootPricing, linkedPricing), pricingIndex.getAllPricings(new Product(), "sale"));
+  }
+
+  @Test
+  void testPricingsFetchedOnce() {
+    for (int index = 0; index < 10; index++) {
+      pricingIndex.getPricings(new Product(), null, "sale");
+      pricingIndex.getPricings(new Product(), rootPricing, "sale");
+    }
+    verify(pricingService, times(1)).fetchPricings(any(), any(), any());
+    verify(pricingService, times(20)).filterPricings(anyList(), any());
+  }
+
+  protected Pricing createPricing(Long id, Pricing linked, String typeSelect) {
+    Pricing pricing = new Pricing();
+    pricing.setId(id);
+    pricing.setLinkedPricing(linked);
+    pricing.setTypeSelect(typeSelect);
+    return pricing;
+  }
+}
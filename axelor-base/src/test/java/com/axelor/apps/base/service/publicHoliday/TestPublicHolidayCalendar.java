@@ -0,0 +1,112 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.publicHoliday;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestPublicHolidayCalendar {
+
+  @Test
+  void testPublicHolidays() {
+    PublicHolidayCalendar publicHolidayCalendar =
+        new PublicHolidayCalendar(
+            Arrays.asList(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 5, 1), LocalDate.of(2024, 12, 25)));
+
+    Assertions.assertTrue(publicHolidayCalendar.isPublicHoliday(LocalDate.of(2024, 1, 1)));
+    Assertions.assertTrue(publicHolidayCalendar.isPublicHoliday(LocalDate.of(2024, 12, 25)));
+    Assertions.assertFalse(publicHolidayCalendar.isPublicHoliday(LocalDate.of(2024, 5, 2)));
+    Assertions.assertFalse(publicHolidayCalendar.isPublicHoliday(LocalDate.of(2023, 12, 31)));
+    Assertions.assertFalse(publicHolidayCalendar.isPublicHoliday(LocalDate.of(2025, 1, 1)));
+
+    Assertions.assertEquals(
+        3, publicHolidayCalendar.getLineNb(LocalDate.of(2020, 1, 1), LocalDate.of(2030, 1, 1)));
+    Assertions.assertEquals(
+        1, publicHolidayCalendar.getLineNb(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 1)));
+    Assertions.assertEquals(
+        0, publicHolidayCalendar.getLineNb(LocalDate.of(2024, 5, 2), LocalDate.of(2024, 5, 1)));
+    Assertions.assertEquals(
+        1,
+        publicHolidayCalendar.getLineNb(
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), DayOfWeek.MONDAY));
+  }
+
+  @Test
+  void testEmptyCalendar() {
+    PublicHolidayCalendar publicHolidayCalendar = new PublicHolidayCalendar(new ArrayList<>());
+
+    Assertions.assertFalse(publicHolidayCalendar.isPublicHoliday(LocalDate.of(2024, 1, 1)));
+    Assertions.assertEquals(
+        0, publicHolidayCalendar.getLineNb(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+  }
+
+  @Test
+  void testDistantDates() {
+    // The memory used does not depend on the dates, a wrong year does not allocate the days between
+    PublicHolidayCalendar publicHolidayCalendar =
+        new PublicHolidayCalendar(
+            Arrays.asList(
+                LocalDate.of(1, 1, 1), LocalDate.of(2024, 1, 1), LocalDate.of(999999, 12, 31)));
+
+    Assertions.assertTrue(publicHolidayCalendar.isPublicHoliday(LocalDate.of(999999, 12, 31)));
+    Assertions.assertFalse(publicHolidayCalendar.isPublicHoliday(LocalDate.of(999999, 12, 30)));
+    Assertions.assertEquals(
+        1, publicHolidayCalendar.getLineNb(LocalDate.of(2000, 1, 1), LocalDate.of(3000, 1, 1)));
+    Assertions.assertEquals(3, publicHolidayCalendar.getLineNb(LocalDate.MIN, LocalDate.MAX));
+  }
+
+  @Test
+  void testSameCountsAsDayByDay() {
+    Random random = new Random(42);
+    LocalDate origin = LocalDate.of(2020, 1, 1);
+
+    List<LocalDate> dateList = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      // Lines may share a date
+      dateList.add(origin.plusDays(random.nextInt(3 * 365)));
+    }
+    PublicHolidayCalendar publicHolidayCalendar = new PublicHolidayCalendar(dateList);
+
+    for (int i = 0; i < 100; i++) {
+      LocalDate fromDate = origin.plusDays(random.nextInt(4 * 365) - 365);
+      LocalDate toDate = fromDate.plusDays(random.nextInt(400));
+      for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+        long expected =
+            dateList.stream()
+                .filter(
+                    date ->
+                        !date.isBefore(fromDate)
+                            && !date.isAfter(toDate)
+                            && date.getDayOfWeek() == dayOfWeek)
+                .count();
+        Assertions.assertEquals(
+            expected, publicHolidayCalendar.getLineNb(fromDate, toDate, dayOfWeek));
+      }
+      Assertions.assertEquals(
+          dateList.contains(fromDate), publicHolidayCalendar.isPublicHoliday(fromDate));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.unit;
+
+import com.axelor.apps.base.db.Unit;
+import com.axelor.apps.base.db.UnitConversion;
+import com.axelor.apps.base.db.repo.UnitConversionRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestUnitConversionGraph {
+
+  private Unit kilogram;
+  private Unit gram;
+  private Unit ton;
+  private Unit piece;
+  private UnitConversionGraph unitConversionGraph;
+
+  @BeforeEach
+  void prepare() {
+    kilogram = createUnit(1L);
+    gram = createUnit(2L);
+    ton = createUnit(3L);
+    piece = createUnit(4L);
+
+    unitConversionGraph =
+        new UnitConversionGraph(
+            List.of(
+                createConversion(kilogram, gram, new BigDecimal("1000")),
+                createConversion(ton, kilogram, new BigDecimal("1000")),
+                createConversion(kilogram, gram, new BigDecimal("999"))));
+  }
+
+  @Test
+  void testEdgesInListOrder() {
+    List<UnitConversionGraph.Edge> edgeList =
+        unitConversionGraph.getEdgeList(kilogram.getId(), gram.getId());
+    Assertions.assertEquals(2, edgeList.size());
+    Assertions.assertEquals(new BigDecimal("1000"), edgeList.get(0).getCoef());
+    Assertions.assertFalse(edgeList.get(0).isInverse());
+  }
+
+  @Test
+  void testInverseEdges() {
+    List<UnitConversionGraph.Edge> edgeList =
+        unitConversionGraph.getEdgeList(kilogram.getId(), ton.getId());
+    Assertions.assertEquals(1, edgeList.size());
+    Assertions.assertTrue(edgeList.get(0).isInverse());
+  }
+
+  @Test
+  void testPathCoefficient() {
+    Assertions.assertEquals(
+        0,
+        new BigDecimal("1000000")
+            .compareTo(unitConversionGraph.getPathCoefficient(ton.getId(), gram.getId())));
+    Assertions.assertEquals(
+        0,
+        new BigDecimal("0.000001")
+            .compareTo(unitConversionGraph.getPathCoefficient(gram.getId(), ton.getId())));
+  }
+
+  @Test
+  void testNoPath() {
+    Assertions.assertTrue(unitConversionGraph.getEdgeList(piece.getId(), gram.getId()).isEmpty());
+    Assertions.assertNull(unitConversionGraph.getPathCoefficient(piece.getId(), gram.getId()));
+  }
+
+  protected Unit createUnit(Long id) {
+    Unit unit = new Unit();
+    unit.setId(id);
+    return unit;
+  }
+
+  protected UnitConversion createConversion(Unit startUnit, Unit endUnit, BigDecimal coef) {
+    UnitConversion unitConversion = new UnitConversion();
+    unitConversion.setStartUnit(startUnit);
+    unitConversion.setEndUnit(endUnit);
+    unitConversion.setTypeSelect(UnitConversionRepository.TYPE_COEFF);
+    unitConversion.setCoef(coef);
+    return unitConversion;
+  }
+}
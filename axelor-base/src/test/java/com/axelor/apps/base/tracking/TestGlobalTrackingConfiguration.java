@@ -0,0 +1,73 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.tracking;
+
+import com.axelor.apps.base.db.GlobalTrackingConfigurationLine;
+import com.axelor.apps.base.db.repo.GlobalTrackingLogRepository;
+import com.axelor.meta.db.MetaField;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestGlobalTrackingConfiguration {
+
+  @Test
+  void testFieldConfiguration() {
+    GlobalTrackingConfiguration configuration =
+        new GlobalTrackingConfiguration(1L, "com.axelor.apps.base.db.Partner");
+    configuration.addConfigurationLine(createConfigLine(10L, "name", false, "true"));
+    configuration.addConfigurationLine(createConfigLine(11L, "name", true, null));
+
+    GlobalTrackingConfiguration.FieldConfiguration fieldConfiguration =
+        configuration.getFieldConfiguration("name");
+    Assertions.assertEquals(10L, fieldConfiguration.getMetaFieldId());
+    Assertions.assertEquals("true", fieldConfiguration.getTrackingCondition());
+    Assertions.assertTrue(fieldConfiguration.canTrack(GlobalTrackingLogRepository.TYPE_UPDATE));
+    Assertions.assertFalse(fieldConfiguration.canTrack(GlobalTrackingLogRepository.TYPE_DELETE));
+    Assertions.assertNull(configuration.getFieldConfiguration("fullName"));
+
+    // deletion is tracked if any line of the model tracks it
+    Assertions.assertTrue(configuration.isTrackDeletion());
+  }
+
+  @Test
+  void testNoDeletionTracking() {
+    GlobalTrackingConfiguration configuration =
+        new GlobalTrackingConfiguration(1L, "com.axelor.apps.base.db.Partner");
+    configuration.addConfigurationLine(createConfigLine(10L, "name", false, null));
+
+    Assertions.assertFalse(configuration.isTrackDeletion());
+  }
+
+  protected GlobalTrackingConfigurationLine createConfigLine(
+      Long metaFieldId, String fieldName, boolean trackDeletion, String trackingCondition) {
+    MetaField metaField = new MetaField();
+    metaField.setId(metaFieldId);
+    metaField.setName(fieldName);
+
+    GlobalTrackingConfigurationLine configLine = new GlobalTrackingConfigurationLine();
+    configLine.setMetaField(metaField);
+    configLine.setTrackCreation(true);
+    configLine.setTrackUpdate(true);
+    configLine.setTrackDeletion(trackDeletion);
+    configLine.setTrackExport(true);
+    configLine.setTrackReading(true);
+    configLine.setTrackingCondition(trackingCondition);
+    return configLine;
+  }
+}
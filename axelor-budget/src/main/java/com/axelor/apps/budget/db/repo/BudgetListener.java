@@ -0,0 +1,48 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.budget.db.repo;
+
+import com.axelor.apps.budget.db.Budget;
+import com.axelor.apps.budget.service.key.BudgetKeyIndex;
+import com.axelor.apps.budget.service.key.BudgetKeyIndexCache;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+public class BudgetListener {
+
+  @PostPersist
+  @PostUpdate
+  protected void invalidateBudgetKeyIndex(Budget budget) {
+    // Amounts are updated on each imputation, the index only depends on the keys
+    BudgetKeyIndex budgetKeyIndex = BudgetKeyIndexCache.getIfPresent();
+    if (budgetKeyIndex == null || !budgetKeyIndex.isUpToDate(budget)) {
+      invalidate();
+    }
+  }
+
+  @PostRemove
+  protected void invalidateBudgetKeyIndexOnRemove(Budget budget) {
+    invalidate();
+  }
+
+  protected void invalidate() {
+    BudgetKeyIndexCache.invalidateOnCommit();
+  }
+}
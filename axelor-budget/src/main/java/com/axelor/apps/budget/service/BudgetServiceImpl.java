@@ -47,6 +47,7 @@ import com.axelor.apps.budget.db.repo.BudgetLineRepository;
 import com.axelor.apps.budget.db.repo.BudgetRepository;
 import com.axelor.apps.budget.db.repo.GlobalBudgetRepository;
 import com.axelor.apps.budget.exception.BudgetExceptionMessage;
+import com.axelor.apps.budget.service.key.BudgetKeyIndexCache;
 import com.axelor.apps.purchase.db.repo.PurchaseOrderRepository;
 import com.axelor.apps.sale.db.repo.SaleOrderRepository;
 import com.axelor.i18n.I18n;
@@ -590,24 +591,8 @@ public class BudgetServiceImpl implements BudgetService {
 
   @Override
   public Budget findBudgetWithKey(String key, LocalDate date) {
-    List<Budget> budgetList =
-        budgetRepository
-            .all()
-            .filter(
-                "self.globalBudget.statusSelect = :statusSelect AND self.budgetKey LIKE '%"
-                    + key
-                    + "%'")
-            .bind("statusSelect", GlobalBudgetRepository.GLOBAL_BUDGET_STATUS_SELECT_VALID)
-            .fetch();
-    if (!CollectionUtils.isEmpty(budgetList) && date != null) {
-      for (Budget budget : budgetList) {
-        if ((budget.getFromDate().isBefore(date) || budget.getFromDate().isEqual(date))
-            && (budget.getToDate().isAfter(date) || budget.getToDate().isEqual(date))) {
-          return budget;
-        }
-      }
-    }
-    return null;
+    Long budgetId = BudgetKeyIndexCache.get().findBudgetId(key, date);
+    return budgetId != null ? budgetRepository.find(budgetId) : null;
   }
 
   @Override
@@ -0,0 +1,162 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.budget.service.key;
+
+import com.axelor.apps.budget.db.Budget;
+import com.axelor.apps.budget.db.GlobalBudget;
+import com.axelor.apps.budget.db.repo.GlobalBudgetRepository;
+import com.axelor.db.JPA;
+import com.google.common.base.Strings;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Index of the budgets of the valid global budgets by key. A budget key holds one key for each
+ * account of the budget, separated by semicolons, each key being made of the company, the account
+ * and the analytic axis and account codes.
+ */
+public class BudgetKeyIndex {
+
+  protected final Map<String, List<BudgetPeriod>> budgetPeriodMap = new HashMap<>();
+  protected final Map<Long, BudgetPeriod> budgetPeriodByIdMap = new HashMap<>();
+  protected final Set<Long> validGlobalBudgetIdSet = new HashSet<>();
+
+  public static BudgetKeyIndex load() {
+    BudgetKeyIndex budgetKeyIndex = new BudgetKeyIndex();
+
+    budgetKeyIndex.validGlobalBudgetIdSet.addAll(
+        JPA.em()
+            .createQuery(
+                "SELECT self.id FROM GlobalBudget self WHERE self.statusSelect = :statusSelect",
+                Long.class)
+            .setParameter("statusSelect", GlobalBudgetRepository.GLOBAL_BUDGET_STATUS_SELECT_VALID)
+            .getResultList());
+
+    List<Object[]> budgetList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.budgetKey, self.fromDate, self.toDate FROM Budget self "
+                    + "WHERE self.globalBudget.statusSelect = :statusSelect "
+                    + "AND self.budgetKey IS NOT NULL AND self.budgetKey != '' "
+                    + "ORDER BY self.id",
+                Object[].class)
+            .setParameter("statusSelect", GlobalBudgetRepository.GLOBAL_BUDGET_STATUS_SELECT_VALID)
+            .getResultList();
+
+    for (Object[] budget : budgetList) {
+      budgetKeyIndex.addBudget(
+          (Long) budget[0], (String) budget[1], (LocalDate) budget[2], (LocalDate) budget[3]);
+    }
+
+    return budgetKeyIndex;
+  }
+
+  /** Budgets must be added by increasing id, the first budget found being the one returned. */
+  public void addBudget(Long budgetId, String budgetKey, LocalDate fromDate, LocalDate toDate) {
+    BudgetPeriod budgetPeriod = new BudgetPeriod(budgetId, budgetKey, fromDate, toDate);
+    budgetPeriodByIdMap.put(budgetId, budgetPeriod);
+
+    for (String key : budgetKey.split(";")) {
+      budgetPeriodMap.computeIfAbsent(key, k -> new ArrayList<>()).add(budgetPeriod);
+    }
+  }
+
+  public void addValidGlobalBudgetId(Long globalBudgetId) {
+    validGlobalBudgetIdSet.add(globalBudgetId);
+  }
+
+  /**
+   * Find the budget having the key and whose period contains the date.
+   *
+   * @param key the key of one account of the budget
+   * @param date the date
+   * @return the id of the budget, or null if there is none
+   */
+  public Long findBudgetId(String key, LocalDate date) {
+    if (date == null) {
+      return null;
+    }
+
+    for (BudgetPeriod budgetPeriod : budgetPeriodMap.getOrDefault(key, List.of())) {
+      if (budgetPeriod.contains(date)) {
+        return budgetPeriod.budgetId;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Whether the index still reflects the budget, that is to say its key, its dates and whether its
+   * global budget is valid.
+   */
+  public boolean isUpToDate(Budget budget) {
+    BudgetPeriod budgetPeriod = budgetPeriodByIdMap.get(budget.getId());
+    GlobalBudget globalBudget = budget.getGlobalBudget();
+
+    if (globalBudget == null
+        || !this.isValid(globalBudget)
+        || Strings.isNullOrEmpty(budget.getBudgetKey())) {
+      return budgetPeriod == null;
+    }
+
+    return budgetPeriod != null
+        && budgetPeriod.budgetKey.equals(budget.getBudgetKey())
+        && Objects.equals(budgetPeriod.fromDate, budget.getFromDate())
+        && Objects.equals(budgetPeriod.toDate, budget.getToDate());
+  }
+
+  /** Whether the index still reflects the status of the global budget. */
+  public boolean isUpToDate(GlobalBudget globalBudget) {
+    return validGlobalBudgetIdSet.contains(globalBudget.getId()) == this.isValid(globalBudget);
+  }
+
+  protected boolean isValid(GlobalBudget globalBudget) {
+    return globalBudget.getStatusSelect()
+        == GlobalBudgetRepository.GLOBAL_BUDGET_STATUS_SELECT_VALID;
+  }
+
+  protected static class BudgetPeriod {
+
+    protected final Long budgetId;
+    protected final String budgetKey;
+    protected final LocalDate fromDate;
+    protected final LocalDate toDate;
+
+    protected BudgetPeriod(Long budgetId, String budgetKey, LocalDate fromDate, LocalDate toDate) {
+      this.budgetId = budgetId;
+      this.budgetKey = budgetKey;
+      this.fromDate = fromDate;
+      this.toDate = toDate;
+    }
+
+    protected boolean contains(LocalDate date) {
+      return fromDate != null
+          && toDate != null
+          && !fromDate.isAfter(date)
+          && !toDate.isBefore(date);
+    }
+  }
+}
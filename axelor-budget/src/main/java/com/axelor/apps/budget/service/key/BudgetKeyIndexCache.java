@@ -0,0 +1,50 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.budget.service.key;
+
+import com.axelor.apps.base.utils.TenantCache;
+
+/**
+ * Cache of the {@link BudgetKeyIndex} of each tenant. It is invalidated when the key, the dates or
+ * the global budget status of a budget change, see {@link TenantCache} for the changes made by
+ * other servers.
+ */
+public final class BudgetKeyIndexCache {
+
+  private static final TenantCache<Void, BudgetKeyIndex> CACHE = new TenantCache<>();
+
+  private BudgetKeyIndexCache() {}
+
+  public static BudgetKeyIndex get() {
+    return CACHE.get(BudgetKeyIndex::load);
+  }
+
+  /** @return the index of the current tenant if it is loaded, null otherwise */
+  public static BudgetKeyIndex getIfPresent() {
+    return CACHE.getIfPresent();
+  }
+
+  public static void invalidate() {
+    CACHE.invalidate();
+  }
+
+  public static void invalidateOnCommit() {
+    CACHE.invalidateOnCommit();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.budget.service.key;
+
+import com.axelor.apps.budget.db.Budget;
+import com.axelor.apps.budget.db.GlobalBudget;
+import com.axelor.apps.budget.db.repo.GlobalBudgetRepository;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestBudgetKeyIndex {
+
+  private BudgetKeyIndex budgetKeyIndex;
+
+  @BeforeEach
+  void prepare() {
+    budgetKeyIndex = new BudgetKeyIndex();
+    budgetKeyIndex.addValidGlobalBudgetId(1L);
+    budgetKeyIndex.addBudget(
+        1L,
+        "COMP-6010-AX:AN1;COMP-6020-AX:AN1",
+        LocalDate.of(2024, 1, 1),
+        LocalDate.of(2024, 12, 31));
+    budgetKeyIndex.addBudget(
+        2L, "COMP-6010-AX:AN1", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+    budgetKeyIndex.addBudget(
+        3L, "COMP-6010-AX:AN10", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+  }
+
+  @Test
+  void testFindBudgetByKeyAndDate() {
+    Assertions.assertEquals(
+        1L, budgetKeyIndex.findBudgetId("COMP-6020-AX:AN1", LocalDate.of(2024, 1, 1)));
+    Assertions.assertEquals(
+        1L, budgetKeyIndex.findBudgetId("COMP-6010-AX:AN1", LocalDate.of(2024, 12, 31)));
+    Assertions.assertEquals(
+        2L, budgetKeyIndex.findBudgetId("COMP-6010-AX:AN1", LocalDate.of(2025, 6, 1)));
+    Assertions.assertEquals(
+        3L, budgetKeyIndex.findBudgetId("COMP-6010-AX:AN10", LocalDate.of(2024, 6, 1)));
+  }
+
+  @Test
+  void testNoBudgetFound() {
+    Assertions.assertNull(
+        budgetKeyIndex.findBudgetId("COMP-6020-AX:AN1", LocalDate.of(2025, 6, 1)));
+    Assertions.assertNull(budgetKeyIndex.findBudgetId("6010-AX:AN1", LocalDate.of(2024, 6, 1)));
+    Assertions.assertNull(budgetKeyIndex.findBudgetId("COMP-6010-AX:AN1", null));
+  }
+
+  @Test
+  void testBudgetUpToDate() {
+    GlobalBudget globalBudget = new GlobalBudget();
+    globalBudget.setId(1L);
+    globalBudget.setStatusSelect(GlobalBudgetRepository.GLOBAL_BUDGET_STATUS_SELECT_VALID);
+
+    Budget budget = new Budget();
+    budget.setId(2L);
+    budget.setGlobalBudget(globalBudget);
+    budget.setBudgetKey("COMP-6010-AX:AN1");
+    budget.setFromDate(LocalDate.of(2025, 1, 1));
+    budget.setToDate(LocalDate.of(2025, 12, 31));
+    Assertions.assertTrue(budgetKeyIndex.isUpToDate(budget));
+    Assertions.assertTrue(budgetKeyIndex.isUpToDate(globalBudget));
+
+    budget.setToDate(LocalDate.of(2025, 6, 30));
+    Assertions.assertFalse(budgetKeyIndex.isUpToDate(budget));
+
+    globalBudget.setStatusSelect(GlobalBudgetRepository.GLOBAL_BUDGET_STATUS_SELECT_ARCHIVED);
+    Assertions.assertFalse(budgetKeyIndex.isUpToDate(budget));
+    Assertions.assertFalse(budgetKeyIndex.isUpToDate(globalBudget));
+  }
+}
@@ -19,13 +19,13 @@
 package com.axelor.apps.businessproject.service.batch;
 
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.businessproject.exception.BusinessProjectExceptionMessage;
 import com.axelor.apps.businessproject.service.ProjectBusinessService;
 import com.axelor.apps.project.db.Project;
 import com.axelor.apps.project.db.repo.ProjectRepository;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 import java.util.List;
@@ -45,16 +45,13 @@ public class BatchComputeProjectTotalsService extends BatchStrategy {
 
   @Override
   protected void process() {
-    int offset = 0;
     List<Project> projectList;
-    Query<Project> projectQuery =
-        projectRepository
-            .all()
-            .order("id")
-            .filter("self.isBusinessProject = true AND self.projectStatus.isCompleted = false");
-    while (!(projectList = projectQuery.fetch(getFetchLimit(), offset)).isEmpty()) {
+    KeysetQuery<Project> projectQuery =
+        new KeysetQuery<>(
+            Project.class,
+            "self.isBusinessProject = true AND self.projectStatus.isCompleted = false");
+    while (!(projectList = fetchNext(projectQuery)).isEmpty()) {
       for (Project project : projectList) {
-        ++offset;
         try {
           projectBusinessService.computeProjectTotals(project);
           incrementDone();
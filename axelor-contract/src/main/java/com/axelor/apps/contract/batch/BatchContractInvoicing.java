@@ -109,10 +109,22 @@ public class BatchContractInvoicing extends BatchStrategy {
     }
   }
 
+  /**
+   * The groups of contracts are invoiced independently of each other, so they are split in
+   * partitions processed in parallel.
+   */
   @Override
   protected void process() {
+    List<List<Long>> idGroupList = getIdsGroupedBy();
+    int fetchLimit = getFetchLimit();
+
+    processPartitions(
+        partitionIds(idGroupList), groupList -> invoiceContractGroups(groupList, fetchLimit));
+  }
+
+  protected void invoiceContractGroups(List<List<Long>> idGroupList, int fetchLimit) {
     int offset = 0;
-    for (List<Long> idList : getIdsGroupedBy()) {
+    for (List<Long> idList : idGroupList) {
       ++offset;
       try {
         invoiceContracts(findContractsInList(idList));
@@ -121,7 +133,7 @@ public class BatchContractInvoicing extends BatchStrategy {
         incrementAnomaly();
         TraceBackService.trace(e, "Contract invoicing batch", batch.getId());
       }
-      if (offset % getFetchLimit() == 0) {
+      if (offset % fetchLimit == 0) {
         JPA.clear();
         findBatch();
       }
@@ -23,25 +23,46 @@ import com.axelor.apps.account.db.InvoiceLine;
 import com.axelor.apps.account.service.invoice.InvoiceLineService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Pricing;
-import com.axelor.apps.base.service.pricing.PricingComputer;
+import com.axelor.apps.base.service.pricing.PricingGenericService;
 import com.axelor.apps.contract.db.ContractLine;
 import com.axelor.db.EntityHelper;
 import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class InvoiceLinePricingServiceImpl implements InvoiceLinePricingService {
 
   protected InvoiceLineService invoiceLineService;
+  protected PricingGenericService pricingGenericService;
 
   @Inject
-  public InvoiceLinePricingServiceImpl(InvoiceLineService invoiceLineService) {
+  public InvoiceLinePricingServiceImpl(
+      InvoiceLineService invoiceLineService, PricingGenericService pricingGenericService) {
     this.invoiceLineService = invoiceLineService;
+    this.pricingGenericService = pricingGenericService;
   }
 
   @Override
   public void computePricing(Invoice invoice) throws AxelorException {
+    Map<Pricing, List<InvoiceLine>> invoiceLineListByPricing = new LinkedHashMap<>();
     for (InvoiceLine invoiceLine : invoice.getInvoiceLineList()) {
       ContractLine contractLine = invoiceLine.getContractLine();
-      applyPricing(invoice, invoiceLine, contractLine);
+      if (contractLine != null && contractLine.getPricing() != null) {
+        invoiceLineListByPricing
+            .computeIfAbsent(contractLine.getPricing(), pricing -> new ArrayList<>())
+            .add(invoiceLine);
+      }
+    }
+
+    for (Map.Entry<Pricing, List<InvoiceLine>> entry : invoiceLineListByPricing.entrySet()) {
+      pricingGenericService.computePricingProcess(
+          entry.getKey(), entry.getValue(), getPricingContextMap(invoice));
+    }
+
+    for (InvoiceLine invoiceLine : invoice.getInvoiceLineList()) {
       invoiceLineService.compute(invoice, invoiceLine);
     }
   }
@@ -59,11 +80,15 @@ public class InvoiceLinePricingServiceImpl implements InvoiceLinePricingService
     if (contractLine != null) {
       Pricing pricing = contractLine.getPricing();
       if (pricing != null) {
-        PricingComputer pricingComputer =
-            PricingComputer.of(pricing, invoiceLine)
-                .putInContext("invoice", EntityHelper.getEntity(invoice));
-        pricingComputer.apply();
+        pricingGenericService.computePricingProcess(
+            pricing, List.of(invoiceLine), getPricingContextMap(invoice));
       }
     }
   }
+
+  protected Map<String, Object> getPricingContextMap(Invoice invoice) {
+    Map<String, Object> contextMap = new HashMap<>();
+    contextMap.put("invoice", EntityHelper.getEntity(invoice));
+    return contextMap;
+  }
 }
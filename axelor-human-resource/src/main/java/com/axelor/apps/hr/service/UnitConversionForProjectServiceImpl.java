@@ -24,6 +24,8 @@ import com.axelor.apps.base.db.UnitConversion;
 import com.axelor.apps.base.db.repo.UnitConversionRepository;
 import com.axelor.apps.base.service.UnitConversionServiceImpl;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.unit.UnitConversionGraph;
+import com.axelor.apps.base.service.unit.UnitConversionGraphCache;
 import com.axelor.apps.project.db.Project;
 import com.google.inject.Inject;
 import java.io.IOException;
@@ -55,8 +57,8 @@ public class UnitConversionForProjectServiceImpl extends UnitConversionServiceIm
   public BigDecimal convert(
       Unit startUnit, Unit endUnit, BigDecimal value, int scale, Project project)
       throws AxelorException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionForProjectList();
-    return super.convert(unitConversionList, startUnit, endUnit, value, scale, project, "Project");
+    return super.convert(
+        getUnitConversionForProjectGraph(), startUnit, endUnit, value, scale, project, "Project");
   }
 
   /**
@@ -76,8 +78,14 @@ public class UnitConversionForProjectServiceImpl extends UnitConversionServiceIm
   @Override
   public BigDecimal getCoefficient(Unit startUnit, Unit endUnit, Project project)
       throws AxelorException, CompilationFailedException, ClassNotFoundException, IOException {
-    List<UnitConversion> unitConversionList = fetchUnitConversionForProjectList();
-    return super.getCoefficient(unitConversionList, startUnit, endUnit, project, "Project");
+    return super.getCoefficient(
+        getUnitConversionForProjectGraph(), startUnit, endUnit, project, "Project");
+  }
+
+  protected UnitConversionGraph getUnitConversionForProjectGraph() {
+    return UnitConversionGraphCache.get(
+        UnitConversionRepository.ENTITY_PROJECT,
+        () -> new UnitConversionGraph(fetchUnitConversionForProjectList()));
   }
 
   protected List<UnitConversion> fetchUnitConversionForProjectList() {
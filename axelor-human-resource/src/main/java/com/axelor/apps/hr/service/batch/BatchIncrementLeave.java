@@ -19,6 +19,7 @@
 package com.axelor.apps.hr.service.batch;
 
 import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.LeaveReason;
@@ -27,7 +28,6 @@ import com.axelor.apps.hr.db.repo.LeaveReasonRepository;
 import com.axelor.apps.hr.service.leave.IncrementLeaveService;
 import com.axelor.apps.hr.translation.ITranslation;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.utils.helpers.StringHelper;
 import com.google.inject.Inject;
@@ -78,12 +78,10 @@ public class BatchIncrementLeave extends BatchStrategy {
 
   protected void incrementLeaveForEmployees(Long id) throws AxelorException {
     List<Employee> employeeList;
-    int offset = 0;
     LeaveReason leaveReason = leaveReasonRepository.find(id);
-    Query<Employee> query = getEmployeeQuery(leaveReason);
-    while (!(employeeList = query.fetch(getFetchLimit(), offset)).isEmpty()) {
+    KeysetQuery<Employee> query = getEmployeeQuery(leaveReason);
+    while (!(employeeList = fetchNext(query)).isEmpty()) {
       for (Employee employee : employeeList) {
-        ++offset;
         employee = employeeRepository.find(employee.getId());
         incrementLeaveService.updateEmployeeLeaveLines(leaveReason, employee);
       }
@@ -92,19 +90,17 @@ public class BatchIncrementLeave extends BatchStrategy {
     }
   }
 
-  protected Query<Employee> getEmployeeQuery(LeaveReason leaveReason) {
-    Query<Employee> query = employeeRepository.all().order("id");
+  protected KeysetQuery<Employee> getEmployeeQuery(LeaveReason leaveReason) {
     if (CollectionUtils.isEmpty(leaveReason.getPlanningSet())) {
-      return query;
+      return new KeysetQuery<>(Employee.class, null);
     }
 
     String filter =
         "self.weeklyPlanning in ("
             + StringHelper.getIdListString(leaveReason.getPlanningSet())
             + ")";
-    query.filter(filter);
 
-    return query;
+    return new KeysetQuery<>(Employee.class, filter);
   }
 
   @Override
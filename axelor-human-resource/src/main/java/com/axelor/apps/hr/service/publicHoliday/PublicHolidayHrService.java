@@ -19,14 +19,13 @@
 package com.axelor.apps.hr.service.publicHoliday;
 
 import com.axelor.apps.base.db.EventsPlanning;
-import com.axelor.apps.base.db.EventsPlanningLine;
 import com.axelor.apps.base.db.repo.EventsPlanningLineRepository;
+import com.axelor.apps.base.service.publicHoliday.PublicHolidayCalendar;
 import com.axelor.apps.base.service.publicHoliday.PublicHolidayService;
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
 import com.axelor.apps.hr.db.Employee;
 import com.google.inject.Inject;
 import java.time.LocalDate;
-import java.util.List;
 
 public class PublicHolidayHrService extends PublicHolidayService {
 
@@ -51,16 +50,11 @@ public class PublicHolidayHrService extends PublicHolidayService {
       return 0;
     }
 
-    List<EventsPlanningLine> imposedDayList =
-        eventsPlanningLineRepo
-            .all()
-            .filter(
-                "self.eventsPlanning = ?1 AND self.date BETWEEN ?2 AND ?3",
-                imposedDays,
-                startDate,
-                endDate)
-            .fetch();
+    PublicHolidayCalendar imposedDayCalendar = getPublicHolidayCalendar(imposedDays);
+    if (imposedDayCalendar == null) {
+      return 0;
+    }
 
-    return imposedDayList.size();
+    return imposedDayCalendar.getLineNb(startDate, endDate);
   }
 }
@@ -0,0 +1,70 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.publicHoliday;
+
+import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.EventsPlanningLine;
+import com.axelor.apps.hr.db.Employee;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestPublicHolidayHrService {
+
+  private static PublicHolidayHrService publicHolidayHrService;
+
+  @BeforeAll
+  static void prepare() {
+    publicHolidayHrService = new PublicHolidayHrService(null, null);
+  }
+
+  @Test
+  void testNoPublicHolidayWithoutPlanning() {
+    Employee employee = new Employee();
+
+    Assertions.assertFalse(
+        publicHolidayHrService.checkPublicHolidayDay(LocalDate.of(2024, 1, 1), employee));
+    Assertions.assertEquals(
+        0,
+        publicHolidayHrService.getImposedDayNumber(
+            employee, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+  }
+
+  @Test
+  void testNoImposedDayInUnsavedPlanning() {
+    EventsPlanning imposedDays = new EventsPlanning();
+    imposedDays.setEventsPlanningLineList(new ArrayList<>());
+    EventsPlanningLine imposedDay = new EventsPlanningLine();
+    imposedDay.setDate(LocalDate.of(2024, 5, 10));
+    imposedDays.getEventsPlanningLineList().add(imposedDay);
+
+    Employee employee = new Employee();
+    employee.setImposedDayEventsPlanning(imposedDays);
+    employee.setPublicHolidayEventsPlanning(imposedDays);
+
+    Assertions.assertEquals(
+        0,
+        publicHolidayHrService.getImposedDayNumber(
+            employee, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    Assertions.assertFalse(
+        publicHolidayHrService.checkPublicHolidayDay(LocalDate.of(2024, 5, 10), employee));
+  }
+}
@@ -26,6 +26,7 @@ import com.axelor.apps.production.db.repo.ManufOrderRepository;
 import com.axelor.apps.production.db.repo.OperationOrderRepository;
 import com.axelor.apps.production.service.app.AppProductionService;
 import com.axelor.apps.production.service.config.ProductionConfigService;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import com.axelor.apps.production.service.manuforder.ManufOrderCreateBarcodeService;
 import com.axelor.apps.production.service.manuforder.ManufOrderCreatePurchaseOrderService;
 import com.axelor.apps.production.service.manuforder.ManufOrderPlanServiceImpl;
@@ -83,9 +84,10 @@ public class ManufOrderPlanServiceMaintenanceImpl extends ManufOrderPlanServiceI
 
   @Transactional(rollbackOn = {Exception.class})
   @Override
-  public ManufOrder plan(ManufOrder manufOrder) throws AxelorException {
+  public ManufOrder plan(ManufOrder manufOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
     if (manufOrder.getTypeSelect() != ManufOrderRepository.TYPE_MAINTENANCE) {
-      return super.plan(manufOrder);
+      return super.plan(manufOrder, machineOccupancyIndex);
     }
 
     ManufOrderService manufOrderService = Beans.get(ManufOrderService.class);
@@ -112,7 +114,12 @@ public class ManufOrderPlanServiceMaintenanceImpl extends ManufOrderPlanServiceI
           Beans.get(AppProductionService.class).getTodayDateTime().toLocalDateTime());
     }
 
-    operationOrderPlanningService.plan(manufOrder.getOperationOrderList());
+    if (machineOccupancyIndex != null) {
+      operationOrderPlanningService.plan(
+          manufOrder.getOperationOrderList(), machineOccupancyIndex);
+    } else {
+      operationOrderPlanningService.plan(manufOrder.getOperationOrderList());
+    }
 
     manufOrder.setPlannedEndDateT(this.computePlannedEndDateT(manufOrder));
 
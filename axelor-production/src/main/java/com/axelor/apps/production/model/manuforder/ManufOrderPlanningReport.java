@@ -0,0 +1,76 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.model.manuforder;
+
+/** Result of the planning of several manufacturing orders in one session. */
+public class ManufOrderPlanningReport {
+
+  private final int manufOrderNb;
+  private final int operationOrderNb;
+  private final int slotConflictNb;
+  private final int anomalyNb;
+  private final long durationMillis;
+  private final String message;
+
+  public ManufOrderPlanningReport(
+      int manufOrderNb,
+      int operationOrderNb,
+      int slotConflictNb,
+      int anomalyNb,
+      long durationMillis,
+      String message) {
+    this.manufOrderNb = manufOrderNb;
+    this.operationOrderNb = operationOrderNb;
+    this.slotConflictNb = slotConflictNb;
+    this.anomalyNb = anomalyNb;
+    this.durationMillis = durationMillis;
+    this.message = message;
+  }
+
+  public int getManufOrderNb() {
+    return manufOrderNb;
+  }
+
+  public int getOperationOrderNb() {
+    return operationOrderNb;
+  }
+
+  /** @return the number of machine slots found occupied, then moved */
+  public int getSlotConflictNb() {
+    return slotConflictNb;
+  }
+
+  /** @return the number of manufacturing orders which could not be planned */
+  public int getAnomalyNb() {
+    return anomalyNb;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  /** @return the comments of the planned manufacturing orders */
+  public String getMessage() {
+    return message;
+  }
+
+  public double getManufOrdersPerSecond() {
+    return durationMillis == 0 ? manufOrderNb : manufOrderNb * 1000d / durationMillis;
+  }
+}
@@ -63,6 +63,7 @@ import com.axelor.apps.production.service.MpsWeeklyScheduleServiceImpl;
 import com.axelor.apps.production.service.MrpForecastProductionService;
 import com.axelor.apps.production.service.MrpForecastProductionServiceImpl;
 import com.axelor.apps.production.service.MrpLineServiceProductionImpl;
+import com.axelor.apps.production.service.MrpNetChangeServiceProductionImpl;
 import com.axelor.apps.production.service.MrpServiceProductionImpl;
 import com.axelor.apps.production.service.ProdProcessLineOutsourceService;
 import com.axelor.apps.production.service.ProdProcessLineOutsourceServiceImpl;
@@ -210,6 +211,7 @@ import com.axelor.apps.supplychain.service.StockMoveLineServiceSupplychainImpl;
 import com.axelor.apps.supplychain.service.StockMoveMergingServiceSupplychainImpl;
 import com.axelor.apps.supplychain.service.StockMoveServiceSupplychainImpl;
 import com.axelor.apps.supplychain.service.StockRulesSupplychainServiceImpl;
+import com.axelor.apps.supplychain.service.mrp.MrpNetChangeServiceImpl;
 import com.axelor.apps.supplychain.service.saleorder.onchange.SaleOrderOnLineChangeSupplyChainServiceImpl;
 import com.axelor.apps.supplychain.service.saleorderline.SaleOrderLineProductSupplychainServiceImpl;
 import com.axelor.apps.supplychain.service.saleorderline.SaleOrderLineViewSupplychainServiceImpl;
@@ -229,6 +231,7 @@ public class ProductionModule extends AxelorModule {
     bind(ProductionOrderSaleOrderService.class).to(ProductionOrderSaleOrderServiceImpl.class);
     bind(MrpLineServiceImpl.class).to(MrpLineServiceProductionImpl.class);
     bind(MrpServiceImpl.class).to(MrpServiceProductionImpl.class);
+    bind(MrpNetChangeServiceImpl.class).to(MrpNetChangeServiceProductionImpl.class);
     bind(CostSheetService.class).to(CostSheetServiceImpl.class);
     bind(CostSheetLineService.class).to(CostSheetLineServiceImpl.class);
     bind(StockRulesSupplychainServiceImpl.class)
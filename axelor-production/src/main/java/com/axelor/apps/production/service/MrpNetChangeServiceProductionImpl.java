@@ -0,0 +1,225 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service;
+
+import com.axelor.apps.production.db.ManufOrder;
+import com.axelor.apps.production.db.OperationOrder;
+import com.axelor.apps.production.db.repo.BillOfMaterialRepository;
+import com.axelor.apps.production.db.repo.ManufOrderRepository;
+import com.axelor.apps.production.service.app.AppProductionService;
+import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
+import com.axelor.apps.supplychain.db.repo.MrpRepository;
+import com.axelor.apps.supplychain.service.mrp.MrpNetChangeServiceImpl;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.TypedQuery;
+
+public class MrpNetChangeServiceProductionImpl extends MrpNetChangeServiceImpl {
+
+  protected AppProductionService appProductionService;
+
+  @Inject
+  public MrpNetChangeServiceProductionImpl(AppProductionService appProductionService) {
+    this.appProductionService = appProductionService;
+  }
+
+  @Override
+  protected List<String> getChangedProductQueryList() {
+    List<String> queryList = super.getChangedProductQueryList();
+
+    if (!appProductionService.isApp("production")) {
+      return queryList;
+    }
+
+    queryList.add(
+        "SELECT DISTINCT self.product.id FROM ManufOrder self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since)");
+    queryList.add(
+        "SELECT DISTINCT self.product.id FROM ProdProduct self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since)");
+    queryList.add(
+        "SELECT DISTINCT self.product.id FROM BillOfMaterial self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since "
+            + "OR self.prodProcess.updatedOn >= :since)");
+    queryList.add(
+        "SELECT DISTINCT self.billOfMaterialParent.product.id FROM BillOfMaterialLine self "
+            + "WHERE self.billOfMaterialParent.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since)");
+    queryList.add(
+        "SELECT DISTINCT self.product.id FROM MrpLine self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND self.mrp.mrpTypeSelect = "
+            + MrpRepository.MRP_TYPE_MPS
+            + " AND (self.createdOn >= :since OR self.updatedOn >= :since)");
+
+    return queryList;
+  }
+
+  @Override
+  protected List<Class<? extends Model>> getMrpLineOriginModelList() {
+    List<Class<? extends Model>> modelList = super.getMrpLineOriginModelList();
+
+    if (appProductionService.isApp("production")) {
+      modelList.add(ManufOrder.class);
+      modelList.add(OperationOrder.class);
+    }
+
+    return modelList;
+  }
+
+  /** Manuf orders and operation orders are also the origin of the need lines of components. */
+  @Override
+  protected String getMrpLineOriginProductPath(Class<? extends Model> klass) {
+    if (ManufOrder.class.equals(klass) || OperationOrder.class.equals(klass)) {
+      return null;
+    }
+    return super.getMrpLineOriginProductPath(klass);
+  }
+
+  /**
+   * The MPS need lines have the MRP itself as origin, so a removed MPS line is detected from the
+   * need lines no longer matching a line of a validated MPS.
+   */
+  @Override
+  protected Set<Long> getProductIdWithRemovedOriginSet(Mrp mrp) {
+    Set<Long> productIdSet = super.getProductIdWithRemovedOriginSet(mrp);
+
+    if (!appProductionService.isApp("production")) {
+      return productIdSet;
+    }
+
+    productIdSet.addAll(
+        JPA.em()
+            .createQuery(
+                "SELECT DISTINCT self.product.id FROM MrpLine self "
+                    + "WHERE self.mrp.id = :mrpId "
+                    + "AND self.mrpLineType.elementSelect = :mpsElementSelect "
+                    + "AND NOT EXISTS (SELECT mpsLine.id FROM MrpLine mpsLine "
+                    + "WHERE mpsLine.mrp.mrpTypeSelect = :mpsTypeSelect "
+                    + "AND mpsLine.mrp.statusSelect = :calculationEndedStatus "
+                    + "AND mpsLine.mrp.validateScenario IS TRUE "
+                    + "AND mpsLine.mrpLineType.elementSelect = :mpsElementSelect "
+                    + "AND mpsLine.product = self.product "
+                    + "AND mpsLine.stockLocation = self.stockLocation "
+                    + "AND mpsLine.maturityDate = self.maturityDate)",
+                Long.class)
+            .setParameter("mrpId", mrp.getId())
+            .setParameter(
+                "mpsElementSelect", MrpLineTypeRepository.ELEMENT_MASTER_PRODUCTION_SCHEDULING)
+            .setParameter("mpsTypeSelect", MrpRepository.MRP_TYPE_MPS)
+            .setParameter("calculationEndedStatus", MrpRepository.STATUS_CALCULATION_ENDED)
+            .getResultList());
+
+    return productIdSet;
+  }
+
+  /**
+   * The need lines of a component are created from the proposals and the manuf orders of the
+   * products using it, and are merged with its other lines. So a component and the products using
+   * it, directly or not, are always computed together.
+   */
+  @Override
+  public Set<Long> addDependentProducts(
+      Collection<Long> productIdList, Set<Long> changedProductIdSet) {
+
+    if (!appProductionService.isApp("production") || changedProductIdSet.isEmpty()) {
+      return changedProductIdSet;
+    }
+
+    Set<Long> productIdSet = new HashSet<>(changedProductIdSet);
+    Set<Long> linkedProductIdSet = changedProductIdSet;
+    while (!linkedProductIdSet.isEmpty()) {
+      linkedProductIdSet = this.getLinkedProductIdSet(linkedProductIdSet);
+      linkedProductIdSet.removeAll(productIdSet);
+      productIdSet.addAll(linkedProductIdSet);
+    }
+
+    return productIdSet;
+  }
+
+  /**
+   * Get the products linked to the given products through the bill of materials not obsolete and
+   * the manuf orders not canceled, finished or merged, in both directions.
+   *
+   * @param productIdSet the ids of the products
+   * @return the ids of the linked products, which may include given products
+   */
+  protected Set<Long> getLinkedProductIdSet(Set<Long> productIdSet) {
+    Set<Long> linkedProductIdSet = new HashSet<>();
+
+    List<String> queryList =
+        List.of(
+            "SELECT self.billOfMaterialParent.product.id, self.product.id "
+                + "FROM BillOfMaterialLine self "
+                + "WHERE self.billOfMaterialParent.statusSelect != :obsoleteStatus "
+                + "AND (self.billOfMaterialParent.product.id IN (:productIdList) "
+                + "OR self.product.id IN (:productIdList))",
+            "SELECT self.toConsumeManufOrder.product.id, self.product.id FROM ProdProduct self "
+                + "WHERE self.toConsumeManufOrder.statusSelect NOT IN (:manufOrderStatusList) "
+                + "AND (self.toConsumeManufOrder.product.id IN (:productIdList) "
+                + "OR self.product.id IN (:productIdList))",
+            "SELECT self.toConsumeOperationOrder.manufOrder.product.id, self.product.id "
+                + "FROM ProdProduct self "
+                + "WHERE self.toConsumeOperationOrder.manufOrder.statusSelect "
+                + "NOT IN (:manufOrderStatusList) "
+                + "AND (self.toConsumeOperationOrder.manufOrder.product.id IN (:productIdList) "
+                + "OR self.product.id IN (:productIdList))",
+            "SELECT self.toProduceManufOrder.product.id, self.product.id FROM ProdProduct self "
+                + "WHERE self.toProduceManufOrder.statusSelect NOT IN (:manufOrderStatusList) "
+                + "AND (self.toProduceManufOrder.product.id IN (:productIdList) "
+                + "OR self.product.id IN (:productIdList))");
+
+    for (List<Long> productIdSubList :
+        Lists.partition(new ArrayList<>(productIdSet), PARTITION_SIZE)) {
+      for (String query : queryList) {
+        TypedQuery<Object[]> typedQuery =
+            JPA.em()
+                .createQuery(query, Object[].class)
+                .setParameter("productIdList", productIdSubList);
+        if (query.contains(":obsoleteStatus")) {
+          typedQuery.setParameter("obsoleteStatus", BillOfMaterialRepository.STATUS_OBSOLETE);
+        } else {
+          typedQuery.setParameter(
+              "manufOrderStatusList",
+              List.of(
+                  ManufOrderRepository.STATUS_CANCELED,
+                  ManufOrderRepository.STATUS_FINISHED,
+                  ManufOrderRepository.STATUS_MERGED));
+        }
+        for (Object[] result : typedQuery.getResultList()) {
+          linkedProductIdSet.add((Long) result[0]);
+          linkedProductIdSet.add((Long) result[1]);
+        }
+      }
+    }
+
+    return linkedProductIdSet;
+  }
+}
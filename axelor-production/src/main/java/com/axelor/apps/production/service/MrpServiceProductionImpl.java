@@ -64,6 +64,8 @@ import com.axelor.apps.supplychain.service.MrpLineService;
 import com.axelor.apps.supplychain.service.MrpLineTypeService;
 import com.axelor.apps.supplychain.service.MrpSaleOrderCheckLateSaleService;
 import com.axelor.apps.supplychain.service.MrpServiceImpl;
+import com.axelor.apps.supplychain.service.app.AppSupplychainService;
+import com.axelor.apps.supplychain.service.mrp.MrpNetChangeService;
 import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.message.service.MailMessageService;
@@ -122,6 +124,8 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
       StockHistoryLineRepository stockHistoryLineRepository,
       MrpSaleOrderCheckLateSaleService mrpSaleOrderCheckLateSaleService,
       MrpLineTypeService mrpLineTypeService,
+      AppSupplychainService appSupplychainService,
+      MrpNetChangeService mrpNetChangeService,
       ManufOrderRepository manufOrderRepository,
       ProductCompanyService productCompanyService,
       BillOfMaterialService billOfMaterialService,
@@ -149,7 +153,9 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
         appPurchaseService,
         stockHistoryLineRepository,
         mrpSaleOrderCheckLateSaleService,
-        mrpLineTypeService);
+        mrpLineTypeService,
+        appSupplychainService,
+        mrpNetChangeService);
     this.manufOrderRepository = manufOrderRepository;
     this.productCompanyService = productCompanyService;
     this.billOfMaterialService = billOfMaterialService;
@@ -29,6 +29,7 @@ import com.axelor.apps.stock.db.StockMoveLine;
 import com.axelor.apps.stock.db.TrackingNumber;
 import com.axelor.apps.stock.db.repo.StockMoveLineRepository;
 import com.axelor.apps.stock.db.repo.TrackingNumberRepository;
+import com.axelor.apps.stock.service.StockLocationLineDeltaService;
 import com.axelor.apps.stock.service.StockLocationLineFetchService;
 import com.axelor.apps.stock.service.StockLocationLineHistoryService;
 import com.axelor.apps.stock.service.StockLocationLineService;
@@ -67,7 +68,8 @@ public class StockMoveLineProductionServiceImpl extends StockMoveLineServiceSupp
       InvoiceLineRepository invoiceLineRepository,
       AppSupplychainService appSupplychainService,
       StockLocationLineFetchService stockLocationLineFetchService,
-      TrackingNumberCreateService trackingNumberCreateService) {
+      TrackingNumberCreateService trackingNumberCreateService,
+      StockLocationLineDeltaService stockLocationLineDeltaService) {
     super(
         trackingNumberService,
         appBaseService,
@@ -88,7 +90,8 @@ public class StockMoveLineProductionServiceImpl extends StockMoveLineServiceSupp
         invoiceLineRepository,
         appSupplychainService,
         stockLocationLineFetchService,
-        trackingNumberCreateService);
+        trackingNumberCreateService,
+        stockLocationLineDeltaService);
   }
 
   @Override
@@ -21,6 +21,7 @@ package com.axelor.apps.production.service.batch;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.production.db.ManufOrder;
@@ -31,7 +32,6 @@ import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
 import com.axelor.apps.production.service.costsheet.CostSheetService;
 import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.google.inject.Inject;
@@ -84,14 +84,11 @@ public class BatchComputeWorkInProgressValuation extends BatchStrategy {
       bindValues.put("stockLocationId", workshopStockLocation.getId());
     }
 
-    Query<ManufOrder> manufOrderQuery = manufOrderRepository.all().filter(domain).bind(bindValues);
+    KeysetQuery<ManufOrder> manufOrderQuery =
+        new KeysetQuery<>(ManufOrder.class, domain).bind(bindValues);
 
-    int offset = 0;
-
-    while (!(manufOrderList = manufOrderQuery.order("id").fetch(getFetchLimit(), offset))
-        .isEmpty()) {
+    while (!(manufOrderList = fetchNext(manufOrderQuery)).isEmpty()) {
       for (ManufOrder manufOrder : manufOrderList) {
-        ++offset;
         try {
           costSheetService.computeCostPrice(
               manufOrder, CostSheetRepository.CALCULATION_WORK_IN_PROGRESS, valuationDate);
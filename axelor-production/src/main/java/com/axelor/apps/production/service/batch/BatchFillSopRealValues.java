@@ -25,6 +25,7 @@ import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.production.db.ProductionBatch;
 import com.axelor.apps.production.db.SopLine;
@@ -34,7 +35,6 @@ import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
 import com.axelor.apps.sale.db.repo.SaleOrderLineRepository;
 import com.axelor.apps.stock.db.repo.StockLocationLineHistoryRepository;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.utils.helpers.StringHelper;
 import com.google.inject.Inject;
@@ -67,24 +67,19 @@ public class BatchFillSopRealValues extends AbstractBatch {
   protected void process() {
     ProductionBatch productionBatch = batch.getProductionBatch();
 
-    int offset = 0;
-    Query<SopLine> query =
-        sopLineRepo
-            .all()
-            .filter(
-                String.format(
-                    "self.sop.id IN (%s)",
-                    StringHelper.getIdListString(productionBatch.getSopSet())))
-            .order("id");
+    KeysetQuery<SopLine> query =
+        new KeysetQuery<>(
+            SopLine.class,
+            String.format(
+                "self.sop.id IN (%s)", StringHelper.getIdListString(productionBatch.getSopSet())));
 
     List<SopLine> sopLineList;
 
-    while (!(sopLineList = query.fetch(FETCH_LIMIT, offset)).isEmpty()) {
+    while (!(sopLineList = fetchNext(query)).isEmpty()) {
       findBatch();
       productionBatch = batch.getProductionBatch();
       Company company = productionBatch.getCompany();
       for (SopLine sopLine : sopLineList) {
-        ++offset;
         try {
           updateSopLine(company, sopLine.getSop().getProductCategory(), sopLine);
           incrementDone();
@@ -0,0 +1,449 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service.machine;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.EventsPlanningLine;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.production.db.Machine;
+import com.axelor.apps.production.db.ManufOrder;
+import com.axelor.apps.production.db.OperationOrder;
+import com.axelor.apps.production.db.repo.ManufOrderRepository;
+import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
+import com.axelor.apps.production.model.machine.MachineTimeSlot;
+import com.axelor.db.JPA;
+import com.axelor.i18n.I18n;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.persistence.FlushModeType;
+
+/**
+ * In-memory occupancy of the machines during a planning session, to find the operation orders
+ * conflicting with a time slot without querying them for each tried slot.
+ *
+ * <p>The operation orders of a machine are loaded on first use and sorted by planned start date.
+ * As a booked slot can not be longer than the longest one of the machine, the slots overlapping a
+ * period are found among the ones starting at most this duration before it. The operation orders
+ * planned during the session must be given to {@link #update(OperationOrder)}.
+ *
+ * <p>For a machine without weekly planning, the whole search of a free slot is done in the index,
+ * jumping over the consecutive booked slots, see {@link #getClosestFreeTimeSlot}. With a weekly
+ * planning, each tried slot must first be moved into the periods of the planning, so the search
+ * stays in {@link MachineServiceImpl} and only the conflicts are found here.
+ *
+ * <p>As in the queries on the operation orders, an operation order whose outsourcing is not false
+ * does not occupy its machine.
+ *
+ * <p>The occupancy of a machine is read without flushing the session: the operation orders given to
+ * {@link #update(OperationOrder)} before their machine is loaded are applied over the database rows.
+ */
+public class MachineOccupancyIndex {
+
+  protected final Map<Long, MachineOccupancy> machineOccupancyMap = new HashMap<>();
+  protected final Map<Long, Set<LocalDate>> publicHolidayMap = new HashMap<>();
+  // Machine of the operation orders given to update, null when they do not occupy any
+  protected final Map<Long, Long> updatedMachineIdMap = new HashMap<>();
+  protected final Map<Long, Booking> updatedBookingMap = new HashMap<>();
+  protected int conflictNb;
+
+  /**
+   * @return whether the date is a public holiday in the events planning of the machine
+   */
+  public boolean isPublicHoliday(Machine machine, LocalDate date) {
+    return publicHolidayMap
+        .computeIfAbsent(machine.getId(), id -> loadPublicHolidays(machine))
+        .contains(date);
+  }
+
+  /**
+   * Get the latest planned end date of the operation orders of the machine conflicting with the
+   * slot, as an operation order planned as soon as possible must start after it.
+   *
+   * @param machine the machine
+   * @param operationOrder the operation order to plan, excluded from the conflicts
+   * @param startDateT the start of the slot
+   * @param endDateT the end of the slot
+   * @param timeBeforeNextOperation the time needed by the machine between two operations
+   * @return the latest end date, empty if the slot is available
+   */
+  public Optional<LocalDateTime> getLastConflictEndDateT(
+      Machine machine,
+      OperationOrder operationOrder,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      long timeBeforeNextOperation) {
+    LocalDateTime lastEndDateT = null;
+    for (Booking booking :
+        getCandidates(machine, operationOrder, startDateT, endDateT, timeBeforeNextOperation)) {
+      if (booking.conflicts(startDateT, endDateT, timeBeforeNextOperation, true)
+          && (lastEndDateT == null || booking.endDateT.isAfter(lastEndDateT))) {
+        lastEndDateT = booking.endDateT;
+      }
+    }
+    if (lastEndDateT != null) {
+      conflictNb++;
+    }
+    return Optional.ofNullable(lastEndDateT);
+  }
+
+  /**
+   * Get the earliest planned start date of the operation orders of the machine conflicting with
+   * the slot, as an operation order planned at the latest must end before it.
+   *
+   * @param machine the machine
+   * @param operationOrder the operation order to plan, excluded from the conflicts
+   * @param startDateT the start of the slot
+   * @param endDateT the end of the slot
+   * @param timeBeforeNextOperation the time needed by the machine between two operations
+   * @return the earliest start date, empty if the slot is available
+   */
+  public Optional<LocalDateTime> getFirstConflictStartDateT(
+      Machine machine,
+      OperationOrder operationOrder,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      long timeBeforeNextOperation) {
+    LocalDateTime firstStartDateT = null;
+    for (Booking booking :
+        getCandidates(machine, operationOrder, startDateT, endDateT, timeBeforeNextOperation)) {
+      if (booking.conflicts(startDateT, endDateT, timeBeforeNextOperation, false)
+          && (firstStartDateT == null || booking.startDateT.isBefore(firstStartDateT))) {
+        firstStartDateT = booking.startDateT;
+      }
+    }
+    if (firstStartDateT != null) {
+      conflictNb++;
+    }
+    return Optional.ofNullable(firstStartDateT);
+  }
+
+  /**
+   * Find the closest slot of the duration starting at or after the date in which the machine is
+   * free. A slot in conflict is moved after the last operation order it conflicts with, and a slot
+   * starting on a public holiday to the next day. Same slot as {@link
+   * MachineServiceImpl#getClosestAvailableTimeSlotFrom} for a machine without weekly planning.
+   *
+   * @param loopNb the number of slots already moved by the caller
+   */
+  public MachineTimeSlot getClosestFreeTimeSlot(
+      Machine machine,
+      OperationOrder operationOrder,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      long duration,
+      long timeBeforeNextOperation,
+      int loopNb)
+      throws AxelorException {
+    for (; loopNb < MachineServiceImpl.MAX_RECURSIVE_CALL; loopNb++) {
+      while (isPublicHoliday(machine, startDateT.toLocalDate())) {
+        startDateT = startDateT.plusDays(1).with(LocalTime.MIN);
+        endDateT = startDateT.plusSeconds(duration);
+      }
+
+      Optional<LocalDateTime> lastConflictEndDateT =
+          getLastConflictEndDateT(
+              machine, operationOrder, startDateT, endDateT, timeBeforeNextOperation);
+      if (lastConflictEndDateT.isEmpty()) {
+        return new MachineTimeSlot(startDateT, endDateT);
+      }
+      checkSlotCanMove(operationOrder, duration, timeBeforeNextOperation);
+
+      startDateT = lastConflictEndDateT.get().plusSeconds(timeBeforeNextOperation);
+      endDateT = startDateT.plusSeconds(duration);
+    }
+
+    throw new AxelorException(
+        TraceBackRepository.CATEGORY_INCONSISTENCY,
+        ProductionExceptionMessage.TOO_MANY_CALL_GETTING_TIME_SLOT,
+        operationOrder.getName());
+  }
+
+  /**
+   * Find the furthest slot of the duration ending at or before the date in which the machine is
+   * free. A slot in conflict is moved before the first operation order it conflicts with. Same slot
+   * as {@link MachineServiceImpl#getFurthestAvailableTimeSlotFrom} for a machine without weekly
+   * planning, including the move of a slot ending on a public holiday to the start of the next day.
+   *
+   * @param loopNb the number of slots already moved by the caller
+   */
+  public MachineTimeSlot getFurthestFreeTimeSlot(
+      Machine machine,
+      OperationOrder operationOrder,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      long duration,
+      long timeBeforeNextOperation,
+      int loopNb)
+      throws AxelorException {
+    for (; loopNb < MachineServiceImpl.MAX_RECURSIVE_CALL; loopNb++) {
+      while (isPublicHoliday(machine, endDateT.toLocalDate())) {
+        endDateT = endDateT.plusDays(1).with(LocalTime.MIN);
+        startDateT = endDateT.minusSeconds(duration);
+      }
+
+      Optional<LocalDateTime> firstConflictStartDateT =
+          getFirstConflictStartDateT(
+              machine, operationOrder, startDateT, endDateT, timeBeforeNextOperation);
+      if (firstConflictStartDateT.isEmpty()) {
+        return new MachineTimeSlot(startDateT, endDateT);
+      }
+      checkSlotCanMove(operationOrder, duration, timeBeforeNextOperation);
+
+      endDateT = firstConflictStartDateT.get().minusSeconds(timeBeforeNextOperation);
+      startDateT = endDateT.minusSeconds(duration);
+    }
+
+    throw new AxelorException(
+        TraceBackRepository.CATEGORY_INCONSISTENCY,
+        ProductionExceptionMessage.TOO_MANY_CALL_GETTING_TIME_SLOT,
+        operationOrder.getName());
+  }
+
+  protected void checkSlotCanMove(
+      OperationOrder operationOrder, long duration, long timeBeforeNextOperation)
+      throws AxelorException {
+    if (timeBeforeNextOperation == 0 && duration == 0) {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_INCONSISTENCY,
+          I18n.get(
+              ProductionExceptionMessage.MANUF_ORDER_CANT_COMPUTE_NEXT_SLOT_WITH_CURRENT_CONFIG),
+          operationOrder.getName());
+    }
+  }
+
+  /** @return the number of slots found in conflict with an operation order, then moved */
+  public int getConflictNb() {
+    return conflictNb;
+  }
+
+  /**
+   * Take into account the new planned dates or machine of an operation order.
+   *
+   * @param operationOrder a planned operation order
+   */
+  public void update(OperationOrder operationOrder) {
+    Long operationOrderId = operationOrder.getId();
+    if (operationOrderId == null) {
+      return;
+    }
+
+    machineOccupancyMap.values().forEach(occupancy -> occupancy.remove(operationOrderId));
+
+    Machine machine = operationOrder.getMachine();
+    ManufOrder manufOrder = operationOrder.getManufOrder();
+    if (machine == null
+        || !Boolean.FALSE.equals(operationOrder.getOutsourcing())
+        || operationOrder.getPlannedStartDateT() == null
+        || operationOrder.getPlannedEndDateT() == null
+        || manufOrder == null
+        || manufOrder.getStatusSelect() == ManufOrderRepository.STATUS_CANCELED
+        || manufOrder.getStatusSelect() == ManufOrderRepository.STATUS_FINISHED) {
+      updatedMachineIdMap.put(operationOrderId, null);
+      updatedBookingMap.remove(operationOrderId);
+      return;
+    }
+
+    Booking booking =
+        new Booking(
+            operationOrderId,
+            operationOrder.getPlannedStartDateT(),
+            operationOrder.getPlannedEndDateT());
+    // Kept for the machines not loaded yet, as the database may not have the new dates
+    updatedMachineIdMap.put(operationOrderId, machine.getId());
+    updatedBookingMap.put(operationOrderId, booking);
+
+    MachineOccupancy machineOccupancy = machineOccupancyMap.get(machine.getId());
+    if (machineOccupancy != null) {
+      machineOccupancy.add(booking);
+    }
+  }
+
+  protected List<Booking> getCandidates(
+      Machine machine,
+      OperationOrder operationOrder,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      long timeBeforeNextOperation) {
+    // Same as the query on the operation orders: nothing is excluded by a null id
+    if (operationOrder.getId() == null) {
+      return Collections.emptyList();
+    }
+
+    MachineOccupancy machineOccupancy =
+        machineOccupancyMap.computeIfAbsent(
+            machine.getId(), id -> applyUpdates(id, loadMachineOccupancy(machine)));
+
+    LocalDateTime minDateT =
+        (startDateT.isBefore(endDateT) ? startDateT : endDateT)
+            .minusSeconds(Math.max(timeBeforeNextOperation, 0));
+    LocalDateTime maxDateT =
+        (startDateT.isAfter(endDateT) ? startDateT : endDateT)
+            .plusSeconds(Math.max(-timeBeforeNextOperation, 0));
+
+    List<Booking> candidates = machineOccupancy.getCandidates(minDateT, maxDateT);
+    candidates.removeIf(booking -> booking.operationOrderId.equals(operationOrder.getId()));
+    return candidates;
+  }
+
+  protected MachineOccupancy applyUpdates(Long machineId, MachineOccupancy machineOccupancy) {
+    for (Map.Entry<Long, Long> entry : updatedMachineIdMap.entrySet()) {
+      machineOccupancy.remove(entry.getKey());
+      if (machineId.equals(entry.getValue())) {
+        machineOccupancy.add(updatedBookingMap.get(entry.getKey()));
+      }
+    }
+    return machineOccupancy;
+  }
+
+  protected MachineOccupancy loadMachineOccupancy(Machine machine) {
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.plannedStartDateT, self.plannedEndDateT "
+                    + "FROM OperationOrder self "
+                    + "WHERE self.machine.id = :machineId "
+                    + "AND self.plannedStartDateT IS NOT NULL "
+                    + "AND self.plannedEndDateT IS NOT NULL "
+                    + "AND self.manufOrder.statusSelect != :cancelled "
+                    + "AND self.manufOrder.statusSelect != :finished "
+                    + "AND self.outsourcing = false",
+                Object[].class)
+            // The operation orders updated in the session are applied afterwards
+            .setFlushMode(FlushModeType.COMMIT)
+            .setParameter("machineId", machine.getId())
+            .setParameter("cancelled", ManufOrderRepository.STATUS_CANCELED)
+            .setParameter("finished", ManufOrderRepository.STATUS_FINISHED)
+            .getResultList();
+
+    MachineOccupancy machineOccupancy = new MachineOccupancy();
+    for (Object[] result : resultList) {
+      machineOccupancy.add(
+          new Booking((Long) result[0], (LocalDateTime) result[1], (LocalDateTime) result[2]));
+    }
+    return machineOccupancy;
+  }
+
+  protected Set<LocalDate> loadPublicHolidays(Machine machine) {
+    Set<LocalDate> publicHolidays = new HashSet<>();
+    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
+    if (planning != null && planning.getEventsPlanningLineList() != null) {
+      for (EventsPlanningLine eventsPlanningLine : planning.getEventsPlanningLineList()) {
+        publicHolidays.add(eventsPlanningLine.getDate());
+      }
+    }
+    return publicHolidays;
+  }
+
+  protected static class MachineOccupancy {
+
+    protected final NavigableMap<LocalDateTime, List<Booking>> bookingsByStartDateT =
+        new TreeMap<>();
+    protected final Map<Long, Booking> bookingsById = new HashMap<>();
+    // Bookings ending before they start, which are not bounded by the max duration
+    protected final List<Booking> invertedBookings = new ArrayList<>();
+    protected long maxDurationSeconds;
+
+    protected void add(Booking booking) {
+      bookingsById.put(booking.operationOrderId, booking);
+      if (booking.endDateT.isBefore(booking.startDateT)) {
+        invertedBookings.add(booking);
+        return;
+      }
+      bookingsByStartDateT
+          .computeIfAbsent(booking.startDateT, dateT -> new ArrayList<>())
+          .add(booking);
+      maxDurationSeconds =
+          Math.max(
+              maxDurationSeconds,
+              Duration.between(booking.startDateT, booking.endDateT).getSeconds() + 1);
+    }
+
+    protected void remove(Long operationOrderId) {
+      Booking booking = bookingsById.remove(operationOrderId);
+      if (booking == null || invertedBookings.remove(booking)) {
+        return;
+      }
+      List<Booking> bookings = bookingsByStartDateT.get(booking.startDateT);
+      bookings.remove(booking);
+      if (bookings.isEmpty()) {
+        bookingsByStartDateT.remove(booking.startDateT);
+      }
+    }
+
+    /** @return the bookings which may end after minDateT and start before maxDateT */
+    protected List<Booking> getCandidates(LocalDateTime minDateT, LocalDateTime maxDateT) {
+      List<Booking> candidates = new ArrayList<>(invertedBookings);
+      bookingsByStartDateT
+          .subMap(minDateT.minusSeconds(maxDurationSeconds), true, maxDateT, true)
+          .values()
+          .forEach(candidates::addAll);
+      return candidates;
+    }
+  }
+
+  protected static class Booking {
+
+    protected final Long operationOrderId;
+    protected final LocalDateTime startDateT;
+    protected final LocalDateTime endDateT;
+
+    protected Booking(Long operationOrderId, LocalDateTime startDateT, LocalDateTime endDateT) {
+      this.operationOrderId = Objects.requireNonNull(operationOrderId);
+      this.startDateT = startDateT;
+      this.endDateT = endDateT;
+    }
+
+    /**
+     * Same conditions as the queries of {@link MachineServiceImpl}: the slot conflicts if it
+     * starts or ends during the booking, or contains it.
+     *
+     * @param closest true when searching the closest slot, for which a booking starting at the end
+     *     of the slot is a conflict
+     */
+    protected boolean conflicts(
+        LocalDateTime slotStartDateT,
+        LocalDateTime slotEndDateT,
+        long timeBeforeNextOperation,
+        boolean closest) {
+      LocalDateTime slotStartDateTWithTime = slotStartDateT.minusSeconds(timeBeforeNextOperation);
+      LocalDateTime slotEndDateTWithTime = slotEndDateT.minusSeconds(timeBeforeNextOperation);
+
+      boolean startsBeforeSlotEnd =
+          closest ? !startDateT.isAfter(slotEndDateT) : startDateT.isBefore(slotEndDateT);
+
+      return (!startDateT.isAfter(slotStartDateT) && endDateT.isAfter(slotStartDateTWithTime))
+          || (startsBeforeSlotEnd && endDateT.isAfter(slotEndDateTWithTime))
+          || (!startDateT.isBefore(slotStartDateT) && !endDateT.isAfter(slotEndDateTWithTime));
+    }
+  }
+}
@@ -44,6 +44,21 @@ public interface MachineService {
       OperationOrder operationOrder)
       throws AxelorException;
 
+  /**
+   * Same as {@link #getClosestAvailableTimeSlotFrom(Machine, LocalDateTime, LocalDateTime,
+   * OperationOrder)}, the other operation orders of the machine being taken from the occupancy
+   * index of the planning session.
+   *
+   * @param machineOccupancyIndex the occupancy of the machines, can be null
+   */
+  MachineTimeSlot getClosestAvailableTimeSlotFrom(
+      Machine machine,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      OperationOrder operationOrder,
+      MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException;
+
   /**
    * Method that return the closest available dateTime for a operation starting from startDateT and
    * end at endDateT. It take into account the weekly planning, the days event planning.
@@ -80,6 +95,21 @@ public interface MachineService {
       OperationOrder operationOrder)
       throws AxelorException;
 
+  /**
+   * Same as {@link #getFurthestAvailableTimeSlotFrom(Machine, LocalDateTime, LocalDateTime,
+   * OperationOrder)}, the other operation orders of the machine being taken from the occupancy
+   * index of the planning session.
+   *
+   * @param machineOccupancyIndex the occupancy of the machines, can be null
+   */
+  MachineTimeSlot getFurthestAvailableTimeSlotFrom(
+      Machine machine,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      OperationOrder operationOrder,
+      MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException;
+
   /**
    * Method that return the furthest available dateTime for a operation starting from startDateT and
    * end at endDateT. It takes into account the weekly planning, the days event planning
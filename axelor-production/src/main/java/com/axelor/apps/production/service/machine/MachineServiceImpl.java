@@ -35,9 +35,9 @@ import com.axelor.i18n.I18n;
 import com.axelor.utils.helpers.date.DurationHelper;
 import com.google.inject.Inject;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.List;
 import java.util.Optional;
 
 public class MachineServiceImpl implements MachineService {
@@ -73,7 +73,8 @@ public class MachineServiceImpl implements MachineService {
         operationOrder,
         DurationHelper.getSecondsDuration(Duration.between(startDateT, endDateT)),
         false,
-        0);
+        0,
+        null);
   }
 
   @Override
@@ -91,7 +92,28 @@ public class MachineServiceImpl implements MachineService {
         operationOrder,
         DurationHelper.getSecondsDuration(Duration.between(startDateT, endDateT)),
         true,
-        0);
+        0,
+        null);
+  }
+
+  @Override
+  public MachineTimeSlot getClosestAvailableTimeSlotFrom(
+      Machine machine,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      OperationOrder operationOrder,
+      MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
+
+    return getClosestAvailableTimeSlotFrom(
+        machine,
+        startDateT,
+        endDateT,
+        operationOrder,
+        DurationHelper.getSecondsDuration(Duration.between(startDateT, endDateT)),
+        false,
+        0,
+        machineOccupancyIndex);
   }
 
   @SuppressWarnings("unchecked")
@@ -102,10 +124,23 @@ public class MachineServiceImpl implements MachineService {
       OperationOrder operationOrder,
       long initialDuration,
       boolean ignoreConcurrency,
-      int loopNb)
+      int loopNb,
+      MachineOccupancyIndex machineOccupancyIndex)
       throws AxelorException {
 
-    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
+    if (machineOccupancyIndex != null
+        && !ignoreConcurrency
+        && machine.getWeeklyPlanning() == null) {
+      // Without weekly planning, the slot is only moved over holidays and booked slots
+      return machineOccupancyIndex.getClosestFreeTimeSlot(
+          machine,
+          operationOrder,
+          startDateT,
+          endDateT,
+          initialDuration,
+          getTimeBeforeNextOperation(operationOrder),
+          loopNb);
+    }
 
     // If startDate is not available because of planning
     // Then we try for the next day
@@ -113,10 +148,7 @@ public class MachineServiceImpl implements MachineService {
     LocalDateTime plannedStartDateT = null;
     LocalDateTime plannedEndDateT = null;
 
-    if (planning != null
-        && planning.getEventsPlanningLineList() != null
-        && planning.getEventsPlanningLineList().stream()
-            .anyMatch(epl -> epl.getDate().equals(startDateT.toLocalDate()))) {
+    if (isPublicHoliday(machine, startDateT.toLocalDate(), machineOccupancyIndex)) {
 
       return getClosestAvailableTimeSlotFrom(
           machine,
@@ -125,7 +157,8 @@ public class MachineServiceImpl implements MachineService {
           operationOrder,
           initialDuration,
           ignoreConcurrency,
-          loopNb);
+          loopNb,
+          machineOccupancyIndex);
     }
 
     if (machine.getWeeklyPlanning() != null) {
@@ -192,7 +225,13 @@ public class MachineServiceImpl implements MachineService {
     }
 
     return getClosestAvailableMachineTimeSlot(
-        machine, operationOrder, initialDuration, plannedStartDateT, plannedEndDateT, loopNb);
+        machine,
+        operationOrder,
+        initialDuration,
+        plannedStartDateT,
+        plannedEndDateT,
+        loopNb,
+        machineOccupancyIndex);
   }
 
   protected MachineTimeSlot getClosestAvailableMachineTimeSlot(
@@ -201,12 +240,10 @@ public class MachineServiceImpl implements MachineService {
       long initialDuration,
       LocalDateTime plannedStartDateT,
       LocalDateTime plannedEndDateT,
-      int loopNb)
+      int loopNb,
+      MachineOccupancyIndex machineOccupancyIndex)
       throws AxelorException {
-    long timeBeforeNextOperation =
-        Optional.ofNullable(operationOrder.getWorkCenter())
-            .map(WorkCenter::getTimeBeforeNextOperation)
-            .orElse(0l);
+    long timeBeforeNextOperation = getTimeBeforeNextOperation(operationOrder);
     // Must check if dates are occupied by other operation orders
     // The first one of the list will be the last to finish
 
@@ -217,33 +254,24 @@ public class MachineServiceImpl implements MachineService {
           operationOrder.getName());
     }
 
-    List<OperationOrder> concurrentOperationOrders =
-        operationOrderRepository
-            .all()
-            .filter(
-                "self.machine = :machine"
-                    + " AND ((self.plannedStartDateT <= :startDate AND self.plannedEndDateT > :startDateWithTime)"
-                    + " OR (self.plannedStartDateT <= :endDate AND self.plannedEndDateT > :endDateWithTime)"
-                    + " OR (self.plannedStartDateT >= :startDate AND self.plannedEndDateT <= :endDateWithTime))"
-                    + " AND (self.manufOrder.statusSelect != :cancelled AND self.manufOrder.statusSelect != :finished)"
-                    + " AND self.id != :operationOrderId"
-                    + " AND self.outsourcing = false")
-            .bind("startDate", plannedStartDateT)
-            .bind("endDate", plannedEndDateT)
-            .bind("startDateWithTime", plannedStartDateT.minusSeconds(timeBeforeNextOperation))
-            .bind("endDateWithTime", plannedEndDateT.minusSeconds(timeBeforeNextOperation))
-            .bind("machine", machine)
-            .bind("cancelled", ManufOrderRepository.STATUS_CANCELED)
-            .bind("finished", ManufOrderRepository.STATUS_FINISHED)
-            .bind("operationOrderId", operationOrder.getId())
-            .order("-plannedEndDateT")
-            .fetch();
-
-    if (concurrentOperationOrders.isEmpty()) {
+    Optional<LocalDateTime> lastConcurrentEndDateT =
+        machineOccupancyIndex != null
+            ? machineOccupancyIndex.getLastConflictEndDateT(
+                machine,
+                operationOrder,
+                plannedStartDateT,
+                plannedEndDateT,
+                timeBeforeNextOperation)
+            : getLastConcurrentEndDateT(
+                machine,
+                operationOrder,
+                plannedStartDateT,
+                plannedEndDateT,
+                timeBeforeNextOperation);
+
+    if (lastConcurrentEndDateT.isEmpty()) {
       return new MachineTimeSlot(plannedStartDateT, plannedEndDateT);
     } else {
-      OperationOrder lastOperationOrder = concurrentOperationOrders.get(0);
-
       if (timeBeforeNextOperation == 0 && initialDuration == 0) {
         throw new AxelorException(
             TraceBackRepository.CATEGORY_INCONSISTENCY,
@@ -254,14 +282,13 @@ public class MachineServiceImpl implements MachineService {
 
       return getClosestAvailableTimeSlotFrom(
           machine,
-          lastOperationOrder.getPlannedEndDateT().plusSeconds(timeBeforeNextOperation),
-          lastOperationOrder
-              .getPlannedEndDateT()
-              .plusSeconds(timeBeforeNextOperation + initialDuration),
+          lastConcurrentEndDateT.get().plusSeconds(timeBeforeNextOperation),
+          lastConcurrentEndDateT.get().plusSeconds(timeBeforeNextOperation + initialDuration),
           operationOrder,
           initialDuration,
           false,
-          loopNb + 1);
+          loopNb + 1,
+          machineOccupancyIndex);
     }
   }
 
@@ -280,7 +307,8 @@ public class MachineServiceImpl implements MachineService {
         operationOrder,
         DurationHelper.getSecondsDuration(Duration.between(startDateT, endDateT)),
         false,
-        0);
+        0,
+        null);
   }
 
   @Override
@@ -298,7 +326,28 @@ public class MachineServiceImpl implements MachineService {
         operationOrder,
         DurationHelper.getSecondsDuration(Duration.between(startDateT, endDateT)),
         true,
-        0);
+        0,
+        null);
+  }
+
+  @Override
+  public MachineTimeSlot getFurthestAvailableTimeSlotFrom(
+      Machine machine,
+      LocalDateTime startDateT,
+      LocalDateTime endDateT,
+      OperationOrder operationOrder,
+      MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
+
+    return getFurthestAvailableTimeSlotFrom(
+        machine,
+        startDateT,
+        endDateT,
+        operationOrder,
+        DurationHelper.getSecondsDuration(Duration.between(startDateT, endDateT)),
+        false,
+        0,
+        machineOccupancyIndex);
   }
 
   @SuppressWarnings("unchecked")
@@ -309,15 +358,25 @@ public class MachineServiceImpl implements MachineService {
       OperationOrder operationOrder,
       long initialDuration,
       boolean ignoreConcurrency,
-      int loopNb)
+      int loopNb,
+      MachineOccupancyIndex machineOccupancyIndex)
       throws AxelorException {
 
-    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
+    if (machineOccupancyIndex != null
+        && !ignoreConcurrency
+        && machine.getWeeklyPlanning() == null) {
+      // Without weekly planning, the slot is only moved over holidays and booked slots
+      return machineOccupancyIndex.getFurthestFreeTimeSlot(
+          machine,
+          operationOrder,
+          startDateT,
+          endDateT,
+          initialDuration,
+          getTimeBeforeNextOperation(operationOrder),
+          loopNb);
+    }
 
-    if (planning != null
-        && planning.getEventsPlanningLineList() != null
-        && planning.getEventsPlanningLineList().stream()
-            .anyMatch(epl -> epl.getDate().equals(endDateT.toLocalDate()))) {
+    if (isPublicHoliday(machine, endDateT.toLocalDate(), machineOccupancyIndex)) {
 
       // If endDate is not available because of planning
       // Then we try for the previous day
@@ -330,7 +389,8 @@ public class MachineServiceImpl implements MachineService {
           operationOrder,
           initialDuration,
           ignoreConcurrency,
-          loopNb);
+          loopNb,
+          machineOccupancyIndex);
     }
 
     LocalDateTime plannedStartDateT = null;
@@ -398,7 +458,13 @@ public class MachineServiceImpl implements MachineService {
       return new MachineTimeSlot(plannedStartDateT, plannedEndDateT);
     }
     return getFurthestAvailableMachineTimeSlot(
-        machine, operationOrder, initialDuration, plannedStartDateT, plannedEndDateT, loopNb);
+        machine,
+        operationOrder,
+        initialDuration,
+        plannedStartDateT,
+        plannedEndDateT,
+        loopNb,
+        machineOccupancyIndex);
   }
 
   protected MachineTimeSlot getFurthestAvailableMachineTimeSlot(
@@ -407,7 +473,8 @@ public class MachineServiceImpl implements MachineService {
       long initialDuration,
       LocalDateTime plannedStartDateT,
       LocalDateTime plannedEndDateT,
-      int loopNb)
+      int loopNb,
+      MachineOccupancyIndex machineOccupancyIndex)
       throws AxelorException {
 
     if (loopNb >= MAX_RECURSIVE_CALL) {
@@ -416,39 +483,26 @@ public class MachineServiceImpl implements MachineService {
           ProductionExceptionMessage.TOO_MANY_CALL_GETTING_TIME_SLOT,
           operationOrder.getName());
     }
-    long timeBeforeNextOperation =
-        Optional.ofNullable(operationOrder.getWorkCenter())
-            .map(WorkCenter::getTimeBeforeNextOperation)
-            .orElse(0l);
+    long timeBeforeNextOperation = getTimeBeforeNextOperation(operationOrder);
     // Must check if dates are occupied by other operation orders
-    // The first one of the list will be the first to start
-    List<OperationOrder> concurrentOperationOrders =
-        operationOrderRepository
-            .all()
-            .filter(
-                "self.machine = :machine"
-                    + " AND ((self.plannedStartDateT <= :startDate AND self.plannedEndDateT > :startDateWithTime)"
-                    + " OR (self.plannedStartDateT < :endDate AND self.plannedEndDateT > :endDateWithTime)"
-                    + " OR (self.plannedStartDateT >= :startDate AND self.plannedEndDateT <= :endDateWithTime))"
-                    + " AND (self.manufOrder.statusSelect != :cancelled AND self.manufOrder.statusSelect != :finished)"
-                    + " AND self.id != :operationOrderId"
-                    + " AND self.outsourcing = false")
-            .bind("startDate", plannedStartDateT)
-            .bind("endDate", plannedEndDateT)
-            .bind("startDateWithTime", plannedStartDateT.minusSeconds(timeBeforeNextOperation))
-            .bind("endDateWithTime", plannedEndDateT.minusSeconds(timeBeforeNextOperation))
-            .bind("machine", machine)
-            .bind("cancelled", ManufOrderRepository.STATUS_CANCELED)
-            .bind("finished", ManufOrderRepository.STATUS_FINISHED)
-            .bind("operationOrderId", operationOrder.getId())
-            .order("plannedStartDateT")
-            .fetch();
-
-    if (concurrentOperationOrders.isEmpty()) {
+    Optional<LocalDateTime> firstConcurrentStartDateT =
+        machineOccupancyIndex != null
+            ? machineOccupancyIndex.getFirstConflictStartDateT(
+                machine,
+                operationOrder,
+                plannedStartDateT,
+                plannedEndDateT,
+                timeBeforeNextOperation)
+            : getFirstConcurrentStartDateT(
+                machine,
+                operationOrder,
+                plannedStartDateT,
+                plannedEndDateT,
+                timeBeforeNextOperation);
+
+    if (firstConcurrentStartDateT.isEmpty()) {
       return new MachineTimeSlot(plannedStartDateT, plannedEndDateT);
     } else {
-      OperationOrder firstOperationOrder = concurrentOperationOrders.get(0);
-
       // Can not compute next slot with concurrency if these values are 0
       if (timeBeforeNextOperation == 0 && initialDuration == 0) {
         throw new AxelorException(
@@ -460,14 +514,102 @@ public class MachineServiceImpl implements MachineService {
 
       return getFurthestAvailableTimeSlotFrom(
           machine,
-          firstOperationOrder
-              .getPlannedStartDateT()
-              .minusSeconds(initialDuration + timeBeforeNextOperation),
-          firstOperationOrder.getPlannedStartDateT().minusSeconds(timeBeforeNextOperation),
+          firstConcurrentStartDateT.get().minusSeconds(initialDuration + timeBeforeNextOperation),
+          firstConcurrentStartDateT.get().minusSeconds(timeBeforeNextOperation),
           operationOrder,
           initialDuration,
           false,
-          loopNb + 1);
+          loopNb + 1,
+          machineOccupancyIndex);
     }
   }
+
+  protected long getTimeBeforeNextOperation(OperationOrder operationOrder) {
+    return Optional.ofNullable(operationOrder.getWorkCenter())
+        .map(WorkCenter::getTimeBeforeNextOperation)
+        .orElse(0l);
+  }
+
+  protected boolean isPublicHoliday(
+      Machine machine, LocalDate date, MachineOccupancyIndex machineOccupancyIndex) {
+    if (machineOccupancyIndex != null) {
+      return machineOccupancyIndex.isPublicHoliday(machine, date);
+    }
+
+    EventsPlanning planning = machine.getPublicHolidayEventsPlanning();
+    return planning != null
+        && planning.getEventsPlanningLineList() != null
+        && planning.getEventsPlanningLineList().stream()
+            .anyMatch(epl -> epl.getDate().equals(date));
+  }
+
+  /**
+   * Get the latest planned end date of the operation orders of the machine occupying the slot.
+   *
+   * @return the end date, empty if the slot is available
+   */
+  protected Optional<LocalDateTime> getLastConcurrentEndDateT(
+      Machine machine,
+      OperationOrder operationOrder,
+      LocalDateTime plannedStartDateT,
+      LocalDateTime plannedEndDateT,
+      long timeBeforeNextOperation) {
+    return Optional.ofNullable(
+            operationOrderRepository
+                .all()
+                .filter(
+                    "self.machine = :machine"
+                        + " AND ((self.plannedStartDateT <= :startDate AND self.plannedEndDateT > :startDateWithTime)"
+                        + " OR (self.plannedStartDateT <= :endDate AND self.plannedEndDateT > :endDateWithTime)"
+                        + " OR (self.plannedStartDateT >= :startDate AND self.plannedEndDateT <= :endDateWithTime))"
+                        + " AND (self.manufOrder.statusSelect != :cancelled AND self.manufOrder.statusSelect != :finished)"
+                        + " AND self.id != :operationOrderId"
+                        + " AND self.outsourcing = false")
+                .bind("startDate", plannedStartDateT)
+                .bind("endDate", plannedEndDateT)
+                .bind("startDateWithTime", plannedStartDateT.minusSeconds(timeBeforeNextOperation))
+                .bind("endDateWithTime", plannedEndDateT.minusSeconds(timeBeforeNextOperation))
+                .bind("machine", machine)
+                .bind("cancelled", ManufOrderRepository.STATUS_CANCELED)
+                .bind("finished", ManufOrderRepository.STATUS_FINISHED)
+                .bind("operationOrderId", operationOrder.getId())
+                .order("-plannedEndDateT")
+                .fetchOne())
+        .map(OperationOrder::getPlannedEndDateT);
+  }
+
+  /**
+   * Get the earliest planned start date of the operation orders of the machine occupying the slot.
+   *
+   * @return the start date, empty if the slot is available
+   */
+  protected Optional<LocalDateTime> getFirstConcurrentStartDateT(
+      Machine machine,
+      OperationOrder operationOrder,
+      LocalDateTime plannedStartDateT,
+      LocalDateTime plannedEndDateT,
+      long timeBeforeNextOperation) {
+    return Optional.ofNullable(
+            operationOrderRepository
+                .all()
+                .filter(
+                    "self.machine = :machine"
+                        + " AND ((self.plannedStartDateT <= :startDate AND self.plannedEndDateT > :startDateWithTime)"
+                        + " OR (self.plannedStartDateT < :endDate AND self.plannedEndDateT > :endDateWithTime)"
+                        + " OR (self.plannedStartDateT >= :startDate AND self.plannedEndDateT <= :endDateWithTime))"
+                        + " AND (self.manufOrder.statusSelect != :cancelled AND self.manufOrder.statusSelect != :finished)"
+                        + " AND self.id != :operationOrderId"
+                        + " AND self.outsourcing = false")
+                .bind("startDate", plannedStartDateT)
+                .bind("endDate", plannedEndDateT)
+                .bind("startDateWithTime", plannedStartDateT.minusSeconds(timeBeforeNextOperation))
+                .bind("endDateWithTime", plannedEndDateT.minusSeconds(timeBeforeNextOperation))
+                .bind("machine", machine)
+                .bind("cancelled", ManufOrderRepository.STATUS_CANCELED)
+                .bind("finished", ManufOrderRepository.STATUS_FINISHED)
+                .bind("operationOrderId", operationOrder.getId())
+                .order("plannedStartDateT")
+                .fetchOne())
+        .map(OperationOrder::getPlannedStartDateT);
+  }
 }
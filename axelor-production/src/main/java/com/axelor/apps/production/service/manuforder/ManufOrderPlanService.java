@@ -20,6 +20,8 @@ package com.axelor.apps.production.service.manuforder;
 
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.production.db.ManufOrder;
+import com.axelor.apps.production.model.manuforder.ManufOrderPlanningReport;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -27,8 +29,32 @@ public interface ManufOrderPlanService {
 
   ManufOrder plan(ManufOrder manufOrder) throws AxelorException;
 
+  /**
+   * Plan the manufacturing order, the occupancy of the machines being shared with the other
+   * manufacturing orders planned in the same session.
+   *
+   * @param manufOrder the manufacturing order to plan
+   * @param machineOccupancyIndex the occupancy of the machines, can be null
+   * @return the planned manufacturing order
+   * @throws AxelorException
+   */
+  ManufOrder plan(ManufOrder manufOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException;
+
   String planManufOrders(List<ManufOrder> manufOrderList) throws AxelorException;
 
+  /**
+   * Plan many manufacturing orders at once, by decreasing priority. The orders are planned and
+   * committed by chunks; the orders of a failing chunk are planned again one by one, and the ones
+   * still failing are traced and left unplanned. The occupancy of the machines is kept in memory
+   * for the whole session. Must be called outside of a transaction, the session being cleared
+   * after each chunk.
+   *
+   * @param manufOrderList the manufacturing orders to plan
+   * @return the report of the planning, with its throughput
+   */
+  ManufOrderPlanningReport planManufOrdersInBulk(List<ManufOrder> manufOrderList);
+
   LocalDateTime computePlannedStartDateT(ManufOrder manufOrder);
 
   LocalDateTime computePlannedEndDateT(ManufOrder manufOrder);
@@ -22,6 +22,7 @@ import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.production.db.ManufOrder;
 import com.axelor.apps.production.db.OperationOrder;
 import com.axelor.apps.production.db.ProductionConfig;
@@ -29,25 +30,42 @@ import com.axelor.apps.production.db.repo.ManufOrderRepository;
 import com.axelor.apps.production.db.repo.OperationOrderRepository;
 import com.axelor.apps.production.db.repo.ProductionConfigRepository;
 import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
+import com.axelor.apps.production.model.manuforder.ManufOrderPlanningReport;
 import com.axelor.apps.production.service.app.AppProductionService;
 import com.axelor.apps.production.service.config.ProductionConfigService;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import com.axelor.apps.production.service.operationorder.OperationOrderPlanningService;
 import com.axelor.apps.production.service.operationorder.OperationOrderService;
 import com.axelor.apps.production.service.operationorder.OperationOrderWorkflowService;
 import com.axelor.apps.production.service.productionorder.ProductionOrderService;
 import com.axelor.apps.stock.db.StockMove;
 import com.axelor.apps.stock.db.StockMoveLine;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
 
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected static final int BULK_PLANNING_CHUNK_SIZE = 10;
+
   protected ManufOrderRepository manufOrderRepo;
   protected ManufOrderService manufOrderService;
   protected SequenceService sequenceService;
@@ -104,11 +122,113 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
   @Override
   @Transactional(rollbackOn = {Exception.class})
   public String planManufOrders(List<ManufOrder> manufOrderList) throws AxelorException {
+    return planManufOrders(manufOrderList, new MachineOccupancyIndex());
+  }
+
+  @Override
+  public ManufOrderPlanningReport planManufOrdersInBulk(List<ManufOrder> manufOrderList) {
+    long startTime = System.currentTimeMillis();
+
+    // Most urgent first, the list order being kept for a same priority
+    List<ManufOrder> sortedManufOrderList = new ArrayList<>(manufOrderList);
+    sortedManufOrderList.sort(
+        Comparator.comparing(
+                ManufOrder::getPrioritySelect, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .reversed());
+    List<Long> manufOrderIdList =
+        sortedManufOrderList.stream().map(ManufOrder::getId).collect(Collectors.toList());
+
+    MachineOccupancyIndex machineOccupancyIndex = new MachineOccupancyIndex();
+    StringBuilder messageBuilder = new StringBuilder();
+    int manufOrderNb = 0;
+    int operationOrderNb = 0;
+    int slotConflictNb = 0;
+    int anomalyNb = 0;
+
+    Deque<List<Long>> chunkQueue =
+        new ArrayDeque<>(Lists.partition(manufOrderIdList, BULK_PLANNING_CHUNK_SIZE));
+    while (!chunkQueue.isEmpty()) {
+      List<Long> chunk = chunkQueue.poll();
+      try {
+        messageBuilder.append(planManufOrderChunk(chunk, machineOccupancyIndex));
+        manufOrderNb += chunk.size();
+        operationOrderNb += countOperationOrders(chunk);
+      } catch (Exception e) {
+        // The index holds the bookings of the rolled back chunk
+        slotConflictNb += machineOccupancyIndex.getConflictNb();
+        machineOccupancyIndex = new MachineOccupancyIndex();
+        if (chunk.size() > 1) {
+          // Plan the chunk order by order, so that only the failing ones are left unplanned
+          Lists.reverse(chunk).forEach(id -> chunkQueue.push(List.of(id)));
+        } else {
+          traceAnomaly(e);
+          anomalyNb++;
+        }
+      }
+      clearSession();
+    }
+    slotConflictNb += machineOccupancyIndex.getConflictNb();
+
+    ManufOrderPlanningReport report =
+        new ManufOrderPlanningReport(
+            manufOrderNb,
+            operationOrderNb,
+            slotConflictNb,
+            anomalyNb,
+            System.currentTimeMillis() - startTime,
+            messageBuilder.toString());
+
+    LOG.info(
+        "{} manufacturing orders planned in {} ms ({} per second), {} slot conflicts resolved,"
+            + " {} anomalies",
+        report.getManufOrderNb(),
+        report.getDurationMillis(),
+        String.format("%.2f", report.getManufOrdersPerSecond()),
+        report.getSlotConflictNb(),
+        report.getAnomalyNb());
+
+    return report;
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected String planManufOrderChunk(
+      List<Long> manufOrderIdList, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
+    List<ManufOrder> manufOrderList =
+        manufOrderIdList.stream()
+            .map(manufOrderRepo::find)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    return planManufOrders(manufOrderList, machineOccupancyIndex);
+  }
+
+  protected void traceAnomaly(Exception e) {
+    TraceBackService.trace(e);
+  }
+
+  /** Detach the orders of the last chunk, for the session to stay small. */
+  protected void clearSession() {
+    JPA.clear();
+  }
+
+  protected int countOperationOrders(List<Long> manufOrderIdList) {
+    return manufOrderIdList.stream()
+        .map(manufOrderRepo::find)
+        .filter(Objects::nonNull)
+        .map(ManufOrder::getOperationOrderList)
+        .filter(Objects::nonNull)
+        .mapToInt(List::size)
+        .sum();
+  }
+
+  protected String planManufOrders(
+      List<ManufOrder> manufOrderList, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
 
     StringBuilder messageBuilder = new StringBuilder();
 
     for (ManufOrder manufOrder : manufOrderList) {
-      this.plan(manufOrder);
+      this.plan(manufOrder, machineOccupancyIndex);
       if (!Strings.isNullOrEmpty(manufOrder.getMoCommentFromSaleOrder())) {
         messageBuilder.append(manufOrder.getMoCommentFromSaleOrder());
       }
@@ -127,9 +247,16 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
   @Override
   @Transactional(rollbackOn = {Exception.class})
   public ManufOrder plan(ManufOrder manufOrder) throws AxelorException {
+    return plan(manufOrder, null);
+  }
+
+  @Override
+  @Transactional(rollbackOn = {Exception.class})
+  public ManufOrder plan(ManufOrder manufOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
 
     initFieldsNeededForPlan(manufOrder);
-    planSchedulingDates(manufOrder);
+    planSchedulingDates(manufOrder, machineOccupancyIndex);
     updateStatusToPlan(manufOrder);
 
     return manufOrderRepo.save(manufOrder);
@@ -153,8 +280,10 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
     manufOrder.setRealEndDateT(null);
   }
 
-  protected void planSchedulingDates(ManufOrder manufOrder) throws AxelorException {
-    planPlanningOperationOrders(manufOrder);
+  protected void planSchedulingDates(
+      ManufOrder manufOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
+    planPlanningOperationOrders(manufOrder, machineOccupancyIndex);
     // Updating plannedStartDate since, it may be different now that operation orders are
     // planned
     manufOrder.setPlannedStartDateT(this.computePlannedStartDateT(manufOrder));
@@ -255,10 +384,16 @@ public class ManufOrderPlanServiceImpl implements ManufOrderPlanService {
     }
   }
 
-  protected void planPlanningOperationOrders(ManufOrder manufOrder) throws AxelorException {
+  protected void planPlanningOperationOrders(
+      ManufOrder manufOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
     List<OperationOrder> operationOrders = manufOrder.getOperationOrderList();
     if (CollectionUtils.isNotEmpty(operationOrders)) {
-      operationOrderPlanningService.plan(operationOrders);
+      if (machineOccupancyIndex != null) {
+        operationOrderPlanningService.plan(operationOrders, machineOccupancyIndex);
+      } else {
+        operationOrderPlanningService.plan(operationOrders);
+      }
     }
   }
 
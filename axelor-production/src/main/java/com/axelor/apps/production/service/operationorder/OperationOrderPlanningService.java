@@ -20,6 +20,7 @@ package com.axelor.apps.production.service.operationorder;
 
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.production.db.OperationOrder;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -33,6 +34,17 @@ public interface OperationOrderPlanningService {
    */
   void plan(List<OperationOrder> operationOrders) throws AxelorException;
 
+  /**
+   * Plan the operation orders, the occupancy of the machines being shared with the other operation
+   * orders planned in the same session.
+   *
+   * @param operationOrders the operation orders of a manufacturing order
+   * @param machineOccupancyIndex the occupancy of the machines
+   * @throws AxelorException
+   */
+  void plan(List<OperationOrder> operationOrders, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException;
+
   /**
    * Re-plan a list of operation orders
    *
@@ -32,6 +32,7 @@ import com.axelor.apps.production.db.repo.OperationOrderRepository;
 import com.axelor.apps.production.db.repo.ProductionConfigRepository;
 import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
 import com.axelor.apps.production.service.config.ProductionConfigService;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import com.axelor.apps.production.service.machine.MachineService;
 import com.axelor.apps.production.service.manuforder.ManufOrderService;
 import com.axelor.apps.production.service.manuforder.ManufOrderWorkflowService;
@@ -95,6 +96,14 @@ public class OperationOrderPlanningServiceImpl implements OperationOrderPlanning
   @Override
   @Transactional(rollbackOn = {Exception.class})
   public void plan(List<OperationOrder> operationOrders) throws AxelorException {
+    plan(operationOrders, new MachineOccupancyIndex());
+  }
+
+  @Override
+  @Transactional(rollbackOn = {Exception.class})
+  public void plan(
+      List<OperationOrder> operationOrders, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
     if (CollectionUtils.isEmpty(operationOrders)) {
       return;
     }
@@ -151,7 +160,7 @@ public class OperationOrderPlanningServiceImpl implements OperationOrderPlanning
             : operationOrderService.getReversedSortedOperationOrderList(operationOrders);
 
     for (OperationOrder operationOrder : sortedOperationOrders) {
-      operationOrderPlanningCommonService.plan(operationOrder);
+      operationOrderPlanningCommonService.plan(operationOrder, machineOccupancyIndex);
     }
     manufOrderWorkflowService.setOperationOrderMaxPriority(manufOrder);
   }
@@ -279,8 +288,9 @@ public class OperationOrderPlanningServiceImpl implements OperationOrderPlanning
         operationOrderPlanningCommonService =
             Beans.get(OperationOrderPlanningAsapInfiniteCapacityService.class);
       }
+      MachineOccupancyIndex machineOccupancyIndex = new MachineOccupancyIndex();
       for (OperationOrder oo : getNextOrderedOperationOrders(operationOrder)) {
-        operationOrderPlanningCommonService.plan(oo);
+        operationOrderPlanningCommonService.plan(oo, machineOccupancyIndex);
       }
     }
 
@@ -24,6 +24,7 @@ import com.axelor.apps.production.db.Machine;
 import com.axelor.apps.production.db.OperationOrder;
 import com.axelor.apps.production.db.repo.OperationOrderRepository;
 import com.axelor.apps.production.model.machine.MachineTimeSlot;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import com.axelor.apps.production.service.machine.MachineService;
 import com.axelor.apps.production.service.operationorder.OperationOrderOutsourceService;
 import com.axelor.apps.production.service.operationorder.OperationOrderService;
@@ -58,14 +59,22 @@ public class OperationOrderPlanningAsapFiniteCapacityService
 
   @Override
   protected void planWithStrategy(OperationOrder operationOrder) throws AxelorException {
+    planWithStrategy(operationOrder, null);
+  }
+
+  @Override
+  protected void planWithStrategy(
+      OperationOrder operationOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
     if (operationOrder.getOutsourcing()) {
       planWithStrategyAsapOutSourced(operationOrder);
     } else {
-      planWithStrategyNotOutSourced(operationOrder);
+      planWithStrategyNotOutSourced(operationOrder, machineOccupancyIndex);
     }
   }
 
-  protected void planWithStrategyNotOutSourced(OperationOrder operationOrder)
+  protected void planWithStrategyNotOutSourced(
+      OperationOrder operationOrder, MachineOccupancyIndex machineOccupancyIndex)
       throws AxelorException {
 
     Machine machine = operationOrder.getMachine();
@@ -78,7 +87,8 @@ public class OperationOrderPlanningAsapFiniteCapacityService
               machine,
               maxDate,
               maxDate.plusSeconds(operationOrderService.getDuration(operationOrder)),
-              operationOrder);
+              operationOrder,
+              machineOccupancyIndex);
 
       operationOrder.setPlannedStartDateT(freeMachineTimeSlot.getStartDateT());
       operationOrder.setPlannedEndDateT(freeMachineTimeSlot.getEndDateT());
@@ -28,6 +28,7 @@ import com.axelor.apps.production.db.WorkCenter;
 import com.axelor.apps.production.db.WorkCenterGroup;
 import com.axelor.apps.production.db.repo.OperationOrderRepository;
 import com.axelor.apps.production.model.machine.MachineTimeSlot;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import com.axelor.apps.production.service.machine.MachineService;
 import com.axelor.apps.production.service.operationorder.OperationOrderOutsourceService;
 import com.axelor.apps.production.service.operationorder.OperationOrderService;
@@ -67,14 +68,22 @@ public class OperationOrderPlanningAtTheLatestFiniteCapacityService
 
   @Override
   protected void planWithStrategy(OperationOrder operationOrder) throws AxelorException {
+    planWithStrategy(operationOrder, null);
+  }
+
+  @Override
+  protected void planWithStrategy(
+      OperationOrder operationOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
     if (operationOrder.getOutsourcing()) {
       planWithStrategyAtTheLatestOutSourced(operationOrder);
     } else {
-      planWithStrategyNotOutSourced(operationOrder);
+      planWithStrategyNotOutSourced(operationOrder, machineOccupancyIndex);
     }
   }
 
-  protected void planWithStrategyNotOutSourced(OperationOrder operationOrder)
+  protected void planWithStrategyNotOutSourced(
+      OperationOrder operationOrder, MachineOccupancyIndex machineOccupancyIndex)
       throws AxelorException {
 
     ManufOrder manufOrder = operationOrder.getManufOrder();
@@ -91,7 +100,7 @@ public class OperationOrderPlanningAtTheLatestFiniteCapacityService
       operationOrder.setPlannedEndDateT(plannedEndDate);
       operationOrder.setPlannedStartDateT(plannedStartDate);
       operationOrder.setPlannedDuration(plannedDuration);
-      planWithStrategyAndMachine(operationOrder, machine);
+      planWithStrategyAndMachine(operationOrder, machine, machineOccupancyIndex);
 
       if (operationOrder.getPlannedStartDateT().isAfter(todayDateT)) {
         break;
@@ -105,7 +114,8 @@ public class OperationOrderPlanningAtTheLatestFiniteCapacityService
     operationOrder.setRealDuration(null);
   }
 
-  protected void planWithStrategyAndMachine(OperationOrder operationOrder, Machine machine)
+  protected void planWithStrategyAndMachine(
+      OperationOrder operationOrder, Machine machine, MachineOccupancyIndex machineOccupancyIndex)
       throws AxelorException {
 
     LocalDateTime plannedEndDate = operationOrder.getPlannedEndDateT();
@@ -117,7 +127,8 @@ public class OperationOrderPlanningAtTheLatestFiniteCapacityService
               machine,
               minDate.minusSeconds(operationOrderService.getDuration(operationOrder)),
               minDate,
-              operationOrder);
+              operationOrder,
+              machineOccupancyIndex);
       operationOrder.setPlannedStartDateT(freeMachineTimeSlot.getStartDateT());
       operationOrder.setPlannedEndDateT(freeMachineTimeSlot.getEndDateT());
 
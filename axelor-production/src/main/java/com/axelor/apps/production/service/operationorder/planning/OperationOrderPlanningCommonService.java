@@ -25,6 +25,7 @@ import com.axelor.apps.production.db.ManufOrder;
 import com.axelor.apps.production.db.OperationOrder;
 import com.axelor.apps.production.db.repo.OperationOrderRepository;
 import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
 import com.axelor.apps.production.service.operationorder.OperationOrderOutsourceService;
 import com.axelor.apps.production.service.operationorder.OperationOrderService;
 import com.axelor.apps.production.service.operationorder.OperationOrderStockMoveService;
@@ -60,13 +61,41 @@ public abstract class OperationOrderPlanningCommonService {
 
   protected abstract void planWithStrategy(OperationOrder operationOrder) throws AxelorException;
 
+  /**
+   * Plan with the strategy, the other operation orders of the machines being taken from the
+   * occupancy index of the planning session. Overridden by the finite capacity strategies.
+   *
+   * @param operationOrder the operation order to plan
+   * @param machineOccupancyIndex the occupancy of the machines, can be null
+   * @throws AxelorException
+   */
+  protected void planWithStrategy(
+      OperationOrder operationOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
+    planWithStrategy(operationOrder);
+  }
+
   public OperationOrder plan(OperationOrder operationOrder) throws AxelorException {
+    return plan(operationOrder, null);
+  }
+
+  /**
+   * Plan the operation order in a planning session sharing the occupancy of the machines.
+   *
+   * @param operationOrder the operation order to plan
+   * @param machineOccupancyIndex the occupancy of the machines, can be null
+   * @return the planned operation order
+   * @throws AxelorException
+   */
+  public OperationOrder plan(
+      OperationOrder operationOrder, MachineOccupancyIndex machineOccupancyIndex)
+      throws AxelorException {
 
     if (CollectionUtils.isEmpty(operationOrder.getToConsumeProdProductList())) {
       operationOrderService.createToConsumeProdProductList(operationOrder);
     }
 
-    planWithStrategy(operationOrder);
+    planWithStrategy(operationOrder, machineOccupancyIndex);
 
     ManufOrder manufOrder = operationOrder.getManufOrder();
     if (manufOrder != null && Boolean.TRUE.equals(manufOrder.getIsConsProOnOperation())) {
@@ -74,7 +103,12 @@ public abstract class OperationOrderPlanningCommonService {
     }
 
     operationOrder.setStatusSelect(OperationOrderRepository.STATUS_PLANNED);
-    return operationOrderRepository.save(operationOrder);
+    operationOrder = operationOrderRepository.save(operationOrder);
+
+    if (machineOccupancyIndex != null) {
+      machineOccupancyIndex.update(operationOrder);
+    }
+    return operationOrder;
   }
 
   /**
@@ -27,6 +27,9 @@ public interface ITranslation {
   public static final String PRODUCTION_COMMENT = /*$$(*/
       "Please take the following comment into account:" /*)*/;
 
+  public static final String MANUF_ORDER_BULK_PLANNING_REPORT = /*$$(*/
+      "%d MO planned, %d could not be planned." /*)*/;
+
   public static final String OPERATION_ORDER_DURATION_PAUSED_200 = /*$$(*/
       "Your time on this operation is paused. The status of the operation has not been updated as someone is still working on it." /*)*/;
 
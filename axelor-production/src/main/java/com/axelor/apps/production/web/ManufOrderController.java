@@ -42,6 +42,7 @@ import com.axelor.apps.production.db.repo.ProdProcessRepository;
 import com.axelor.apps.production.db.repo.ProdProductProductionRepository;
 import com.axelor.apps.production.db.repo.ProdProductRepository;
 import com.axelor.apps.production.exceptions.ProductionExceptionMessage;
+import com.axelor.apps.production.model.manuforder.ManufOrderPlanningReport;
 import com.axelor.apps.production.service.app.AppProductionService;
 import com.axelor.apps.production.service.config.ProductionConfigService;
 import com.axelor.apps.production.service.costsheet.CostSheetService;
@@ -260,6 +261,41 @@ public class ManufOrderController {
     }
   }
 
+  public void planInBulk(ActionRequest request, ActionResponse response) {
+    try {
+      List<ManufOrder> manufOrders =
+          Beans.get(ManufOrderRepository.class)
+              .all()
+              .filter(
+                  "self.id in ?1 and self.statusSelect in (?2,?3)",
+                  request.getContext().get("_ids"),
+                  ManufOrderRepository.STATUS_DRAFT,
+                  ManufOrderRepository.STATUS_CANCELED)
+              .fetch();
+
+      ManufOrderPlanningReport report =
+          Beans.get(ManufOrderPlanService.class).planManufOrdersInBulk(manufOrders);
+
+      String message =
+          String.format(
+              I18n.get(ITranslation.MANUF_ORDER_BULK_PLANNING_REPORT),
+              report.getManufOrderNb(),
+              report.getAnomalyNb());
+      if (!report.getMessage().isEmpty()) {
+        message =
+            message
+                .concat(System.lineSeparator())
+                .concat(I18n.get(ITranslation.PRODUCTION_COMMENT))
+                .concat(System.lineSeparator())
+                .concat(report.getMessage());
+      }
+      response.setInfo(message);
+      response.setReload(true);
+    } catch (Exception e) {
+      TraceBackService.trace(response, e);
+    }
+  }
+
   /**
    * Called from manuf order form on clicking realize button. Call {@link
    * ManufOrderStockMoveService#consumeInStockMoves(ManufOrder)} to consume material used in manuf
@@ -0,0 +1,223 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service.machine;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.EventsPlanningLine;
+import com.axelor.apps.production.db.Machine;
+import com.axelor.apps.production.db.ManufOrder;
+import com.axelor.apps.production.db.OperationOrder;
+import com.axelor.apps.production.db.repo.ManufOrderRepository;
+import com.axelor.apps.production.model.machine.MachineTimeSlot;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestMachineOccupancyIndex {
+
+  private static final LocalDateTime DAY = LocalDateTime.of(2025, 1, 6, 0, 0);
+
+  private MachineOccupancyIndex machineOccupancyIndex;
+  private Machine machine;
+  private ManufOrder manufOrder;
+  private OperationOrder operationOrder;
+
+  @BeforeEach
+  void prepare() {
+    machine = new Machine();
+    machine.setId(1L);
+
+    // No operation order in the database
+    machineOccupancyIndex = new MachineOccupancyIndex();
+    machineOccupancyIndex.machineOccupancyMap.put(
+        machine.getId(), new MachineOccupancyIndex.MachineOccupancy());
+
+    EventsPlanning publicHolidays = new EventsPlanning();
+    publicHolidays.setEventsPlanningLineList(new ArrayList<>());
+    EventsPlanningLine publicHoliday = new EventsPlanningLine();
+    publicHoliday.setDate(LocalDate.of(2025, 1, 8));
+    publicHolidays.getEventsPlanningLineList().add(publicHoliday);
+    machine.setPublicHolidayEventsPlanning(publicHolidays);
+
+    manufOrder = new ManufOrder();
+    manufOrder.setStatusSelect(ManufOrderRepository.STATUS_PLANNED);
+
+    operationOrder = new OperationOrder();
+    operationOrder.setId(100L);
+    operationOrder.setName("OP-100");
+  }
+
+  @Test
+  void testClosestFreeTimeSlotJumpsOverConsecutiveBookings() throws AxelorException {
+    book(1L, DAY.withHour(8), DAY.withHour(10), false);
+    book(2L, DAY.withHour(10), DAY.withHour(12), false);
+    book(3L, DAY.withHour(12).plusMinutes(30), DAY.withHour(14), false);
+
+    MachineTimeSlot machineTimeSlot =
+        machineOccupancyIndex.getClosestFreeTimeSlot(
+            machine, operationOrder, DAY.withHour(9), DAY.withHour(10), 3600, 0, 0);
+
+    Assertions.assertEquals(DAY.withHour(14), machineTimeSlot.getStartDateT());
+    Assertions.assertEquals(DAY.withHour(15), machineTimeSlot.getEndDateT());
+  }
+
+  @Test
+  void testClosestFreeTimeSlotKeepsTimeBeforeNextOperation() throws AxelorException {
+    book(1L, DAY.withHour(8), DAY.withHour(10), false);
+
+    MachineTimeSlot machineTimeSlot =
+        machineOccupancyIndex.getClosestFreeTimeSlot(
+            machine, operationOrder, DAY.withHour(9), DAY.withHour(10), 3600, 900, 0);
+
+    Assertions.assertEquals(DAY.withHour(10).plusMinutes(15), machineTimeSlot.getStartDateT());
+    Assertions.assertEquals(DAY.withHour(11).plusMinutes(15), machineTimeSlot.getEndDateT());
+  }
+
+  @Test
+  void testClosestFreeTimeSlotSkipsPublicHolidays() throws AxelorException {
+    LocalDateTime publicHolidayDateT = DAY.plusDays(2).withHour(10);
+
+    MachineTimeSlot machineTimeSlot =
+        machineOccupancyIndex.getClosestFreeTimeSlot(
+            machine,
+            operationOrder,
+            publicHolidayDateT,
+            publicHolidayDateT.plusHours(1),
+            3600,
+            0,
+            0);
+
+    Assertions.assertEquals(DAY.plusDays(3), machineTimeSlot.getStartDateT());
+    Assertions.assertEquals(DAY.plusDays(3).withHour(1), machineTimeSlot.getEndDateT());
+  }
+
+  @Test
+  void testFurthestFreeTimeSlotJumpsOverConsecutiveBookings() throws AxelorException {
+    book(1L, DAY.withHour(12), DAY.withHour(14), false);
+    book(2L, DAY.withHour(10).plusMinutes(30), DAY.withHour(12), false);
+
+    MachineTimeSlot machineTimeSlot =
+        machineOccupancyIndex.getFurthestFreeTimeSlot(
+            machine, operationOrder, DAY.withHour(13), DAY.withHour(15), 7200, 0, 0);
+
+    Assertions.assertEquals(DAY.withHour(8).plusMinutes(30), machineTimeSlot.getStartDateT());
+    Assertions.assertEquals(DAY.withHour(10).plusMinutes(30), machineTimeSlot.getEndDateT());
+  }
+
+  @Test
+  void testTooManyMovedSlots() {
+    // Each moved slot jumps over two bookings
+    for (long i = 0; i < 3 * MachineServiceImpl.MAX_RECURSIVE_CALL; i++) {
+      book(i + 1, DAY.plusHours(i), DAY.plusHours(i + 1), false);
+    }
+
+    Assertions.assertThrows(
+        AxelorException.class,
+        () ->
+            machineOccupancyIndex.getClosestFreeTimeSlot(
+                machine, operationOrder, DAY, DAY.plusHours(1), 3600, 0, 0));
+  }
+
+  @Test
+  void testOutsourcedOrUnknownOperationOrdersDoNotOccupyTheMachine() throws AxelorException {
+    book(1L, DAY.withHour(8), DAY.withHour(10), null);
+    book(2L, DAY.withHour(10), DAY.withHour(12), true);
+
+    MachineTimeSlot machineTimeSlot =
+        machineOccupancyIndex.getClosestFreeTimeSlot(
+            machine, operationOrder, DAY.withHour(9), DAY.withHour(10), 3600, 0, 0);
+
+    Assertions.assertEquals(DAY.withHour(9), machineTimeSlot.getStartDateT());
+    Assertions.assertEquals(0, machineOccupancyIndex.getConflictNb());
+  }
+
+  @Test
+  void testUpdateMovesTheBooking() {
+    OperationOrder bookedOperationOrder = book(1L, DAY.withHour(8), DAY.withHour(10), false);
+    bookedOperationOrder.setPlannedStartDateT(DAY.withHour(16));
+    bookedOperationOrder.setPlannedEndDateT(DAY.withHour(18));
+    machineOccupancyIndex.update(bookedOperationOrder);
+
+    Assertions.assertTrue(
+        machineOccupancyIndex
+            .getLastConflictEndDateT(
+                machine, operationOrder, DAY.withHour(9), DAY.withHour(10), 0)
+            .isEmpty());
+    Assertions.assertEquals(
+        DAY.withHour(18),
+        machineOccupancyIndex
+            .getLastConflictEndDateT(
+                machine, operationOrder, DAY.withHour(17), DAY.withHour(19), 0)
+            .orElse(null));
+  }
+
+  @Test
+  void testUpdatesAreAppliedOverTheLoadedOccupancy() {
+    Machine otherMachine = new Machine();
+    otherMachine.setId(2L);
+    machineOccupancyIndex =
+        new MachineOccupancyIndex() {
+          @Override
+          protected MachineOccupancy loadMachineOccupancy(Machine machine) {
+            // Dates of the operation order before the update, the session not being flushed
+            MachineOccupancy machineOccupancy = new MachineOccupancy();
+            machineOccupancy.add(new Booking(1L, DAY.withHour(8), DAY.withHour(10)));
+            return machineOccupancy;
+          }
+        };
+
+    OperationOrder bookedOperationOrder = new OperationOrder();
+    bookedOperationOrder.setId(1L);
+    bookedOperationOrder.setMachine(otherMachine);
+    bookedOperationOrder.setManufOrder(manufOrder);
+    bookedOperationOrder.setPlannedStartDateT(DAY.withHour(16));
+    bookedOperationOrder.setPlannedEndDateT(DAY.withHour(18));
+    bookedOperationOrder.setOutsourcing(false);
+    machineOccupancyIndex.update(bookedOperationOrder);
+
+    Assertions.assertTrue(
+        machineOccupancyIndex
+            .getLastConflictEndDateT(
+                otherMachine, operationOrder, DAY.withHour(9), DAY.withHour(10), 0)
+            .isEmpty());
+    Assertions.assertEquals(
+        DAY.withHour(18),
+        machineOccupancyIndex
+            .getLastConflictEndDateT(
+                otherMachine, operationOrder, DAY.withHour(17), DAY.withHour(19), 0)
+            .orElse(null));
+  }
+
+  private OperationOrder book(
+      Long id, LocalDateTime startDateT, LocalDateTime endDateT, Boolean outsourcing) {
+    OperationOrder bookedOperationOrder = new OperationOrder();
+    bookedOperationOrder.setId(id);
+    bookedOperationOrder.setMachine(machine);
+    bookedOperationOrder.setManufOrder(manufOrder);
+    bookedOperationOrder.setPlannedStartDateT(startDateT);
+    bookedOperationOrder.setPlannedEndDateT(endDateT);
+    bookedOperationOrder.setOutsourcing(outsourcing);
+    machineOccupancyIndex.update(bookedOperationOrder);
+    return bookedOperationOrder;
+  }
+}
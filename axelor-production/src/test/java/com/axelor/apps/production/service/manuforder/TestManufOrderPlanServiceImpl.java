@@ -0,0 +1,129 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service.manuforder;
+
+import com.axelor.apps.production.db.ManufOrder;
+import com.axelor.apps.production.model.manuforder.ManufOrderPlanningReport;
+import com.axelor.apps.production.service.machine.MachineOccupancyIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestManufOrderPlanServiceImpl {
+
+  private static final long FAILING_MANUF_ORDER_ID = 13L;
+
+  private List<List<Long>> plannedChunkList;
+  private List<MachineOccupancyIndex> machineOccupancyIndexList;
+  private List<Exception> anomalyList;
+  private ManufOrderPlanServiceImpl manufOrderPlanService;
+
+  @BeforeEach
+  void prepare() {
+    plannedChunkList = new ArrayList<>();
+    machineOccupancyIndexList = new ArrayList<>();
+    anomalyList = new ArrayList<>();
+    manufOrderPlanService =
+        new ManufOrderPlanServiceImpl(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+            null, null) {
+          @Override
+          protected String planManufOrderChunk(
+              List<Long> manufOrderIdList, MachineOccupancyIndex machineOccupancyIndex) {
+            machineOccupancyIndexList.add(machineOccupancyIndex);
+            if (manufOrderIdList.contains(FAILING_MANUF_ORDER_ID)) {
+              throw new IllegalStateException("Not plannable");
+            }
+            plannedChunkList.add(manufOrderIdList);
+            return "";
+          }
+
+          @Override
+          protected int countOperationOrders(List<Long> manufOrderIdList) {
+            return 2 * manufOrderIdList.size();
+          }
+
+          @Override
+          protected void traceAnomaly(Exception e) {
+            anomalyList.add(e);
+          }
+
+          @Override
+          protected void clearSession() {}
+        };
+  }
+
+  @Test
+  void testPlanByDecreasingPriorityAndByChunk() {
+    List<ManufOrder> manufOrderList = new ArrayList<>();
+    for (long id = 1; id <= 25; id++) {
+      manufOrderList.add(createManufOrder(id, id <= 5 ? 4 : 2));
+    }
+
+    ManufOrderPlanningReport report =
+        manufOrderPlanService.planManufOrdersInBulk(
+            manufOrderList.stream()
+                .filter(manufOrder -> manufOrder.getId() != FAILING_MANUF_ORDER_ID)
+                .collect(Collectors.toList()));
+
+    Assertions.assertEquals(24, report.getManufOrderNb());
+    Assertions.assertEquals(48, report.getOperationOrderNb());
+    Assertions.assertEquals(0, report.getAnomalyNb());
+    Assertions.assertEquals(3, plannedChunkList.size());
+    Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L), plannedChunkList.get(0).subList(0, 5));
+    Assertions.assertEquals(List.of(6L, 7L, 8L, 9L, 10L), plannedChunkList.get(0).subList(5, 10));
+    Assertions.assertEquals(4, plannedChunkList.get(2).size());
+    // The occupancy of the machines is shared by all the chunks
+    Assertions.assertEquals(1, machineOccupancyIndexList.stream().distinct().count());
+  }
+
+  @Test
+  void testFailingChunkIsPlannedOrderByOrder() {
+    List<ManufOrder> manufOrderList = new ArrayList<>();
+    for (long id = 1; id <= 25; id++) {
+      manufOrderList.add(createManufOrder(id, 2));
+    }
+
+    ManufOrderPlanningReport report = manufOrderPlanService.planManufOrdersInBulk(manufOrderList);
+
+    Assertions.assertEquals(24, report.getManufOrderNb());
+    Assertions.assertEquals(1, report.getAnomalyNb());
+    Assertions.assertEquals(1, anomalyList.size());
+    List<Long> plannedIdList =
+        plannedChunkList.stream().flatMap(List::stream).collect(Collectors.toList());
+    Assertions.assertEquals(24, plannedIdList.size());
+    Assertions.assertFalse(plannedIdList.contains(FAILING_MANUF_ORDER_ID));
+    Assertions.assertEquals(List.of(11L), plannedChunkList.get(1));
+    Assertions.assertEquals(List.of(21L, 22L, 23L, 24L, 25L), plannedChunkList.get(10));
+    // The bookings of the rolled back orders are dropped with their index
+    Assertions.assertNotSame(
+        machineOccupancyIndexList.get(0),
+        machineOccupancyIndexList.get(machineOccupancyIndexList.size() - 1));
+  }
+
+  private ManufOrder createManufOrder(Long id, int prioritySelect) {
+    ManufOrder manufOrder = new ManufOrder();
+    manufOrder.setId(id);
+    manufOrder.setPrioritySelect(prioritySelect);
+    return manufOrder;
+  }
+}
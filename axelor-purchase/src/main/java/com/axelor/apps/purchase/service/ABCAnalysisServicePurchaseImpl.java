@@ -30,12 +30,12 @@ import com.axelor.apps.base.db.repo.ABCAnalysisRepository;
 import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.base.service.ABCAnalysisServiceImpl;
 import com.axelor.apps.base.service.UnitConversionService;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.apps.purchase.db.PurchaseOrderLine;
 import com.axelor.apps.purchase.db.repo.PurchaseOrderLineRepository;
 import com.axelor.apps.purchase.db.repo.PurchaseOrderRepository;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.google.inject.Inject;
 import java.math.BigDecimal;
 import java.time.LocalTime;
@@ -74,22 +74,18 @@ public class ABCAnalysisServicePurchaseImpl extends ABCAnalysisServiceImpl {
     BigDecimal productQty = BigDecimal.ZERO;
     BigDecimal productWorth = BigDecimal.ZERO;
     List<PurchaseOrderLine> purchaseOrderLineList;
-    int offset = 0;
 
-    Query<PurchaseOrderLine> purchaseOrderLineQuery =
-        purchaseOrderLineRepository
-            .all()
-            .filter(
+    KeysetQuery<PurchaseOrderLine> purchaseOrderLineQuery =
+        new KeysetQuery<>(
+                PurchaseOrderLine.class,
                 "(self.purchaseOrder.statusSelect = :statusValidated OR self.purchaseOrder.statusSelect = :statusFinished) AND self.purchaseOrder.validationDateTime >= :startDate AND self.purchaseOrder.validationDateTime <= :endDate AND self.product.id = :productId")
             .bind("statusValidated", PurchaseOrderRepository.STATUS_VALIDATED)
             .bind("statusFinished", PurchaseOrderRepository.STATUS_FINISHED)
             .bind("startDate", abcAnalysis.getStartDate().atStartOfDay())
             .bind("endDate", abcAnalysis.getEndDate().atTime(LocalTime.MAX))
-            .bind("productId", product.getId())
-            .order("id");
+            .bind("productId", product.getId());
 
-    while (!(purchaseOrderLineList = purchaseOrderLineQuery.fetch(FETCH_LIMIT, offset)).isEmpty()) {
-      offset += purchaseOrderLineList.size();
+    while (!(purchaseOrderLineList = purchaseOrderLineQuery.fetchNext(FETCH_LIMIT)).isEmpty()) {
       abcAnalysis = abcAnalysisRepository.find(abcAnalysis.getId());
 
       if (abcAnalysisLine == null) {
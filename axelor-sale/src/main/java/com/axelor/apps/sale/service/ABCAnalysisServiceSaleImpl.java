@@ -32,12 +32,12 @@ import com.axelor.apps.base.db.repo.ABCAnalysisRepository;
 import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.base.service.ABCAnalysisServiceImpl;
 import com.axelor.apps.base.service.UnitConversionService;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.apps.sale.db.SaleOrderLine;
 import com.axelor.apps.sale.db.repo.SaleOrderLineRepository;
 import com.axelor.apps.sale.db.repo.SaleOrderRepository;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.google.inject.Inject;
 import java.math.BigDecimal;
 import java.util.List;
@@ -74,12 +74,10 @@ public class ABCAnalysisServiceSaleImpl extends ABCAnalysisServiceImpl {
     BigDecimal productQty = BigDecimal.ZERO;
     BigDecimal productWorth = BigDecimal.ZERO;
     List<SaleOrderLine> saleOrderLineList;
-    int offset = 0;
 
-    Query<SaleOrderLine> saleOrderLineQuery =
-        saleOrderLineRepository
-            .all()
-            .filter(
+    KeysetQuery<SaleOrderLine> saleOrderLineQuery =
+        new KeysetQuery<>(
+                SaleOrderLine.class,
                 "(self.saleOrder.statusSelect = :statusConfirmed OR self.saleOrder.statusSelect = :statusCompleted) AND self.saleOrder.confirmationDateTime >= :startDate AND self.saleOrder.confirmationDateTime <= :endDate AND self.product.id = :productId")
             .bind("statusConfirmed", SaleOrderRepository.STATUS_ORDER_CONFIRMED)
             .bind("statusCompleted", SaleOrderRepository.STATUS_ORDER_COMPLETED)
@@ -90,11 +88,9 @@ public class ABCAnalysisServiceSaleImpl extends ABCAnalysisServiceImpl {
                     .withHour(23)
                     .withMinute(59)
                     .withSecond(59))
-            .bind("productId", product.getId())
-            .order("id");
+            .bind("productId", product.getId());
 
-    while (!(saleOrderLineList = saleOrderLineQuery.fetch(FETCH_LIMIT, offset)).isEmpty()) {
-      offset += saleOrderLineList.size();
+    while (!(saleOrderLineList = saleOrderLineQuery.fetchNext(FETCH_LIMIT)).isEmpty()) {
       abcAnalysis = abcAnalysisRepository.find(abcAnalysis.getId());
 
       if (abcAnalysisLine == null) {
@@ -50,9 +50,7 @@ public class SalePricingGenericServiceImpl extends PricingGenericServiceImpl {
     if (SaleOrder.class.equals(EntityHelper.getEntityClass(model))) {
       SaleOrder saleOrder = (SaleOrder) model;
       if (!ObjectUtils.isEmpty(saleOrder.getSaleOrderLineList())) {
-        for (SaleOrderLine saleOrderLine : saleOrder.getSaleOrderLineList()) {
-          computePricingsOnModel(company, saleOrderLine, typeSelect);
-        }
+        computePricingsOnModels(company, saleOrder.getSaleOrderLineList(), typeSelect);
       }
     }
   }
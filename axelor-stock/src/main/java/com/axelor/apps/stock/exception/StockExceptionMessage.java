@@ -349,4 +349,13 @@ public final class StockExceptionMessage {
 
   public static final String STOCK_MOVE_MASS_NO_FROM_STOCK_LOCATION_SELECTED = /*$$(*/
       "No stock location has been selected." /*)*/;
+
+  public static final String BATCH_CHECK_PLANNED_QTY_1 = /*$$(*/
+      "Stock location lines planned quantities check :" /*)*/;
+
+  public static final String BATCH_CHECK_PLANNED_QTY_2 = /*$$(*/
+      "stock location line(s) checked" /*)*/;
+
+  public static final String BATCH_CHECK_PLANNED_QTY_3 = /*$$(*/
+      "stock location line(s) corrected" /*)*/;
 }
@@ -78,6 +78,8 @@ import com.axelor.apps.stock.service.StockLocationAttrsService;
 import com.axelor.apps.stock.service.StockLocationAttrsServiceImpl;
 import com.axelor.apps.stock.service.StockLocationDomainService;
 import com.axelor.apps.stock.service.StockLocationDomainServiceImpl;
+import com.axelor.apps.stock.service.StockLocationLineDeltaService;
+import com.axelor.apps.stock.service.StockLocationLineDeltaServiceImpl;
 import com.axelor.apps.stock.service.StockLocationLineFetchService;
 import com.axelor.apps.stock.service.StockLocationLineFetchServiceImpl;
 import com.axelor.apps.stock.service.StockLocationLineHistoryService;
@@ -155,6 +157,7 @@ public class StockModule extends AxelorModule {
     bind(InventoryRepository.class).to(InventoryManagementRepository.class);
     bind(StockMoveRepository.class).to(StockMoveManagementRepository.class);
     bind(StockLocationLineService.class).to(StockLocationLineServiceImpl.class);
+    bind(StockLocationLineDeltaService.class).to(StockLocationLineDeltaServiceImpl.class);
     bind(StockMoveLineService.class).to(StockMoveLineServiceImpl.class);
     bind(StockMoveService.class).to(StockMoveServiceImpl.class);
     bind(StockMoveUpdateService.class).to(StockMoveUpdateServiceImpl.class);
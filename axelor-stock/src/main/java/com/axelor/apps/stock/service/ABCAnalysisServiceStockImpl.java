@@ -30,12 +30,12 @@ import com.axelor.apps.base.db.repo.ABCAnalysisRepository;
 import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.base.service.ABCAnalysisServiceImpl;
 import com.axelor.apps.base.service.UnitConversionService;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.stock.db.StockLocationLine;
 import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.google.inject.Inject;
 import java.math.BigDecimal;
 import java.util.List;
@@ -78,18 +78,15 @@ public class ABCAnalysisServiceStockImpl extends ABCAnalysisServiceImpl {
     BigDecimal productQty = BigDecimal.ZERO;
     BigDecimal productWorth = BigDecimal.ZERO;
     List<StockLocationLine> stockLocationLineList;
-    int offset = 0;
 
-    Query<StockLocationLine> stockLocationLineQuery =
-        stockLocationLineRepository
-            .all()
-            .filter(
+    KeysetQuery<StockLocationLine> stockLocationLineQuery =
+        new KeysetQuery<>(
+                StockLocationLine.class,
                 "self.stockLocation IN :stockLocationList AND self.product.id = :productId AND self.currentQty != 0 ")
             .bind("stockLocationList", stockLocationList)
             .bind("productId", product.getId());
 
-    while (!(stockLocationLineList = stockLocationLineQuery.fetch(FETCH_LIMIT, offset)).isEmpty()) {
-      offset += stockLocationLineList.size();
+    while (!(stockLocationLineList = stockLocationLineQuery.fetchNext(FETCH_LIMIT)).isEmpty()) {
       abcAnalysis = abcAnalysisRepository.find(abcAnalysis.getId());
 
       if (abcAnalysisLine == null) {
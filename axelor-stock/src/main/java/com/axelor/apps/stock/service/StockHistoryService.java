@@ -62,4 +62,20 @@ public interface StockHistoryService {
   List<StockHistoryLine> computeAndSaveStockHistoryLineList(
       Long productId, Long companyId, Long stockLocationId, LocalDate beginDate, LocalDate endDate)
       throws AxelorException;
+
+  /**
+   * Compute and save the stock history lines of several products, for all the stock locations of
+   * the company. The stock move lines of all the products are aggregated together, which is much
+   * faster than computing the products one by one.
+   *
+   * @param productIdList ids of the queried products.
+   * @param companyId id of the company used as filter, cannot be null.
+   * @param beginDate mandatory date used for the generation.
+   * @param endDate mandatory date used for the generation.
+   * @return the saved lines.
+   * @throws AxelorException
+   */
+  List<StockHistoryLine> computeAndSaveStockHistoryLineList(
+      List<Long> productIdList, Long companyId, LocalDate beginDate, LocalDate endDate)
+      throws AxelorException;
 }
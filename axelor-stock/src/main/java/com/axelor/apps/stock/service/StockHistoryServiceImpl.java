@@ -20,7 +20,9 @@ package com.axelor.apps.stock.service;
 
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Period;
 import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.Unit;
 import com.axelor.apps.base.db.repo.CompanyRepository;
 import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.base.db.repo.YearRepository;
@@ -33,6 +35,7 @@ import com.axelor.apps.stock.db.repo.StockHistoryLineManagementRepository;
 import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.apps.stock.db.repo.StockMoveLineRepository;
 import com.axelor.apps.stock.db.repo.StockMoveRepository;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.meta.MetaFiles;
@@ -48,12 +51,18 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class StockHistoryServiceImpl implements StockHistoryService {
 
+  protected static final int AVG_OUT_QTY_MONTH_NB = 12;
+
   protected StockMoveLineRepository stockMoveLineRepository;
   protected UnitConversionService unitConversionService;
   protected StockLocationRepository stockLocationRepository;
@@ -154,6 +163,301 @@ public class StockHistoryServiceImpl implements StockHistoryService {
     return stockHistoryLineList;
   }
 
+  @Override
+  @Transactional(rollbackOn = Exception.class)
+  public List<StockHistoryLine> computeAndSaveStockHistoryLineList(
+      List<Long> productIdList, Long companyId, LocalDate beginDate, LocalDate endDate)
+      throws AxelorException {
+    List<StockHistoryLine> stockHistoryLineList = new ArrayList<>();
+
+    for (List<StockHistoryLine> productStockHistoryLineList :
+        this.computeStockHistoryLineMap(productIdList, companyId, beginDate, endDate).values()) {
+      stockHistoryLineList.addAll(productStockHistoryLineList);
+    }
+
+    return stockHistoryLineRepository.save(stockHistoryLineList);
+  }
+
+  /**
+   * Compute the stock history lines of several products at once. The stock move lines are grouped
+   * by the database per product, day, unit and quantity, then dispatched in the months of each
+   * product, so the number of queries does not depend on the number of products or months.
+   *
+   * @return the stock history lines, by product id
+   */
+  protected Map<Long, List<StockHistoryLine>> computeStockHistoryLineMap(
+      List<Long> productIdList, Long companyId, LocalDate beginDate, LocalDate endDate)
+      throws AxelorException {
+    Company company = JPA.find(Company.class, companyId);
+    PeriodService periodService = Beans.get(PeriodService.class);
+
+    List<LocalDate> monthList = new ArrayList<>();
+    Map<LocalDate, Period> periodMap = new HashMap<>();
+    for (LocalDate periodBeginDate = beginDate.withDayOfMonth(1);
+        periodBeginDate.isBefore(endDate);
+        periodBeginDate = periodBeginDate.plusMonths(1)) {
+      monthList.add(periodBeginDate);
+      periodMap.put(
+          periodBeginDate,
+          periodService.getActivePeriod(periodBeginDate, company, YearRepository.TYPE_CIVIL));
+    }
+
+    Map<Long, Map<LocalDate, StockHistoryLine>> stockHistoryLineMap = new LinkedHashMap<>();
+    for (Long productId : productIdList) {
+      Product product = JPA.find(Product.class, productId);
+      Map<LocalDate, StockHistoryLine> productStockHistoryLineMap = new LinkedHashMap<>();
+      for (LocalDate periodBeginDate : monthList) {
+        StockHistoryLine stockHistoryLine = new StockHistoryLine();
+        stockHistoryLine.setProduct(product);
+        stockHistoryLine.setCompany(company);
+        stockHistoryLine.setLabel(periodBeginDate.toString());
+        stockHistoryLine.setPeriod(periodMap.get(periodBeginDate));
+        productStockHistoryLineMap.put(periodBeginDate, stockHistoryLine);
+      }
+      stockHistoryLineMap.put(productId, productStockHistoryLineMap);
+    }
+
+    if (!monthList.isEmpty()) {
+      LocalDate firstMonth = monthList.get(0);
+      LocalDate queryEndDate = monthList.get(monthList.size() - 1).plusMonths(1);
+      this.fillStockHistoryLines(
+          stockHistoryLineMap, productIdList, companyId, firstMonth, queryEndDate, true);
+      Map<Long, Map<LocalDate, BigDecimal>> outQtyMap =
+          this.fillStockHistoryLines(
+              stockHistoryLineMap,
+              productIdList,
+              companyId,
+              firstMonth.minusMonths(AVG_OUT_QTY_MONTH_NB),
+              queryEndDate,
+              false);
+      this.fillAvgOutQtyOn12PastMonth(stockHistoryLineMap, outQtyMap);
+    }
+
+    Map<Long, List<StockHistoryLine>> stockHistoryLineListMap = new LinkedHashMap<>();
+    for (Map.Entry<Long, Map<LocalDate, StockHistoryLine>> entry :
+        stockHistoryLineMap.entrySet()) {
+      List<StockHistoryLine> stockHistoryLineList = new ArrayList<>(entry.getValue().values());
+      StockHistoryLine totalStockHistoryLine = createStockHistoryTotalLine(stockHistoryLineList);
+      StockHistoryLine avgStockHistoryLine =
+          createStockHistoryAvgLine(stockHistoryLineList, totalStockHistoryLine);
+      stockHistoryLineList.add(totalStockHistoryLine);
+      stockHistoryLineList.add(avgStockHistoryLine);
+      stockHistoryLineListMap.put(entry.getKey(), stockHistoryLineList);
+    }
+
+    return stockHistoryLineListMap;
+  }
+
+  /**
+   * Fill the incoming or outgoing fields of the stock history lines with the stock move lines
+   * realized between the given dates.
+   *
+   * @return the quantity moved, in product unit, by product id and month
+   */
+  protected Map<Long, Map<LocalDate, BigDecimal>> fillStockHistoryLines(
+      Map<Long, Map<LocalDate, StockHistoryLine>> stockHistoryLineMap,
+      List<Long> productIdList,
+      Long companyId,
+      LocalDate beginDate,
+      LocalDate endDate,
+      boolean incoming)
+      throws AxelorException {
+    String filter = this.getStockHistoryQueryFilter(incoming);
+    String groupColumn = this.getStockHistoryQtyGroupColumn(incoming);
+    Map<Long, Map<LocalDate, BigDecimal>> qtyMap = new HashMap<>();
+
+    List<Object[]> qtyResultList =
+        this.getStockHistoryResultList(
+            "SELECT self.product.id, stockMove.realDate, unit.id, self.realQty, COUNT(self.id), "
+                + "SUM(self.companyUnitPriceUntaxed)"
+                + (groupColumn != null ? ", " + groupColumn : "")
+                + " FROM StockMoveLine self JOIN self.stockMove stockMove "
+                + "LEFT JOIN self.unit unit "
+                + this.getStockHistoryQtyJoins(incoming)
+                + " WHERE "
+                + filter
+                + " GROUP BY self.product.id, stockMove.realDate, unit.id, self.realQty"
+                + (groupColumn != null ? ", " + groupColumn : ""),
+            productIdList,
+            companyId,
+            beginDate,
+            endDate);
+
+    for (Object[] result : qtyResultList) {
+      Long productId = (Long) result[0];
+      LocalDate month = ((LocalDate) result[1]).withDayOfMonth(1);
+      Map<LocalDate, StockHistoryLine> productStockHistoryLineMap =
+          stockHistoryLineMap.get(productId);
+      Product product = productStockHistoryLineMap.values().iterator().next().getProduct();
+      BigDecimal qtyConverted =
+          this.convertStockHistoryQty(
+              product,
+              result[2] != null ? JPA.find(Unit.class, (Long) result[2]) : null,
+              (BigDecimal) result[3],
+              (Long) result[4]);
+      qtyMap
+          .computeIfAbsent(productId, id -> new HashMap<>())
+          .merge(month, qtyConverted, BigDecimal::add);
+
+      StockHistoryLine stockHistoryLine = productStockHistoryLineMap.get(month);
+      if (stockHistoryLine != null) {
+        this.addStockHistoryQty(
+            stockHistoryLine,
+            qtyConverted,
+            (BigDecimal) result[5],
+            groupColumn != null ? result[6] : null,
+            incoming);
+      }
+    }
+
+    List<Object[]> countResultList =
+        this.getStockHistoryResultList(
+            "SELECT self.product.id, stockMove.realDate, COUNT(DISTINCT stockMove.id) "
+                + "FROM StockMoveLine self JOIN self.stockMove stockMove WHERE "
+                + filter
+                + " GROUP BY self.product.id, stockMove.realDate",
+            productIdList,
+            companyId,
+            beginDate,
+            endDate);
+
+    for (Object[] result : countResultList) {
+      StockHistoryLine stockHistoryLine =
+          stockHistoryLineMap.get(result[0]).get(((LocalDate) result[1]).withDayOfMonth(1));
+      if (stockHistoryLine == null) {
+        continue;
+      }
+      int count = Math.toIntExact((Long) result[2]);
+      if (incoming) {
+        stockHistoryLine.setCountIncMvtStockPeriod(
+            stockHistoryLine.getCountIncMvtStockPeriod() + count);
+      } else {
+        stockHistoryLine.setCountOutMvtStockPeriod(
+            stockHistoryLine.getCountOutMvtStockPeriod() + count);
+      }
+    }
+
+    return qtyMap;
+  }
+
+  /**
+   * Convert in product unit the quantity of stock move lines having the same unit and quantity.
+   * Each line is converted and rounded before being added up, as when computing the history of a
+   * single product, so the sums do not depend on how the lines are grouped.
+   *
+   * @param realQty the quantity of each stock move line
+   * @param lineNb the number of stock move lines
+   * @return the total quantity in product unit
+   */
+  protected BigDecimal convertStockHistoryQty(
+      Product product, Unit unit, BigDecimal realQty, long lineNb) throws AxelorException {
+    return unitConversionService
+        .convert(unit, product.getUnit(), realQty, realQty.scale(), product)
+        .multiply(BigDecimal.valueOf(lineNb));
+  }
+
+  /**
+   * Filter of the stock move lines of a product realized from or to one of the non virtual stock
+   * locations of the company where the product is stored.
+   */
+  protected String getStockHistoryQueryFilter(boolean incoming) {
+    String stockLocation = incoming ? "self.toStockLocation" : "self.fromStockLocation";
+    return "self.product.id IN :productIdList "
+        + "AND stockMove.statusSelect = :realized "
+        + "AND stockMove.company.id = :companyId "
+        + "AND stockMove.realDate >= :beginDate "
+        + "AND stockMove.realDate < :endDate "
+        + String.format(
+            "AND %1$s.typeSelect != :virtual AND %1$s.company.id = :companyId "
+                + "AND EXISTS (SELECT 1 FROM StockLocationLine stockLocationLine "
+                + "WHERE stockLocationLine.stockLocation = %1$s "
+                + "AND stockLocationLine.product = self.product)",
+            stockLocation);
+  }
+
+  /**
+   * Joins used by the column returned by {@link #getStockHistoryQtyGroupColumn(boolean)}.
+   *
+   * @param incoming whether the query is on incoming stock move lines
+   * @return the joins, may be empty
+   */
+  protected String getStockHistoryQtyJoins(boolean incoming) {
+    return "";
+  }
+
+  /**
+   * Additional column used to group the stock move line quantities, given to {@link
+   * #addStockHistoryQty(StockHistoryLine, BigDecimal, BigDecimal, Object, boolean)}.
+   *
+   * @param incoming whether the query is on incoming stock move lines
+   * @return the column, or null if there is none
+   */
+  protected String getStockHistoryQtyGroupColumn(boolean incoming) {
+    return null;
+  }
+
+  protected void addStockHistoryQty(
+      StockHistoryLine stockHistoryLine,
+      BigDecimal qty,
+      BigDecimal price,
+      Object groupValue,
+      boolean incoming) {
+    if (incoming) {
+      stockHistoryLine.setSumIncQtyPeriod(stockHistoryLine.getSumIncQtyPeriod().add(qty));
+      stockHistoryLine.setPriceIncStockMovePeriod(
+          stockHistoryLine.getPriceIncStockMovePeriod().add(price));
+    } else {
+      stockHistoryLine.setSumOutQtyPeriod(stockHistoryLine.getSumOutQtyPeriod().add(qty));
+      stockHistoryLine.setPriceOutStockMovePeriod(
+          stockHistoryLine.getPriceOutStockMovePeriod().add(price));
+    }
+  }
+
+  protected void fillAvgOutQtyOn12PastMonth(
+      Map<Long, Map<LocalDate, StockHistoryLine>> stockHistoryLineMap,
+      Map<Long, Map<LocalDate, BigDecimal>> outQtyMap) {
+    int qtyScale = Beans.get(AppBaseService.class).getNbDecimalDigitForQty();
+
+    for (Map.Entry<Long, Map<LocalDate, StockHistoryLine>> entry :
+        stockHistoryLineMap.entrySet()) {
+      Map<LocalDate, BigDecimal> productOutQtyMap =
+          outQtyMap.getOrDefault(entry.getKey(), Collections.emptyMap());
+
+      for (Map.Entry<LocalDate, StockHistoryLine> lineEntry : entry.getValue().entrySet()) {
+        BigDecimal outQty = BigDecimal.ZERO;
+        for (int month = 1; month <= AVG_OUT_QTY_MONTH_NB; month++) {
+          outQty =
+              outQty.add(
+                  productOutQtyMap.getOrDefault(
+                      lineEntry.getKey().minusMonths(month), BigDecimal.ZERO));
+        }
+        lineEntry
+            .getValue()
+            .setAvgOutQtyOn12PastMonth(
+                outQty.divide(
+                    new BigDecimal(AVG_OUT_QTY_MONTH_NB), qtyScale, RoundingMode.HALF_EVEN));
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<Object[]> getStockHistoryResultList(
+      String query,
+      List<Long> productIdList,
+      Long companyId,
+      LocalDate beginDate,
+      LocalDate endDate) {
+    return JPA.em()
+        .createQuery(query)
+        .setParameter("productIdList", productIdList)
+        .setParameter("realized", StockMoveRepository.STATUS_REALIZED)
+        .setParameter("companyId", companyId)
+        .setParameter("beginDate", beginDate)
+        .setParameter("endDate", endDate)
+        .setParameter("virtual", StockLocationRepository.TYPE_VIRTUAL)
+        .getResultList();
+  }
+
   public String getStockHistoryLineExportName(String productName) {
     DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH-mm");
     return I18n.get("Stock History")
@@ -0,0 +1,75 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.stock.db.StockLocationLine;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Quantity variations of the stock location lines, recorded instead of updating the lines when
+ * the deferred updates are enabled in the stock app, and applied later to the lines.
+ */
+public interface StockLocationLineDeltaService {
+
+  boolean isStockLocationLineDeltaEnabled();
+
+  /**
+   * Record a quantity variation of a stock location line.
+   *
+   * @param stockLocationLine the stock location line, or detail stock location line
+   * @param qty the quantity, in the unit of the stock location line
+   * @param current whether the current quantity is updated
+   * @param future whether the future quantity is updated
+   * @param isIncrement whether the quantities are increased
+   * @param isIncoming whether the stock location is the destination of the stock move
+   * @param lastFutureStockMoveDate the date of the last future stock move, set with the future
+   *     quantity
+   */
+  void addDelta(
+      StockLocationLine stockLocationLine,
+      BigDecimal qty,
+      boolean current,
+      boolean future,
+      boolean isIncrement,
+      boolean isIncoming,
+      LocalDate lastFutureStockMoveDate);
+
+  /**
+   * Create a copy of the stock location line, not persisted, whose quantities include the
+   * variations not applied yet.
+   */
+  StockLocationLine getUpToDateStockLocationLine(StockLocationLine stockLocationLine);
+
+  /** Get the current quantity of the stock location line, including the variations. */
+  BigDecimal getCurrentQty(StockLocationLine stockLocationLine);
+
+  /**
+   * Apply the recorded variations to the stock location line, which stays locked until the end of
+   * the transaction.
+   */
+  void applyDeltas(StockLocationLine stockLocationLine);
+
+  /**
+   * Apply the recorded variations to all the stock location lines.
+   *
+   * @return the number of updated stock location lines
+   */
+  int applyAllDeltas();
+}
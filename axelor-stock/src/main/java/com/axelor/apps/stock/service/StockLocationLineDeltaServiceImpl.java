@@ -0,0 +1,237 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.stock.db.StockLocationLine;
+import com.axelor.apps.stock.db.StockLocationLineDelta;
+import com.axelor.apps.stock.db.repo.StockLocationLineDeltaRepository;
+import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
+import com.axelor.apps.stock.service.app.AppStockService;
+import com.axelor.db.JPA;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+
+public class StockLocationLineDeltaServiceImpl implements StockLocationLineDeltaService {
+
+  protected static final int FETCH_LIMIT = 100;
+  protected static final int DELETE_LIMIT = 1000;
+
+  protected AppStockService appStockService;
+  protected StockLocationLineRepository stockLocationLineRepo;
+  protected StockLocationLineDeltaRepository stockLocationLineDeltaRepo;
+
+  @Inject
+  public StockLocationLineDeltaServiceImpl(
+      AppStockService appStockService,
+      StockLocationLineRepository stockLocationLineRepo,
+      StockLocationLineDeltaRepository stockLocationLineDeltaRepo) {
+    this.appStockService = appStockService;
+    this.stockLocationLineRepo = stockLocationLineRepo;
+    this.stockLocationLineDeltaRepo = stockLocationLineDeltaRepo;
+  }
+
+  @Override
+  public boolean isStockLocationLineDeltaEnabled() {
+    return appStockService.getAppStock() != null
+        && appStockService.getAppStock().getIsStockLocationLineDeltaEnabled();
+  }
+
+  @Override
+  @Transactional
+  public void addDelta(
+      StockLocationLine stockLocationLine,
+      BigDecimal qty,
+      boolean current,
+      boolean future,
+      boolean isIncrement,
+      boolean isIncoming,
+      LocalDate lastFutureStockMoveDate) {
+    BigDecimal signedQty = isIncrement ? qty : qty.negate();
+
+    StockLocationLineDelta stockLocationLineDelta = new StockLocationLineDelta();
+    stockLocationLineDelta.setStockLocationLine(stockLocationLine);
+    stockLocationLineDelta.setCurrentQty(current ? signedQty : BigDecimal.ZERO);
+    stockLocationLineDelta.setFutureQty(future ? signedQty : BigDecimal.ZERO);
+    stockLocationLineDelta.setIsFutureQtyUpdated(future);
+    if (future && !current) {
+      if (isIncoming) {
+        stockLocationLineDelta.setPlannedIncomingQty(signedQty);
+      } else {
+        stockLocationLineDelta.setPlannedOutgoingQty(signedQty.negate());
+      }
+    }
+    stockLocationLineDelta.setLastFutureStockMoveDate(lastFutureStockMoveDate);
+    stockLocationLineDeltaRepo.save(stockLocationLineDelta);
+  }
+
+  @Override
+  public StockLocationLine getUpToDateStockLocationLine(StockLocationLine stockLocationLine) {
+    BigDecimal[] deltaQtys = this.getDeltaQtys(stockLocationLine);
+
+    StockLocationLine upToDateStockLocationLine = new StockLocationLine();
+    upToDateStockLocationLine.setId(stockLocationLine.getId());
+    upToDateStockLocationLine.setStockLocation(stockLocationLine.getStockLocation());
+    upToDateStockLocationLine.setDetailsStockLocation(
+        stockLocationLine.getDetailsStockLocation());
+    upToDateStockLocationLine.setProduct(stockLocationLine.getProduct());
+    upToDateStockLocationLine.setTrackingNumber(stockLocationLine.getTrackingNumber());
+    upToDateStockLocationLine.setUnit(stockLocationLine.getUnit());
+    upToDateStockLocationLine.setCurrentQty(stockLocationLine.getCurrentQty().add(deltaQtys[0]));
+    upToDateStockLocationLine.setFutureQty(stockLocationLine.getFutureQty().add(deltaQtys[1]));
+    upToDateStockLocationLine.setPlannedIncomingQty(
+        stockLocationLine.getPlannedIncomingQty().add(deltaQtys[2]));
+    upToDateStockLocationLine.setPlannedOutgoingQty(
+        stockLocationLine.getPlannedOutgoingQty().add(deltaQtys[3]));
+    return upToDateStockLocationLine;
+  }
+
+  @Override
+  public BigDecimal getCurrentQty(StockLocationLine stockLocationLine) {
+    if (stockLocationLine.getId() == null || !this.isStockLocationLineDeltaEnabled()) {
+      return stockLocationLine.getCurrentQty();
+    }
+    return stockLocationLine.getCurrentQty().add(this.getDeltaQtys(stockLocationLine)[0]);
+  }
+
+  @Override
+  @Transactional
+  public void applyDeltas(StockLocationLine stockLocationLine) {
+    if (stockLocationLine.getId() == null) {
+      return;
+    }
+
+    // The line is locked so that concurrent applications are serialized. The variations recorded
+    // meanwhile are not read, and are left for the next application.
+    JPA.em().lock(stockLocationLine, LockModeType.PESSIMISTIC_WRITE);
+
+    List<StockLocationLineDelta> stockLocationLineDeltaList =
+        stockLocationLineDeltaRepo
+            .all()
+            .filter("self.stockLocationLine.id = :stockLocationLineId")
+            .bind("stockLocationLineId", stockLocationLine.getId())
+            .order("id")
+            .fetch();
+    if (stockLocationLineDeltaList.isEmpty()) {
+      return;
+    }
+
+    this.addDeltas(stockLocationLine, stockLocationLineDeltaList);
+    stockLocationLineRepo.save(stockLocationLine);
+
+    List<Long> deltaIdList =
+        stockLocationLineDeltaList.stream()
+            .map(StockLocationLineDelta::getId)
+            .collect(Collectors.toList());
+    for (List<Long> deltaIdSubList : Lists.partition(deltaIdList, DELETE_LIMIT)) {
+      JPA.em()
+          .createQuery("DELETE FROM StockLocationLineDelta self WHERE self.id IN :deltaIdList")
+          .setParameter("deltaIdList", deltaIdSubList)
+          .executeUpdate();
+    }
+  }
+
+  /**
+   * Add recorded variations to the quantities of a stock location line.
+   *
+   * @param stockLocationLine the stock location line
+   * @param stockLocationLineDeltaList the variations, in the order they were recorded
+   */
+  protected void addDeltas(
+      StockLocationLine stockLocationLine,
+      List<StockLocationLineDelta> stockLocationLineDeltaList) {
+    for (StockLocationLineDelta stockLocationLineDelta : stockLocationLineDeltaList) {
+      stockLocationLine.setCurrentQty(
+          stockLocationLine.getCurrentQty().add(stockLocationLineDelta.getCurrentQty()));
+      stockLocationLine.setPlannedIncomingQty(
+          stockLocationLine
+              .getPlannedIncomingQty()
+              .add(stockLocationLineDelta.getPlannedIncomingQty()));
+      stockLocationLine.setPlannedOutgoingQty(
+          stockLocationLine
+              .getPlannedOutgoingQty()
+              .add(stockLocationLineDelta.getPlannedOutgoingQty()));
+      if (stockLocationLineDelta.getIsFutureQtyUpdated()) {
+        stockLocationLine.setFutureQty(
+            stockLocationLine.getFutureQty().add(stockLocationLineDelta.getFutureQty()));
+        stockLocationLine.setLastFutureStockMoveDate(
+            stockLocationLineDelta.getLastFutureStockMoveDate());
+      }
+    }
+  }
+
+  @Override
+  public int applyAllDeltas() {
+    List<Long> stockLocationLineIdList =
+        JPA.em()
+            .createQuery(
+                "SELECT DISTINCT self.stockLocationLine.id FROM StockLocationLineDelta self",
+                Long.class)
+            .getResultList();
+    int updatedNb = 0;
+
+    for (Long stockLocationLineId : stockLocationLineIdList) {
+      try {
+        this.applyDeltas(stockLocationLineRepo.find(stockLocationLineId));
+        updatedNb++;
+      } catch (Exception e) {
+        TraceBackService.trace(e);
+      }
+      if (updatedNb % FETCH_LIMIT == 0) {
+        JPA.clear();
+      }
+    }
+
+    return updatedNb;
+  }
+
+  /**
+   * Sum the variations of the current, future, planned incoming and planned outgoing quantities of
+   * a stock location line.
+   *
+   * @param stockLocationLine the stock location line
+   * @return the variations of the current, future, planned incoming and planned outgoing
+   *     quantities
+   */
+  protected BigDecimal[] getDeltaQtys(StockLocationLine stockLocationLine) {
+    TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(
+                "SELECT SUM(self.currentQty), SUM(self.futureQty), "
+                    + "SUM(self.plannedIncomingQty), SUM(self.plannedOutgoingQty) "
+                    + "FROM StockLocationLineDelta self "
+                    + "WHERE self.stockLocationLine.id = :stockLocationLineId",
+                Object[].class)
+            .setParameter("stockLocationLineId", stockLocationLine.getId());
+    Object[] result = query.getSingleResult();
+
+    BigDecimal[] deltaQtys = new BigDecimal[result.length];
+    for (int index = 0; index < result.length; index++) {
+      deltaQtys[index] = result[index] != null ? (BigDecimal) result[index] : BigDecimal.ZERO;
+    }
+    return deltaQtys;
+  }
+}
@@ -26,12 +26,20 @@ import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.db.JPA;
 import com.axelor.inject.Beans;
 import com.axelor.utils.helpers.StringHelper;
+import com.google.inject.Inject;
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Objects;
 
 public class StockLocationLineFetchServiceImpl implements StockLocationLineFetchService {
 
+  protected StockLocationLineDeltaService stockLocationLineDeltaService;
+
+  @Inject
+  public StockLocationLineFetchServiceImpl(
+      StockLocationLineDeltaService stockLocationLineDeltaService) {
+    this.stockLocationLineDeltaService = stockLocationLineDeltaService;
+  }
+
   @Override
   public BigDecimal getTrackingNumberAvailableQty(
       StockLocation stockLocation, TrackingNumber trackingNumber) {
@@ -41,7 +49,7 @@ public class StockLocationLineFetchServiceImpl implements StockLocationLineFetch
     BigDecimal availableQty = BigDecimal.ZERO;
 
     if (detailStockLocationLine != null) {
-      availableQty = detailStockLocationLine.getCurrentQty();
+      availableQty = stockLocationLineDeltaService.getCurrentQty(detailStockLocationLine);
     }
     return availableQty;
   }
@@ -56,8 +64,8 @@ public class StockLocationLineFetchServiceImpl implements StockLocationLineFetch
     if (detailStockLocationLines != null) {
       availableQty =
           detailStockLocationLines.stream()
-              .map(StockLocationLine::getCurrentQty)
-              .filter(Objects::nonNull)
+              .filter(detailStockLocationLine -> detailStockLocationLine.getCurrentQty() != null)
+              .map(stockLocationLineDeltaService::getCurrentQty)
               .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
     return availableQty;
@@ -96,7 +104,7 @@ public class StockLocationLineFetchServiceImpl implements StockLocationLineFetch
     StockLocationLine stockLocationLine = getStockLocationLine(stockLocation, product);
     BigDecimal availableQty = BigDecimal.ZERO;
     if (stockLocationLine != null) {
-      availableQty = stockLocationLine.getCurrentQty();
+      availableQty = stockLocationLineDeltaService.getCurrentQty(stockLocationLine);
     }
     return availableQty;
   }
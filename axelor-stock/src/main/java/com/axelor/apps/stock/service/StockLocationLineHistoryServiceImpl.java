@@ -35,13 +35,16 @@ public class StockLocationLineHistoryServiceImpl implements StockLocationLineHis
 
   protected StockLocationLineHistoryRepository stockLocationLineHistoryRepo;
   protected ProductCompanyService productCompanyService;
+  protected StockLocationLineDeltaService stockLocationLineDeltaService;
 
   @Inject
   public StockLocationLineHistoryServiceImpl(
       StockLocationLineHistoryRepository stockLocationLineHistoryRepo,
-      ProductCompanyService productCompanyService) {
+      ProductCompanyService productCompanyService,
+      StockLocationLineDeltaService stockLocationLineDeltaService) {
     this.stockLocationLineHistoryRepo = stockLocationLineHistoryRepo;
     this.productCompanyService = productCompanyService;
+    this.stockLocationLineDeltaService = stockLocationLineDeltaService;
   }
 
   @Override
@@ -58,7 +61,7 @@ public class StockLocationLineHistoryServiceImpl implements StockLocationLineHis
             dateTime,
             origin,
             stockLocationLine.getAvgPrice(),
-            stockLocationLine.getCurrentQty(),
+            stockLocationLineDeltaService.getCurrentQty(stockLocationLine),
             stockLocationLine.getUnit(),
             (BigDecimal) productCompanyService.get(product, "salePrice", company),
             (BigDecimal) productCompanyService.get(product, "purchasePrice", company),
@@ -32,6 +32,13 @@ import java.time.LocalDateTime;
 
 public interface StockLocationLineService {
 
+  /**
+   * Update the quantities of the stock location line of the product, and of its detail stock
+   * location line if a tracking number is given.
+   *
+   * @param isIncoming whether the stock location is the destination of the stock move, used to
+   *     update the planned incoming or outgoing quantity
+   */
   public void updateLocation(
       StockLocation stockLocation,
       Product product,
@@ -40,6 +47,7 @@ public interface StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate,
       TrackingNumber trackingNumber,
       boolean generateOrder)
@@ -53,6 +61,7 @@ public interface StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate,
       boolean generateOrder)
       throws AxelorException;
@@ -73,6 +82,7 @@ public interface StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate,
       TrackingNumber trackingNumber)
       throws AxelorException;
@@ -100,6 +110,7 @@ public interface StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate)
       throws AxelorException;
 
@@ -156,13 +167,41 @@ public interface StockLocationLineService {
 
   /**
    * For a given line, compute the future quantity of a stock location line from its current qty and
-   * planned stock move lines with the same stock location and the same product.
+   * its planned incoming and outgoing quantities.
    *
    * @param stockLocationLine a stock location line with a product and a stock location.
    * @return the future quantity of the stock location line.
    */
   BigDecimal computeFutureQty(StockLocationLine stockLocationLine) throws AxelorException;
 
+  /**
+   * Recompute the planned incoming and outgoing quantities of a stock location line from the
+   * planned stock move lines, and its future quantity. Used to correct the quantities drifting
+   * from the planned stock move lines, edited, archived or deleted outside a status change.
+   *
+   * @param stockLocationLine a stock location line with a product and a stock location.
+   * @return true if the planned quantities of the stock location line changed.
+   */
+  boolean updatePlannedQty(StockLocationLine stockLocationLine) throws AxelorException;
+
+  /**
+   * Compute the planned incoming quantity of a stock location line from the planned stock move
+   * lines. Used to check the planned incoming quantity maintained in the stock location line.
+   *
+   * @param stockLocationLine a stock location line with a product and a stock location.
+   * @return the sum of the planned incoming quantities, in the unit of the stock location line.
+   */
+  BigDecimal computePlannedIncomingQty(StockLocationLine stockLocationLine) throws AxelorException;
+
+  /**
+   * Compute the planned outgoing quantity of a stock location line from the planned stock move
+   * lines. Used to check the planned outgoing quantity maintained in the stock location line.
+   *
+   * @param stockLocationLine a stock location line with a product and a stock location.
+   * @return the sum of the planned outgoing quantities, in the unit of the stock location line.
+   */
+  BigDecimal computePlannedOutgoingQty(StockLocationLine stockLocationLine) throws AxelorException;
+
   /**
    * Update avgPrice in stock location line and save wap history in the line.
    *
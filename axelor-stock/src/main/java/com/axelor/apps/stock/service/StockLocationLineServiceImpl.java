@@ -74,6 +74,8 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
 
   protected StockLocationLineFetchService stockLocationLineFetchService;
 
+  protected StockLocationLineDeltaService stockLocationLineDeltaService;
+
   @Inject
   public StockLocationLineServiceImpl(
       StockLocationLineRepository stockLocationLineRepo,
@@ -82,7 +84,8 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       AppBaseService appBaseService,
       UnitConversionService unitConversionService,
       StockLocationLineHistoryService stockLocationLineHistoryService,
-      StockLocationLineFetchService stockLocationLineFetchService) {
+      StockLocationLineFetchService stockLocationLineFetchService,
+      StockLocationLineDeltaService stockLocationLineDeltaService) {
     this.stockLocationLineRepo = stockLocationLineRepo;
     this.stockRulesService = stockRulesService;
     this.stockMoveLineRepository = stockMoveLineRepository;
@@ -90,6 +93,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
     this.unitConversionService = unitConversionService;
     this.stockLocationLineHistoryService = stockLocationLineHistoryService;
     this.stockLocationLineFetchService = stockLocationLineFetchService;
+    this.stockLocationLineDeltaService = stockLocationLineDeltaService;
   }
 
   @Override
@@ -102,6 +106,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate,
       TrackingNumber trackingNumber,
       boolean generateOrder)
@@ -115,6 +120,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
         current,
         future,
         isIncrement,
+        isIncoming,
         lastFutureStockMoveDate,
         generateOrder);
 
@@ -127,6 +133,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
           current,
           future,
           isIncrement,
+          isIncoming,
           lastFutureStockMoveDate,
           trackingNumber);
     }
@@ -142,6 +149,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate,
       boolean generateOrder)
       throws AxelorException {
@@ -176,6 +184,28 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
         isIncrement,
         lastFutureStockMoveDate);
 
+    if (this.isStockLocationLineDeltaUsed(stockLocationLine)) {
+      if (generateOrder && isIncrement) {
+        maxStockRules(
+            product,
+            qty,
+            stockLocationLineDeltaService.getUpToDateStockLocationLine(stockLocationLine),
+            current,
+            future);
+      }
+      stockLocationLineDeltaService.addDelta(
+          stockLocationLine,
+          qty,
+          current,
+          future,
+          isIncrement,
+          isIncoming,
+          lastFutureStockMoveDate);
+      this.checkStockMin(
+          stockLocationLineDeltaService.getUpToDateStockLocationLine(stockLocationLine), false);
+      return;
+    }
+
     if (generateOrder && isIncrement) {
       maxStockRules(product, qty, stockLocationLine, current, future);
     }
@@ -189,6 +219,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
             current,
             future,
             isIncrement,
+            isIncoming,
             lastFutureStockMoveDate);
 
     this.checkStockMin(stockLocationLine, false);
@@ -196,6 +227,25 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
     stockLocationLineRepo.save(stockLocationLine);
   }
 
+  /**
+   * Whether the update of the stock location line is recorded as a variation instead of being
+   * applied. The new lines and the lines whose planned quantities are not computed yet are updated
+   * directly, to be initialized. No variation is recorded for them, so the update does not need to
+   * lock the line and apply its variations first.
+   */
+  protected boolean isStockLocationLineDeltaUsed(StockLocationLine stockLocationLine) {
+    return stockLocationLine.getId() != null
+        && stockLocationLine.getIsPlannedQtyComputed()
+        && stockLocationLineDeltaService.isStockLocationLineDeltaEnabled();
+  }
+
+  protected void applyStockLocationLineDeltas(StockLocationLine stockLocationLine) {
+    if (stockLocationLine.getId() != null
+        && stockLocationLineDeltaService.isStockLocationLineDeltaEnabled()) {
+      stockLocationLineDeltaService.applyDeltas(stockLocationLine);
+    }
+  }
+
   @Override
   public void maxStockRules(
       Product product,
@@ -260,6 +310,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate,
       TrackingNumber trackingNumber)
       throws AxelorException {
@@ -311,6 +362,20 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
         lastFutureStockMoveDate,
         trackingNumber);
 
+    if (this.isStockLocationLineDeltaUsed(detailLocationLine)) {
+      stockLocationLineDeltaService.addDelta(
+          detailLocationLine,
+          qty,
+          current,
+          future,
+          isIncrement,
+          isIncoming,
+          lastFutureStockMoveDate);
+      this.checkStockMin(
+          stockLocationLineDeltaService.getUpToDateStockLocationLine(detailLocationLine), true);
+      return;
+    }
+
     detailLocationLine =
         this.updateLocation(
             detailLocationLine,
@@ -320,6 +385,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
             current,
             future,
             isIncrement,
+            isIncoming,
             lastFutureStockMoveDate);
 
     this.checkStockMin(detailLocationLine, true);
@@ -413,7 +479,8 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
     BigDecimal convertedQty =
         unitConversionService.convert(unit, stockLocationLine.getUnit(), qty, qty.scale(), product);
 
-    if (stockLocationLine.getCurrentQty().compareTo(convertedQty) < 0) {
+    if (stockLocationLineDeltaService.getCurrentQty(stockLocationLine).compareTo(convertedQty)
+        < 0) {
       throw new AxelorException(
           stockLocationLine,
           TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
@@ -432,6 +499,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       boolean current,
       boolean future,
       boolean isIncrement,
+      boolean isIncoming,
       LocalDate lastFutureStockMoveDate)
       throws AxelorException {
 
@@ -443,6 +511,9 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       }
     }
     if (future) {
+      if (!current) {
+        this.updatePlannedQty(stockLocationLine, qty, isIncrement, isIncoming);
+      }
       stockLocationLine.setFutureQty(computeFutureQty(stockLocationLine));
       stockLocationLine.setLastFutureStockMoveDate(lastFutureStockMoveDate);
     }
@@ -450,6 +521,29 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
     return stockLocationLine;
   }
 
+  /**
+   * Update the planned incoming or outgoing quantity of the stock location line. A stock move line
+   * entering the planned status increases the future quantity of its destination and decreases the
+   * one of its origin, and the other way around when it leaves the planned status.
+   */
+  protected void updatePlannedQty(
+      StockLocationLine stockLocationLine,
+      BigDecimal qty,
+      boolean isIncrement,
+      boolean isIncoming) {
+    if (isIncoming) {
+      stockLocationLine.setPlannedIncomingQty(
+          isIncrement
+              ? stockLocationLine.getPlannedIncomingQty().add(qty)
+              : stockLocationLine.getPlannedIncomingQty().subtract(qty));
+    } else {
+      stockLocationLine.setPlannedOutgoingQty(
+          isIncrement
+              ? stockLocationLine.getPlannedOutgoingQty().subtract(qty)
+              : stockLocationLine.getPlannedOutgoingQty().add(qty));
+    }
+  }
+
   @Override
   public StockLocationLine getOrCreateStockLocationLine(
       StockLocation stockLocation, Product product) {
@@ -549,6 +643,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
     Unit stockLocationUnit = stockLocationLine.getUnit();
 
     if (productUnit != null && !productUnit.equals(stockLocationUnit)) {
+      this.applyStockLocationLineDeltas(stockLocationLine);
       int scale = appBaseService.getNbDecimalDigitForUnitPrice();
       int qtyScale = appBaseService.getNbDecimalDigitForQty();
       BigDecimal oldQty = stockLocationLine.getCurrentQty();
@@ -564,7 +659,7 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       stockLocationLine.setCurrentQty(currentQty);
 
       stockLocationLine.setUnit(product.getUnit());
-      stockLocationLine.setFutureQty(computeFutureQty(stockLocationLine));
+      this.updatePlannedQty(stockLocationLine);
 
       BigDecimal avgQty = BigDecimal.ZERO;
       if (currentQty.compareTo(BigDecimal.ZERO) != 0) {
@@ -589,49 +684,80 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
 
   @Override
   public BigDecimal computeFutureQty(StockLocationLine stockLocationLine) throws AxelorException {
-    // future quantity is current quantity minus planned outgoing stock move lines plus planned
-    // incoming stock move lines.
-
-    Product product = stockLocationLine.getProduct();
-
-    BigDecimal futureQty = stockLocationLine.getCurrentQty();
-
-    List<StockMoveLine> incomingStockMoveLineList =
-        findIncomingPlannedStockMoveLines(stockLocationLine);
-    List<StockMoveLine> outgoingStockMoveLineList =
-        findOutgoingPlannedStockMoveLines(stockLocationLine);
+    // future quantity is current quantity minus planned outgoing quantity plus planned incoming
+    // quantity.
 
     if (stockLocationLine.getUnit() == null) {
       throw new AxelorException(
           TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
           I18n.get(StockExceptionMessage.LOCATION_LINE_MISSING_UNIT),
           stockLocationLine.getStockLocation().getName(),
-          product.getFullName());
+          stockLocationLine.getProduct().getFullName());
     }
 
-    for (StockMoveLine incomingStockMoveLine : incomingStockMoveLineList) {
-      BigDecimal qtyToAdd =
-          unitConversionService.convert(
-              incomingStockMoveLine.getUnit(),
-              stockLocationLine.getUnit(),
-              incomingStockMoveLine.getRealQty(),
-              incomingStockMoveLine.getRealQty().scale(),
-              product);
-      futureQty = futureQty.add(qtyToAdd);
+    // Lines created before the planned quantities were stored, initialized on their first update
+    if (!stockLocationLine.getIsPlannedQtyComputed()) {
+      this.computePlannedQty(stockLocationLine);
     }
 
-    for (StockMoveLine outgoingStockMoveLine : outgoingStockMoveLineList) {
-      BigDecimal qtyToSubtract =
-          unitConversionService.convert(
-              outgoingStockMoveLine.getUnit(),
-              stockLocationLine.getUnit(),
-              outgoingStockMoveLine.getRealQty(),
-              outgoingStockMoveLine.getRealQty().scale(),
-              product);
-      futureQty = futureQty.subtract(qtyToSubtract);
+    return stockLocationLine
+        .getCurrentQty()
+        .add(stockLocationLine.getPlannedIncomingQty())
+        .subtract(stockLocationLine.getPlannedOutgoingQty());
+  }
+
+  @Override
+  public boolean updatePlannedQty(StockLocationLine stockLocationLine) throws AxelorException {
+    BigDecimal plannedIncomingQty = stockLocationLine.getPlannedIncomingQty();
+    BigDecimal plannedOutgoingQty = stockLocationLine.getPlannedOutgoingQty();
+    boolean isPlannedQtyComputed = stockLocationLine.getIsPlannedQtyComputed();
+
+    this.computePlannedQty(stockLocationLine);
+    stockLocationLine.setFutureQty(computeFutureQty(stockLocationLine));
+
+    return !isPlannedQtyComputed
+        || plannedIncomingQty.compareTo(stockLocationLine.getPlannedIncomingQty()) != 0
+        || plannedOutgoingQty.compareTo(stockLocationLine.getPlannedOutgoingQty()) != 0;
+  }
+
+  protected void computePlannedQty(StockLocationLine stockLocationLine) throws AxelorException {
+    stockLocationLine.setPlannedIncomingQty(computePlannedIncomingQty(stockLocationLine));
+    stockLocationLine.setPlannedOutgoingQty(computePlannedOutgoingQty(stockLocationLine));
+    stockLocationLine.setIsPlannedQtyComputed(true);
+  }
+
+  @Override
+  public BigDecimal computePlannedIncomingQty(StockLocationLine stockLocationLine)
+      throws AxelorException {
+    return this.computePlannedQty(
+        stockLocationLine, findIncomingPlannedStockMoveLines(stockLocationLine));
+  }
+
+  @Override
+  public BigDecimal computePlannedOutgoingQty(StockLocationLine stockLocationLine)
+      throws AxelorException {
+    return this.computePlannedQty(
+        stockLocationLine, findOutgoingPlannedStockMoveLines(stockLocationLine));
+  }
+
+  protected BigDecimal computePlannedQty(
+      StockLocationLine stockLocationLine, List<StockMoveLine> stockMoveLineList)
+      throws AxelorException {
+    Product product = stockLocationLine.getProduct();
+    BigDecimal plannedQty = BigDecimal.ZERO;
+
+    for (StockMoveLine stockMoveLine : stockMoveLineList) {
+      plannedQty =
+          plannedQty.add(
+              unitConversionService.convert(
+                  stockMoveLine.getUnit(),
+                  stockLocationLine.getUnit(),
+                  stockMoveLine.getRealQty(),
+                  stockMoveLine.getRealQty().scale(),
+                  product));
     }
 
-    return futureQty;
+    return plannedQty;
   }
 
   protected List<StockMoveLine> findIncomingPlannedStockMoveLines(
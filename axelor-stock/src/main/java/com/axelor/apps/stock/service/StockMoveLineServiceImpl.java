@@ -94,6 +94,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
   protected StockLocationLineHistoryService stockLocationLineHistoryService;
   protected StockLocationLineFetchService stockLocationLineFetchService;
   protected TrackingNumberCreateService trackingNumberCreateService;
+  protected StockLocationLineDeltaService stockLocationLineDeltaService;
 
   @Inject
   public StockMoveLineServiceImpl(
@@ -110,7 +111,8 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
       ShippingCoefService shippingCoefService,
       StockLocationLineHistoryService stockLocationLineHistoryService,
       StockLocationLineFetchService stockLocationLineFetchService,
-      TrackingNumberCreateService trackingNumberCreateService) {
+      TrackingNumberCreateService trackingNumberCreateService,
+      StockLocationLineDeltaService stockLocationLineDeltaService) {
     this.trackingNumberService = trackingNumberService;
     this.appBaseService = appBaseService;
     this.appStockService = appStockService;
@@ -125,6 +127,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
     this.stockLocationLineHistoryService = stockLocationLineHistoryService;
     this.stockLocationLineFetchService = stockLocationLineFetchService;
     this.trackingNumberCreateService = trackingNumberCreateService;
+    this.stockLocationLineDeltaService = stockLocationLineDeltaService;
   }
 
   @Override
@@ -825,7 +828,8 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
               stockMoveLine.getProduct());
     }
 
-    BigDecimal oldQty = stockLocationLine.getCurrentQty().subtract(newQty);
+    BigDecimal oldQty =
+        stockLocationLineDeltaService.getCurrentQty(stockLocationLine).subtract(newQty);
 
     log.debug(
         "Old price: {}, Old quantity: {}, New price: {}, New quantity: {}",
@@ -1001,6 +1005,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             false,
             true,
             true,
+            false,
             null,
             trackingNumber,
             generateOrder);
@@ -1012,6 +1017,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             false,
             true,
             false,
+            true,
             null,
             trackingNumber,
             generateOrder);
@@ -1026,6 +1032,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             true,
             true,
             true,
+            false,
             null,
             trackingNumber,
             generateOrder);
@@ -1037,6 +1044,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             true,
             true,
             false,
+            true,
             null,
             trackingNumber,
             generateOrder);
@@ -1056,6 +1064,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             false,
             true,
             false,
+            false,
             lastFutureStockMoveDate,
             trackingNumber,
             generateOrder);
@@ -1067,6 +1076,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             false,
             true,
             true,
+            true,
             lastFutureStockMoveDate,
             trackingNumber,
             generateOrder);
@@ -1081,6 +1091,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             true,
             true,
             false,
+            false,
             null,
             trackingNumber,
             generateOrder);
@@ -1092,6 +1103,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             true,
             true,
             true,
+            true,
             null,
             trackingNumber,
             generateOrder);
@@ -1505,7 +1517,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
                   stockLocation, stockMoveLine.getProduct(), stockMoveLine.getTrackingNumber());
 
           if (stockLocationLine != null) {
-            availableQty = stockLocationLine.getCurrentQty();
+            availableQty = stockLocationLineDeltaService.getCurrentQty(stockLocationLine);
           }
         }
 
@@ -1515,7 +1527,8 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
                   stockLocation, stockMoveLine.getProduct());
 
           if (stockLocationLineForProduct != null) {
-            availableQtyForProduct = stockLocationLineForProduct.getCurrentQty();
+            availableQtyForProduct =
+                stockLocationLineDeltaService.getCurrentQty(stockLocationLineForProduct);
           }
         }
       } else {
@@ -1524,7 +1537,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
                 stockLocation, stockMoveLine.getProduct());
 
         if (stockLocationLine != null) {
-          availableQty = stockLocationLine.getCurrentQty();
+          availableQty = stockLocationLineDeltaService.getCurrentQty(stockLocationLine);
         }
       }
     }
@@ -0,0 +1,147 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service.batch;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.repo.BatchRepository;
+import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
+import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.apps.base.service.administration.KeysetQuery;
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.stock.db.StockLocationLine;
+import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
+import com.axelor.apps.stock.exception.StockExceptionMessage;
+import com.axelor.apps.stock.service.StockLocationLineDeltaService;
+import com.axelor.apps.stock.service.StockLocationLineService;
+import com.axelor.db.JPA;
+import com.axelor.i18n.I18n;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.util.List;
+
+/**
+ * Check the planned incoming and outgoing quantities maintained in the stock location lines against
+ * the planned stock move lines, and correct the lines where they differ.
+ */
+public class BatchCheckStockLocationLinePlannedQty extends AbstractBatch {
+
+  protected StockLocationLineService stockLocationLineService;
+  protected StockLocationLineDeltaService stockLocationLineDeltaService;
+  protected StockLocationLineRepository stockLocationLineRepository;
+
+  protected int correctedNb;
+
+  @Inject
+  public BatchCheckStockLocationLinePlannedQty(
+      StockLocationLineService stockLocationLineService,
+      StockLocationLineDeltaService stockLocationLineDeltaService,
+      StockLocationLineRepository stockLocationLineRepository) {
+    this.stockLocationLineService = stockLocationLineService;
+    this.stockLocationLineDeltaService = stockLocationLineDeltaService;
+    this.stockLocationLineRepository = stockLocationLineRepository;
+  }
+
+  @Override
+  protected void process() {
+    List<StockLocationLine> stockLocationLineList;
+    KeysetQuery<StockLocationLine> query = buildQueryFetchStockLocationLine();
+
+    while (!(stockLocationLineList = fetchNext(query)).isEmpty()) {
+      for (StockLocationLine stockLocationLine : stockLocationLineList) {
+        try {
+          if (checkPlannedQty(stockLocationLineRepository.find(stockLocationLine.getId()))) {
+            correctedNb++;
+          }
+          incrementDone();
+        } catch (Exception e) {
+          incrementAnomaly();
+          TraceBackService.trace(e, ExceptionOriginRepository.CHECK_PLANNED_QTY, batch.getId());
+        }
+      }
+      JPA.clear();
+    }
+  }
+
+  protected KeysetQuery<StockLocationLine> buildQueryFetchStockLocationLine() {
+    Company company = batch.getStockBatch().getCompany();
+    if (company == null) {
+      return new KeysetQuery<>(StockLocationLine.class, null);
+    }
+    return new KeysetQuery<>(
+            StockLocationLine.class,
+            "self.stockLocation.company.id = :companyId "
+                + "OR self.detailsStockLocation.company.id = :companyId")
+        .bind("companyId", company.getId());
+  }
+
+  /**
+   * Compare the planned quantities of the stock location line with the planned stock move lines,
+   * and update the line if they differ or were never computed.
+   *
+   * @param stockLocationLine the stock location line to check
+   * @return true if the stock location line was corrected
+   */
+  @Transactional(rollbackOn = {Exception.class})
+  protected boolean checkPlannedQty(StockLocationLine stockLocationLine) throws AxelorException {
+    if (stockLocationLineDeltaService.isStockLocationLineDeltaEnabled()) {
+      stockLocationLineDeltaService.applyDeltas(stockLocationLine);
+    }
+
+    if (!stockLocationLineService.updatePlannedQty(stockLocationLine)) {
+      return false;
+    }
+
+    stockLocationLineRepository.save(stockLocationLine);
+    return true;
+  }
+
+  @Override
+  protected void stop() {
+    String comment = I18n.get(StockExceptionMessage.BATCH_CHECK_PLANNED_QTY_1) + " ";
+    comment +=
+        String.format(
+            "\t* %s " + I18n.get(StockExceptionMessage.BATCH_CHECK_PLANNED_QTY_2) + "\n",
+            batch.getDone());
+    comment +=
+        String.format(
+            "\t* %s " + I18n.get(StockExceptionMessage.BATCH_CHECK_PLANNED_QTY_3) + "\n",
+            correctedNb);
+    comment +=
+        String.format("\t" + I18n.get(BaseExceptionMessage.BASE_BATCH_3), batch.getAnomaly());
+
+    super.stop();
+    addComment(comment);
+  }
+
+  @Override
+  protected Integer getFetchLimit() {
+    Integer batchFetchLimit = this.batch.getStockBatch().getFetchLimit();
+    if (batchFetchLimit == 0) {
+      batchFetchLimit = super.getFetchLimit();
+    }
+    return batchFetchLimit;
+  }
+
+  @Override
+  protected void setBatchTypeSelect() {
+    this.batch.setBatchTypeSelect(BatchRepository.BATCH_TYPE_STOCK_BATCH);
+  }
+}
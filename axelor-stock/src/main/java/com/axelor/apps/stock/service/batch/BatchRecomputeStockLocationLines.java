@@ -19,38 +19,110 @@
 package com.axelor.apps.stock.service.batch;
 
 import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.Unit;
 import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
+import com.axelor.apps.base.db.repo.ProductRepository;
+import com.axelor.apps.base.service.ProductCompanyService;
+import com.axelor.apps.base.service.UnitConversionService;
 import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.stock.db.StockLocationLine;
 import com.axelor.apps.stock.db.StockMove;
 import com.axelor.apps.stock.db.StockMoveLine;
+import com.axelor.apps.stock.db.repo.StockLocationLineHistoryRepository;
+import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
 import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.apps.stock.db.repo.StockMoveLineRepository;
 import com.axelor.apps.stock.db.repo.StockMoveRepository;
+import com.axelor.apps.stock.db.repo.TrackingNumberRepository;
+import com.axelor.apps.stock.service.StockLocationLineService;
 import com.axelor.apps.stock.service.StockMoveLineService;
 import com.axelor.apps.stock.service.StockMoveService;
+import com.axelor.apps.stock.service.WeightedAveragePriceService;
+import com.axelor.apps.stock.service.batch.model.StockLocationLineKey;
+import com.axelor.apps.stock.service.batch.model.StockLocationLineReplay;
 import com.axelor.apps.stock.service.batch.model.StockMoveGroup;
 import com.axelor.apps.stock.service.batch.model.StockMoveLineOrigin;
 import com.axelor.apps.stock.service.batch.model.TrackProduct;
+import com.axelor.auth.AuthUtils;
+import com.axelor.auth.db.User;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.hibernate.jpa.QueryHints;
 
 public class BatchRecomputeStockLocationLines extends AbstractBatch {
 
+  protected static final int REPLAY_CHUNK_SIZE = 1000;
+
+  /**
+   * Realized stock move lines of the products, product by product, in the order used by the
+   * standard recomputation: realization date and type of the destination.
+   */
+  protected static final String REALIZED_STOCK_MOVE_LINE_QUERY =
+      "SELECT self.product.id, trackingNumber.id, "
+          + "fromStockLocation.id, fromStockLocation.typeSelect, "
+          + "toStockLocation.id, toStockLocation.typeSelect, "
+          + "self.realQty, unit, self.wapPrice, self.companyUnitPriceUntaxed, "
+          + "stockMove.realDate, stockMove.stockMoveSeq "
+          + "FROM StockMoveLine self "
+          + "JOIN self.stockMove stockMove "
+          + "JOIN self.fromStockLocation fromStockLocation "
+          + "JOIN self.toStockLocation toStockLocation "
+          + "LEFT JOIN self.trackingNumber trackingNumber "
+          + "LEFT JOIN self.unit unit "
+          + "WHERE stockMove.statusSelect = :realized "
+          + "AND (self.archived IS NULL OR self.archived = false) "
+          + "AND self.product.id IN (:productIdList) "
+          + "ORDER BY self.product.id, stockMove.realDate, toStockLocation.typeSelect, "
+          + "stockMove.id, self.id";
+
+  protected static final String INSERT_HISTORY_QUERY =
+      "INSERT INTO stock_stock_location_line_history "
+          + "(id, version, created_on, created_by, stock_location_line, type_select, date_t, "
+          + "origin, wap, qty, unit, sale_price, purchase_price, cost_price) "
+          + "VALUES (nextval('stock_stock_location_line_history_seq'), 0, "
+          + "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
   protected StockMoveRepository stockMoveRepository;
   protected StockMoveService stockMoveService;
   protected StockMoveLineService stockMoveLineService;
   protected StockMoveLineRepository stockMoveLineRepository;
   protected StockLocationRepository stockLocationRepository;
+  protected StockLocationLineService stockLocationLineService;
+  protected StockLocationLineRepository stockLocationLineRepository;
+  protected TrackingNumberRepository trackingNumberRepository;
+  protected ProductRepository productRepository;
+  protected UnitConversionService unitConversionService;
+  protected ProductCompanyService productCompanyService;
+  protected WeightedAveragePriceService weightedAveragePriceService;
 
   @Inject
   public BatchRecomputeStockLocationLines(
@@ -58,13 +130,27 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
       StockMoveService stockMoveService,
       StockMoveLineService stockMoveLineService,
       StockMoveLineRepository stockMoveLineRepository,
-      StockLocationRepository stockLocationRepository) {
+      StockLocationRepository stockLocationRepository,
+      StockLocationLineService stockLocationLineService,
+      StockLocationLineRepository stockLocationLineRepository,
+      TrackingNumberRepository trackingNumberRepository,
+      ProductRepository productRepository,
+      UnitConversionService unitConversionService,
+      ProductCompanyService productCompanyService,
+      WeightedAveragePriceService weightedAveragePriceService) {
 
     this.stockMoveLineRepository = stockMoveLineRepository;
     this.stockMoveRepository = stockMoveRepository;
     this.stockMoveService = stockMoveService;
     this.stockMoveLineService = stockMoveLineService;
     this.stockLocationRepository = stockLocationRepository;
+    this.stockLocationLineService = stockLocationLineService;
+    this.stockLocationLineRepository = stockLocationLineRepository;
+    this.trackingNumberRepository = trackingNumberRepository;
+    this.productRepository = productRepository;
+    this.unitConversionService = unitConversionService;
+    this.productCompanyService = productCompanyService;
+    this.weightedAveragePriceService = weightedAveragePriceService;
   }
 
   @Override
@@ -73,6 +159,17 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
     resetStockLocations();
     List<StockMoveGroup> groups = fetchStockMoveGroup();
 
+    if (batch.getStockBatch().getIsInMemoryReplay()) {
+      replayRealizedStockMoveLines();
+    } else {
+      recomputeRealizedStockMoves(groups);
+    }
+
+    // Updating planned quantities
+    recomputePlannedQty();
+  }
+
+  protected void recomputeRealizedStockMoves(List<StockMoveGroup> groups) {
     // Recomputing stockLocationLine with realized stock move
     groups.stream()
         .filter(
@@ -91,23 +188,392 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
                 JPA.clear();
               }
             });
+  }
 
-    // Updating planned quantities
-    groups.stream()
-        .filter(
-            stockMoveGroup ->
-                stockMoveGroup.getStatusSelect() == StockMoveRepository.STATUS_PLANNED)
-        .forEachOrdered(
-            stockMoveGroup -> {
-              try {
-                updatePlannedQty(stockMoveGroup);
-                incrementDone();
-              } catch (Exception e) {
-                incrementAnomaly();
-                TraceBackService.trace(
-                    e, ExceptionOriginRepository.RECOMPUTE_STOCK_MOVE_LINES, batch.getId());
+  /**
+   * Replay the realized stock move lines in memory instead of realizing them again one group after
+   * the other. The products are split in partitions processed in parallel, the stock location
+   * lines and history rows of a product being written once all its lines are replayed. The
+   * products whose replay fails are recomputed with the stock move services instead.
+   */
+  protected void replayRealizedStockMoveLines() {
+    int priceScale = appBaseService.getNbDecimalDigitForUnitPrice();
+    LocalDateTime defaultDateT = appBaseService.getTodayDateTime().toLocalDateTime();
+
+    List<Long> productIdList =
+        JPA.em()
+            .createQuery(
+                "SELECT DISTINCT self.product.id FROM StockMoveLine self "
+                    + "WHERE self.stockMove.statusSelect = :realized "
+                    + "AND (self.archived IS NULL OR self.archived = false) "
+                    + "AND self.product.productTypeSelect = :storable "
+                    + "AND self.product.stockManaged = true",
+                Long.class)
+            .setParameter("realized", StockMoveRepository.STATUS_REALIZED)
+            .setParameter("storable", ProductRepository.PRODUCT_TYPE_STORABLE)
+            .getResultList();
+
+    processPartitions(
+        partitionIds(productIdList),
+        productIdSubList -> {
+          Set<Long> savedProductIdSet = new HashSet<>();
+          Set<Long> failedProductIdSet = new HashSet<>();
+          try {
+            replayStockMoveLines(
+                productIdSubList,
+                priceScale,
+                defaultDateT,
+                savedProductIdSet,
+                failedProductIdSet);
+          } catch (Exception e) {
+            // The lines could not be read, the products not written yet are not replayed
+            incrementAnomaly();
+            TraceBackService.trace(
+                e, ExceptionOriginRepository.RECOMPUTE_STOCK_MOVE_LINES, batch.getId());
+            productIdSubList.stream()
+                .filter(productId -> !savedProductIdSet.contains(productId))
+                .forEach(failedProductIdSet::add);
+            JPA.clear();
+          }
+          recomputeRealizedStockMoveLines(
+              productIdSubList.stream()
+                  .filter(failedProductIdSet::contains)
+                  .collect(Collectors.toList()));
+        });
+  }
+
+  /**
+   * Replay the realized stock move lines of the products, read through a cursor product by product
+   * in the order of their realization. The stock location lines of a product are written as soon
+   * as its last line is read, so that only one product is kept in memory. A product whose line
+   * cannot be replayed, for example because of a missing unit conversion, is traced as an anomaly
+   * and its next lines are skipped.
+   *
+   * @param savedProductIdSet filled with the products whose stock location lines were written
+   * @param failedProductIdSet filled with the products whose replay failed
+   */
+  protected void replayStockMoveLines(
+      List<Long> productIdList,
+      int priceScale,
+      LocalDateTime defaultDateT,
+      Set<Long> savedProductIdSet,
+      Set<Long> failedProductIdSet) {
+    // The cursor has its own entity manager, so that each product is written in its own
+    // transaction and the persistence context can be cleared while it stays open
+    EntityManager cursorEntityManager = JPA.em().getEntityManagerFactory().createEntityManager();
+    try {
+      cursorEntityManager.getTransaction().begin();
+      TypedQuery<Object[]> query =
+          cursorEntityManager
+              .createQuery(REALIZED_STOCK_MOVE_LINE_QUERY, Object[].class)
+              .setParameter("realized", StockMoveRepository.STATUS_REALIZED)
+              .setParameter("productIdList", productIdList)
+              .setHint(QueryHints.HINT_FETCH_SIZE, REPLAY_CHUNK_SIZE);
+
+      try (Stream<Object[]> resultStream = query.getResultStream()) {
+        Iterator<Object[]> resultIterator = resultStream.iterator();
+        Product product = null;
+        StockLocationLineReplay stockLocationLineReplay = null;
+        while (resultIterator.hasNext()) {
+          Object[] result = resultIterator.next();
+          Long productId = (Long) result[0];
+          if (product == null || !product.getId().equals(productId)) {
+            saveReplayedStockLocationLines(
+                product, stockLocationLineReplay, savedProductIdSet, failedProductIdSet);
+            product = productRepository.find(productId);
+            stockLocationLineReplay = new StockLocationLineReplay(priceScale);
+          }
+          if (failedProductIdSet.contains(productId)) {
+            continue;
+          }
+          try {
+            replayStockMoveLine(stockLocationLineReplay, product, result, defaultDateT);
+          } catch (Exception e) {
+            incrementAnomaly();
+            TraceBackService.trace(
+                e, ExceptionOriginRepository.RECOMPUTE_STOCK_MOVE_LINES, batch.getId());
+            failedProductIdSet.add(productId);
+          }
+        }
+        saveReplayedStockLocationLines(
+            product, stockLocationLineReplay, savedProductIdSet, failedProductIdSet);
+      }
+    } finally {
+      if (cursorEntityManager.getTransaction().isActive()) {
+        cursorEntityManager.getTransaction().rollback();
+      }
+      cursorEntityManager.close();
+    }
+  }
+
+  /**
+   * Replay a realized stock move line, given as a row of {@link #REALIZED_STOCK_MOVE_LINE_QUERY}.
+   */
+  protected void replayStockMoveLine(
+      StockLocationLineReplay stockLocationLineReplay,
+      Product product,
+      Object[] result,
+      LocalDateTime defaultDateT)
+      throws AxelorException {
+    Unit stockMoveLineUnit = (Unit) result[7];
+    BigDecimal qty = (BigDecimal) result[6];
+    BigDecimal price = result[8] != null ? (BigDecimal) result[8] : (BigDecimal) result[9];
+    price = price != null ? price : BigDecimal.ZERO;
+    LocalDate realDate = (LocalDate) result[10];
+
+    // Same conversions as when computing the average price of a realized line
+    Unit productUnit = product.getUnit();
+    if (productUnit != null && !productUnit.equals(stockMoveLineUnit)) {
+      qty =
+          unitConversionService.convert(stockMoveLineUnit, productUnit, qty, qty.scale(), product);
+      price =
+          unitConversionService.convert(
+              productUnit, stockMoveLineUnit, price, price.scale(), product);
+    }
+
+    stockLocationLineReplay.realize(
+        product.getId(),
+        (Long) result[1],
+        (Long) result[2],
+        (Integer) result[3] == StockLocationRepository.TYPE_VIRTUAL,
+        (Long) result[4],
+        (Integer) result[5] == StockLocationRepository.TYPE_VIRTUAL,
+        qty,
+        price,
+        realDate != null ? realDate.atStartOfDay() : defaultDateT,
+        result[11] != null ? (String) result[11] : "");
+  }
+
+  /**
+   * Recompute the stock location lines of the products whose replay failed, realizing again their
+   * realized stock move lines through the stock move services as the standard recomputation.
+   *
+   * @param productIdList the products whose replay failed
+   */
+  protected void recomputeRealizedStockMoveLines(List<Long> productIdList) {
+    for (Long productId : productIdList) {
+      try {
+        recomputeRealizedStockMoveLines(productId);
+        incrementDone();
+      } catch (Exception e) {
+        incrementAnomaly();
+        TraceBackService.trace(
+            e, ExceptionOriginRepository.RECOMPUTE_STOCK_MOVE_LINES, batch.getId());
+      } finally {
+        JPA.clear();
+      }
+    }
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void recomputeRealizedStockMoveLines(Long productId) throws AxelorException {
+    List<StockMoveLine> stockMoveLineList =
+        stockMoveLineRepository
+            .all()
+            .filter(
+                "self.stockMove.statusSelect = :realized "
+                    + "AND (self.archived IS NULL OR self.archived = false) "
+                    + "AND self.product.id = :productId")
+            .bind("realized", StockMoveRepository.STATUS_REALIZED)
+            .bind("productId", productId)
+            .order("stockMove.realDate")
+            .order("toStockLocation.typeSelect")
+            .order("stockMove.id")
+            .order("id")
+            .fetch();
+
+    for (StockMoveLine stockMoveLine : stockMoveLineList) {
+      StockMove stockMove = stockMoveLine.getStockMove();
+      stockMoveLineService.updateLocations(
+          StockMoveRepository.STATUS_PLANNED,
+          StockMoveRepository.STATUS_REALIZED,
+          Collections.singletonList(stockMoveLineRepository.copy(stockMoveLine, false)),
+          null,
+          false,
+          stockMove.getRealDate(),
+          getOrigin(stockMove),
+          true);
+    }
+  }
+
+  /**
+   * Write the replayed stock location lines of a product, unless its replay failed.
+   *
+   * @param product the product, null before the first line is read
+   * @param stockLocationLineReplay the replayed stock location lines of the product
+   * @param savedProductIdSet filled with the product once written
+   * @param failedProductIdSet the products whose replay failed
+   */
+  protected void saveReplayedStockLocationLines(
+      Product product,
+      StockLocationLineReplay stockLocationLineReplay,
+      Set<Long> savedProductIdSet,
+      Set<Long> failedProductIdSet) {
+    if (product == null || failedProductIdSet.contains(product.getId())) {
+      return;
+    }
+    Long productId = product.getId();
+    savedProductIdSet.add(productId);
+    try {
+      saveReplayedStockLocationLines(
+          productId, new ArrayList<>(stockLocationLineReplay.getStateMap().entrySet()));
+      incrementDone();
+    } catch (Exception e) {
+      incrementAnomaly();
+      TraceBackService.trace(
+          e, ExceptionOriginRepository.RECOMPUTE_STOCK_MOVE_LINES, batch.getId());
+    } finally {
+      JPA.clear();
+    }
+  }
+
+  /**
+   * Update the stock location lines of a product from their replayed state, write their history
+   * rows and compute the average price of the product.
+   *
+   * @param productId the product
+   * @param entryList the replayed stock location lines of the product
+   */
+  @Transactional(rollbackOn = {Exception.class})
+  protected void saveReplayedStockLocationLines(
+      Long productId, List<Entry<StockLocationLineKey, StockLocationLineReplay.State>> entryList)
+      throws AxelorException {
+    Product product = productRepository.find(productId);
+    Map<StockLocationLineKey, StockLocationLine> stockLocationLineMap =
+        stockLocationLineRepository
+            .all()
+            .filter("self.product.id = :productId")
+            .bind("productId", productId)
+            .fetch()
+            .stream()
+            .collect(
+                Collectors.toMap(
+                    this::getStockLocationLineKey, Function.identity(), (line1, line2) -> line1));
+    Map<Company, BigDecimal[]> priceMap = new HashMap<>();
+    Map<StockLocationLine, StockLocationLineReplay.State> historyStateMap = new LinkedHashMap<>();
+
+    for (Entry<StockLocationLineKey, StockLocationLineReplay.State> entry : entryList) {
+      StockLocationLineKey stockLocationLineKey = entry.getKey();
+      StockLocationLineReplay.State state = entry.getValue();
+
+      StockLocationLine stockLocationLine = stockLocationLineMap.get(stockLocationLineKey);
+      if (stockLocationLine == null) {
+        stockLocationLine = createStockLocationLine(stockLocationLineKey, product);
+      }
+      stockLocationLine.setCurrentQty(state.getCurrentQty());
+      stockLocationLine.setFutureQty(state.getCurrentQty());
+      if (!stockLocationLineKey.isDetail()) {
+        stockLocationLine.setAvgPrice(state.getAvgPrice());
+      }
+      stockLocationLine = stockLocationLineRepository.save(stockLocationLine);
+
+      if (!state.getHistoryList().isEmpty()) {
+        historyStateMap.put(stockLocationLine, state);
+      }
+    }
+
+    // The history rows reference the stock location lines created above
+    JPA.flush();
+    Map<StockLocationLine, BigDecimal[]> historyPriceMap = new HashMap<>();
+    for (StockLocationLine stockLocationLine : historyStateMap.keySet()) {
+      historyPriceMap.put(
+          stockLocationLine,
+          getPrices(product, stockLocationLine.getStockLocation().getCompany(), priceMap));
+    }
+    insertHistories(historyStateMap, historyPriceMap);
+
+    weightedAveragePriceService.computeAvgPriceForProduct(product);
+  }
+
+  /**
+   * Insert the history rows of the replayed stock location lines with JDBC batches, instead of
+   * persisting them one at a time.
+   *
+   * @param historyStateMap the replayed state of each stock location line
+   * @param historyPriceMap the sale, purchase and cost prices of each stock location line
+   */
+  protected void insertHistories(
+      Map<StockLocationLine, StockLocationLineReplay.State> historyStateMap,
+      Map<StockLocationLine, BigDecimal[]> historyPriceMap) {
+    if (historyStateMap.isEmpty()) {
+      return;
+    }
+    Timestamp createdOn = Timestamp.valueOf(LocalDateTime.now());
+    Long createdById = Optional.ofNullable(AuthUtils.getUser()).map(User::getId).orElse(null);
+
+    JPA.jdbcWork(
+        connection -> {
+          try (PreparedStatement statement = connection.prepareStatement(INSERT_HISTORY_QUERY)) {
+            int count = 0;
+            for (Entry<StockLocationLine, StockLocationLineReplay.State> entry :
+                historyStateMap.entrySet()) {
+              StockLocationLine stockLocationLine = entry.getKey();
+              BigDecimal[] prices = historyPriceMap.get(stockLocationLine);
+              Long unitId =
+                  stockLocationLine.getUnit() != null ? stockLocationLine.getUnit().getId() : null;
+
+              for (StockLocationLineReplay.History history : entry.getValue().getHistoryList()) {
+                statement.setTimestamp(1, createdOn);
+                statement.setObject(2, createdById, Types.BIGINT);
+                statement.setLong(3, stockLocationLine.getId());
+                statement.setString(4, StockLocationLineHistoryRepository.TYPE_SELECT_STOCK_MOVE);
+                statement.setTimestamp(5, Timestamp.valueOf(history.getDateT()));
+                statement.setString(6, history.getOrigin());
+                statement.setBigDecimal(7, history.getWap());
+                statement.setBigDecimal(8, history.getQty());
+                statement.setObject(9, unitId, Types.BIGINT);
+                statement.setBigDecimal(10, prices[0]);
+                statement.setBigDecimal(11, prices[1]);
+                statement.setBigDecimal(12, prices[2]);
+                statement.addBatch();
+                if (++count % REPLAY_CHUNK_SIZE == 0) {
+                  statement.executeBatch();
+                }
               }
-            });
+            }
+            statement.executeBatch();
+          }
+        });
+  }
+
+  protected BigDecimal[] getPrices(
+      Product product, Company company, Map<Company, BigDecimal[]> priceMap)
+      throws AxelorException {
+    BigDecimal[] prices = priceMap.get(company);
+    if (prices == null) {
+      prices =
+          new BigDecimal[] {
+            (BigDecimal) productCompanyService.get(product, "salePrice", company),
+            (BigDecimal) productCompanyService.get(product, "purchasePrice", company),
+            (BigDecimal) productCompanyService.get(product, "costPrice", company)
+          };
+      priceMap.put(company, prices);
+    }
+    return prices;
+  }
+
+  protected StockLocationLine createStockLocationLine(
+      StockLocationLineKey stockLocationLineKey, Product product) {
+    StockLocation stockLocation =
+        stockLocationRepository.find(stockLocationLineKey.getStockLocationId());
+    if (stockLocationLineKey.isDetail()) {
+      return stockLocationLineService.createDetailLocationLine(
+          stockLocation,
+          product,
+          trackingNumberRepository.find(stockLocationLineKey.getTrackingNumberId()));
+    }
+    return stockLocationLineService.createLocationLine(stockLocation, product);
+  }
+
+  protected StockLocationLineKey getStockLocationLineKey(StockLocationLine stockLocationLine) {
+    if (stockLocationLine.getDetailsStockLocation() != null) {
+      return new StockLocationLineKey(
+          stockLocationLine.getDetailsStockLocation().getId(),
+          stockLocationLine.getProduct().getId(),
+          stockLocationLine.getTrackingNumber().getId());
+    }
+    return new StockLocationLineKey(
+        stockLocationLine.getStockLocation().getId(), stockLocationLine.getProduct().getId(), null);
   }
 
   protected void resetStockLocations() {
@@ -118,44 +584,59 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
                 "UPDATE stock_stock_location_line SET "
                     + " avg_price = 0, "
                     + " current_qty = 0, "
-                    + " future_qty = 0 ");
-
-    JPA.runInTransaction(clearWapHistoryLinesQuery::executeUpdate);
+                    + " future_qty = 0, "
+                    + " planned_incoming_qty = 0, "
+                    + " planned_outgoing_qty = 0 ");
+
+    // The pending variations are purged with the quantities they apply to
+    javax.persistence.Query clearStockLocationLineDeltasQuery =
+        JPA.em().createNativeQuery("DELETE FROM stock_stock_location_line_delta");
+
+    JPA.runInTransaction(
+        () -> {
+          clearWapHistoryLinesQuery.executeUpdate();
+          clearStockLocationLineDeltasQuery.executeUpdate();
+        });
   }
 
-  protected void updatePlannedQty(StockMoveGroup stockMoveGroup) throws AxelorException {
-
-    List<StockMoveLine> stockMoveLineList;
-    Query<StockMoveLine> query = buildQueryFetchStockMoveLineFromGroup(stockMoveGroup).order("id");
-    int offSet = 0;
-    while (!(stockMoveLineList = query.fetch(FETCH_LIMIT, offSet)).isEmpty()) {
-
-      for (StockMoveLine stockMoveLine : stockMoveLineList) {
-        stockMoveLineService.updateLocations(
-            StockMoveRepository.STATUS_DRAFT,
-            StockMoveRepository.STATUS_PLANNED,
-            stockMoveLine.getStockMove().getPlannedStockMoveLineList(),
-            stockMoveLine.getStockMove().getEstimatedDate(),
-            false,
-            true);
+  /**
+   * Recompute the planned quantities of the stock location lines from the planned stock move lines,
+   * including the lines edited, archived or deleted while their stock move was planned.
+   */
+  protected void recomputePlannedQty() {
+    List<StockLocationLine> stockLocationLineList;
+    KeysetQuery<StockLocationLine> query = new KeysetQuery<>(StockLocationLine.class, null);
+
+    while (!(stockLocationLineList = fetchNext(query)).isEmpty()) {
+      for (StockLocationLine stockLocationLine : stockLocationLineList) {
+        try {
+          updatePlannedQty(stockLocationLineRepository.find(stockLocationLine.getId()));
+        } catch (Exception e) {
+          incrementAnomaly();
+          TraceBackService.trace(
+              e, ExceptionOriginRepository.RECOMPUTE_STOCK_MOVE_LINES, batch.getId());
+        }
       }
-
-      offSet += FETCH_LIMIT;
       JPA.clear();
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void updatePlannedQty(StockLocationLine stockLocationLine) throws AxelorException {
+    stockLocationLineService.updatePlannedQty(stockLocationLine);
+    stockLocationLineRepository.save(stockLocationLine);
+  }
+
   protected String getOrigin(StockMove stockMove) {
     return Optional.ofNullable(stockMove).map(StockMove::getStockMoveSeq).orElse("");
   }
 
   protected void recomputeStockMoves(StockMoveGroup group) throws AxelorException {
     List<StockMove> stockMoves;
-    Query<StockMove> query = buildQueryFetchStockMoveFromGroup(group).order("id");
+    KeysetQuery<StockMove> query = buildQueryFetchStockMoveFromGroup(group);
     HashMap<TrackProduct, StockMoveLineOrigin> stockMoveLinesMap = new HashMap<>();
-    int offSet = 0;
 
-    while (!(stockMoves = query.fetch(FETCH_LIMIT, offSet)).isEmpty()) {
+    while (!(stockMoves = fetchNext(query)).isEmpty()) {
 
       stockMoves.stream()
           .forEach(
@@ -180,8 +661,6 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
                           }
                         });
               });
-
-      offSet += FETCH_LIMIT;
     }
 
     for (Entry<TrackProduct, StockMoveLineOrigin> entry : stockMoveLinesMap.entrySet()) {
@@ -210,7 +689,8 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
     JPA.runInTransaction(clearStockLocationsHistoryLinesQuery::executeUpdate);
   }
 
-  protected Query<StockMove> buildQueryFetchStockMoveFromGroup(StockMoveGroup stockMoveGroup) {
+  protected KeysetQuery<StockMove> buildQueryFetchStockMoveFromGroup(
+      StockMoveGroup stockMoveGroup) {
 
     StringBuilder query =
         new StringBuilder(
@@ -224,33 +704,7 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
       query.append(" AND self.realDate = :realDate");
     }
 
-    return stockMoveRepository
-        .all()
-        .filter(query.toString())
-        .bind("realDate", stockMoveGroup.getRealDate())
-        .bind("fromStockLocation", stockMoveGroup.getFromStockLocation())
-        .bind("toStockLocation", stockMoveGroup.getToStockLocation())
-        .bind("status", stockMoveGroup.getStatusSelect());
-  }
-
-  protected Query<StockMoveLine> buildQueryFetchStockMoveLineFromGroup(
-      StockMoveGroup stockMoveGroup) {
-
-    StringBuilder query =
-        new StringBuilder(
-            "self.fromStockLocation.id = :fromStockLocation"
-                + " AND self.toStockLocation.id = :toStockLocation"
-                + " AND self.stockMove.statusSelect = :status");
-
-    if (stockMoveGroup.getRealDate() == null) {
-      query.append(" AND self.stockMove.realDate is NULL");
-    } else {
-      query.append(" AND self.stockMove.realDate = :realDate");
-    }
-
-    return stockMoveLineRepository
-        .all()
-        .filter(query.toString())
+    return new KeysetQuery<>(StockMove.class, query.toString())
         .bind("realDate", stockMoveGroup.getRealDate())
         .bind("fromStockLocation", stockMoveGroup.getFromStockLocation())
         .bind("toStockLocation", stockMoveGroup.getToStockLocation())
@@ -306,6 +760,15 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
     return new StockMoveGroup(realDate, fromStockLocation, toStockLocation, status);
   }
 
+  @Override
+  protected Integer getFetchLimit() {
+    Integer batchFetchLimit = this.batch.getStockBatch().getFetchLimit();
+    if (batchFetchLimit == 0) {
+      batchFetchLimit = super.getFetchLimit();
+    }
+    return batchFetchLimit;
+  }
+
   @Override
   protected void setBatchTypeSelect() {
     this.batch.setBatchTypeSelect(BatchRepository.BATCH_TYPE_STOCK_BATCH);
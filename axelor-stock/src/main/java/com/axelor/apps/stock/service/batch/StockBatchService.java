@@ -46,6 +46,9 @@ public class StockBatchService extends AbstractBatchService {
       case StockBatchRepository.ACTION_RECOMPUTE_STOCK_LOCATION_LINE:
         batch = recomputeStockLocationLines(stockBatch);
         break;
+      case StockBatchRepository.ACTION_CHECK_PLANNED_QTY:
+        batch = checkPlannedQty(stockBatch);
+        break;
       default:
         throw new AxelorException(
             TraceBackRepository.CATEGORY_INCONSISTENCY,
@@ -60,4 +63,9 @@ public class StockBatchService extends AbstractBatchService {
 
     return Beans.get(BatchRecomputeStockLocationLines.class).run(stockBatch);
   }
+
+  protected Batch checkPlannedQty(StockBatch stockBatch) {
+
+    return Beans.get(BatchCheckStockLocationLinePlannedQty.class).run(stockBatch);
+  }
 }
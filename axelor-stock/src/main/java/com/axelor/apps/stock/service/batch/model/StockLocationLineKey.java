@@ -0,0 +1,70 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service.batch.model;
+
+import java.util.Objects;
+
+/**
+ * Identifies a stock location line by ids: the stock location line of a product when there is no
+ * tracking number, the detail stock location line otherwise.
+ */
+public class StockLocationLineKey {
+
+  private final Long stockLocationId;
+  private final Long productId;
+  private final Long trackingNumberId;
+
+  public StockLocationLineKey(Long stockLocationId, Long productId, Long trackingNumberId) {
+    this.stockLocationId = Objects.requireNonNull(stockLocationId);
+    this.productId = Objects.requireNonNull(productId);
+    this.trackingNumberId = trackingNumberId;
+  }
+
+  public Long getStockLocationId() {
+    return stockLocationId;
+  }
+
+  public Long getProductId() {
+    return productId;
+  }
+
+  public Long getTrackingNumberId() {
+    return trackingNumberId;
+  }
+
+  public boolean isDetail() {
+    return trackingNumberId != null;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof StockLocationLineKey)) {
+      return false;
+    }
+    StockLocationLineKey stockLocationLineKey = (StockLocationLineKey) obj;
+    return stockLocationId.equals(stockLocationLineKey.stockLocationId)
+        && productId.equals(stockLocationLineKey.productId)
+        && Objects.equals(trackingNumberId, stockLocationLineKey.trackingNumberId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(stockLocationId, productId, trackingNumberId);
+  }
+}
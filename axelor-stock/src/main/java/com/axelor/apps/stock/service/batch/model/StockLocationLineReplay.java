@@ -0,0 +1,170 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service.batch.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory replay of realized stock move lines on the stock location lines. The lines must be
+ * given in the order of their realization. Quantities and average prices are computed the same way
+ * as when a stock move is realized, and the history rows that the realization would create are
+ * kept to be written once all the lines of the product are replayed.
+ */
+public class StockLocationLineReplay {
+
+  private final int priceScale;
+  private final Map<StockLocationLineKey, State> stateMap = new HashMap<>();
+
+  /** @param priceScale the scale of the average prices */
+  public StockLocationLineReplay(int priceScale) {
+    this.priceScale = priceScale;
+  }
+
+  /**
+   * Replay the realization of a stock move line.
+   *
+   * @param productId the product of the line
+   * @param trackingNumberId the tracking number of the line, may be null
+   * @param fromStockLocationId the origin stock location
+   * @param fromVirtual whether the origin stock location is virtual
+   * @param toStockLocationId the destination stock location
+   * @param toVirtual whether the destination stock location is virtual
+   * @param qty the real quantity, in the unit of the product
+   * @param price the price used to compute the average price, in the unit of the product
+   * @param dateT the date of the history rows
+   * @param origin the origin of the history rows
+   */
+  public void realize(
+      Long productId,
+      Long trackingNumberId,
+      Long fromStockLocationId,
+      boolean fromVirtual,
+      Long toStockLocationId,
+      boolean toVirtual,
+      BigDecimal qty,
+      BigDecimal price,
+      LocalDateTime dateT,
+      String origin) {
+    State fromState = getState(new StockLocationLineKey(fromStockLocationId, productId, null));
+    State toState = getState(new StockLocationLineKey(toStockLocationId, productId, null));
+
+    fromState.currentQty = fromState.currentQty.subtract(qty);
+    if (trackingNumberId != null) {
+      State fromDetailState =
+          getState(new StockLocationLineKey(fromStockLocationId, productId, trackingNumberId));
+      fromDetailState.currentQty = fromDetailState.currentQty.subtract(qty);
+    }
+    toState.currentQty = toState.currentQty.add(qty);
+    if (trackingNumberId != null) {
+      State toDetailState =
+          getState(new StockLocationLineKey(toStockLocationId, productId, trackingNumberId));
+      toDetailState.currentQty = toDetailState.currentQty.add(qty);
+    }
+
+    // Average price is not recomputed for outgoing lines
+    if (!fromVirtual) {
+      fromState.addHistory(dateT, origin);
+    }
+    if (!toVirtual) {
+      toState.avgPrice = computeAvgPrice(toState, qty, price);
+      toState.addHistory(dateT, origin);
+    }
+  }
+
+  protected BigDecimal computeAvgPrice(State state, BigDecimal newQty, BigDecimal newPrice) {
+    BigDecimal oldQty = state.currentQty.subtract(newQty);
+    BigDecimal sum = state.avgPrice.multiply(oldQty).add(newPrice.multiply(newQty));
+    BigDecimal denominator = oldQty.add(newQty);
+    if (denominator.signum() == 0) {
+      return state.avgPrice;
+    }
+    return sum.divide(denominator, priceScale, RoundingMode.HALF_UP);
+  }
+
+  protected State getState(StockLocationLineKey stockLocationLineKey) {
+    return stateMap.computeIfAbsent(stockLocationLineKey, key -> new State());
+  }
+
+  public Map<StockLocationLineKey, State> getStateMap() {
+    return Collections.unmodifiableMap(stateMap);
+  }
+
+  /** Replayed quantity and average price of a stock location line. */
+  public static class State {
+
+    private BigDecimal currentQty = BigDecimal.ZERO;
+    private BigDecimal avgPrice = BigDecimal.ZERO;
+    private final List<History> historyList = new ArrayList<>();
+
+    public BigDecimal getCurrentQty() {
+      return currentQty;
+    }
+
+    public BigDecimal getAvgPrice() {
+      return avgPrice;
+    }
+
+    public List<History> getHistoryList() {
+      return historyList;
+    }
+
+    protected void addHistory(LocalDateTime dateT, String origin) {
+      historyList.add(new History(dateT, origin, currentQty, avgPrice));
+    }
+  }
+
+  /** A history row of a stock location line, with the quantity and average price at that time. */
+  public static class History {
+
+    private final LocalDateTime dateT;
+    private final String origin;
+    private final BigDecimal qty;
+    private final BigDecimal wap;
+
+    public History(LocalDateTime dateT, String origin, BigDecimal qty, BigDecimal wap) {
+      this.dateT = dateT;
+      this.origin = origin;
+      this.qty = qty;
+      this.wap = wap;
+    }
+
+    public LocalDateTime getDateT() {
+      return dateT;
+    }
+
+    public String getOrigin() {
+      return origin;
+    }
+
+    public BigDecimal getQty() {
+      return qty;
+    }
+
+    public BigDecimal getWap() {
+      return wap;
+    }
+  }
+}
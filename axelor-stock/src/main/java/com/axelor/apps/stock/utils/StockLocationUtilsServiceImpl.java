@@ -26,13 +26,16 @@ import com.axelor.apps.base.db.repo.UnitRepository;
 import com.axelor.apps.base.service.UnitConversionService;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.stock.db.StockLocationLineDelta;
 import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.apps.stock.exception.StockExceptionMessage;
 import com.axelor.db.JPA;
+import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -76,35 +79,26 @@ public class StockLocationUtilsServiceImpl implements StockLocationUtilsService
     Product product = JPA.find(Product.class, productId);
     Unit productUnit = product.getUnit();
 
-    StringBuilder query = new StringBuilder();
-    Map<String, Object> parameterMap = new HashMap<>();
-    query.append("SELECT self.unit.id, sum(self.%s)");
-    query.append(" FROM StockLocationLine self");
-    query.append(" WHERE self.stockLocation.typeSelect != :stockLocationTypeSelectVirtual");
-    query.append(" AND self.product.id = :productId AND self.product.stockManaged is TRUE");
-
-    parameterMap.put("stockLocationTypeSelectVirtual", StockLocationRepository.TYPE_VIRTUAL);
-    parameterMap.put("productId", product.getId());
-
-    if (companyId != null && companyId > 0L) {
-      query.append(" AND self.stockLocation.company.id = :companyId");
-      parameterMap.put("companyId", companyId);
-    }
-
-    if (stockLocationIds != null && !stockLocationIds.isEmpty()) {
-      query.append(" AND self.stockLocation.id IN (:stockLocationIds)");
-      parameterMap.put("stockLocationIds", stockLocationIds);
+    // The variations not applied yet to the stock location lines are added to their quantities
+    List<Tuple> qtyPerUnitList =
+        new ArrayList<>(
+            getSumOfQtyPerUnitQuery(
+                    "StockLocationLine", "self", product, stockLocationIds, companyId, qtyFieldName)
+                .getResultList());
+    if (Mapper.of(StockLocationLineDelta.class).getProperty(qtyFieldName) != null) {
+      qtyPerUnitList.addAll(
+          getSumOfQtyPerUnitQuery(
+                  "StockLocationLineDelta",
+                  "self.stockLocationLine",
+                  product,
+                  stockLocationIds,
+                  companyId,
+                  qtyFieldName)
+              .getResultList());
     }
 
-    query.append(" GROUP BY self.unit.id");
-
-    TypedQuery<Tuple> sumOfQtyPerUnitQuery =
-        JPA.em().createQuery(String.format(query.toString(), qtyFieldName), Tuple.class);
-
-    parameterMap.forEach(sumOfQtyPerUnitQuery::setParameter);
-
     BigDecimal sumOfQty = BigDecimal.ZERO;
-    for (Tuple qtyPerUnit : sumOfQtyPerUnitQuery.getResultList()) {
+    for (Tuple qtyPerUnit : qtyPerUnitList) {
       Long stockLocationLineUnitId = (Long) qtyPerUnit.get(0);
       BigDecimal sumOfQtyOfStockLocationLineUnit = (BigDecimal) qtyPerUnit.get(1);
       if (stockLocationLineUnitId == null) {
@@ -130,6 +124,51 @@ public class StockLocationUtilsServiceImpl implements StockLocationUtilsService
     return sumOfQty.setScale(appBaseService.getNbDecimalDigitForQty(), RoundingMode.HALF_UP);
   }
 
+  /**
+   * Create the query summing the quantities of the stock location lines of a product, or of their
+   * variations, per unit.
+   *
+   * @param entityName StockLocationLine, or StockLocationLineDelta
+   * @param stockLocationLinePath the path of the stock location line from the entity
+   */
+  protected TypedQuery<Tuple> getSumOfQtyPerUnitQuery(
+      String entityName,
+      String stockLocationLinePath,
+      Product product,
+      List<Long> stockLocationIds,
+      Long companyId,
+      String qtyFieldName) {
+    StringBuilder query = new StringBuilder();
+    Map<String, Object> parameterMap = new HashMap<>();
+    query.append("SELECT %1$s.unit.id, sum(self.%2$s)");
+    query.append(" FROM " + entityName + " self");
+    query.append(" WHERE %1$s.stockLocation.typeSelect != :stockLocationTypeSelectVirtual");
+    query.append(" AND %1$s.product.id = :productId AND %1$s.product.stockManaged is TRUE");
+
+    parameterMap.put("stockLocationTypeSelectVirtual", StockLocationRepository.TYPE_VIRTUAL);
+    parameterMap.put("productId", product.getId());
+
+    if (companyId != null && companyId > 0L) {
+      query.append(" AND %1$s.stockLocation.company.id = :companyId");
+      parameterMap.put("companyId", companyId);
+    }
+
+    if (stockLocationIds != null && !stockLocationIds.isEmpty()) {
+      query.append(" AND %1$s.stockLocation.id IN (:stockLocationIds)");
+      parameterMap.put("stockLocationIds", stockLocationIds);
+    }
+
+    query.append(" GROUP BY %1$s.unit.id");
+
+    TypedQuery<Tuple> sumOfQtyPerUnitQuery =
+        JPA.em()
+            .createQuery(
+                String.format(query.toString(), stockLocationLinePath, qtyFieldName), Tuple.class);
+
+    parameterMap.forEach(sumOfQtyPerUnitQuery::setParameter);
+    return sumOfQtyPerUnitQuery;
+  }
+
   @Override
   public BigDecimal getStockLocationValue(StockLocation stockLocation) {
 
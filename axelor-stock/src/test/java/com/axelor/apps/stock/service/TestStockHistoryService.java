@@ -0,0 +1,167 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.service.UnitConversionService;
+import com.axelor.apps.stock.db.StockHistoryLine;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Check the stock history lines filled from the grouped stock move lines of several products. */
+class TestStockHistoryService {
+
+  private static final LocalDate JANUARY = LocalDate.of(2024, 1, 1);
+  private static final LocalDate FEBRUARY = LocalDate.of(2024, 2, 1);
+
+  private final List<Object[]> qtyResultList = new ArrayList<>();
+  private final List<Object[]> countResultList = new ArrayList<>();
+  private final Map<Long, Map<LocalDate, StockHistoryLine>> stockHistoryLineMap =
+      new LinkedHashMap<>();
+  private StockHistoryServiceImpl stockHistoryService;
+
+  @BeforeEach
+  void prepare() throws AxelorException {
+    // The stock move lines are in boxes of 3 units of the product
+    UnitConversionService unitConversionService = mock(UnitConversionService.class);
+    when(unitConversionService.convert(any(), any(), any(), anyInt(), any()))
+        .thenAnswer(
+            invocation ->
+                ((BigDecimal) invocation.getArgument(2))
+                    .divide(
+                        new BigDecimal(3), (int) invocation.getArgument(3), RoundingMode.HALF_UP));
+
+    stockHistoryService =
+        new StockHistoryServiceImpl(null, unitConversionService, null, null) {
+          @Override
+          protected List<Object[]> getStockHistoryResultList(
+              String query,
+              List<Long> productIdList,
+              Long companyId,
+              LocalDate beginDate,
+              LocalDate endDate) {
+            return query.contains("COUNT(DISTINCT") ? countResultList : qtyResultList;
+          }
+        };
+
+    for (long productId = 1; productId <= 2; productId++) {
+      Product product = new Product();
+      product.setId(productId);
+      Map<LocalDate, StockHistoryLine> productStockHistoryLineMap = new LinkedHashMap<>();
+      for (LocalDate month : new LocalDate[] {JANUARY, FEBRUARY}) {
+        StockHistoryLine stockHistoryLine = new StockHistoryLine();
+        stockHistoryLine.setProduct(product);
+        productStockHistoryLineMap.put(month, stockHistoryLine);
+      }
+      stockHistoryLineMap.put(productId, productStockHistoryLineMap);
+    }
+  }
+
+  @Test
+  void testQtyIsConvertedLineByLine() throws AxelorException {
+    addQtyResult(1L, "2024-01-10", "1.00", 3, "30.00");
+    addQtyResult(1L, "2024-01-20", "2.00", 1, "20.00");
+    addQtyResult(1L, "2024-02-05", "1.00", 1, "10.00");
+    addQtyResult(2L, "2024-02-28", "6.00", 2, "12.00");
+    addCountResult(1L, "2024-01-10", 2);
+    addCountResult(1L, "2024-01-20", 1);
+    addCountResult(2L, "2024-02-28", 1);
+
+    Map<Long, Map<LocalDate, BigDecimal>> qtyMap =
+        stockHistoryService.fillStockHistoryLines(
+            stockHistoryLineMap,
+            new ArrayList<>(stockHistoryLineMap.keySet()),
+            1L,
+            JANUARY,
+            FEBRUARY.plusMonths(1),
+            true);
+
+    // 3 x 0.33 + 0.67, as when converting each line, instead of 3.00 / 3 + 0.67
+    assertIncoming(1L, JANUARY, "1.66", "50.00", 3);
+    assertIncoming(1L, FEBRUARY, "0.33", "10.00", 0);
+    assertIncoming(2L, JANUARY, "0", "0", 0);
+    assertIncoming(2L, FEBRUARY, "4.00", "12.00", 1);
+    Assertions.assertEquals(0, new BigDecimal("1.66").compareTo(qtyMap.get(1L).get(JANUARY)));
+    Assertions.assertNull(qtyMap.get(2L).get(JANUARY));
+  }
+
+  @Test
+  void testMoveLinesOutOfTheMonthsOnlyGiveQty() throws AxelorException {
+    addQtyResult(1L, "2023-12-31", "3.00", 1, "30.00");
+
+    Map<Long, Map<LocalDate, BigDecimal>> qtyMap =
+        stockHistoryService.fillStockHistoryLines(
+            stockHistoryLineMap,
+            Collections.singletonList(1L),
+            1L,
+            JANUARY.minusMonths(12),
+            FEBRUARY.plusMonths(1),
+            false);
+
+    Assertions.assertEquals(
+        0, BigDecimal.ONE.compareTo(qtyMap.get(1L).get(LocalDate.of(2023, 12, 1))));
+    for (StockHistoryLine stockHistoryLine : stockHistoryLineMap.get(1L).values()) {
+      Assertions.assertEquals(0, stockHistoryLine.getSumOutQtyPeriod().signum());
+    }
+  }
+
+  protected void addQtyResult(
+      Long productId, String realDate, String realQty, long lineNb, String price) {
+    qtyResultList.add(
+        new Object[] {
+          productId,
+          LocalDate.parse(realDate),
+          null,
+          new BigDecimal(realQty),
+          lineNb,
+          new BigDecimal(price)
+        });
+  }
+
+  protected void addCountResult(Long productId, String realDate, long stockMoveNb) {
+    countResultList.add(new Object[] {productId, LocalDate.parse(realDate), stockMoveNb});
+  }
+
+  protected void assertIncoming(
+      Long productId, LocalDate month, String qty, String price, int stockMoveNb) {
+    StockHistoryLine stockHistoryLine = stockHistoryLineMap.get(productId).get(month);
+    Assertions.assertEquals(
+        0, new BigDecimal(qty).compareTo(stockHistoryLine.getSumIncQtyPeriod()), "Quantity");
+    Assertions.assertEquals(
+        0,
+        new BigDecimal(price).compareTo(stockHistoryLine.getPriceIncStockMovePeriod()),
+        "Price");
+    Assertions.assertEquals(stockMoveNb, (int) stockHistoryLine.getCountIncMvtStockPeriod());
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Unit;
+import com.axelor.apps.stock.db.StockLocationLine;
+import com.axelor.apps.stock.db.StockLocationLineDelta;
+import com.axelor.apps.stock.db.repo.StockLocationLineDeltaRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Check that the recorded variations give the quantities of the direct updates once applied. */
+class TestStockLocationLineDeltaService {
+
+  private final List<StockLocationLineDelta> stockLocationLineDeltaList = new ArrayList<>();
+  private StockLocationLineDeltaServiceImpl stockLocationLineDeltaService;
+  private StockLocationLineService stockLocationLineService;
+
+  @BeforeEach
+  void prepare() {
+    StockLocationLineDeltaRepository stockLocationLineDeltaRepo =
+        mock(StockLocationLineDeltaRepository.class);
+    when(stockLocationLineDeltaRepo.save(any()))
+        .thenAnswer(
+            invocation -> {
+              StockLocationLineDelta stockLocationLineDelta = invocation.getArgument(0);
+              stockLocationLineDelta.setId((long) stockLocationLineDeltaList.size() + 1);
+              stockLocationLineDeltaList.add(stockLocationLineDelta);
+              return stockLocationLineDelta;
+            });
+
+    stockLocationLineDeltaService =
+        new StockLocationLineDeltaServiceImpl(null, null, stockLocationLineDeltaRepo);
+    stockLocationLineService =
+        new StockLocationLineServiceImpl(null, null, null, null, null, null, null, null);
+  }
+
+  @Test
+  void testAppliedDeltasGiveDirectUpdates() throws AxelorException {
+    StockLocationLine stockLocationLine = createStockLocationLine("20");
+    StockLocationLine directStockLocationLine = createStockLocationLine("20");
+
+    // Planned outgoing move of 8, incoming move of 5 planned then canceled, outgoing move of 3
+    update(stockLocationLine, directStockLocationLine, "8", false, false, "2024-03-01");
+    update(stockLocationLine, directStockLocationLine, "5", true, true, "2024-03-05");
+    update(stockLocationLine, directStockLocationLine, "5", false, true, "2024-03-02");
+    update(stockLocationLine, directStockLocationLine, "3", false, false, "2024-03-10");
+
+    Assertions.assertEquals(4, stockLocationLineDeltaList.size());
+    assertQtys(stockLocationLine, "20", "20", "0", "0");
+
+    stockLocationLineDeltaService.addDeltas(stockLocationLine, stockLocationLineDeltaList);
+
+    assertQtys(stockLocationLine, "20", "9", "0", "11");
+    assertQtys(
+        directStockLocationLine,
+        stockLocationLine.getCurrentQty().toString(),
+        stockLocationLine.getFutureQty().toString(),
+        stockLocationLine.getPlannedIncomingQty().toString(),
+        stockLocationLine.getPlannedOutgoingQty().toString());
+    Assertions.assertEquals(
+        directStockLocationLine.getLastFutureStockMoveDate(),
+        stockLocationLine.getLastFutureStockMoveDate());
+  }
+
+  @Test
+  void testRealizationDeltasGiveDirectUpdates() throws AxelorException {
+    StockLocationLine stockLocationLine = createStockLocationLine("20");
+    StockLocationLine directStockLocationLine = createStockLocationLine("20");
+
+    // Outgoing move of 8 planned then realized, incoming move of 5 realized
+    update(stockLocationLine, directStockLocationLine, "8", false, false, "2024-03-01");
+    update(stockLocationLine, directStockLocationLine, "8", false, true, false, null);
+    update(stockLocationLine, directStockLocationLine, "8", true, false, false, null);
+    update(stockLocationLine, directStockLocationLine, "5", true, true, true, null);
+
+    assertQtys(stockLocationLine, "20", "20", "0", "0");
+
+    stockLocationLineDeltaService.addDeltas(stockLocationLine, stockLocationLineDeltaList);
+
+    assertQtys(stockLocationLine, "17", "17", "0", "0");
+    assertQtys(directStockLocationLine, "17", "17", "0", "0");
+    Assertions.assertNull(stockLocationLine.getLastFutureStockMoveDate());
+  }
+
+  @Test
+  void testDeltasAreAppliedOnce() throws AxelorException {
+    StockLocationLine stockLocationLine = createStockLocationLine("10");
+    StockLocationLine directStockLocationLine = createStockLocationLine("10");
+
+    update(stockLocationLine, directStockLocationLine, "4", true, true, "2024-03-01");
+    update(stockLocationLine, directStockLocationLine, "6", false, false, "2024-03-02");
+
+    // A variation recorded while the first ones are applied is left for the next application
+    List<StockLocationLineDelta> appliedDeltaList = new ArrayList<>(stockLocationLineDeltaList);
+    update(stockLocationLine, directStockLocationLine, "1", false, false, "2024-03-03");
+    stockLocationLineDeltaService.addDeltas(stockLocationLine, appliedDeltaList);
+    assertQtys(stockLocationLine, "10", "8", "4", "6");
+
+    stockLocationLineDeltaList.removeAll(appliedDeltaList);
+    stockLocationLineDeltaService.addDeltas(stockLocationLine, stockLocationLineDeltaList);
+    assertQtys(stockLocationLine, "10", "7", "4", "7");
+    assertQtys(directStockLocationLine, "10", "7", "4", "7");
+    Assertions.assertEquals(
+        LocalDate.of(2024, 3, 3), stockLocationLine.getLastFutureStockMoveDate());
+  }
+
+  /** Record a planned quantity variation, and update the other line directly. */
+  protected void update(
+      StockLocationLine stockLocationLine,
+      StockLocationLine directStockLocationLine,
+      String qty,
+      boolean isIncrement,
+      boolean isIncoming,
+      String lastFutureStockMoveDate)
+      throws AxelorException {
+    update(
+        stockLocationLine,
+        directStockLocationLine,
+        qty,
+        false,
+        isIncrement,
+        isIncoming,
+        LocalDate.parse(lastFutureStockMoveDate));
+  }
+
+  /** Record a quantity variation, and update the other line directly. */
+  protected void update(
+      StockLocationLine stockLocationLine,
+      StockLocationLine directStockLocationLine,
+      String qty,
+      boolean current,
+      boolean isIncrement,
+      boolean isIncoming,
+      LocalDate lastFutureStockMoveDate)
+      throws AxelorException {
+    stockLocationLineDeltaService.addDelta(
+        stockLocationLine,
+        new BigDecimal(qty),
+        current,
+        true,
+        isIncrement,
+        isIncoming,
+        lastFutureStockMoveDate);
+    stockLocationLineService.updateLocation(
+        directStockLocationLine,
+        directStockLocationLine.getUnit(),
+        null,
+        new BigDecimal(qty),
+        current,
+        true,
+        isIncrement,
+        isIncoming,
+        lastFutureStockMoveDate);
+  }
+
+  protected StockLocationLine createStockLocationLine(String currentQty) {
+    StockLocationLine stockLocationLine = new StockLocationLine();
+    stockLocationLine.setId(1L);
+    stockLocationLine.setUnit(new Unit());
+    stockLocationLine.setCurrentQty(new BigDecimal(currentQty));
+    stockLocationLine.setFutureQty(new BigDecimal(currentQty));
+    return stockLocationLine;
+  }
+
+  protected void assertQtys(
+      StockLocationLine stockLocationLine,
+      String currentQty,
+      String futureQty,
+      String plannedIncomingQty,
+      String plannedOutgoingQty) {
+    Assertions.assertEquals(
+        0, stockLocationLine.getCurrentQty().compareTo(new BigDecimal(currentQty)), "Current");
+    Assertions.assertEquals(
+        0, stockLocationLine.getFutureQty().compareTo(new BigDecimal(futureQty)), "Future");
+    Assertions.assertEquals(
+        0,
+        stockLocationLine.getPlannedIncomingQty().compareTo(new BigDecimal(plannedIncomingQty)),
+        "Planned incoming");
+    Assertions.assertEquals(
+        0,
+        stockLocationLine.getPlannedOutgoingQty().compareTo(new BigDecimal(plannedOutgoingQty)),
+        "Planned outgoing");
+  }
+}
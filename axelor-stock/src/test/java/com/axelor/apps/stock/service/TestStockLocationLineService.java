@@ -0,0 +1,167 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Unit;
+import com.axelor.apps.stock.db.StockLocationLine;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestStockLocationLineService {
+
+  private static StockLocationLineService stockLocationLineService;
+
+  @BeforeAll
+  static void prepare() {
+    stockLocationLineService =
+        new StockLocationLineServiceImpl(null, null, null, null, null, null, null, null);
+  }
+
+  @Test
+  void testPlannedQtyOnPlanAndCancel() throws AxelorException {
+    StockLocationLine fromStockLocationLine = createStockLocationLine("20");
+    StockLocationLine toStockLocationLine = createStockLocationLine("5");
+    BigDecimal qty = new BigDecimal("8");
+
+    // Draft to planned
+    updateLocation(fromStockLocationLine, qty, false, true, false, false);
+    updateLocation(toStockLocationLine, qty, false, true, true, true);
+    assertQtys(fromStockLocationLine, "20", "12", "0", "8");
+    assertQtys(toStockLocationLine, "5", "13", "8", "0");
+
+    // Planned to canceled
+    updateLocation(fromStockLocationLine, qty, false, true, true, false);
+    updateLocation(toStockLocationLine, qty, false, true, false, true);
+    assertQtys(fromStockLocationLine, "20", "20", "0", "0");
+    assertQtys(toStockLocationLine, "5", "5", "0", "0");
+  }
+
+  @Test
+  void testPlannedQtyOnRealize() throws AxelorException {
+    StockLocationLine fromStockLocationLine = createStockLocationLine("20");
+    StockLocationLine toStockLocationLine = createStockLocationLine("5");
+    BigDecimal qty = new BigDecimal("8");
+
+    updateLocation(fromStockLocationLine, qty, false, true, false, false);
+    updateLocation(toStockLocationLine, qty, false, true, true, true);
+
+    // Planned to realized, the planned lines are canceled then the lines are realized
+    updateLocation(fromStockLocationLine, qty, false, true, true, false);
+    updateLocation(toStockLocationLine, qty, false, true, false, true);
+    updateLocation(fromStockLocationLine, qty, true, true, false, false);
+    updateLocation(toStockLocationLine, qty, true, true, true, true);
+    assertQtys(fromStockLocationLine, "12", "12", "0", "0");
+    assertQtys(toStockLocationLine, "13", "13", "0", "0");
+  }
+
+  @Test
+  void testPlannedQtyInitializedOnFirstUpdate() throws AxelorException {
+    StockLocationLineService plannedStockLocationLineService = createPlannedQtyService("8", "3");
+    StockLocationLine stockLocationLine = createStockLocationLine("20");
+    stockLocationLine.setIsPlannedQtyComputed(false);
+
+    // The planned stock move lines already include the planned line being updated
+    plannedStockLocationLineService.updateLocation(
+        stockLocationLine,
+        stockLocationLine.getUnit(),
+        null,
+        new BigDecimal("8"),
+        false,
+        true,
+        true,
+        true,
+        null);
+    assertQtys(stockLocationLine, "20", "25", "8", "3");
+    Assertions.assertTrue(stockLocationLine.getIsPlannedQtyComputed());
+  }
+
+  @Test
+  void testUpdatePlannedQty() throws AxelorException {
+    StockLocationLineService plannedStockLocationLineService = createPlannedQtyService("8", "3");
+    StockLocationLine stockLocationLine = createStockLocationLine("20");
+    stockLocationLine.setPlannedIncomingQty(new BigDecimal("10"));
+    stockLocationLine.setPlannedOutgoingQty(new BigDecimal("3"));
+
+    Assertions.assertTrue(plannedStockLocationLineService.updatePlannedQty(stockLocationLine));
+    assertQtys(stockLocationLine, "20", "25", "8", "3");
+    Assertions.assertFalse(plannedStockLocationLineService.updatePlannedQty(stockLocationLine));
+  }
+
+  protected StockLocationLineService createPlannedQtyService(
+      String plannedIncomingQty, String plannedOutgoingQty) {
+    return new StockLocationLineServiceImpl(null, null, null, null, null, null, null, null) {
+      @Override
+      public BigDecimal computePlannedIncomingQty(StockLocationLine stockLocationLine) {
+        return new BigDecimal(plannedIncomingQty);
+      }
+
+      @Override
+      public BigDecimal computePlannedOutgoingQty(StockLocationLine stockLocationLine) {
+        return new BigDecimal(plannedOutgoingQty);
+      }
+    };
+  }
+
+  protected StockLocationLine createStockLocationLine(String currentQty) {
+    StockLocationLine stockLocationLine = new StockLocationLine();
+    stockLocationLine.setUnit(new Unit());
+    stockLocationLine.setCurrentQty(new BigDecimal(currentQty));
+    stockLocationLine.setFutureQty(new BigDecimal(currentQty));
+    return stockLocationLine;
+  }
+
+  protected void updateLocation(
+      StockLocationLine stockLocationLine,
+      BigDecimal qty,
+      boolean current,
+      boolean future,
+      boolean isIncrement,
+      boolean isIncoming)
+      throws AxelorException {
+    stockLocationLineService.updateLocation(
+        stockLocationLine,
+        stockLocationLine.getUnit(),
+        null,
+        qty,
+        current,
+        future,
+        isIncrement,
+        isIncoming,
+        null);
+  }
+
+  protected void assertQtys(
+      StockLocationLine stockLocationLine,
+      String currentQty,
+      String futureQty,
+      String plannedIncomingQty,
+      String plannedOutgoingQty) {
+    Assertions.assertEquals(
+        0, stockLocationLine.getCurrentQty().compareTo(new BigDecimal(currentQty)));
+    Assertions.assertEquals(
+        0, stockLocationLine.getFutureQty().compareTo(new BigDecimal(futureQty)));
+    Assertions.assertEquals(
+        0, stockLocationLine.getPlannedIncomingQty().compareTo(new BigDecimal(plannedIncomingQty)));
+    Assertions.assertEquals(
+        0, stockLocationLine.getPlannedOutgoingQty().compareTo(new BigDecimal(plannedOutgoingQty)));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service.batch.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestStockLocationLineReplay {
+
+  private static final Long PRODUCT_ID = 1L;
+  private static final Long SUPPLIER_LOCATION_ID = 10L;
+  private static final Long CUSTOMER_LOCATION_ID = 11L;
+  private static final Long WAREHOUSE_ID = 20L;
+  private static final Long SHOP_ID = 21L;
+  private static final LocalDateTime DATE_T = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+  private StockLocationLineReplay stockLocationLineReplay;
+
+  @BeforeEach
+  void prepare() {
+    stockLocationLineReplay = new StockLocationLineReplay(2);
+  }
+
+  @Test
+  void testAvgPriceOnReceptions() {
+    receive(WAREHOUSE_ID, null, "10", "5");
+    receive(WAREHOUSE_ID, null, "30", "7");
+
+    StockLocationLineReplay.State state = getState(WAREHOUSE_ID, null);
+    assertEquals("40", state.getCurrentQty());
+    assertEquals("6.50", state.getAvgPrice());
+    Assertions.assertEquals(2, state.getHistoryList().size());
+    assertEquals("10", state.getHistoryList().get(0).getQty());
+    assertEquals("5.00", state.getHistoryList().get(0).getWap());
+  }
+
+  @Test
+  void testDeliveryKeepsAvgPrice() {
+    receive(WAREHOUSE_ID, null, "10", "5");
+    stockLocationLineReplay.realize(
+        PRODUCT_ID,
+        null,
+        WAREHOUSE_ID,
+        false,
+        CUSTOMER_LOCATION_ID,
+        true,
+        new BigDecimal("4"),
+        new BigDecimal("9"),
+        DATE_T,
+        "OUT-1");
+
+    StockLocationLineReplay.State state = getState(WAREHOUSE_ID, null);
+    assertEquals("6", state.getCurrentQty());
+    assertEquals("5.00", state.getAvgPrice());
+    Assertions.assertEquals(2, state.getHistoryList().size());
+    assertEquals("4", getState(CUSTOMER_LOCATION_ID, null).getCurrentQty());
+    Assertions.assertTrue(getState(CUSTOMER_LOCATION_ID, null).getHistoryList().isEmpty());
+  }
+
+  @Test
+  void testInternalMoveWithTrackingNumber() {
+    Long trackingNumberId = 100L;
+    receive(WAREHOUSE_ID, trackingNumberId, "10", "5");
+    stockLocationLineReplay.realize(
+        PRODUCT_ID,
+        trackingNumberId,
+        WAREHOUSE_ID,
+        false,
+        SHOP_ID,
+        false,
+        new BigDecimal("3"),
+        new BigDecimal("8"),
+        DATE_T,
+        "INT-1");
+
+    assertEquals("7", getState(WAREHOUSE_ID, null).getCurrentQty());
+    assertEquals("7", getState(WAREHOUSE_ID, trackingNumberId).getCurrentQty());
+    assertEquals("3", getState(SHOP_ID, null).getCurrentQty());
+    assertEquals("3", getState(SHOP_ID, trackingNumberId).getCurrentQty());
+    assertEquals("8.00", getState(SHOP_ID, null).getAvgPrice());
+    Assertions.assertTrue(getState(SHOP_ID, trackingNumberId).getHistoryList().isEmpty());
+  }
+
+  @Test
+  void testAvgPriceKeptWhenStockIsEmptied() {
+    receive(WAREHOUSE_ID, null, "10", "5");
+    receive(WAREHOUSE_ID, null, "-10", "7");
+
+    StockLocationLineReplay.State state = getState(WAREHOUSE_ID, null);
+    assertEquals("0", state.getCurrentQty());
+    assertEquals("5.00", state.getAvgPrice());
+  }
+
+  protected void receive(Long stockLocationId, Long trackingNumberId, String qty, String price) {
+    stockLocationLineReplay.realize(
+        PRODUCT_ID,
+        trackingNumberId,
+        SUPPLIER_LOCATION_ID,
+        true,
+        stockLocationId,
+        false,
+        new BigDecimal(qty),
+        new BigDecimal(price),
+        DATE_T,
+        "IN");
+  }
+
+  protected StockLocationLineReplay.State getState(Long stockLocationId, Long trackingNumberId) {
+    return stockLocationLineReplay
+        .getStateMap()
+        .get(new StockLocationLineKey(stockLocationId, PRODUCT_ID, trackingNumberId));
+  }
+
+  protected void assertEquals(String expected, BigDecimal actual) {
+    Assertions.assertEquals(0, new BigDecimal(expected).compareTo(actual), actual.toPlainString());
+  }
+}
@@ -78,6 +78,8 @@ public class MrpManagementRepository extends MrpRepository {
     copy.setMrpSeq(null);
     copy.setStartDateTime(null);
     copy.setEndDateTime(null);
+    copy.setComputationStartedOn(null);
+    copy.setComputationEndedOn(null);
     copy.setStatusSelect(MrpRepository.STATUS_DRAFT);
     return copy;
   }
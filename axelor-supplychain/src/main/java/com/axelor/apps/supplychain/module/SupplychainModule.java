@@ -237,6 +237,8 @@ import com.axelor.apps.supplychain.service.invoice.SubscriptionInvoiceService;
 import com.axelor.apps.supplychain.service.invoice.SubscriptionInvoiceServiceImpl;
 import com.axelor.apps.supplychain.service.invoice.generator.InvoiceLineOrderService;
 import com.axelor.apps.supplychain.service.invoice.generator.InvoiceLineOrderServiceImpl;
+import com.axelor.apps.supplychain.service.mrp.MrpNetChangeService;
+import com.axelor.apps.supplychain.service.mrp.MrpNetChangeServiceImpl;
 import com.axelor.apps.supplychain.service.observer.SaleOrderLineSupplychainObserver;
 import com.axelor.apps.supplychain.service.observer.SaleOrderSupplychainObserver;
 import com.axelor.apps.supplychain.service.order.OrderInvoiceService;
@@ -324,6 +326,7 @@ public class SupplychainModule extends AxelorModule {
     bind(MrpFilterSaleOrderLineService.class).to(MrpFilterSaleOrderLineServiceImpl.class);
     bind(MrpLineTypeService.class).to(MrpLineTypeServiceImpl.class);
     bind(MrpSaleOrderCheckLateSaleService.class).to(MrpSaleOrderCheckLateSaleServiceImpl.class);
+    bind(MrpNetChangeService.class).to(MrpNetChangeServiceImpl.class);
     bind(AnalyticMoveLineMngtRepository.class).to(AnalyticMoveLineSupplychainRepository.class);
     bind(StockMoveLineServiceImpl.class).to(StockMoveLineServiceSupplychainImpl.class);
     bind(InvoiceLineServiceImpl.class).to(InvoiceLineSupplychainService.class);
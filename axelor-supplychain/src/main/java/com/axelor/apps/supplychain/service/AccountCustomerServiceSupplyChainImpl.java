@@ -23,10 +23,12 @@ import com.axelor.apps.account.db.repo.AccountingSituationRepository;
 import com.axelor.apps.account.service.AccountCustomerServiceImpl;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationInitService;
 import com.axelor.apps.account.service.accountingsituation.AccountingSituationService;
+import com.axelor.apps.account.service.app.AppAccountService;
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
 
 public class AccountCustomerServiceSupplyChainImpl extends AccountCustomerServiceImpl {
 
@@ -35,12 +37,14 @@ public class AccountCustomerServiceSupplyChainImpl extends AccountCustomerServic
       AccountingSituationService accountingSituationService,
       AccountingSituationInitService accountingSituationInitService,
       AccountingSituationRepository accSituationRepo,
-      AppBaseService appBaseService) {
+      AppBaseService appBaseService,
+      AppAccountService appAccountService) {
     super(
         accountingSituationService,
         accountingSituationInitService,
         accSituationRepo,
-        appBaseService);
+        appBaseService,
+        appAccountService);
   }
 
   @Override
@@ -65,4 +69,18 @@ public class AccountCustomerServiceSupplyChainImpl extends AccountCustomerServic
 
     return accountingSituation;
   }
+
+  @Override
+  @Transactional(rollbackOn = {Exception.class})
+  public AccountingSituation updateAccountingSituationBalance(
+      AccountingSituation accountingSituation, BigDecimal balanceDelta) throws AxelorException {
+
+    accountingSituation = super.updateAccountingSituationBalance(accountingSituation, balanceDelta);
+
+    if (appBaseService.isApp("supplychain")) {
+      accountingSituationService.updateCustomerCredit(accountingSituation.getPartner());
+    }
+
+    return accountingSituation;
+  }
 }
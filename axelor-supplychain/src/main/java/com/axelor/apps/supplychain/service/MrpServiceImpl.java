@@ -64,19 +64,26 @@ import com.axelor.apps.supplychain.db.repo.MrpLineRepository;
 import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
 import com.axelor.apps.supplychain.db.repo.MrpRepository;
 import com.axelor.apps.supplychain.exception.SupplychainExceptionMessage;
+import com.axelor.apps.supplychain.service.app.AppSupplychainService;
+import com.axelor.apps.supplychain.service.mrp.MrpNetChangeService;
+import com.axelor.apps.supplychain.service.mrp.MrpTimeline;
 import com.axelor.auth.AuthUtils;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.Query;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
+import com.axelor.inject.Beans;
 import com.axelor.message.service.MailMessageService;
+import com.axelor.studio.db.AppSupplychain;
+import com.axelor.studio.db.repo.AppSupplychainRepository;
 import com.axelor.utils.helpers.StringHelper;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import com.google.inject.persist.UnitOfWork;
 import com.google.inject.servlet.RequestScoper;
 import com.google.inject.servlet.ServletScopes;
 import java.lang.invoke.MethodHandles;
@@ -84,17 +91,27 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.PreparedStatement;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -103,6 +120,8 @@ public class MrpServiceImpl implements MrpService {
 
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final Integer ITERATIONS = 100;
+  private static final int MAX_ITERATION = 1000;
+  private static final int JDBC_BATCH_SIZE = 500;
 
   protected MrpRepository mrpRepository;
   protected StockLocationRepository stockLocationRepository;
@@ -126,11 +145,17 @@ public class MrpServiceImpl implements MrpService {
   protected AppBaseService appBaseService;
   protected AppSaleService appSaleService;
   protected AppPurchaseService appPurchaseService;
+  protected AppSupplychainService appSupplychainService;
+  protected MrpNetChangeService mrpNetChangeService;
 
   protected List<StockLocation> stockLocationList;
   protected Map<Long, Integer> productMap;
   protected Map<Long, Integer> productMapToBeAssigned;
   protected Integer currentLevel;
+  protected Map<Long, MrpTimeline> mrpTimelineMap;
+  protected Set<Long> updatedProductIdSet;
+  protected Lock proposalLock;
+  protected Set<Long> netChangeSkippedProductIdSet;
   protected Mrp mrp;
   protected LocalDate today;
 
@@ -156,7 +181,9 @@ public class MrpServiceImpl implements MrpService {
       AppPurchaseService appPurchaseService,
       StockHistoryLineRepository stockHistoryLineRepository,
       MrpSaleOrderCheckLateSaleService mrpSaleOrderCheckLateSaleService,
-      MrpLineTypeService mrpLineTypeService) {
+      MrpLineTypeService mrpLineTypeService,
+      AppSupplychainService appSupplychainService,
+      MrpNetChangeService mrpNetChangeService) {
 
     this.mrpRepository = mrpRepository;
     this.stockLocationRepository = stockLocationRepository;
@@ -179,6 +206,8 @@ public class MrpServiceImpl implements MrpService {
     this.stockHistoryLineRepository = stockHistoryLineRepository;
     this.mrpLineTypeService = mrpLineTypeService;
     this.mrpSaleOrderCheckLateSaleService = mrpSaleOrderCheckLateSaleService;
+    this.appSupplychainService = appSupplychainService;
+    this.mrpNetChangeService = mrpNetChangeService;
   }
 
   @Override
@@ -189,6 +218,11 @@ public class MrpServiceImpl implements MrpService {
   @Override
   public void runCalculation(Mrp mrp) throws AxelorException {
 
+    if (this.isNetChangeApplicable(mrpRepository.find(mrp.getId()))) {
+      this.runNetChangeCalculation(mrpRepository.find(mrp.getId()));
+      return;
+    }
+
     this.reset(mrpRepository.find(mrp.getId()));
 
     this.startMrp(mrpRepository.find(mrp.getId()));
@@ -197,6 +231,156 @@ public class MrpServiceImpl implements MrpService {
     this.finish(mrpRepository.find(mrp.getId()));
   }
 
+  /**
+   * A net change computation is only possible on a MRP computed the same day, whose parameters did
+   * not change since. Otherwise the maturity dates and the scope of the previous computation may
+   * not be valid anymore.
+   *
+   * @param mrp
+   * @return true if only the changed products can be computed again
+   */
+  protected boolean isNetChangeApplicable(Mrp mrp) {
+
+    if (!mrp.getNetChangeComputation()
+        || mrp.getStatusSelect() != MrpRepository.STATUS_CALCULATION_ENDED
+        || mrp.getStartDateTime() == null
+        || mrp.getComputationStartedOn() == null
+        || mrp.getComputationEndedOn() == null) {
+      return false;
+    }
+
+    // The last update of the MRP is done when the previous computation ends. Audit dates are
+    // server times, so they are compared with the server time of the computation, not with the
+    // application date which may be a fixed one.
+    if (mrp.getUpdatedOn() != null
+        && mrp.getUpdatedOn().isAfter(mrp.getComputationEndedOn().plusMinutes(1))) {
+      return false;
+    }
+
+    return mrp.getStartDateTime()
+        .toLocalDate()
+        .equals(appBaseService.getTodayDate(mrp.getStockLocation().getCompany()));
+  }
+
+  /**
+   * Compute again only the products having a change since the previous computation, along with
+   * the products depending on them. The mrp lines of the other products are kept.
+   *
+   * @param mrp
+   * @throws AxelorException
+   */
+  protected void runNetChangeCalculation(Mrp mrp) throws AxelorException {
+
+    log.debug("Net change MRP");
+
+    LocalDateTime previousStartDateTime = mrp.getComputationStartedOn();
+    this.startMrp(mrp);
+
+    this.mrp = mrpRepository.find(mrp.getId());
+    this.today = appBaseService.getTodayDate(this.mrp.getStockLocation().getCompany());
+    this.initStockLocationList(this.mrp);
+    this.assignProductAndLevel(this.getProductList());
+
+    Map<Long, Integer> previousProductMap = this.getPreviousProductMap(this.mrp);
+    Set<Long> productIdSet = new HashSet<>(productMap.keySet());
+    productIdSet.addAll(previousProductMap.keySet());
+    Set<Long> changedProductIdSet =
+        mrpNetChangeService.getChangedProductIdSet(this.mrp, productIdSet, previousStartDateTime);
+
+    // Products added during the previous computation (components of manuf orders or proposals)
+    // are kept, unless they changed: they will be added again if they are still needed.
+    Set<Long> productIdToResetSet = new HashSet<>();
+    for (Map.Entry<Long, Integer> entry : previousProductMap.entrySet()) {
+      if (productMap.containsKey(entry.getKey())) {
+        continue;
+      }
+      if (changedProductIdSet.contains(entry.getKey())) {
+        productIdToResetSet.add(entry.getKey());
+      } else {
+        productMap.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    Set<Long> productIdToComputeSet =
+        mrpNetChangeService.addDependentProducts(productIdSet, changedProductIdSet);
+    productIdToResetSet.addAll(productIdToComputeSet);
+    this.resetNetChangeProducts(this.mrp, productIdToResetSet);
+
+    Map<Long, Integer> productMapToCompute = new HashMap<>();
+    this.netChangeSkippedProductIdSet = new HashSet<>();
+    for (Map.Entry<Long, Integer> entry : productMap.entrySet()) {
+      if (productIdToComputeSet.contains(entry.getKey())) {
+        productMapToCompute.put(entry.getKey(), entry.getValue());
+      } else {
+        netChangeSkippedProductIdSet.add(entry.getKey());
+      }
+    }
+    log.debug(
+        "Net change MRP: {} products to compute, {} products kept",
+        productMapToCompute.size(),
+        netChangeSkippedProductIdSet.size());
+
+    try {
+      this.fillMrpLinesForProductMap(productMapToCompute);
+      this.doCalculation(mrpRepository.find(mrp.getId()));
+    } finally {
+      this.netChangeSkippedProductIdSet = null;
+    }
+
+    this.finish(mrpRepository.find(mrp.getId()));
+  }
+
+  /**
+   * Get the products computed by the previous computation, with their level.
+   *
+   * @param mrp
+   * @return a map product id -> level
+   */
+  protected Map<Long, Integer> getPreviousProductMap(Mrp mrp) {
+
+    Map<Long, Integer> previousProductMap = new HashMap<>();
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.product.id, MAX(self.maxLevel) FROM MrpLine self "
+                    + "WHERE self.mrp.id = :mrpId GROUP BY self.product.id",
+                Object[].class)
+            .setParameter("mrpId", mrp.getId())
+            .getResultList();
+    for (Object[] result : resultList) {
+      previousProductMap.put((Long) result[0], result[1] != null ? (Integer) result[1] : 0);
+    }
+    return previousProductMap;
+  }
+
+  /**
+   * Remove the mrp lines of the given products, except the ones edited by the user, like {@link
+   * #reset(Mrp)} does for the whole MRP.
+   *
+   * @param mrp
+   * @param productIdSet
+   */
+  @Transactional
+  protected void resetNetChangeProducts(Mrp mrp, Set<Long> productIdSet) {
+
+    for (List<Long> productIdList : Lists.partition(new ArrayList<>(productIdSet), 1000)) {
+      mrpLineRepository
+          .all()
+          .filter(
+              "self.mrp.id = ?1 AND self.isEditedByUser = false AND self.product.id IN (?2)",
+              mrp.getId(),
+              productIdList)
+          .remove();
+    }
+    mrpLineRepository
+        .all()
+        .filter(
+            "self.mrp.id = ?1 AND self.isEditedByUser = true AND self.maturityDate < ?2",
+            mrp.getId(),
+            today)
+        .update("maturityDate", today);
+  }
+
   @Override
   public boolean isOnGoing(Mrp mrp) {
 
@@ -207,6 +391,7 @@ public class MrpServiceImpl implements MrpService {
   protected void startMrp(Mrp mrp) {
 
     mrp.setStartDateTime(appBaseService.getTodayDateTime().toLocalDateTime());
+    mrp.setComputationStartedOn(LocalDateTime.now());
     log.debug("Start MRP");
 
     mrp.setStatusSelect(MrpRepository.STATUS_CALCULATION_STARTED);
@@ -246,19 +431,8 @@ public class MrpServiceImpl implements MrpService {
 
     // Initialize
     this.mrp = mrp;
-    List<StockLocation> slList =
-        stockLocationService.getAllLocationAndSubLocation(mrp.getStockLocation(), false).stream()
-            .filter(x -> !x.getIsNotInMrp())
-            .collect(Collectors.toList());
-    this.stockLocationList = slList;
-
+    this.initStockLocationList(mrp);
     this.assignProductAndLevel(this.getProductList());
-    if (stockLocationList.isEmpty()) {
-      throw new AxelorException(
-          Mrp.class,
-          TraceBackRepository.CATEGORY_NO_VALUE,
-          I18n.get(SupplychainExceptionMessage.MRP_MISSING_STOCK_LOCATION_VALID));
-    }
     // Get the stock for each product on each stock location
     this.createAvailableStockMrpLines();
 
@@ -271,6 +445,21 @@ public class MrpServiceImpl implements MrpService {
     this.createStockHistoryMrpLines();
   }
 
+  protected void initStockLocationList(Mrp mrp) throws AxelorException {
+
+    this.stockLocationList =
+        stockLocationService.getAllLocationAndSubLocation(mrp.getStockLocation(), false).stream()
+            .filter(x -> !x.getIsNotInMrp())
+            .collect(Collectors.toList());
+
+    if (stockLocationList.isEmpty()) {
+      throw new AxelorException(
+          Mrp.class,
+          TraceBackRepository.CATEGORY_NO_VALUE,
+          I18n.get(SupplychainExceptionMessage.MRP_MISSING_STOCK_LOCATION_VALID));
+    }
+  }
+
   protected void fillMrpLinesForProductMap(Map<Long, Integer> productMap) throws AxelorException {
     // Get the stock for each product on each stock location
     this.createAvailableStockMrpLines(productMap);
@@ -299,23 +488,175 @@ public class MrpServiceImpl implements MrpService {
 
     mrp.setStatusSelect(MrpRepository.STATUS_CALCULATION_ENDED);
     mrp.setEndDateTime(appBaseService.getTodayDateTime().toLocalDateTime());
+    mrp.setComputationEndedOn(LocalDateTime.now());
     mrpRepository.save(mrp);
   }
 
   protected void checkInsufficientCumulativeQty() throws AxelorException {
 
-    for (int level = 0; level <= this.getMaxLevel(); level++) {
-      this.currentLevel = level;
-      this.productMapToBeAssigned = new HashMap<>();
-      for (Product product : this.getProductList(level)) {
-        this.checkInsufficientCumulativeQty(product);
+    int workerNb = this.getWorkerNb();
+    ExecutorService executor = null;
+
+    if (workerNb > 1) {
+      executor = Executors.newFixedThreadPool(workerNb);
+      this.productMap = new ConcurrentHashMap<>(this.productMap);
+      this.proposalLock = new ReentrantLock();
+    }
+
+    try {
+      for (int level = 0; level <= this.getMaxLevel(); level++) {
+        this.currentLevel = level;
+        this.productMapToBeAssigned =
+            executor != null ? new ConcurrentHashMap<>() : new HashMap<>();
+        List<Product> productList = this.getProductList(level);
+        if (this.isInMemoryComputation()) {
+          this.loadMrpTimelines(productList);
+        }
+        if (executor != null) {
+          // Products of a same level are independent, the next level only starts once all the
+          // products of this one are computed.
+          this.checkInsufficientCumulativeQty(productList, executor, workerNb);
+        } else {
+          for (Product product : productList) {
+            this.checkInsufficientCumulativeQty(product);
+          }
+        }
+        this.mrpTimelineMap = null;
+        this.updatedProductIdSet = null;
+        if (productMapToBeAssigned != null && !this.productMapToBeAssigned.isEmpty()) {
+          this.fillMrpLinesForProductMap(productMapToBeAssigned);
+        }
       }
-      if (productMapToBeAssigned != null && !this.productMapToBeAssigned.isEmpty()) {
-        this.fillMrpLinesForProductMap(productMapToBeAssigned);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        this.proposalLock = null;
       }
     }
   }
 
+  protected int getWorkerNb() {
+    AppSupplychain appSupplychain = appSupplychainService.getAppSupplychain();
+    return appSupplychain != null ? appSupplychain.getMrpWorkerNb() : 1;
+  }
+
+  /**
+   * Compute the products of a level on a pool of workers. Each worker is a new instance of the
+   * service with its own entity manager and transactions, sharing the level and product maps of
+   * this one.
+   *
+   * @param productList
+   * @param executor
+   * @param workerNb
+   * @throws AxelorException
+   */
+  protected void checkInsufficientCumulativeQty(
+      List<Product> productList, ExecutorService executor, int workerNb) throws AxelorException {
+
+    List<Long> productIdList =
+        productList.stream().map(Product::getId).collect(Collectors.toList());
+    int partitionSize = Math.max(1, productIdList.size() / (workerNb * 4));
+    List<Future<Boolean>> futureList = new ArrayList<>();
+
+    for (List<Long> productIdSubList : Lists.partition(productIdList, partitionSize)) {
+      futureList.add(executor.submit(() -> this.runWorker(productIdSubList)));
+    }
+
+    try {
+      for (Future<Boolean> future : futureList) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      futureList.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof AxelorException) {
+        throw (AxelorException) e.getCause();
+      }
+      throw new AxelorException(e.getCause(), TraceBackRepository.CATEGORY_INCONSISTENCY);
+    } catch (InterruptedException e) {
+      futureList.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_INCONSISTENCY);
+    }
+  }
+
+  protected Boolean runWorker(List<Long> productIdList) throws AxelorException {
+    final RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      MrpServiceImpl worker = Beans.get(MrpServiceImpl.class);
+      worker.initWorker(this, productIdList);
+      for (Long productId : productIdList) {
+        worker.checkInsufficientCumulativeQty(worker.productRepository.find(productId));
+      }
+    } finally {
+      JPA.clear();
+      Beans.get(UnitOfWork.class).end();
+    }
+    return true;
+  }
+
+  protected void initWorker(MrpServiceImpl mrpService, List<Long> productIdList) {
+    this.mrp = mrpRepository.find(mrpService.mrp.getId());
+    this.today = mrpService.today;
+    this.stockLocationList =
+        mrpService.stockLocationList.stream()
+            .map(StockLocation::getId)
+            .map(stockLocationRepository::find)
+            .collect(Collectors.toList());
+    this.productMap = mrpService.productMap;
+    this.productMapToBeAssigned = mrpService.productMapToBeAssigned;
+    this.currentLevel = mrpService.currentLevel;
+    this.proposalLock = mrpService.proposalLock;
+    this.updatedProductIdSet = mrpService.updatedProductIdSet;
+
+    if (mrpService.mrpTimelineMap != null) {
+      this.mrpTimelineMap = new HashMap<>();
+      for (Long productId : productIdList) {
+        MrpTimeline mrpTimeline = mrpService.mrpTimelineMap.get(productId);
+        if (mrpTimeline != null) {
+          this.mrpTimelineMap.put(productId, mrpTimeline);
+        }
+      }
+    }
+  }
+
+  /**
+   * Proposals of a product may update the lines of its components, so when products are computed
+   * in parallel, proposals are created one at a time, each in its own committed transaction. Lines
+   * not needing a proposal are checked without the lock, the others are read again under it.
+   */
+  protected boolean checkInsufficientCumulativeQtyWithLock(
+      Long mrpLineId, Long productId, boolean firstPass) throws AxelorException {
+    if (proposalLock == null) {
+      return this.checkInsufficientCumulativeQty(
+          mrpLineRepository.find(mrpLineId), productRepository.find(productId), firstPass);
+    }
+    if (!this.isInsufficientCumulativeQty(mrpLineRepository.find(mrpLineId), firstPass)) {
+      return false;
+    }
+    proposalLock.lock();
+    try {
+      JPA.clear();
+      return this.checkInsufficientCumulativeQty(
+          mrpLineRepository.find(mrpLineId), productRepository.find(productId), firstPass);
+    } finally {
+      proposalLock.unlock();
+    }
+  }
+
+  protected boolean checkInsufficientCumulativeQtyWithLock(
+      MrpTimeline mrpTimeline, int index, Long productId, boolean firstPass)
+      throws AxelorException {
+    if (proposalLock == null) {
+      return this.checkInsufficientCumulativeQty(mrpTimeline, index, productId, firstPass);
+    }
+    proposalLock.lock();
+    try {
+      return this.checkInsufficientCumulativeQty(mrpTimeline, index, productId, firstPass);
+    } finally {
+      proposalLock.unlock();
+    }
+  }
+
   /**
    * Get the list of product for a level
    *
@@ -328,6 +669,11 @@ public class MrpServiceImpl implements MrpService {
 
     for (Long productId : this.productMap.keySet()) {
 
+      if (netChangeSkippedProductIdSet != null
+          && netChangeSkippedProductIdSet.contains(productId)) {
+        continue;
+      }
+
       if (this.productMap.get(productId) == level) {
         productList.add(productRepository.find(productId));
       }
@@ -351,14 +697,16 @@ public class MrpServiceImpl implements MrpService {
   }
 
   protected void checkInsufficientCumulativeQty(Product product) throws AxelorException {
+    if (this.isInMemoryComputation()) {
+      this.checkInsufficientCumulativeQtyInMemory(product);
+      return;
+    }
     checkInsufficientCumulativeQty(product, 0);
   }
 
   protected void checkInsufficientCumulativeQty(Product product, int counter)
       throws AxelorException {
 
-    final int MAX_ITERATION = 1000;
-
     if (counter > MAX_ITERATION) {
       throw new AxelorException(
           TraceBackRepository.CATEGORY_INCONSISTENCY,
@@ -369,7 +717,7 @@ public class MrpServiceImpl implements MrpService {
 
     this.computeCumulativeQty(productRepository.find(product.getId()));
 
-    JPA.clear();
+    this.clearSession();
 
     List<MrpLine> mrpLineList =
         mrpLineRepository
@@ -383,11 +731,9 @@ public class MrpServiceImpl implements MrpService {
     for (MrpLine mrpLine : mrpLineList) {
 
       doASecondPass =
-          this.checkInsufficientCumulativeQty(
-              mrpLineRepository.find(mrpLine.getId()),
-              productRepository.find(product.getId()),
-              counter == 0);
-      JPA.clear();
+          this.checkInsufficientCumulativeQtyWithLock(
+              mrpLine.getId(), product.getId(), counter == 0);
+      this.clearSession();
       if (doASecondPass) {
         break;
       }
@@ -399,36 +745,194 @@ public class MrpServiceImpl implements MrpService {
     }
   }
 
+  protected void clearSession() {
+    JPA.clear();
+  }
+
+  protected boolean isInMemoryComputation() {
+    AppSupplychain appSupplychain = appSupplychainService.getAppSupplychain();
+    return appSupplychain != null
+        && appSupplychain.getMrpComputationModeSelect()
+            == AppSupplychainRepository.MRP_COMPUTATION_MODE_IN_MEMORY;
+  }
+
+  /**
+   * Same computation as {@link #checkInsufficientCumulativeQty(Product, int)}, but each pass works
+   * on a {@link MrpTimeline} loaded in one query: cumulative quantities are computed in memory and
+   * only the lines needing a proposal are loaded as entities. The cumulative quantities are saved
+   * in JDBC batches once the product does not need any more proposal.
+   *
+   * @param product
+   * @throws AxelorException
+   */
+  protected void checkInsufficientCumulativeQtyInMemory(Product product) throws AxelorException {
+
+    Long productId = product.getId();
+
+    for (int counter = 0; ; counter++) {
+
+      if (counter > MAX_ITERATION) {
+        throw new AxelorException(
+            TraceBackRepository.CATEGORY_INCONSISTENCY,
+            I18n.get(SupplychainExceptionMessage.MRP_TOO_MANY_ITERATIONS));
+      }
+
+      MrpTimeline mrpTimeline;
+      try {
+        mrpTimeline = this.getMrpTimeline(productId);
+        mrpTimeline.computeCumulativeQty();
+      } catch (ArithmeticException e) {
+        log.debug(
+            "Quantities of product ({}) do not fit in memory, using standard computation",
+            productId);
+        this.checkInsufficientCumulativeQty(productRepository.find(productId), counter);
+        return;
+      }
+
+      boolean firstPass = counter == 0;
+      boolean proposalCreated = false;
+      int index = mrpTimeline.nextInsufficientCumulativeQtyIndex(0, firstPass);
+
+      while (index >= 0) {
+        if (this.checkInsufficientCumulativeQtyWithLock(
+            mrpTimeline, index, productId, firstPass)) {
+          proposalCreated = true;
+          break;
+        }
+        index = mrpTimeline.nextInsufficientCumulativeQtyIndex(index + 1, firstPass);
+      }
+
+      this.clearSession();
+
+      if (!proposalCreated) {
+        this.saveCumulativeQty(mrpTimeline);
+        return;
+      }
+    }
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected boolean checkInsufficientCumulativeQty(
-      MrpLine mrpLine, Product product, boolean firstPass) throws AxelorException {
+      MrpTimeline mrpTimeline, int index, Long productId, boolean firstPass)
+      throws AxelorException {
 
-    BigDecimal cumulativeQty = mrpLine.getCumulativeQty();
+    MrpLine mrpLine = mrpLineRepository.find(mrpTimeline.getMrpLineId(index));
+    mrpLine.setCumulativeQty(mrpTimeline.getCumulativeQty(index));
 
-    MrpLineType mrpLineType = mrpLine.getMrpLineType();
-    if (mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL
-        && mrpLine.getEstimatedDeliveryMrpLine() != null) {
-      return false;
+    return this.checkInsufficientCumulativeQty(
+        mrpLine, productRepository.find(productId), firstPass);
+  }
+
+  /**
+   * Get the timeline of a product, from the timelines loaded for the current level if the lines of
+   * the product were not updated since, otherwise from the database.
+   *
+   * @param productId
+   * @return
+   */
+  protected MrpTimeline getMrpTimeline(Long productId) {
+
+    if (mrpTimelineMap != null
+        && mrpTimelineMap.containsKey(productId)
+        && !updatedProductIdSet.contains(productId)) {
+      return mrpTimelineMap.remove(productId);
     }
 
-    if ((mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_PURCHASE_ORDER
-            || mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_MANUFACTURING_ORDER)
-        && !firstPass) {
-      return false;
+    return this.fetchMrpTimelines(Collections.singletonList(productId))
+        .getOrDefault(productId, new MrpTimeline(0));
+  }
+
+  protected void loadMrpTimelines(List<Product> productList) {
+
+    this.updatedProductIdSet = ConcurrentHashMap.newKeySet();
+    this.mrpTimelineMap = new HashMap<>();
+
+    List<Long> productIdList =
+        productList.stream().map(Product::getId).collect(Collectors.toList());
+
+    for (List<Long> productIdSubList : Lists.partition(productIdList, JDBC_BATCH_SIZE)) {
+      this.mrpTimelineMap.putAll(this.fetchMrpTimelines(productIdSubList));
+    }
+  }
+
+  protected Map<Long, MrpTimeline> fetchMrpTimelines(List<Long> productIdList) {
+
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.product.id, self.id, self.qty, self.minQty, mrpLineType.id, "
+                    + "mrpLineType.elementSelect, mrpLineType.typeSelect, "
+                    + "estimatedDeliveryMrpLine.id "
+                    + "FROM MrpLine self "
+                    + "LEFT JOIN self.mrpLineType mrpLineType "
+                    + "LEFT JOIN self.estimatedDeliveryMrpLine estimatedDeliveryMrpLine "
+                    + "WHERE self.mrp.id = :mrpId AND self.product.id IN (:productIdList) "
+                    + "ORDER BY self.product.id, self.maturityDate, mrpLineType.typeSelect, "
+                    + "mrpLineType.sequence, self.id",
+                Object[].class)
+            .setParameter("mrpId", mrp.getId())
+            .setParameter("productIdList", productIdList)
+            .getResultList();
+
+    Map<Long, Boolean> proposalElementMap = new HashMap<>();
+    Map<Long, MrpTimeline> timelineMap = new LinkedHashMap<>();
+
+    for (Object[] result : resultList) {
+      Long mrpLineTypeId = (Long) result[4];
+      boolean proposalElement =
+          mrpLineTypeId != null
+              && proposalElementMap.computeIfAbsent(
+                  mrpLineTypeId,
+                  id -> this.isProposalElement(mrpLineTypeRepository.find(id)));
+
+      timelineMap
+          .computeIfAbsent((Long) result[0], id -> new MrpTimeline(16))
+          .addLine(
+              (Long) result[1],
+              (BigDecimal) result[2],
+              (BigDecimal) result[3],
+              result[5] != null ? (Integer) result[5] : 0,
+              result[6] != null ? (Integer) result[6] : 0,
+              proposalElement,
+              result[7] != null);
     }
 
-    boolean isProposalElement = this.isProposalElement(mrpLineType);
+    return timelineMap;
+  }
 
+  @Transactional
+  protected void saveCumulativeQty(MrpTimeline mrpTimeline) {
+
+    if (mrpTimeline.size() == 0) {
+      return;
+    }
+
+    JPA.jdbcWork(
+        connection -> {
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "UPDATE supplychain_mrp_line SET cumulative_qty = ? WHERE id = ?")) {
+            for (int index = 0; index < mrpTimeline.size(); index++) {
+              statement.setBigDecimal(1, mrpTimeline.getCumulativeQty(index));
+              statement.setLong(2, mrpTimeline.getMrpLineId(index));
+              statement.addBatch();
+              if ((index + 1) % JDBC_BATCH_SIZE == 0) {
+                statement.executeBatch();
+              }
+            }
+            statement.executeBatch();
+          }
+        });
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected boolean checkInsufficientCumulativeQty(
+      MrpLine mrpLine, Product product, boolean firstPass) throws AxelorException {
+
+    BigDecimal cumulativeQty = mrpLine.getCumulativeQty();
     BigDecimal minQty = mrpLine.getMinQty();
 
-    if ((((mrpLine.getMrpLineType().getElementSelect()
-                    != MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK)
-                && (!isProposalElement
-                    || mrpLineType.getTypeSelect() == MrpLineTypeRepository.TYPE_OUT))
-            || (mrpLine.getMrpLineType().getElementSelect()
-                    == MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK
-                && firstPass))
-        && cumulativeQty.compareTo(minQty) < 0) {
+    if (this.isInsufficientCumulativeQty(mrpLine, firstPass)) {
 
       Company company = null;
       StockLocation stockLocation = mrpLine.getStockLocation();
@@ -495,6 +999,38 @@ public class MrpServiceImpl implements MrpService {
     return false;
   }
 
+  /**
+   * Whether the cumulative quantity of the line is below its minimum quantity and a proposal may
+   * be created for it.
+   *
+   * @param mrpLine
+   * @param firstPass
+   * @return
+   */
+  protected boolean isInsufficientCumulativeQty(MrpLine mrpLine, boolean firstPass) {
+
+    MrpLineType mrpLineType = mrpLine.getMrpLineType();
+    if (mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL
+        && mrpLine.getEstimatedDeliveryMrpLine() != null) {
+      return false;
+    }
+
+    if ((mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_PURCHASE_ORDER
+            || mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_MANUFACTURING_ORDER)
+        && !firstPass) {
+      return false;
+    }
+
+    boolean isProposalElement = this.isProposalElement(mrpLineType);
+
+    return (((mrpLineType.getElementSelect() != MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK)
+                && (!isProposalElement
+                    || mrpLineType.getTypeSelect() == MrpLineTypeRepository.TYPE_OUT))
+            || (mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK
+                && firstPass))
+        && mrpLine.getCumulativeQty().compareTo(mrpLine.getMinQty()) < 0;
+  }
+
   public MrpLine getPreviousProposalMrpLine(
       Product product,
       MrpLineType mrpLineType,
@@ -539,6 +1075,8 @@ public class MrpServiceImpl implements MrpService {
       String relatedToSelectName)
       throws AxelorException {
 
+    this.markProductAsUpdated(product);
+
     LocalDate initialMaturityDate = maturityDate;
 
     if (mrpLineType.getElementSelect() == MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL) {
@@ -1516,6 +2054,7 @@ public class MrpServiceImpl implements MrpService {
             I18n.get(SupplychainExceptionMessage.MRP_NO_PRODUCT_UNIT),
             product.getFullName());
       }
+      this.markProductAsUpdated(product);
       if (!this.productMap.containsKey(product.getId())) {
         int nextLevel = currentLevel + 1;
         this.productMap.put(product.getId(), nextLevel);
@@ -1535,6 +2074,18 @@ public class MrpServiceImpl implements MrpService {
     return null;
   }
 
+  /**
+   * Keep track of the products whose lines are created or updated while a level is computed in
+   * memory, so their preloaded timeline is not used anymore.
+   *
+   * @param product
+   */
+  protected void markProductAsUpdated(Product product) {
+    if (updatedProductIdSet != null && product != null) {
+      updatedProductIdSet.add(product.getId());
+    }
+  }
+
   protected void copyMrpLineOrigins(MrpLine mrpLine, List<MrpLineOrigin> mrpLineOriginList) {
 
     if (mrpLineOriginList != null) {
@@ -73,4 +73,34 @@ public class StockHistoryServiceSupplyChainImpl extends StockHistoryServiceImpl
     stockHistoryLine.setSumOutQtyPeriod(sumOutQtyPeriod);
     stockHistoryLine.setSumOneoffSaleOutQtyPeriod(sumOneoffSaleOutQtyPeriod);
   }
+
+  @Override
+  protected String getStockHistoryQtyJoins(boolean incoming) {
+    if (incoming) {
+      return super.getStockHistoryQtyJoins(incoming);
+    }
+    return "LEFT JOIN self.saleOrderLine saleOrderLine LEFT JOIN saleOrderLine.saleOrder saleOrder";
+  }
+
+  @Override
+  protected String getStockHistoryQtyGroupColumn(boolean incoming) {
+    return incoming ? super.getStockHistoryQtyGroupColumn(incoming) : "saleOrder.oneoffSale";
+  }
+
+  @Override
+  protected void addStockHistoryQty(
+      StockHistoryLine stockHistoryLine,
+      BigDecimal qty,
+      BigDecimal price,
+      Object groupValue,
+      boolean incoming) {
+    if (!incoming && Boolean.TRUE.equals(groupValue)) {
+      stockHistoryLine.setSumOneoffSaleOutQtyPeriod(
+          stockHistoryLine.getSumOneoffSaleOutQtyPeriod().add(qty));
+      stockHistoryLine.setPriceOutStockMovePeriod(
+          stockHistoryLine.getPriceOutStockMovePeriod().add(price));
+    } else {
+      super.addStockHistoryQty(stockHistoryLine, qty, price, groupValue, incoming);
+    }
+  }
 }
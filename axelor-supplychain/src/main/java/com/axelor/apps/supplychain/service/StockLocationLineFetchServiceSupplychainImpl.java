@@ -22,6 +22,7 @@ import com.axelor.apps.base.db.Product;
 import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.stock.db.StockLocationLine;
 import com.axelor.apps.stock.db.TrackingNumber;
+import com.axelor.apps.stock.service.StockLocationLineDeltaService;
 import com.axelor.apps.stock.service.StockLocationLineFetchServiceImpl;
 import com.axelor.apps.supplychain.service.app.AppSupplychainService;
 import com.google.inject.Inject;
@@ -33,7 +34,10 @@ public class StockLocationLineFetchServiceSupplychainImpl
   protected AppSupplychainService appSupplychainService;
 
   @Inject
-  public StockLocationLineFetchServiceSupplychainImpl(AppSupplychainService appSupplychainService) {
+  public StockLocationLineFetchServiceSupplychainImpl(
+      StockLocationLineDeltaService stockLocationLineDeltaService,
+      AppSupplychainService appSupplychainService) {
+    super(stockLocationLineDeltaService);
     this.appSupplychainService = appSupplychainService;
   }
 
@@ -53,8 +57,8 @@ public class StockLocationLineFetchServiceSupplychainImpl
 
     if (detailStockLocationLine != null) {
       availableQty =
-          detailStockLocationLine
-              .getCurrentQty()
+          stockLocationLineDeltaService
+              .getCurrentQty(detailStockLocationLine)
               .subtract(detailStockLocationLine.getReservedQty());
     }
     return availableQty;
@@ -70,7 +74,10 @@ public class StockLocationLineFetchServiceSupplychainImpl
     StockLocationLine stockLocationLine = getStockLocationLine(stockLocation, product);
     BigDecimal availableQty = BigDecimal.ZERO;
     if (stockLocationLine != null) {
-      availableQty = stockLocationLine.getCurrentQty().subtract(stockLocationLine.getReservedQty());
+      availableQty =
+          stockLocationLineDeltaService
+              .getCurrentQty(stockLocationLine)
+              .subtract(stockLocationLine.getReservedQty());
     }
     return availableQty;
   }
@@ -28,6 +28,7 @@ import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.stock.db.StockLocationLine;
 import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
 import com.axelor.apps.stock.db.repo.StockMoveLineRepository;
+import com.axelor.apps.stock.service.StockLocationLineDeltaService;
 import com.axelor.apps.stock.service.StockLocationLineFetchService;
 import com.axelor.apps.stock.service.StockLocationLineHistoryService;
 import com.axelor.apps.stock.service.StockLocationLineServiceImpl;
@@ -54,7 +55,8 @@ public class StockLocationLineServiceSupplychainImpl extends StockLocationLineSe
       UnitConversionService unitConversionService,
       AppSupplychainService appSupplychainService,
       StockLocationLineHistoryService stockLocationLineHistoryService,
-      StockLocationLineFetchService stockLocationLineFetchService) {
+      StockLocationLineFetchService stockLocationLineFetchService,
+      StockLocationLineDeltaService stockLocationLineDeltaService) {
     super(
         stockLocationLineRepo,
         stockRulesService,
@@ -62,7 +64,8 @@ public class StockLocationLineServiceSupplychainImpl extends StockLocationLineSe
         appBaseService,
         unitConversionService,
         stockLocationLineHistoryService,
-        stockLocationLineFetchService);
+        stockLocationLineFetchService,
+        stockLocationLineDeltaService);
     this.appSupplychainService = appSupplychainService;
   }
 
@@ -83,8 +86,8 @@ public class StockLocationLineServiceSupplychainImpl extends StockLocationLineSe
       BigDecimal convertedQty =
           unitConversionService.convert(
               unit, stockLocationLine.getUnit(), qty, qty.scale(), product);
-      if (stockLocationLine
-              .getCurrentQty()
+      if (stockLocationLineDeltaService
+              .getCurrentQty(stockLocationLine)
               .subtract(stockLocationLine.getReservedQty())
               .compareTo(convertedQty)
           < 0) {
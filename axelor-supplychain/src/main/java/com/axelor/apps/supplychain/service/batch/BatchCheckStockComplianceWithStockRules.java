@@ -20,6 +20,7 @@ package com.axelor.apps.supplychain.service.batch;
 
 import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.stock.db.StockLocationLine;
@@ -40,7 +41,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import javax.persistence.TypedQuery;
 
 public class BatchCheckStockComplianceWithStockRules extends BatchStrategy {
 
@@ -67,13 +67,11 @@ public class BatchCheckStockComplianceWithStockRules extends BatchStrategy {
   @Override
   protected void process() {
 
-    int offset = 0;
+    KeysetQuery<StockLocationLine> query = getStockLocationLineToCheckQuery();
     Map<StockRules, List<StockLocationLine>> stockLocationLinesByStockRules;
-    while ((stockLocationLinesByStockRules =
-            getNonCompliantStockLocationLinesByStockRules(getFetchLimit(), offset))
+    while ((stockLocationLinesByStockRules = getNonCompliantStockLocationLinesByStockRules(query))
         != null) {
       if (ObjectUtils.isEmpty(stockLocationLinesByStockRules)) {
-        offset += getFetchLimit();
         JPA.clear();
         findBatch();
         continue;
@@ -91,10 +89,9 @@ public class BatchCheckStockComplianceWithStockRules extends BatchStrategy {
             TraceBackService.trace(e, null, batch.getId());
           }
         }
-        offset += getFetchLimit();
-        JPA.clear();
-        findBatch();
       }
+      JPA.clear();
+      findBatch();
     }
   }
 
@@ -106,12 +103,12 @@ public class BatchCheckStockComplianceWithStockRules extends BatchStrategy {
   }
 
   public Map<StockRules, List<StockLocationLine>> getNonCompliantStockLocationLinesByStockRules(
-      int fetchLimit, int offset) {
+      KeysetQuery<StockLocationLine> query) {
 
     Map<StockRules, List<StockLocationLine>> stockLocationLineByStockRules = new HashMap<>();
 
     Map<StockLocation, List<StockLocationLine>> stockLocationLinesByStockLocation =
-        getStockLocationLinesByStockLocationsToCheck(fetchLimit, offset);
+        getStockLocationLinesByStockLocationsToCheck(query);
 
     if (ObjectUtils.isEmpty(stockLocationLinesByStockLocation)) {
       /* This null serves as an escape for the calling while loop, since this method can return an empty list for a call and a list with elements for the next call, this null serves an indicator that all the subsequent calls will have no elements */
@@ -172,35 +169,28 @@ public class BatchCheckStockComplianceWithStockRules extends BatchStrategy {
   }
 
   public Map<StockLocation, List<StockLocationLine>> getStockLocationLinesByStockLocationsToCheck(
-      int fetchLimit, int offset) {
+      KeysetQuery<StockLocationLine> query) {
+    /* Don't change the groupingBy lambda expression to a method reference, it will throw a ClassNotFoundException */
+    return fetchNext(query).stream().collect(Collectors.groupingBy(sll -> sll.getStockLocation()));
+  }
+
+  protected KeysetQuery<StockLocationLine> getStockLocationLineToCheckQuery() {
     SupplychainBatch supplychainBatch = batch.getSupplychainBatch();
     Set<StockRules> usedStockRules = supplychainBatch.getUsedStockRulesSet();
 
-    StringBuilder query = new StringBuilder();
-    Map<String, Object> parameterMap = new HashMap<>();
-    query.append("SELECT sll FROM StockLocationLine sll WHERE sll.stockLocation is not null");
-
-    if (!ObjectUtils.isEmpty(usedStockRules)) {
-      query.append(" AND sll.product.id IN :productIds");
-      parameterMap.put(
-          "productIds",
-          usedStockRules.stream()
-              .map(StockRules::getProduct)
-              .map(Product::getId)
-              .distinct()
-              .collect(Collectors.toList()));
+    if (ObjectUtils.isEmpty(usedStockRules)) {
+      return new KeysetQuery<>(StockLocationLine.class, "self.stockLocation is not null");
     }
-    query.append(" ORDER BY sll.stockLocation.id,sll.id desc");
-
-    TypedQuery<StockLocationLine> typedQuery =
-        JPA.em()
-            .createQuery(query.toString(), StockLocationLine.class)
-            .setMaxResults(fetchLimit)
-            .setFirstResult(offset);
-    parameterMap.forEach(typedQuery::setParameter);
 
-    /* Don't change the groupingBy lambda expression to a method reference, it will throw a ClassNotFoundException */
-    return typedQuery.getResultList().stream()
-        .collect(Collectors.groupingBy(sll -> sll.getStockLocation()));
+    return new KeysetQuery<>(
+            StockLocationLine.class,
+            "self.stockLocation is not null AND self.product.id IN :productIds")
+        .bind(
+            "productIds",
+            usedStockRules.stream()
+                .map(StockRules::getProduct)
+                .map(Product::getId)
+                .distinct()
+                .collect(Collectors.toList()));
   }
 }
@@ -24,14 +24,18 @@ import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.sale.db.SaleOrder;
+import com.axelor.apps.sale.db.repo.SaleOrderRepository;
 import com.axelor.apps.supplychain.exception.SupplychainExceptionMessage;
 import com.axelor.apps.supplychain.service.invoice.SubscriptionInvoiceService;
 import com.axelor.apps.supplychain.service.saleorder.SaleOrderInvoiceService;
 import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,19 +45,45 @@ public class BatchInvoicing extends BatchStrategy {
 
   @Inject private SubscriptionInvoiceService subscriptionInvoiceService;
 
+  @Inject private SaleOrderRepository saleOrderRepository;
+
   @Inject
   public BatchInvoicing(SaleOrderInvoiceService saleOrderInvoiceService) {
 
     super(saleOrderInvoiceService);
   }
 
+  /**
+   * The orders are invoiced independently of each other, so they are split in partitions of ids
+   * processed in parallel. An order late of several periods still matches once invoiced, so the
+   * orders are fetched again until none is left, without the failed ones.
+   */
   @Override
   protected void process() {
 
-    List<SaleOrder> saleOrders = subscriptionInvoiceService.getSubscriptionOrders(getFetchLimit());
+    Set<Long> failedSaleOrderIdSet = ConcurrentHashMap.newKeySet();
+    int fetchLimit = getFetchLimit();
+    List<Long> saleOrderIdList;
+
+    while (!(saleOrderIdList = getSaleOrderIdList(failedSaleOrderIdSet)).isEmpty()) {
+      processPartitions(
+          partitionIds(saleOrderIdList),
+          idList -> invoiceSaleOrders(idList, fetchLimit, failedSaleOrderIdSet));
+    }
+  }
+
+  protected List<Long> getSaleOrderIdList(Set<Long> failedSaleOrderIdSet) {
+    List<Long> saleOrderIdList = subscriptionInvoiceService.getSubscriptionOrderIdList();
+    saleOrderIdList.removeAll(failedSaleOrderIdSet);
+    return saleOrderIdList;
+  }
+
+  protected void invoiceSaleOrders(
+      List<Long> saleOrderIdList, int fetchLimit, Set<Long> failedSaleOrderIdSet) {
 
-    while (!saleOrders.isEmpty()) {
-      for (SaleOrder saleOrder : saleOrders) {
+    for (List<Long> saleOrderIdSubList : Lists.partition(saleOrderIdList, fetchLimit)) {
+      for (Long saleOrderId : saleOrderIdSubList) {
+        SaleOrder saleOrder = saleOrderRepository.find(saleOrderId);
         try {
           subscriptionInvoiceService.generateSubscriptionInvoice(saleOrder);
           updateSaleOrder(saleOrder);
@@ -64,19 +94,20 @@ public class BatchInvoicing extends BatchStrategy {
               ExceptionOriginRepository.INVOICE_ORIGIN,
               batch.getId());
           incrementAnomaly();
+          failedSaleOrderIdSet.add(saleOrderId);
         } catch (Exception e) {
           TraceBackService.trace(
               new Exception(String.format(I18n.get("Order %s"), saleOrder.getSaleOrderSeq()), e),
               ExceptionOriginRepository.INVOICE_ORIGIN,
               batch.getId());
           incrementAnomaly();
+          failedSaleOrderIdSet.add(saleOrderId);
 
           LOG.error("Bug(Anomalie) généré(e) pour le devis {}", saleOrder.getSaleOrderSeq());
         }
       }
       JPA.clear();
       findBatch();
-      saleOrders = subscriptionInvoiceService.getSubscriptionOrders(getFetchLimit());
     }
   }
 
@@ -18,12 +18,57 @@
  */
 package com.axelor.apps.supplychain.service.batch;
 
+import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.supplychain.exception.SupplychainExceptionMessage;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public abstract class BatchOrderInvoicing extends BatchStrategy {
 
+  /**
+   * Invoice the orders of the query. The orders are invoiced independently of each other, so they
+   * are split in partitions of ids processed in parallel.
+   *
+   * @param klass the order model
+   * @param query the orders to invoice
+   * @param invoicer the invoice generation of one order
+   */
+  protected <T extends Model> void invoiceOrders(
+      Class<T> klass, Query<T> query, OrderInvoicer<T> invoicer) {
+    List<Long> orderIdList =
+        query.order("id").select("id").fetch(0, 0).stream()
+            .map(result -> (Long) result.get("id"))
+            .collect(Collectors.toList());
+    int fetchLimit = getFetchLimit();
+
+    processPartitions(
+        partitionIds(orderIdList), idList -> invoiceOrders(klass, idList, fetchLimit, invoicer));
+  }
+
+  protected <T extends Model> void invoiceOrders(
+      Class<T> klass, List<Long> orderIdList, int fetchLimit, OrderInvoicer<T> invoicer) {
+    for (List<Long> orderIdSubList : Lists.partition(orderIdList, fetchLimit)) {
+      for (Long orderId : orderIdSubList) {
+        try {
+          invoicer.generateInvoice(JPA.find(klass, orderId));
+          incrementDone();
+        } catch (Exception e) {
+          incrementAnomaly();
+          TraceBackService.trace(e, ExceptionOriginRepository.INVOICE_ORIGIN, batch.getId());
+        }
+      }
+      JPA.clear();
+      findBatch();
+    }
+  }
+
   @Override
   protected void stop() {
     StringBuilder sb = new StringBuilder();
@@ -45,4 +90,14 @@ public abstract class BatchOrderInvoicing extends BatchStrategy {
     addComment(sb.toString());
     super.stop();
   }
+
+  /**
+   * Invoice generation of one order.
+   *
+   * @param <T> the order model
+   */
+  @FunctionalInterface
+  protected interface OrderInvoicer<T> {
+    void generateInvoice(T order) throws Exception;
+  }
 }
@@ -20,23 +20,17 @@ package com.axelor.apps.supplychain.service.batch;
 
 import com.axelor.apps.account.db.repo.InvoiceRepository;
 import com.axelor.apps.base.db.repo.BlockingRepository;
-import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.service.BlockingService;
-import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.purchase.db.PurchaseOrder;
 import com.axelor.apps.purchase.db.repo.PurchaseOrderRepository;
 import com.axelor.apps.supplychain.db.SupplychainBatch;
 import com.axelor.apps.supplychain.service.PurchaseOrderInvoiceService;
-import com.axelor.db.JPA;
 import com.axelor.db.Query;
 import com.axelor.inject.Beans;
 import com.axelor.utils.helpers.StringHelper;
 import com.google.common.base.Strings;
-import com.google.common.collect.Lists;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class BatchOrderInvoicingPurchase extends BatchOrderInvoicing {
@@ -99,10 +93,6 @@ public class BatchOrderInvoicingPurchase extends BatchOrderInvoicing {
 
     query.bind("invoiceStatusSelect", InvoiceRepository.STATUS_CANCELED);
 
-    List<Long> anomalyList = Lists.newArrayList(0L);
-    filterList.add("self.id NOT IN (:anomalyList)");
-    query.bind("anomalyList", anomalyList);
-
     String filter =
         filterList.stream()
             .map(item -> String.format("(%s)", item))
@@ -111,31 +101,6 @@ public class BatchOrderInvoicingPurchase extends BatchOrderInvoicing {
 
     PurchaseOrderInvoiceService purchaseOrderInvoiceService =
         Beans.get(PurchaseOrderInvoiceService.class);
-    Set<Long> treatedSet = new HashSet<>();
-    List<PurchaseOrder> purchaseOrderList;
-
-    while (!(purchaseOrderList = query.fetch(getFetchLimit())).isEmpty()) {
-      for (PurchaseOrder purchaseOrder : purchaseOrderList) {
-        if (treatedSet.contains(purchaseOrder.getId())) {
-          throw new IllegalArgumentException("Invoice generation error");
-        }
-
-        treatedSet.add(purchaseOrder.getId());
-
-        try {
-          purchaseOrderInvoiceService.generateInvoice(purchaseOrder);
-          incrementDone();
-        } catch (Exception e) {
-          incrementAnomaly();
-          anomalyList.add(purchaseOrder.getId());
-          query.bind("anomalyList", anomalyList);
-          TraceBackService.trace(e, ExceptionOriginRepository.INVOICE_ORIGIN, batch.getId());
-          e.printStackTrace();
-          break;
-        }
-      }
-      JPA.clear();
-      findBatch();
-    }
+    invoiceOrders(PurchaseOrder.class, query, purchaseOrderInvoiceService::generateInvoice);
   }
 }
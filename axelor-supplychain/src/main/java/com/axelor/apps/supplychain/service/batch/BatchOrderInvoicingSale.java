@@ -20,23 +20,17 @@ package com.axelor.apps.supplychain.service.batch;
 
 import com.axelor.apps.account.db.repo.InvoiceRepository;
 import com.axelor.apps.base.db.repo.BlockingRepository;
-import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.service.BlockingService;
-import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.sale.db.SaleOrder;
 import com.axelor.apps.sale.db.repo.SaleOrderRepository;
 import com.axelor.apps.supplychain.db.SupplychainBatch;
 import com.axelor.apps.supplychain.service.saleorder.SaleOrderInvoiceService;
-import com.axelor.db.JPA;
 import com.axelor.db.Query;
 import com.axelor.inject.Beans;
 import com.axelor.utils.helpers.StringHelper;
 import com.google.common.base.Strings;
-import com.google.common.collect.Lists;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class BatchOrderInvoicingSale extends BatchOrderInvoicing {
@@ -101,10 +95,6 @@ public class BatchOrderInvoicingSale extends BatchOrderInvoicing {
 
     query.bind("invoiceStatusSelect", InvoiceRepository.STATUS_CANCELED);
 
-    List<Long> anomalyList = Lists.newArrayList(0L);
-    filterList.add("self.id NOT IN (:anomalyList)");
-    query.bind("anomalyList", anomalyList);
-
     String filter =
         filterList.stream()
             .map(item -> String.format("(%s)", item))
@@ -112,31 +102,6 @@ public class BatchOrderInvoicingSale extends BatchOrderInvoicing {
     query.filter(filter);
 
     SaleOrderInvoiceService saleOrderInvoiceService = Beans.get(SaleOrderInvoiceService.class);
-    Set<Long> treatedSet = new HashSet<>();
-    List<SaleOrder> saleOrderList;
-
-    while (!(saleOrderList = query.fetch(getFetchLimit())).isEmpty()) {
-      for (SaleOrder saleOrder : saleOrderList) {
-        if (treatedSet.contains(saleOrder.getId())) {
-          throw new IllegalArgumentException("Invoice generation error");
-        }
-
-        treatedSet.add(saleOrder.getId());
-
-        try {
-          saleOrderInvoiceService.generateInvoice(saleOrder);
-          incrementDone();
-        } catch (Exception e) {
-          incrementAnomaly();
-          anomalyList.add(saleOrder.getId());
-          query.bind("anomalyList", anomalyList);
-          TraceBackService.trace(e, ExceptionOriginRepository.INVOICE_ORIGIN, batch.getId());
-          e.printStackTrace();
-          break;
-        }
-      }
-      JPA.clear();
-      findBatch();
-    }
+    invoiceOrders(SaleOrder.class, query, saleOrderInvoiceService::generateInvoice);
   }
 }
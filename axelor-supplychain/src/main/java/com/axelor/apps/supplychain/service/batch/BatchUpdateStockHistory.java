@@ -26,18 +26,19 @@ import com.axelor.apps.base.db.repo.ProductCategoryRepository;
 import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.ProductCategoryService;
+import com.axelor.apps.base.service.administration.KeysetQuery;
 import com.axelor.apps.base.service.exception.TraceBackService;
-import com.axelor.apps.stock.db.StockHistoryLine;
 import com.axelor.apps.stock.service.StockHistoryService;
 import com.axelor.apps.supplychain.db.SupplychainBatch;
 import com.axelor.apps.supplychain.exception.SupplychainExceptionMessage;
 import com.axelor.db.JPA;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.google.inject.Inject;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class BatchUpdateStockHistory extends BatchStrategy {
 
@@ -61,45 +62,28 @@ public class BatchUpdateStockHistory extends BatchStrategy {
     try {
       List<Product> productList;
       List<ProductCategory> productCategoryList = getProductCategoryList(supplychainBatch);
-      List<StockHistoryLine> stockHistoryLineList = new ArrayList<>();
-      Query<Product> productQuery;
+      KeysetQuery<Product> productQuery;
 
       if (supplychainBatch.getProductCategorySet() != null
           && !supplychainBatch.getProductCategorySet().isEmpty()) {
         productQuery =
-            Beans.get(ProductRepository.class)
-                .all()
-                .filter(
-                    "self.productCategory in (?1) AND self.productTypeSelect = ?2",
-                    productCategoryList,
-                    ProductRepository.PRODUCT_TYPE_STORABLE);
+            new KeysetQuery<>(
+                Product.class,
+                "self.productCategory in (?1) AND self.productTypeSelect = ?2",
+                productCategoryList,
+                ProductRepository.PRODUCT_TYPE_STORABLE);
       } else {
         productQuery =
-            Beans.get(ProductRepository.class)
-                .all()
-                .filter("self.productTypeSelect = ?1", ProductRepository.PRODUCT_TYPE_STORABLE);
+            new KeysetQuery<>(
+                Product.class,
+                "self.productTypeSelect = ?1",
+                ProductRepository.PRODUCT_TYPE_STORABLE);
       }
 
-      int offset = 0;
-
-      while (!(productList = productQuery.order("id").fetch(getFetchLimit(), offset)).isEmpty()) {
-        for (Product product : productList) {
-          ++offset;
-          try {
-            stockHistoryLineList.addAll(
-                stockHistoryService.computeAndSaveStockHistoryLineList(
-                    product.getId(),
-                    supplychainBatch.getCompany().getId(),
-                    null,
-                    supplychainBatch.getPeriod().getFromDate(),
-                    supplychainBatch.getPeriod().getToDate()));
-            incrementDone();
-          } catch (Exception e) {
-            incrementAnomaly();
-            TraceBackService.trace(
-                e, ExceptionOriginRepository.UPDATE_STOCK_HISTORY, batch.getId());
-          }
-        }
+      while (!(productList = fetchNext(productQuery)).isEmpty()) {
+        updateStockHistory(
+            productList.stream().map(Product::getId).collect(Collectors.toList()),
+            supplychainBatch);
         JPA.clear();
         findBatch();
       }
@@ -117,6 +101,37 @@ public class BatchUpdateStockHistory extends BatchStrategy {
     }
   }
 
+  /**
+   * Compute the stock history of a page of products at once. If it fails, the products are
+   * computed one by one so the anomalies are traced on the right products.
+   */
+  protected void updateStockHistory(List<Long> productIdList, SupplychainBatch supplychainBatch) {
+    Long companyId = supplychainBatch.getCompany().getId();
+    LocalDate fromDate = supplychainBatch.getPeriod().getFromDate();
+    LocalDate toDate = supplychainBatch.getPeriod().getToDate();
+
+    try {
+      stockHistoryService.computeAndSaveStockHistoryLineList(
+          productIdList, companyId, fromDate, toDate);
+      productIdList.forEach(productId -> incrementDone());
+      return;
+    } catch (Exception e) {
+      JPA.clear();
+      findBatch();
+    }
+
+    for (Long productId : productIdList) {
+      try {
+        stockHistoryService.computeAndSaveStockHistoryLineList(
+            productId, companyId, null, fromDate, toDate);
+        incrementDone();
+      } catch (Exception e) {
+        incrementAnomaly();
+        TraceBackService.trace(e, ExceptionOriginRepository.UPDATE_STOCK_HISTORY, batch.getId());
+      }
+    }
+  }
+
   @Override
   protected void stop() {
     String comment = I18n.get(SupplychainExceptionMessage.BATCH_UPDATE_STOCK_HISTORY_1) + " ";
@@ -29,5 +29,12 @@ public interface SubscriptionInvoiceService {
 
   public List<SaleOrder> getSubscriptionOrders(Integer limit);
 
+  /**
+   * Get the ids of the subscription orders to invoice, ordered by id.
+   *
+   * @return the ids of the orders
+   */
+  public List<Long> getSubscriptionOrderIdList();
+
   public Invoice generateSubscriptionInvoice(SaleOrder saleOrder) throws AxelorException;
 }
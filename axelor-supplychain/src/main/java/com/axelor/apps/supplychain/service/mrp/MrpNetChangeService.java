@@ -0,0 +1,48 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.supplychain.service.mrp;
+
+import com.axelor.apps.supplychain.db.Mrp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+public interface MrpNetChangeService {
+
+  /**
+   * Get the products of the MRP having a change, since the given date time, on any record used to
+   * create their mrp lines (stock, orders, forecasts, stock rules, ...). Products without any mrp
+   * line and products for which an origin of a mrp line was removed are also returned.
+   *
+   * @param mrp the MRP
+   * @param productIdList the ids of the products in the scope of the MRP
+   * @param since the start date time of the previous computation
+   * @return the ids of the changed products
+   */
+  Set<Long> getChangedProductIdSet(Mrp mrp, Collection<Long> productIdList, LocalDateTime since);
+
+  /**
+   * Add to the changed products every product whose mrp lines depend on them.
+   *
+   * @param productIdList the ids of the products in the scope of the MRP
+   * @param changedProductIdSet the ids of the changed products
+   * @return the ids of the products to compute again
+   */
+  Set<Long> addDependentProducts(Collection<Long> productIdList, Set<Long> changedProductIdSet);
+}
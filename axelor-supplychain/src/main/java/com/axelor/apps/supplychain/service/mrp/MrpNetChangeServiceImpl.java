@@ -0,0 +1,183 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.supplychain.service.mrp;
+
+import com.axelor.apps.purchase.db.PurchaseOrderLine;
+import com.axelor.apps.sale.db.SaleOrderLine;
+import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.MrpForecast;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.google.common.collect.Lists;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class MrpNetChangeServiceImpl implements MrpNetChangeService {
+
+  protected static final int PARTITION_SIZE = 1000;
+
+  @Override
+  public Set<Long> getChangedProductIdSet(
+      Mrp mrp, Collection<Long> productIdList, LocalDateTime since) {
+
+    Set<Long> changedProductIdSet = new HashSet<>();
+
+    for (List<Long> productIdSubList :
+        Lists.partition(new ArrayList<>(productIdList), PARTITION_SIZE)) {
+      for (String query : this.getChangedProductQueryList()) {
+        changedProductIdSet.addAll(
+            JPA.em()
+                .createQuery(query, Long.class)
+                .setParameter("productIdList", productIdSubList)
+                .setParameter("since", since)
+                .getResultList());
+      }
+    }
+
+    changedProductIdSet.addAll(this.getProductIdWithUserEditionSet(mrp, since));
+    changedProductIdSet.addAll(this.getProductIdWithRemovedOriginSet(mrp));
+
+    Set<Long> computedProductIdSet = this.getComputedProductIdSet(mrp);
+    for (Long productId : productIdList) {
+      if (!computedProductIdSet.contains(productId)) {
+        changedProductIdSet.add(productId);
+      }
+    }
+
+    return changedProductIdSet;
+  }
+
+  @Override
+  public Set<Long> addDependentProducts(
+      Collection<Long> productIdList, Set<Long> changedProductIdSet) {
+    return changedProductIdSet;
+  }
+
+  /**
+   * Queries returning the products, among :productIdList, having a record changed since :since.
+   *
+   * @return the list of queries
+   */
+  protected List<String> getChangedProductQueryList() {
+    return Lists.newArrayList(
+        "SELECT DISTINCT self.id FROM Product self "
+            + "WHERE self.id IN (:productIdList) AND self.updatedOn >= :since",
+        "SELECT DISTINCT self.product.id FROM StockLocationLine self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since)",
+        "SELECT DISTINCT self.product.id FROM StockMoveLine self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since "
+            + "OR self.stockMove.updatedOn >= :since)",
+        "SELECT DISTINCT self.product.id FROM SaleOrderLine self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since "
+            + "OR self.saleOrder.updatedOn >= :since)",
+        "SELECT DISTINCT self.product.id FROM PurchaseOrderLine self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since "
+            + "OR self.purchaseOrder.updatedOn >= :since)",
+        "SELECT DISTINCT self.product.id FROM MrpForecast self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since)",
+        "SELECT DISTINCT self.product.id FROM StockHistoryLine self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since)",
+        "SELECT DISTINCT self.product.id FROM StockRules self "
+            + "WHERE self.product.id IN (:productIdList) "
+            + "AND (self.createdOn >= :since OR self.updatedOn >= :since)");
+  }
+
+  /** The models a mrp line origin may refer to. */
+  protected List<Class<? extends Model>> getMrpLineOriginModelList() {
+    return Lists.newArrayList(SaleOrderLine.class, PurchaseOrderLine.class, MrpForecast.class);
+  }
+
+  protected Set<Long> getProductIdWithUserEditionSet(Mrp mrp, LocalDateTime since) {
+    return new HashSet<>(
+        JPA.em()
+            .createQuery(
+                "SELECT DISTINCT self.product.id FROM MrpLine self "
+                    + "WHERE self.mrp.id = :mrpId AND self.isEditedByUser = true "
+                    + "AND self.updatedOn >= :since",
+                Long.class)
+            .setParameter("mrpId", mrp.getId())
+            .setParameter("since", since)
+            .getResultList());
+  }
+
+  /**
+   * Get the products having a mrp line whose origin was removed, or now refers to another product.
+   *
+   * @param mrp the MRP
+   * @return the ids of the products
+   */
+  protected Set<Long> getProductIdWithRemovedOriginSet(Mrp mrp) {
+    Set<Long> productIdSet = new HashSet<>();
+
+    for (Class<? extends Model> klass : this.getMrpLineOriginModelList()) {
+      productIdSet.addAll(
+          JPA.em()
+              .createQuery(this.getRemovedOriginQuery(klass), Long.class)
+              .setParameter("mrpId", mrp.getId())
+              .setParameter("relatedToSelect", klass.getCanonicalName())
+              .getResultList());
+    }
+
+    return productIdSet;
+  }
+
+  protected String getRemovedOriginQuery(Class<? extends Model> klass) {
+    String productPath = this.getMrpLineOriginProductPath(klass);
+    String productCondition =
+        productPath != null ? " AND related." + productPath + " = origin.mrpLine.product" : "";
+    return "SELECT DISTINCT origin.mrpLine.product.id FROM MrpLineOrigin origin "
+        + "WHERE origin.mrpLine.mrp.id = :mrpId "
+        + "AND origin.relatedToSelect = :relatedToSelect "
+        + "AND NOT EXISTS (SELECT related.id FROM "
+        + klass.getSimpleName()
+        + " related WHERE related.id = origin.relatedToSelectId"
+        + productCondition
+        + ")";
+  }
+
+  /**
+   * Path of the product of a mrp line origin, which must be the product of the mrp line.
+   *
+   * @param klass the model of the origin
+   * @return the path, or null if the origin may be used by mrp lines of other products
+   */
+  protected String getMrpLineOriginProductPath(Class<? extends Model> klass) {
+    return "product";
+  }
+
+  protected Set<Long> getComputedProductIdSet(Mrp mrp) {
+    return new HashSet<>(
+        JPA.em()
+            .createQuery(
+                "SELECT DISTINCT self.product.id FROM MrpLine self WHERE self.mrp.id = :mrpId",
+                Long.class)
+            .setParameter("mrpId", mrp.getId())
+            .getResultList());
+  }
+}
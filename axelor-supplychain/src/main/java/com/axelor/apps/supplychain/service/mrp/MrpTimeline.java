@@ -0,0 +1,192 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.supplychain.service.mrp;
+
+import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * In-memory timeline of the mrp lines of one product, in the same order as the one used by the
+ * standard computation (maturity date, type, sequence, id).
+ *
+ * <p>Quantities are stored as unscaled longs at {@link #QTY_SCALE}, which is the scale of the
+ * MrpLine quantity columns, so cumulative quantities are exact. A long holds quantities up to about
+ * 9.2e8 at this scale, below the precision of the columns: a line whose quantities do not fit is
+ * still added, and {@link #computeCumulativeQty()} then raises an {@link ArithmeticException}, in
+ * which case the caller must fall back to the standard computation for this product.
+ */
+public class MrpTimeline {
+
+  public static final int QTY_SCALE = 10;
+
+  protected int size;
+  protected long[] mrpLineIds;
+  protected long[] qtys;
+  protected long[] minQtys;
+  protected long[] cumulativeQtys;
+  protected int[] elementSelects;
+  protected int[] typeSelects;
+  protected boolean[] proposalElements;
+  protected boolean[] withEstimatedDeliveries;
+  protected boolean overflow;
+
+  public MrpTimeline(int capacity) {
+    int initialCapacity = Math.max(capacity, 1);
+    mrpLineIds = new long[initialCapacity];
+    qtys = new long[initialCapacity];
+    minQtys = new long[initialCapacity];
+    cumulativeQtys = new long[initialCapacity];
+    elementSelects = new int[initialCapacity];
+    typeSelects = new int[initialCapacity];
+    proposalElements = new boolean[initialCapacity];
+    withEstimatedDeliveries = new boolean[initialCapacity];
+  }
+
+  /**
+   * Append a line to the timeline. Lines must be added in the computation order.
+   *
+   * @param mrpLineId the id of the mrp line
+   * @param qty the quantity of the line
+   * @param minQty the minimum quantity of the line
+   * @param elementSelect the element of the line type, 0 if the line has no type
+   * @param typeSelect the type (in/out) of the line type, 0 if the line has no type
+   * @param proposalElement whether the line type is considered as a proposal
+   * @param withEstimatedDelivery whether the line is linked to an estimated delivery line
+   */
+  public void addLine(
+      long mrpLineId,
+      BigDecimal qty,
+      BigDecimal minQty,
+      int elementSelect,
+      int typeSelect,
+      boolean proposalElement,
+      boolean withEstimatedDelivery) {
+    ensureCapacity(size + 1);
+    mrpLineIds[size] = mrpLineId;
+    try {
+      qtys[size] = toUnscaled(qty);
+      minQtys[size] = toUnscaled(minQty);
+    } catch (ArithmeticException e) {
+      overflow = true;
+    }
+    elementSelects[size] = elementSelect;
+    typeSelects[size] = typeSelect;
+    proposalElements[size] = proposalElement;
+    withEstimatedDeliveries[size] = withEstimatedDelivery;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long getMrpLineId(int index) {
+    return mrpLineIds[index];
+  }
+
+  public BigDecimal getCumulativeQty(int index) {
+    return BigDecimal.valueOf(cumulativeQtys[index], QTY_SCALE);
+  }
+
+  /**
+   * Compute the cumulative quantity of every line. A purchase proposal with an estimated delivery
+   * line does not impact the cumulative quantity, the estimated delivery line does.
+   *
+   * @throws ArithmeticException if a quantity or a cumulative quantity does not fit in a long
+   */
+  public void computeCumulativeQty() {
+    if (overflow) {
+      throw new ArithmeticException("Quantities do not fit in a long at scale " + QTY_SCALE);
+    }
+    long previousCumulativeQty = 0L;
+    for (int index = 0; index < size; index++) {
+      if (!isPurchaseProposalWithEstimatedDelivery(index)) {
+        previousCumulativeQty = Math.addExact(previousCumulativeQty, qtys[index]);
+      }
+      cumulativeQtys[index] = previousCumulativeQty;
+    }
+  }
+
+  /**
+   * Find the next line, starting from the given index, for which the cumulative quantity is below
+   * the minimum quantity and for which a proposal may be created.
+   *
+   * @param fromIndex the index to start from
+   * @param firstPass whether it is the first pass on this product
+   * @return the index of the line, or -1 if there is none
+   */
+  public int nextInsufficientCumulativeQtyIndex(int fromIndex, boolean firstPass) {
+    for (int index = fromIndex; index < size; index++) {
+      if (isInsufficientCumulativeQty(index, firstPass)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  protected boolean isInsufficientCumulativeQty(int index, boolean firstPass) {
+    int elementSelect = elementSelects[index];
+
+    if (isPurchaseProposalWithEstimatedDelivery(index)) {
+      return false;
+    }
+
+    if ((elementSelect == MrpLineTypeRepository.ELEMENT_PURCHASE_ORDER
+            || elementSelect == MrpLineTypeRepository.ELEMENT_MANUFACTURING_ORDER)
+        && !firstPass) {
+      return false;
+    }
+
+    boolean isAvailableStock = elementSelect == MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK;
+
+    return ((!isAvailableStock
+                && (!proposalElements[index]
+                    || typeSelects[index] == MrpLineTypeRepository.TYPE_OUT))
+            || (isAvailableStock && firstPass))
+        && cumulativeQtys[index] < minQtys[index];
+  }
+
+  protected boolean isPurchaseProposalWithEstimatedDelivery(int index) {
+    return elementSelects[index] == MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL
+        && withEstimatedDeliveries[index];
+  }
+
+  protected long toUnscaled(BigDecimal value) {
+    if (value == null) {
+      return 0L;
+    }
+    return value.setScale(QTY_SCALE).unscaledValue().longValueExact();
+  }
+
+  protected void ensureCapacity(int capacity) {
+    if (capacity <= mrpLineIds.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, mrpLineIds.length * 2);
+    mrpLineIds = Arrays.copyOf(mrpLineIds, newCapacity);
+    qtys = Arrays.copyOf(qtys, newCapacity);
+    minQtys = Arrays.copyOf(minQtys, newCapacity);
+    cumulativeQtys = Arrays.copyOf(cumulativeQtys, newCapacity);
+    elementSelects = Arrays.copyOf(elementSelects, newCapacity);
+    typeSelects = Arrays.copyOf(typeSelects, newCapacity);
+    proposalElements = Arrays.copyOf(proposalElements, newCapacity);
+    withEstimatedDeliveries = Arrays.copyOf(withEstimatedDeliveries, newCapacity);
+  }
+}
@@ -0,0 +1,500 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2025 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.supplychain.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.repo.ProductRepository;
+import com.axelor.apps.base.service.ProductCategoryService;
+import com.axelor.apps.base.service.UnitConversionService;
+import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.purchase.db.repo.PurchaseOrderLineRepository;
+import com.axelor.apps.purchase.service.app.AppPurchaseService;
+import com.axelor.apps.sale.db.repo.SaleOrderLineRepository;
+import com.axelor.apps.sale.service.app.AppSaleService;
+import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.stock.db.repo.StockHistoryLineRepository;
+import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
+import com.axelor.apps.stock.db.repo.StockLocationRepository;
+import com.axelor.apps.stock.service.StockLocationService;
+import com.axelor.apps.stock.service.StockRulesService;
+import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.MrpLine;
+import com.axelor.apps.supplychain.db.MrpLineType;
+import com.axelor.apps.supplychain.db.repo.MrpForecastRepository;
+import com.axelor.apps.supplychain.db.repo.MrpLineRepository;
+import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
+import com.axelor.apps.supplychain.db.repo.MrpRepository;
+import com.axelor.apps.supplychain.service.app.AppSupplychainService;
+import com.axelor.apps.supplychain.service.mrp.MrpNetChangeService;
+import com.axelor.apps.supplychain.service.mrp.MrpTimeline;
+import com.axelor.db.Query;
+import com.axelor.message.service.MailMessageService;
+import com.axelor.studio.db.AppSupplychain;
+import com.axelor.studio.db.repo.AppSupplychainRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Check that the in memory computation gives the same results as the standard computation. */
+class TestMrpTimeline {
+
+  private static final int LINE_NB = 500;
+
+  private MrpServiceImpl mrpService;
+  private MrpLineRepository mrpLineRepository;
+  private Query<MrpLine> mrpLineQuery;
+  private StockRulesService stockRulesService;
+  private int stockRulesCallCount;
+
+  private Product product;
+  private StockLocation stockLocation;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void prepare() {
+    mrpLineRepository = mock(MrpLineRepository.class);
+    mrpLineQuery = mock(Query.class);
+    stockRulesService = mock(StockRulesService.class);
+
+    when(mrpLineRepository.all()).thenReturn(mrpLineQuery);
+    when(mrpLineQuery.filter(anyString(), any(), any())).thenReturn(mrpLineQuery);
+    when(mrpLineQuery.order(anyString())).thenReturn(mrpLineQuery);
+
+    // The stock rules are only fetched when the cumulative qty is insufficient
+    when(stockRulesService.getStockRules(any(), any(), anyInt(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              stockRulesCallCount++;
+              return null;
+            });
+
+    mrpService =
+        new MrpServiceImpl(
+            mock(MrpRepository.class),
+            mock(StockLocationRepository.class),
+            mock(ProductRepository.class),
+            mock(StockLocationLineRepository.class),
+            mock(MrpLineTypeRepository.class),
+            mock(PurchaseOrderLineRepository.class),
+            mock(SaleOrderLineRepository.class),
+            mrpLineRepository,
+            stockRulesService,
+            mock(MrpLineService.class),
+            mock(MrpForecastRepository.class),
+            mock(ProductCategoryService.class),
+            mock(StockLocationService.class),
+            mock(MailMessageService.class),
+            mock(UnitConversionService.class),
+            mock(AppBaseService.class),
+            mock(AppSaleService.class),
+            mock(AppPurchaseService.class),
+            mock(StockHistoryLineRepository.class),
+            mock(MrpSaleOrderCheckLateSaleService.class),
+            mock(MrpLineTypeService.class),
+            mock(AppSupplychainService.class),
+            mock(MrpNetChangeService.class));
+
+    Mrp mrp = new Mrp();
+    mrp.setId(1L);
+    mrp.setMrpTypeSelect(MrpRepository.MRP_TYPE_MRP);
+    mrpService.setMrp(mrp);
+
+    product = new Product();
+    product.setId(1L);
+    product.setFullName("Product");
+    stockLocation = new StockLocation();
+  }
+
+  @Test
+  void testSameResultsAsStandardComputation() throws AxelorException {
+    Random random = new Random(42);
+    for (int scenario = 0; scenario < 20; scenario++) {
+      List<MrpLine> mrpLineList = createRandomMrpLineList(random);
+      when(mrpLineQuery.fetch()).thenReturn(mrpLineList);
+
+      mrpService.computeCumulativeQty(product);
+      MrpTimeline mrpTimeline = createMrpTimeline(mrpLineList);
+      mrpTimeline.computeCumulativeQty();
+
+      for (int index = 0; index < mrpLineList.size(); index++) {
+        MrpLine mrpLine = mrpLineList.get(index);
+        Assertions.assertEquals(mrpLine.getId(), mrpTimeline.getMrpLineId(index));
+        Assertions.assertEquals(
+            0, mrpLine.getCumulativeQty().compareTo(mrpTimeline.getCumulativeQty(index)));
+      }
+
+      assertSameInsufficientLines(mrpLineList, mrpTimeline, true);
+      assertSameInsufficientLines(mrpLineList, mrpTimeline, false);
+    }
+  }
+
+  @Test
+  void testQtyWithTooManyDecimals() {
+    MrpTimeline mrpTimeline = new MrpTimeline(1);
+    mrpTimeline.addLine(
+        1L,
+        new BigDecimal("1.00000000001"),
+        BigDecimal.ZERO,
+        MrpLineTypeRepository.ELEMENT_SALE_ORDER,
+        MrpLineTypeRepository.TYPE_OUT,
+        false,
+        false);
+    Assertions.assertThrows(ArithmeticException.class, mrpTimeline::computeCumulativeQty);
+  }
+
+  @Test
+  void testQtyTooLarge() {
+    MrpTimeline mrpTimeline = new MrpTimeline(1);
+    mrpTimeline.addLine(
+        1L,
+        new BigDecimal("5000000000"),
+        BigDecimal.ZERO,
+        MrpLineTypeRepository.ELEMENT_SALE_ORDER,
+        MrpLineTypeRepository.TYPE_OUT,
+        false,
+        false);
+    Assertions.assertEquals(1, mrpTimeline.size());
+    Assertions.assertThrows(ArithmeticException.class, mrpTimeline::computeCumulativeQty);
+  }
+
+  /** Run the passes of a product with and without the timeline, they must create same proposals. */
+  @Test
+  void testSameProposalsAsStandardComputation() throws AxelorException {
+    for (int scenario = 0; scenario < 20; scenario++) {
+      assertSameProposals(
+          createEngineMrpLineList(new Random(scenario), null),
+          createEngineMrpLineList(new Random(scenario), null));
+    }
+  }
+
+  /** A quantity not fitting in the timeline falls back to the standard computation. */
+  @Test
+  void testSameProposalsWithLargeQty() throws AxelorException {
+    BigDecimal largeQty = new BigDecimal("5000000000");
+    assertSameProposals(
+        createEngineMrpLineList(new Random(42), largeQty),
+        createEngineMrpLineList(new Random(42), largeQty));
+  }
+
+  @Test
+  void testEmptyTimeline() {
+    MrpTimeline mrpTimeline = new MrpTimeline(0);
+    mrpTimeline.computeCumulativeQty();
+    Assertions.assertEquals(0, mrpTimeline.size());
+    Assertions.assertEquals(-1, mrpTimeline.nextInsufficientCumulativeQtyIndex(0, true));
+  }
+
+  protected void assertSameInsufficientLines(
+      List<MrpLine> mrpLineList, MrpTimeline mrpTimeline, boolean firstPass)
+      throws AxelorException {
+    List<Integer> expectedIndexList = new ArrayList<>();
+    for (int index = 0; index < mrpLineList.size(); index++) {
+      int previousCallCount = stockRulesCallCount;
+      mrpService.checkInsufficientCumulativeQty(mrpLineList.get(index), product, firstPass);
+      if (stockRulesCallCount > previousCallCount) {
+        expectedIndexList.add(index);
+      }
+    }
+
+    List<Integer> indexList = new ArrayList<>();
+    int index = mrpTimeline.nextInsufficientCumulativeQtyIndex(0, firstPass);
+    while (index >= 0) {
+      indexList.add(index);
+      index = mrpTimeline.nextInsufficientCumulativeQtyIndex(index + 1, firstPass);
+    }
+
+    Assertions.assertEquals(expectedIndexList, indexList);
+  }
+
+  protected void assertSameProposals(
+      List<MrpLine> standardMrpLineList, List<MrpLine> inMemoryMrpLineList)
+      throws AxelorException {
+    EngineMrpService standardMrpService = createEngineMrpService(standardMrpLineList, false);
+    EngineMrpService inMemoryMrpService = createEngineMrpService(inMemoryMrpLineList, true);
+
+    standardMrpService.checkInsufficientCumulativeQty(product);
+    inMemoryMrpService.checkInsufficientCumulativeQty(product);
+
+    List<MrpLine> standardProposalList = standardMrpService.proposalMrpLineList;
+    List<MrpLine> inMemoryProposalList = inMemoryMrpService.proposalMrpLineList;
+    Assertions.assertFalse(standardProposalList.isEmpty());
+    Assertions.assertEquals(standardProposalList.size(), inMemoryProposalList.size());
+    for (int index = 0; index < standardProposalList.size(); index++) {
+      MrpLine standardProposal = standardProposalList.get(index);
+      MrpLine inMemoryProposal = inMemoryProposalList.get(index);
+      Assertions.assertEquals(
+          standardProposal.getMaturityDate(), inMemoryProposal.getMaturityDate());
+      Assertions.assertEquals(0, standardProposal.getQty().compareTo(inMemoryProposal.getQty()));
+    }
+
+    List<MrpLine> standardSortedList = sortMrpLineList(standardMrpLineList);
+    List<MrpLine> inMemorySortedList = sortMrpLineList(inMemoryMrpLineList);
+    for (int index = 0; index < standardSortedList.size(); index++) {
+      Assertions.assertEquals(
+          0,
+          standardSortedList
+              .get(index)
+              .getCumulativeQty()
+              .compareTo(inMemorySortedList.get(index).getCumulativeQty()));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  protected EngineMrpService createEngineMrpService(
+      List<MrpLine> engineMrpLineList, boolean inMemory) {
+    MrpLineRepository engineMrpLineRepository = mock(MrpLineRepository.class);
+    Query<MrpLine> engineMrpLineQuery = mock(Query.class);
+    when(engineMrpLineRepository.all()).thenReturn(engineMrpLineQuery);
+    when(engineMrpLineQuery.filter(anyString(), any(), any())).thenReturn(engineMrpLineQuery);
+    when(engineMrpLineQuery.order(anyString())).thenReturn(engineMrpLineQuery);
+    when(engineMrpLineQuery.fetch())
+        .thenAnswer(invocation -> sortMrpLineList(engineMrpLineList));
+    when(engineMrpLineRepository.find(anyLong()))
+        .thenAnswer(
+            invocation ->
+                engineMrpLineList.stream()
+                    .filter(mrpLine -> mrpLine.getId().equals(invocation.getArgument(0)))
+                    .findFirst()
+                    .orElse(null));
+
+    ProductRepository productRepository = mock(ProductRepository.class);
+    when(productRepository.find(product.getId())).thenReturn(product);
+
+    AppSupplychain appSupplychain = new AppSupplychain();
+    appSupplychain.setMrpComputationModeSelect(
+        inMemory
+            ? AppSupplychainRepository.MRP_COMPUTATION_MODE_IN_MEMORY
+            : AppSupplychainRepository.MRP_COMPUTATION_MODE_STANDARD);
+    AppSupplychainService appSupplychainService = mock(AppSupplychainService.class);
+    when(appSupplychainService.getAppSupplychain()).thenReturn(appSupplychain);
+
+    EngineMrpService engineMrpService =
+        new EngineMrpService(
+            engineMrpLineList, engineMrpLineRepository, productRepository, appSupplychainService);
+    engineMrpService.setMrp(mrpService.mrp);
+    return engineMrpService;
+  }
+
+  protected static List<MrpLine> sortMrpLineList(List<MrpLine> mrpLineList) {
+    List<MrpLine> sortedList = new ArrayList<>(mrpLineList);
+    sortedList.sort(
+        Comparator.comparing(MrpLine::getMaturityDate)
+            .thenComparing(mrpLine -> mrpLine.getMrpLineType().getTypeSelect())
+            .thenComparing(mrpLine -> mrpLine.getMrpLineType().getSequence())
+            .thenComparing(MrpLine::getId));
+    return sortedList;
+  }
+
+  /**
+   * Lines whose insufficient cumulative quantity can be solved by a proposal: the lines checked
+   * after the first pass go out of stock, so a proposal of the same date comes before them.
+   */
+  protected List<MrpLine> createEngineMrpLineList(Random random, BigDecimal largeQty) {
+    int[] elementSelects = {
+      MrpLineTypeRepository.ELEMENT_PURCHASE_ORDER,
+      MrpLineTypeRepository.ELEMENT_SALE_ORDER,
+      MrpLineTypeRepository.ELEMENT_SALE_FORECAST,
+      MrpLineTypeRepository.ELEMENT_MANUFACTURING_ORDER_NEED
+    };
+    LocalDate today = LocalDate.of(2026, 1, 1);
+
+    List<MrpLine> mrpLineList = new ArrayList<>();
+    for (int index = 0; index < 50; index++) {
+      int elementSelect =
+          index == 0
+              ? MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK
+              : elementSelects[random.nextInt(elementSelects.length)];
+      BigDecimal qty = BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(3));
+      if (index == 25 && largeQty != null) {
+        elementSelect = MrpLineTypeRepository.ELEMENT_SALE_ORDER;
+        qty = largeQty;
+      }
+      boolean isIn =
+          elementSelect == MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK
+              || elementSelect == MrpLineTypeRepository.ELEMENT_PURCHASE_ORDER;
+
+      MrpLine mrpLine =
+          createEngineMrpLine(
+              (long) index + 1,
+              elementSelect,
+              isIn ? MrpLineTypeRepository.TYPE_IN : MrpLineTypeRepository.TYPE_OUT,
+              isIn ? qty : qty.negate(),
+              today.plusDays(index == 0 ? 0 : random.nextInt(60)));
+      mrpLine.setMinQty(BigDecimal.valueOf(random.nextInt(500), 1));
+      mrpLineList.add(mrpLine);
+    }
+    return mrpLineList;
+  }
+
+  protected MrpLine createEngineMrpLine(
+      Long id, int elementSelect, int typeSelect, BigDecimal qty, LocalDate maturityDate) {
+    MrpLineType mrpLineType = new MrpLineType();
+    mrpLineType.setName("Type");
+    mrpLineType.setElementSelect(elementSelect);
+    mrpLineType.setTypeSelect(typeSelect);
+
+    MrpLine mrpLine = new MrpLine();
+    mrpLine.setId(id);
+    mrpLine.setProduct(product);
+    mrpLine.setStockLocation(stockLocation);
+    mrpLine.setMrpLineType(mrpLineType);
+    mrpLine.setQty(qty);
+    mrpLine.setMaturityDate(maturityDate);
+    return mrpLine;
+  }
+
+  /**
+   * Mrp service working on mrp lines kept in memory: a proposal covering the missing quantity is
+   * added to the lines each time a line has an insufficient cumulative quantity.
+   */
+  protected class EngineMrpService extends MrpServiceImpl {
+
+    protected final List<MrpLine> engineMrpLineList;
+    protected final List<MrpLine> proposalMrpLineList = new ArrayList<>();
+
+    protected EngineMrpService(
+        List<MrpLine> engineMrpLineList,
+        MrpLineRepository engineMrpLineRepository,
+        ProductRepository productRepository,
+        AppSupplychainService appSupplychainService) {
+      super(
+          mock(MrpRepository.class),
+          mock(StockLocationRepository.class),
+          productRepository,
+          mock(StockLocationLineRepository.class),
+          mock(MrpLineTypeRepository.class),
+          mock(PurchaseOrderLineRepository.class),
+          mock(SaleOrderLineRepository.class),
+          engineMrpLineRepository,
+          mock(StockRulesService.class),
+          mock(MrpLineService.class),
+          mock(MrpForecastRepository.class),
+          mock(ProductCategoryService.class),
+          mock(StockLocationService.class),
+          mock(MailMessageService.class),
+          mock(UnitConversionService.class),
+          mock(AppBaseService.class),
+          mock(AppSaleService.class),
+          mock(AppPurchaseService.class),
+          mock(StockHistoryLineRepository.class),
+          mock(MrpSaleOrderCheckLateSaleService.class),
+          mock(MrpLineTypeService.class),
+          appSupplychainService,
+          mock(MrpNetChangeService.class));
+      this.engineMrpLineList = engineMrpLineList;
+    }
+
+    @Override
+    protected void clearSession() {}
+
+    @Override
+    protected Map<Long, MrpTimeline> fetchMrpTimelines(List<Long> productIdList) {
+      Map<Long, MrpTimeline> mrpTimelineMap = new HashMap<>();
+      mrpTimelineMap.put(product.getId(), createMrpTimeline(sortMrpLineList(engineMrpLineList)));
+      return mrpTimelineMap;
+    }
+
+    @Override
+    protected void saveCumulativeQty(MrpTimeline mrpTimeline) {
+      for (int index = 0; index < mrpTimeline.size(); index++) {
+        mrpLineRepository
+            .find(mrpTimeline.getMrpLineId(index))
+            .setCumulativeQty(mrpTimeline.getCumulativeQty(index));
+      }
+    }
+
+    @Override
+    protected boolean checkInsufficientCumulativeQty(
+        MrpLine mrpLine, Product product, boolean firstPass) {
+      if (!this.isInsufficientCumulativeQty(mrpLine, firstPass)) {
+        return false;
+      }
+      MrpLine proposalMrpLine =
+          createEngineMrpLine(
+              (long) engineMrpLineList.size() + 1,
+              MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL,
+              MrpLineTypeRepository.TYPE_IN,
+              mrpLine.getMinQty().subtract(mrpLine.getCumulativeQty()),
+              mrpLine.getMaturityDate());
+      engineMrpLineList.add(proposalMrpLine);
+      proposalMrpLineList.add(proposalMrpLine);
+      return true;
+    }
+  }
+
+  protected MrpTimeline createMrpTimeline(List<MrpLine> mrpLineList) {
+    MrpTimeline mrpTimeline = new MrpTimeline(mrpLineList.size());
+    for (MrpLine mrpLine : mrpLineList) {
+      MrpLineType mrpLineType = mrpLine.getMrpLineType();
+      mrpTimeline.addLine(
+          mrpLine.getId(),
+          mrpLine.getQty(),
+          mrpLine.getMinQty(),
+          mrpLineType.getElementSelect(),
+          mrpLineType.getTypeSelect(),
+          mrpService.isProposalElement(mrpLineType),
+          mrpLine.getEstimatedDeliveryMrpLine() != null);
+    }
+    return mrpTimeline;
+  }
+
+  protected List<MrpLine> createRandomMrpLineList(Random random) {
+    List<MrpLine> mrpLineList = new ArrayList<>();
+    for (int index = 0; index < LINE_NB; index++) {
+      MrpLineType mrpLineType = new MrpLineType();
+      mrpLineType.setName("Type");
+      mrpLineType.setElementSelect(
+          1 + random.nextInt(MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL_ESTIMATED_DELIVERY));
+      mrpLineType.setTypeSelect(
+          random.nextBoolean() ? MrpLineTypeRepository.TYPE_IN : MrpLineTypeRepository.TYPE_OUT);
+
+      BigDecimal qty = BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, random.nextInt(5));
+      BigDecimal minQty = BigDecimal.valueOf(random.nextInt(500_000), random.nextInt(3));
+
+      MrpLine mrpLine = new MrpLine();
+      mrpLine.setId((long) index + 1);
+      mrpLine.setProduct(product);
+      mrpLine.setStockLocation(stockLocation);
+      mrpLine.setMrpLineType(mrpLineType);
+      mrpLine.setQty(qty);
+      mrpLine.setMinQty(minQty);
+      if (random.nextInt(4) == 0) {
+        mrpLine.setEstimatedDeliveryMrpLine(new MrpLine());
+      }
+      mrpLineList.add(mrpLine);
+    }
+    return mrpLineList;
+  }
+}